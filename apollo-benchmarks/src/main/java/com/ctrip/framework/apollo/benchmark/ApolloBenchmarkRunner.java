@@ -0,0 +1,174 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.benchmark;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry of the benchmark jar.
+ * <p>
+ * Besides the standard JMH options, it supports:
+ * <ul>
+ *   <li>{@code --result <file>}: where to write the JSON report, defaults to apollo-benchmarks.json</li>
+ *   <li>{@code --baseline <file>}: a JSON report of a previous run to compare with</li>
+ *   <li>{@code --threshold <percent>}: the tolerated regression against the baseline, defaults to 10</li>
+ * </ul>
+ * The process exits with 1 if any benchmark regresses more than the threshold, so it could be used as a
+ * release gate, e.g.
+ * <pre>
+ * java -jar apollo-benchmarks.jar --baseline baseline.json --threshold 5 TypedGetterBenchmark
+ * </pre>
+ */
+public class ApolloBenchmarkRunner {
+
+  private static final String RESULT_OPTION = "--result";
+  private static final String BASELINE_OPTION = "--baseline";
+  private static final String THRESHOLD_OPTION = "--threshold";
+  private static final String DEFAULT_RESULT = "apollo-benchmarks.json";
+  private static final double DEFAULT_THRESHOLD = 10;
+
+  public static void main(String[] args)
+      throws RunnerException, CommandLineOptionException, IOException {
+    String result = DEFAULT_RESULT;
+    String baseline = null;
+    double threshold = DEFAULT_THRESHOLD;
+    List<String> jmhArgs = Lists.newArrayList();
+
+    for (int i = 0; i < args.length; i++) {
+      if (RESULT_OPTION.equals(args[i]) && i + 1 < args.length) {
+        result = args[++i];
+      } else if (BASELINE_OPTION.equals(args[i]) && i + 1 < args.length) {
+        baseline = args[++i];
+      } else if (THRESHOLD_OPTION.equals(args[i]) && i + 1 < args.length) {
+        threshold = Double.parseDouble(args[++i]);
+      } else {
+        jmhArgs.add(args[i]);
+      }
+    }
+
+    CommandLineOptions commandLineOptions = new CommandLineOptions(
+        jmhArgs.toArray(new String[0]));
+    OptionsBuilder builder = new OptionsBuilder();
+    if (commandLineOptions.getIncludes().isEmpty()) {
+      builder.include(ApolloBenchmarkRunner.class.getPackage().getName() + ".*");
+    }
+    Options options = builder.parent(commandLineOptions)
+        .resultFormat(ResultFormatType.JSON)
+        .result(result)
+        .build();
+
+    Collection<RunResult> runResults = new Runner(options).run();
+
+    if (baseline != null) {
+      Map<String, Double> baselineScores = loadScores(baseline);
+      Map<String, Double> currentScores = Maps.newTreeMap();
+      for (RunResult runResult : runResults) {
+        currentScores.put(resultKey(runResult), runResult.getPrimaryResult().getScore());
+      }
+      if (!compare(baselineScores, currentScores, threshold)) {
+        System.exit(1);
+      }
+    }
+  }
+
+  /**
+   * Compare the scores and print the report.
+   *
+   * @return false if any benchmark regressed more than the threshold
+   */
+  static boolean compare(Map<String, Double> baselineScores, Map<String, Double> currentScores,
+      double threshold) {
+    boolean passed = true;
+    System.out.println();
+    System.out.printf("%-100s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+    for (Map.Entry<String, Double> entry : currentScores.entrySet()) {
+      Double baselineScore = baselineScores.get(entry.getKey());
+      if (baselineScore == null || baselineScore == 0) {
+        System.out.printf("%-100s %14s %14.3f %9s%n", entry.getKey(), "-", entry.getValue(), "new");
+        continue;
+      }
+      double change = (entry.getValue() - baselineScore) / baselineScore * 100;
+      // throughput is better when higher, while the other modes measure time
+      double regression = isThroughput(entry.getKey()) ? -change : change;
+      boolean regressed = regression > threshold;
+      passed &= !regressed;
+      System.out.printf("%-100s %14.3f %14.3f %+8.2f%%%s%n", entry.getKey(), baselineScore,
+          entry.getValue(), change, regressed ? " REGRESSION" : "");
+    }
+    System.out.println(passed ? "No regression found." :
+        String.format("Regression over %.2f%% found!", threshold));
+    return passed;
+  }
+
+  static Map<String, Double> loadScores(String file) throws IOException {
+    Map<String, Double> scores = Maps.newTreeMap();
+    try (Reader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+      for (JsonElement element : JsonParser.parseReader(reader).getAsJsonArray()) {
+        JsonObject benchmark = element.getAsJsonObject();
+        Map<String, String> params = new TreeMap<>();
+        if (benchmark.has("params")) {
+          for (Map.Entry<String, JsonElement> param : benchmark.getAsJsonObject("params")
+              .entrySet()) {
+            params.put(param.getKey(), param.getValue().getAsString());
+          }
+        }
+        scores.put(resultKey(benchmark.get("benchmark").getAsString(),
+            benchmark.get("mode").getAsString(), params),
+            benchmark.getAsJsonObject("primaryMetric").get("score").getAsDouble());
+      }
+    }
+    return scores;
+  }
+
+  private static String resultKey(RunResult runResult) {
+    Map<String, String> params = new TreeMap<>();
+    for (String key : runResult.getParams().getParamsKeys()) {
+      params.put(key, runResult.getParams().getParam(key));
+    }
+    return resultKey(runResult.getParams().getBenchmark(),
+        runResult.getParams().getMode().shortLabel(), params);
+  }
+
+  private static String resultKey(String benchmark, String mode, Map<String, String> params) {
+    return benchmark + params + " " + mode;
+  }
+
+  private static boolean isThroughput(String resultKey) {
+    return resultKey.endsWith(" thrpt");
+  }
+}
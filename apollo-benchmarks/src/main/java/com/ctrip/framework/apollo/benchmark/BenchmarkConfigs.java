@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.benchmark;
+
+import com.ctrip.framework.apollo.internals.DefaultConfig;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared fixtures of the benchmarks, all configs are built upon {@link InMemoryConfigRepository}.
+ */
+public final class BenchmarkConfigs {
+
+  public static final String APP_ID = "apollo-benchmarks";
+  public static final String NAMESPACE = "application";
+  public static final String MISSING_KEY = "apollo.benchmark.missing.key";
+
+  static {
+    // let ConfigUtil resolve the app id without any app.properties on the classpath
+    System.setProperty("app.id", APP_ID);
+  }
+
+  private BenchmarkConfigs() {
+  }
+
+  public static String stringKey(int index) {
+    return "string.key." + index;
+  }
+
+  public static String intKey(int index) {
+    return "int.key." + index;
+  }
+
+  public static String arrayKey(int index) {
+    return "array.key." + index;
+  }
+
+  public static String enumKey(int index) {
+    return "enum.key." + index;
+  }
+
+  public static String dateKey(int index) {
+    return "date.key." + index;
+  }
+
+  /**
+   * Build a namespace with {@code keyCount} keys of each supported type.
+   *
+   * @param keyCount the number of keys per type
+   * @param release distinguishes the values of different releases
+   * @return the properties
+   */
+  public static Properties buildProperties(int keyCount, int release) {
+    TimeUnit[] timeUnits = TimeUnit.values();
+    Properties properties = new Properties();
+    for (int i = 0; i < keyCount; i++) {
+      properties.setProperty(stringKey(i), "value-" + i + "-" + release);
+      properties.setProperty(intKey(i), String.valueOf(i + release));
+      properties.setProperty(arrayKey(i), "a,b,c,d," + release);
+      properties.setProperty(enumKey(i), timeUnits[(i + release) % timeUnits.length].name());
+      properties.setProperty(dateKey(i), String.format("2024-01-%02d 10:00:00", i % 28 + 1));
+    }
+    return properties;
+  }
+
+  public static InMemoryConfigRepository newRepository(int keyCount) {
+    return new InMemoryConfigRepository(APP_ID, NAMESPACE, buildProperties(keyCount, 0));
+  }
+
+  public static DefaultConfig newConfig(InMemoryConfigRepository repository) {
+    return new DefaultConfig(APP_ID, NAMESPACE, repository);
+  }
+}
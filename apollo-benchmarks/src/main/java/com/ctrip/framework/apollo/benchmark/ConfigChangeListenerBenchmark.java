@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.benchmark;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.enums.PropertyChangeType;
+import com.ctrip.framework.apollo.internals.DefaultConfig;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of matching config changes against many listeners with interested keys and prefixes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigChangeListenerBenchmark {
+
+  // 5 keys per index, i.e. a namespace with 50k keys
+  private static final int KEY_COUNT = 10000;
+  private static final int CHANGE_BATCHES = 16;
+
+  @Param({"10000"})
+  public int listenerCount;
+
+  @Param({"1", "100"})
+  public int changedKeyCount;
+
+  private ListenerDispatchingConfig config;
+  private Map<String, ConfigChange>[] changeBatches;
+  private int batchIndex;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    config = new ListenerDispatchingConfig(BenchmarkConfigs.newRepository(KEY_COUNT));
+    ConfigChangeListener listener = changeEvent -> {
+    };
+    for (int i = 0; i < listenerCount; i++) {
+      // the same listener instance is registered only once, so each registration needs its own
+      ConfigChangeListener registration = changeEvent -> listener.onChange(changeEvent);
+      if ((i & 1) == 0) {
+        config.addChangeListener(registration,
+            Collections.singleton(BenchmarkConfigs.stringKey(i % KEY_COUNT)));
+      } else {
+        config.addChangeListener(registration, null,
+            Collections.singleton(BenchmarkConfigs.intKey(i % KEY_COUNT)));
+      }
+    }
+
+    changeBatches = new Map[CHANGE_BATCHES];
+    for (int batch = 0; batch < CHANGE_BATCHES; batch++) {
+      Map<String, ConfigChange> changes = new HashMap<>();
+      for (int i = 0; i < changedKeyCount; i++) {
+        int index = (batch * changedKeyCount + i) * 7 % KEY_COUNT;
+        // spread the changes over matched and unmatched keys of different types
+        String key = (i % 3 == 0) ? BenchmarkConfigs.stringKey(index)
+            : (i % 3 == 1) ? BenchmarkConfigs.intKey(index) : BenchmarkConfigs.dateKey(index);
+        changes.put(key, new ConfigChange(BenchmarkConfigs.APP_ID, BenchmarkConfigs.NAMESPACE, key,
+            "old", "new", PropertyChangeType.MODIFIED));
+      }
+      changeBatches[batch] = changes;
+    }
+  }
+
+  @Benchmark
+  public void fireConfigChange() {
+    config.fire(changeBatches[batchIndex++ & (CHANGE_BATCHES - 1)]);
+  }
+
+  private static class ListenerDispatchingConfig extends DefaultConfig {
+
+    private ListenerDispatchingConfig(InMemoryConfigRepository repository) {
+      super(BenchmarkConfigs.APP_ID, BenchmarkConfigs.NAMESPACE, repository);
+    }
+
+    private void fire(Map<String, ConfigChange> changes) {
+      fireConfigChange(BenchmarkConfigs.APP_ID, BenchmarkConfigs.NAMESPACE, changes);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.benchmark;
+
+import com.ctrip.framework.apollo.spring.config.ConfigPropertySource;
+import com.ctrip.framework.apollo.spring.config.ConfigPropertySourceFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link ConfigPropertySource}, which is what Spring queries for every placeholder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigPropertySourceBenchmark {
+
+  @Param({"100", "10000"})
+  public int keyCount;
+
+  private ConfigPropertySource propertySource;
+  private String[] keys;
+
+  @Setup
+  public void setUp() {
+    propertySource = new ConfigPropertySourceFactory().getConfigPropertySource(
+        BenchmarkConfigs.NAMESPACE,
+        BenchmarkConfigs.newConfig(BenchmarkConfigs.newRepository(keyCount)));
+    keys = new String[keyCount];
+    for (int i = 0; i < keyCount; i++) {
+      keys[i] = BenchmarkConfigs.stringKey(i);
+    }
+  }
+
+  @Benchmark
+  public Object getProperty(KeyCursor cursor) {
+    return propertySource.getProperty(keys[cursor.next(keyCount)]);
+  }
+
+  @Benchmark
+  public boolean containsMissingProperty() {
+    return propertySource.containsProperty(BenchmarkConfigs.MISSING_KEY);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Object getPropertyContended(KeyCursor cursor) {
+    return propertySource.getProperty(keys[cursor.next(keyCount)]);
+  }
+
+  @Benchmark
+  public String[] getPropertyNames() {
+    return propertySource.getPropertyNames();
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.benchmark;
+
+import com.ctrip.framework.apollo.internals.DefaultConfig;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link DefaultConfig#getProperty(String, String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DefaultConfigBenchmark {
+
+  @Param({"100", "10000"})
+  public int keyCount;
+
+  private InMemoryConfigRepository repository;
+  private DefaultConfig config;
+  private String[] keys;
+  private Properties[] releases;
+  private int releaseIndex;
+
+  @Setup
+  public void setUp() {
+    repository = BenchmarkConfigs.newRepository(keyCount);
+    config = BenchmarkConfigs.newConfig(repository);
+    keys = new String[keyCount];
+    for (int i = 0; i < keyCount; i++) {
+      keys[i] = BenchmarkConfigs.stringKey(i);
+    }
+    releases = new Properties[]{BenchmarkConfigs.buildProperties(keyCount, 1),
+        BenchmarkConfigs.buildProperties(keyCount, 0)};
+  }
+
+  @Benchmark
+  public String getProperty(KeyCursor cursor) {
+    return config.getProperty(keys[cursor.next(keyCount)], null);
+  }
+
+  @Benchmark
+  public String getMissingProperty() {
+    // walks through system properties, repository, env and classpath resource
+    return config.getProperty(BenchmarkConfigs.MISSING_KEY, "default");
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String getPropertyContended(KeyCursor cursor) {
+    return config.getProperty(keys[cursor.next(keyCount)], null);
+  }
+
+  @Benchmark
+  @Group("readWhileRelease")
+  @GroupThreads(7)
+  public String readWhileRelease(KeyCursor cursor) {
+    return config.getProperty(keys[cursor.next(keyCount)], null);
+  }
+
+  @Benchmark
+  @Group("readWhileRelease")
+  @GroupThreads(1)
+  public void release() {
+    // only one release thread in the group, so the index needs no synchronization
+    repository.publish(releases[releaseIndex++ & 1]);
+  }
+}
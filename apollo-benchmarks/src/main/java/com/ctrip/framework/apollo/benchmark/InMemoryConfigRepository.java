@@ -0,0 +1,68 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.benchmark;
+
+import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.internals.AbstractConfigRepository;
+import com.ctrip.framework.apollo.internals.ConfigRepository;
+import java.util.Properties;
+
+/**
+ * A config repository backed by memory, so the benchmarks never touch the network or the disk.
+ */
+public class InMemoryConfigRepository extends AbstractConfigRepository {
+
+  private final String m_appId;
+  private final String m_namespace;
+  private volatile Properties m_properties;
+
+  public InMemoryConfigRepository(String appId, String namespace, Properties properties) {
+    m_appId = appId;
+    m_namespace = namespace;
+    m_properties = properties;
+  }
+
+  /**
+   * Replace the whole content of this repository and notify the listeners, just like a new release.
+   *
+   * @param properties the new properties
+   */
+  public void publish(Properties properties) {
+    m_properties = properties;
+    this.fireRepositoryChange(m_appId, m_namespace, properties);
+  }
+
+  @Override
+  protected void sync() {
+    // nothing to sync
+  }
+
+  @Override
+  public Properties getConfig() {
+    return m_properties;
+  }
+
+  @Override
+  public void setUpstreamRepository(ConfigRepository upstreamConfigRepository) {
+    // no upstream
+  }
+
+  @Override
+  public ConfigSourceType getSourceType() {
+    return ConfigSourceType.LOCAL;
+  }
+}
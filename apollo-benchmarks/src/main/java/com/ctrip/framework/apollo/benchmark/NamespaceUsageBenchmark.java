@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.benchmark;
+
+import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorConstant.APOLLO_CLIENT_NAMESPACE_USAGE;
+
+import com.ctrip.framework.apollo.core.ApolloClientSystemConsts;
+import com.ctrip.framework.apollo.internals.NamespaceUsageRecorder;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of accounting the namespace usages from many threads, as
+ * {@link com.ctrip.framework.apollo.internals.DefaultConfigManager#getConfig(String)} does, with
+ * the client monitor enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = "-D" + ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_ENABLED
+    + "=true")
+public class NamespaceUsageBenchmark {
+
+  private static final String NAMESPACE = "application";
+
+  private NamespaceUsageRecorder recorder;
+
+  @Setup
+  public void setUp() {
+    recorder = new NamespaceUsageRecorder();
+  }
+
+  @TearDown(Level.Iteration)
+  public void flush() {
+    recorder.flush();
+  }
+
+  /**
+   * The previous accounting, which reports each usage to the tracer.
+   */
+  @Benchmark
+  public void reportPerUsage() {
+    Tracer.logMetricsForCount(APOLLO_CLIENT_NAMESPACE_USAGE + ":" + NAMESPACE);
+  }
+
+  @Benchmark
+  public void recordUsage() {
+    recorder.record(NAMESPACE);
+  }
+}
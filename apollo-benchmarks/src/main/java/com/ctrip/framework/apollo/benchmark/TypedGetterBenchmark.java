@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.benchmark;
+
+import com.ctrip.framework.apollo.internals.AbstractConfig;
+import com.ctrip.framework.apollo.internals.DefaultConfig;
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the typed getters in {@link AbstractConfig}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypedGetterBenchmark {
+
+  private static final String DELIMITER = ",";
+  private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+  @Param({"100", "10000"})
+  public int keyCount;
+
+  private InMemoryConfigRepository repository;
+  private DefaultConfig config;
+  private String[] intKeys;
+  private String[] arrayKeys;
+  private String[] enumKeys;
+  private String[] dateKeys;
+  private Properties[] releases;
+  private int releaseIndex;
+
+  @Setup
+  public void setUp() {
+    repository = BenchmarkConfigs.newRepository(keyCount);
+    config = BenchmarkConfigs.newConfig(repository);
+    intKeys = new String[keyCount];
+    arrayKeys = new String[keyCount];
+    enumKeys = new String[keyCount];
+    dateKeys = new String[keyCount];
+    for (int i = 0; i < keyCount; i++) {
+      intKeys[i] = BenchmarkConfigs.intKey(i);
+      arrayKeys[i] = BenchmarkConfigs.arrayKey(i);
+      enumKeys[i] = BenchmarkConfigs.enumKey(i);
+      dateKeys[i] = BenchmarkConfigs.dateKey(i);
+    }
+    releases = new Properties[]{BenchmarkConfigs.buildProperties(keyCount, 1),
+        BenchmarkConfigs.buildProperties(keyCount, 0)};
+  }
+
+  @Benchmark
+  public Integer getIntProperty(KeyCursor cursor) {
+    return config.getIntProperty(intKeys[cursor.next(keyCount)], -1);
+  }
+
+  @Benchmark
+  public String[] getArrayProperty(KeyCursor cursor) {
+    return config.getArrayProperty(arrayKeys[cursor.next(keyCount)], DELIMITER, null);
+  }
+
+  @Benchmark
+  public TimeUnit getEnumProperty(KeyCursor cursor) {
+    return config.getEnumProperty(enumKeys[cursor.next(keyCount)], TimeUnit.class, null);
+  }
+
+  @Benchmark
+  public Date getDateProperty(KeyCursor cursor) {
+    return config.getDateProperty(dateKeys[cursor.next(keyCount)], null);
+  }
+
+  @Benchmark
+  public Date getDatePropertyWithFormat(KeyCursor cursor) {
+    return config.getDateProperty(dateKeys[cursor.next(keyCount)], DATE_FORMAT, null);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Integer getIntPropertyContended(KeyCursor cursor) {
+    return config.getIntProperty(intKeys[cursor.next(keyCount)], -1);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String[] getArrayPropertyContended(KeyCursor cursor) {
+    return config.getArrayProperty(arrayKeys[cursor.next(keyCount)], DELIMITER, null);
+  }
+
+  @Benchmark
+  @Group("readWhileRelease")
+  @GroupThreads(7)
+  public Integer readWhileRelease(KeyCursor cursor) {
+    return config.getIntProperty(intKeys[cursor.next(keyCount)], -1);
+  }
+
+  @Benchmark
+  @Group("readWhileRelease")
+  @GroupThreads(1)
+  public void release() {
+    // each release clears the typed caches, so the readers keep re-populating them
+    repository.publish(releases[releaseIndex++ & 1]);
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.benchmark;
+
+import com.ctrip.framework.apollo.util.yaml.YamlParser;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link YamlParser#yamlToProperties(String)} on multi-megabyte yaml namespaces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class YamlParserBenchmark {
+
+  private static final int CHANGED_SECTION = 7;
+
+  // each section is about 1KB
+  @Param({"1000", "5000"})
+  public int sectionCount;
+
+  private YamlParser parser;
+  private String[] releases;
+  private int releaseIndex;
+
+  @Setup
+  public void setUp() {
+    parser = new YamlParser();
+    releases = new String[]{buildYaml(sectionCount, 0), buildYaml(sectionCount, 1)};
+  }
+
+  /**
+   * Parse a namespace which has no section in common with the previous releases.
+   */
+  @Benchmark
+  public Properties parseNewNamespace() {
+    return new YamlParser().yamlToProperties(releases[0]);
+  }
+
+  /**
+   * Parse a new release of the namespace, in which only one section is changed.
+   */
+  @Benchmark
+  public Properties parseRelease() {
+    return parser.yamlToProperties(releases[releaseIndex++ & 1]);
+  }
+
+  private static String buildYaml(int sectionCount, int release) {
+    StringBuilder yaml = new StringBuilder(sectionCount * 1024);
+    for (int i = 0; i < sectionCount; i++) {
+      yaml.append("section").append(i).append(":\n");
+      yaml.append("  name: section-").append(i).append('\n');
+      yaml.append("  version: ").append(i == CHANGED_SECTION ? release : 0).append('\n');
+      yaml.append("  datasource:\n");
+      yaml.append("    url: jdbc:mysql://localhost:3306/db").append(i).append('\n');
+      yaml.append("    username: user").append(i).append('\n');
+      yaml.append("    pool:\n");
+      yaml.append("      max-active: 20\n");
+      yaml.append("      max-idle: 10\n");
+      yaml.append("  servers:\n");
+      for (int j = 0; j < 10; j++) {
+        yaml.append("  - host: host-").append(i).append('-').append(j).append(".example.com\n");
+        yaml.append("    port: ").append(8080 + j).append('\n');
+        yaml.append("    weight: ").append(j).append('\n');
+      }
+      yaml.append("  description: \"").append(repeat('x', 200)).append("\"\n");
+    }
+    return yaml.toString();
+  }
+
+  private static String repeat(char c, int count) {
+    char[] chars = new char[count];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+}
@@ -19,9 +19,6 @@ package com.ctrip.framework.apollo.config.data.internals;
 import com.ctrip.framework.apollo.internals.ConfigRepository;
 import com.ctrip.framework.apollo.internals.DefaultConfig;
 import com.ctrip.framework.apollo.internals.RepositoryChangeListener;
-import com.google.common.collect.Sets;
-import java.util.Set;
-import org.springframework.util.CollectionUtils;
 
 /**
  * @author vdisk <vdisk@foxmail.com>
@@ -65,22 +62,4 @@ public class PureApolloConfig extends DefaultConfig implements RepositoryChangeL
 
     return value == null ? defaultValue : value;
   }
-
-  @Override
-  public Set<String> getPropertyNames() {
-    // pure apollo config only contains the property from repository and the property from additional
-    Set<String> fromRepository = this.getPropertyNamesFromRepository();
-    Set<String> fromAdditional = this.getPropertyNamesFromAdditional();
-    if (CollectionUtils.isEmpty(fromRepository)) {
-      return fromAdditional;
-    }
-    if (CollectionUtils.isEmpty(fromAdditional)) {
-      return fromRepository;
-    }
-    Set<String> propertyNames = Sets
-        .newLinkedHashSetWithExpectedSize(fromRepository.size() + fromAdditional.size());
-    propertyNames.addAll(fromRepository);
-    propertyNames.addAll(fromAdditional);
-    return propertyNames;
-  }
 }
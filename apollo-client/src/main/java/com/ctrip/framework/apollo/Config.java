@@ -22,6 +22,7 @@ import com.google.common.base.Function;
 import java.util.Date;
 import java.util.Locale;
 import java.util.Set;
+import org.slf4j.LoggerFactory;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
@@ -224,7 +225,49 @@ public interface Config {
   boolean removeChangeListener(ConfigChangeListener listener);
 
   /**
-   * Return a set of the property names
+   * Add a constraint for the key, a later change of the key violating it is rejected: the last
+   * good value is kept and no change event is fired for the key. A rejected value still released is
+   * rejected again on every sync, but is reported only once.
+   * <p>
+   * The constraint only applies to the releases received after it is added, the current value,
+   * including the one of the initial load, is never rejected: it is only checked and logged as a
+   * warning if it violates the constraint.
+   * <p>
+   * Only the {@link com.ctrip.framework.apollo.internals.DefaultConfig} supports constraints, the
+   * other configs, e.g. {@link com.ctrip.framework.apollo.internals.SimpleConfig}, log a warning
+   * and ignore them.
+   *
+   * @param key        the property name
+   * @param constraint the constraint, see {@link ConfigValueConstraints} for the common ones
+   *
+   * @since 2.6.0
+   */
+  default void addConstraint(String key, ConfigValueConstraint constraint) {
+    LoggerFactory.getLogger(Config.class).warn(
+        "Constraints are not supported by {}, ignore the constraint of {}", getClass(), key);
+  }
+
+  /**
+   * Add a constraint for all the keys starting with the prefix, e.g. "timeout." means the keys such
+   * as "timeout.read" and "timeout.connect", a later change of these keys violating it is rejected
+   * the same way as {@link #addConstraint(String, ConfigValueConstraint)}, which also applies only
+   * to the releases received after it is added.
+   *
+   * @param keyPrefix  the key prefix
+   * @param constraint the constraint, see {@link ConfigValueConstraints} for the common ones
+   *
+   * @since 2.6.0
+   */
+  default void addPrefixConstraint(String keyPrefix, ConfigValueConstraint constraint) {
+    LoggerFactory.getLogger(Config.class).warn(
+        "Constraints are not supported by {}, ignore the constraint of prefix {}", getClass(),
+        keyPrefix);
+  }
+
+  /**
+   * Return a set of the property names, the set might be unmodifiable and shared between the
+   * callers, e.g. the one returned by the default implementation since 2.6.0 throws
+   * {@link UnsupportedOperationException} when modified, copy it before modifying.
    *
    * @return the property names
    */
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo;
+
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.util.function.Functions;
+import com.google.common.base.CaseFormat;
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Binds the keys under a prefix of a {@link Config} to a plain java object, without any framework.
+ * <p>
+ * For the prefix "db", the key "db.url" is bound to the property "url" of the object, a property
+ * could also be written in kebab case, e.g. "db.max-pool-size" for "maxPoolSize". A property is
+ * set through its setter if there is one, otherwise through its field, and keeps the value set by
+ * the no-arg constructor if no key is found for it. The supported property types are:
+ * <ul>
+ *   <li>String, the primitives and their wrappers, enums, {@link Duration} and {@link Date}, parsed
+ *   the same way as the typed getters of {@link Config}</li>
+ *   <li>nested objects, e.g. "db.pool.size"</li>
+ *   <li>lists and sets, either indexed like "db.hosts[0]" and "db.replicas[0].url", or a comma
+ *   separated value like "db.hosts=a,b"</li>
+ *   <li>maps with string keys, e.g. "db.weights.a" and "db.pools.a.size"</li>
+ * </ul>
+ * The lists, sets and maps bound are unmodifiable.
+ *
+ * @since 2.6.0
+ */
+public final class ConfigBinder {
+
+  private static final Splitter COMMA_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+  private static final Map<Class<?>, Function<String, ?>> SCALAR_PARSERS =
+      ImmutableMap.<Class<?>, Function<String, ?>>builder()
+          .put(String.class, value -> value)
+          .put(int.class, Functions.TO_INT_FUNCTION)
+          .put(Integer.class, Functions.TO_INT_FUNCTION)
+          .put(long.class, Functions.TO_LONG_FUNCTION)
+          .put(Long.class, Functions.TO_LONG_FUNCTION)
+          .put(short.class, Functions.TO_SHORT_FUNCTION)
+          .put(Short.class, Functions.TO_SHORT_FUNCTION)
+          .put(float.class, Functions.TO_FLOAT_FUNCTION)
+          .put(Float.class, Functions.TO_FLOAT_FUNCTION)
+          .put(double.class, Functions.TO_DOUBLE_FUNCTION)
+          .put(Double.class, Functions.TO_DOUBLE_FUNCTION)
+          .put(byte.class, Functions.TO_BYTE_FUNCTION)
+          .put(Byte.class, Functions.TO_BYTE_FUNCTION)
+          .put(boolean.class, Functions.TO_BOOLEAN_FUNCTION)
+          .put(Boolean.class, Functions.TO_BOOLEAN_FUNCTION)
+          .put(Duration.class, value -> Duration.ofMillis(Functions.TO_DURATION_FUNCTION.apply(value)))
+          .put(Date.class, Functions.TO_DATE_FUNCTION)
+          .build();
+  private static final ConcurrentMap<Class<?>, List<BeanProperty>> BEAN_PROPERTIES =
+      Maps.newConcurrentMap();
+
+  private ConfigBinder() {
+  }
+
+  /**
+   * Bind the keys under the prefix to a new object of the type, and rebind a new object whenever
+   * these keys change. A rebinding failure, e.g. a malformed value, is logged and the last bound
+   * object is kept.
+   *
+   * @param config the config
+   * @param prefix the prefix without the trailing dot, e.g. "db", or empty for the whole config
+   * @param type   the type of the object, which must have a no-arg constructor
+   * @return the binding holding the latest bound object
+   * @throws ApolloConfigException if the initial binding fails
+   */
+  public static <T> ConfigBinding<T> bind(Config config, String prefix, Class<T> type) {
+    Preconditions.checkNotNull(config, "config cannot be null");
+    Preconditions.checkNotNull(prefix, "prefix cannot be null");
+    Preconditions.checkNotNull(type, "type cannot be null");
+    return new ConfigBinding<>(config, prefix, () -> bindOnce(config, prefix, type));
+  }
+
+  /**
+   * Bind the keys under the prefix to a new object of the type once.
+   *
+   * @param config the config
+   * @param prefix the prefix without the trailing dot, e.g. "db", or empty for the whole config
+   * @param type   the type of the object, which must have a no-arg constructor
+   * @return the bound object
+   * @throws ApolloConfigException if the binding fails
+   */
+  public static <T> T bindOnce(Config config, String prefix, Class<T> type) {
+    return type.cast(new Binder(config).bindBean(prefix, type));
+  }
+
+  private static class Binder {
+
+    private final Config config;
+    // the property names are read once per binding
+    private final Set<String> propertyNames;
+
+    Binder(Config config) {
+      this.config = config;
+      this.propertyNames = config.getPropertyNames();
+    }
+
+    /**
+     * @return the bound value, null if there is no key for it
+     */
+    Object bindValue(String key, Type type) {
+      Class<?> rawType = rawType(key, type);
+      if (isScalar(rawType)) {
+        String value = config.getProperty(key, null);
+        return value == null ? null : parseScalar(key, value, rawType);
+      }
+      if (Collection.class.isAssignableFrom(rawType)) {
+        return bindCollection(key, rawType, typeArgument(key, type, 0));
+      }
+      if (Map.class.isAssignableFrom(rawType)) {
+        if (typeArgument(key, type, 0) != String.class) {
+          throw new ApolloConfigException(
+              String.format("Bind %s failed, only maps with string keys are supported", key));
+        }
+        return bindMap(key, typeArgument(key, type, 1));
+      }
+      return hasKeysUnder(key) ? bindBean(key, rawType) : null;
+    }
+
+    Object bindBean(String prefix, Class<?> type) {
+      Object bean = newInstance(prefix, type);
+      for (BeanProperty property : beanProperties(type)) {
+        String key = child(prefix, property.name);
+        if (!hasKey(key)) {
+          key = child(prefix, property.kebabName);
+          if (!hasKey(key)) {
+            continue;
+          }
+        }
+        Object value = bindValue(key, property.type);
+        if (value != null) {
+          property.set(key, bean, value);
+        }
+      }
+      return bean;
+    }
+
+    private Object bindCollection(String key, Class<?> rawType, Type elementType) {
+      List<Object> elements = Lists.newArrayList();
+      SortedSet<Integer> indexes = Sets.newTreeSet();
+      String indexedPrefix = key + "[";
+      for (String propertyName : propertyNames) {
+        int end = propertyName.indexOf(']', indexedPrefix.length());
+        if (propertyName.startsWith(indexedPrefix) && end > 0) {
+          try {
+            indexes.add(Integer.parseInt(propertyName.substring(indexedPrefix.length(), end)));
+          } catch (NumberFormatException ex) {
+            // not an index
+          }
+        }
+      }
+
+      if (!indexes.isEmpty()) {
+        for (Integer index : indexes) {
+          Object element = bindValue(key + "[" + index + "]", elementType);
+          if (element != null) {
+            elements.add(element);
+          }
+        }
+      } else {
+        String value = config.getProperty(key, null);
+        if (value == null) {
+          return null;
+        }
+        Class<?> elementRawType = rawType(key, elementType);
+        if (!isScalar(elementRawType)) {
+          throw new ApolloConfigException(String.format(
+              "Bind %s failed, only scalar elements could be comma separated", key));
+        }
+        for (String element : COMMA_SPLITTER.split(value)) {
+          elements.add(parseScalar(key, element, elementRawType));
+        }
+      }
+
+      if (Set.class.isAssignableFrom(rawType)) {
+        return Collections.unmodifiableSet(Sets.newLinkedHashSet(elements));
+      }
+      return Collections.unmodifiableList(elements);
+    }
+
+    private Object bindMap(String key, Type valueType) {
+      String keyPrefix = key + ".";
+      boolean scalar = isScalar(rawType(key, valueType));
+      Set<String> mapKeys = Sets.newLinkedHashSet();
+      for (String propertyName : propertyNames) {
+        if (!propertyName.startsWith(keyPrefix)) {
+          continue;
+        }
+        String mapKey = propertyName.substring(keyPrefix.length());
+        if (!scalar) {
+          // the nested keys of the same map value
+          int end = indexOfAny(mapKey, '.', '[');
+          mapKey = end < 0 ? mapKey : mapKey.substring(0, end);
+        }
+        mapKeys.add(mapKey);
+      }
+      if (mapKeys.isEmpty()) {
+        return null;
+      }
+
+      Map<String, Object> map = Maps.newLinkedHashMap();
+      for (String mapKey : mapKeys) {
+        Object value = bindValue(keyPrefix + mapKey, valueType);
+        if (value != null) {
+          map.put(mapKey, value);
+        }
+      }
+      return Collections.unmodifiableMap(map);
+    }
+
+    private boolean hasKey(String key) {
+      return config.getProperty(key, null) != null || hasKeysUnder(key);
+    }
+
+    private boolean hasKeysUnder(String key) {
+      String nestedPrefix = key + ".";
+      String indexedPrefix = key + "[";
+      for (String propertyName : propertyNames) {
+        if (propertyName.startsWith(nestedPrefix) || propertyName.startsWith(indexedPrefix)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static class BeanProperty {
+
+    private final String name;
+    private final String kebabName;
+    private final Type type;
+    private final Field field;
+    private final Method setter;
+
+    BeanProperty(Field field, Method setter) {
+      this.name = field.getName();
+      this.kebabName = CaseFormat.LOWER_CAMEL.to(CaseFormat.LOWER_HYPHEN, name);
+      this.type = field.getGenericType();
+      this.field = field;
+      this.setter = setter;
+    }
+
+    void set(String key, Object bean, Object value) {
+      try {
+        if (setter != null) {
+          setter.invoke(bean, value);
+        } else {
+          field.set(bean, value);
+        }
+      } catch (Throwable ex) {
+        throw new ApolloConfigException(String.format("Bind %s failed", key), ex);
+      }
+    }
+  }
+
+  private static List<BeanProperty> beanProperties(Class<?> type) {
+    List<BeanProperty> properties = BEAN_PROPERTIES.get(type);
+    if (properties == null) {
+      properties = resolveBeanProperties(type);
+      BEAN_PROPERTIES.putIfAbsent(type, properties);
+    }
+    return properties;
+  }
+
+  private static List<BeanProperty> resolveBeanProperties(Class<?> type) {
+    Map<String, Method> setters = Maps.newHashMap();
+    for (Method method : type.getMethods()) {
+      if (method.getName().startsWith("set") && method.getParameterCount() == 1
+          && !Modifier.isStatic(method.getModifiers())) {
+        setters.put(method.getName() + ":" + method.getParameterTypes()[0].getName(), method);
+      }
+    }
+
+    ImmutableList.Builder<BeanProperty> properties = ImmutableList.builder();
+    Set<String> names = Sets.newHashSet();
+    for (Class<?> clazz = type; clazz != null && clazz != Object.class;
+        clazz = clazz.getSuperclass()) {
+      for (Field field : clazz.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)
+            || Modifier.isTransient(modifiers) || field.isSynthetic()
+            || !names.add(field.getName())) {
+          continue;
+        }
+        String setterName = "set" + Character.toUpperCase(field.getName().charAt(0))
+            + field.getName().substring(1);
+        Method setter = setters.get(setterName + ":" + field.getType().getName());
+        if (setter == null) {
+          field.setAccessible(true);
+        } else {
+          // the setter of a non-public class is not accessible otherwise
+          setter.setAccessible(true);
+        }
+        properties.add(new BeanProperty(field, setter));
+      }
+    }
+    return properties.build();
+  }
+
+  private static Object newInstance(String key, Class<?> type) {
+    try {
+      Constructor<?> constructor = type.getDeclaredConstructor();
+      constructor.setAccessible(true);
+      return constructor.newInstance();
+    } catch (Throwable ex) {
+      throw new ApolloConfigException(String.format(
+          "Bind %s failed, %s should have a no-arg constructor", key, type.getName()), ex);
+    }
+  }
+
+  private static boolean isScalar(Class<?> type) {
+    return SCALAR_PARSERS.containsKey(type) || type.isEnum();
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Object parseScalar(String key, String value, Class<?> type) {
+    try {
+      if (type.isEnum()) {
+        return Enum.valueOf((Class) type, value);
+      }
+      return SCALAR_PARSERS.get(type).apply(value);
+    } catch (Throwable ex) {
+      throw new ApolloConfigException(String.format("Bind %s failed, value '%s' is not a valid %s",
+          key, value, type.getSimpleName()), ex);
+    }
+  }
+
+  private static Class<?> rawType(String key, Type type) {
+    if (type instanceof Class) {
+      return (Class<?>) type;
+    }
+    if (type instanceof ParameterizedType) {
+      return (Class<?>) ((ParameterizedType) type).getRawType();
+    }
+    throw new ApolloConfigException(String.format("Bind %s failed, unsupported type %s", key,
+        type));
+  }
+
+  private static Type typeArgument(String key, Type type, int index) {
+    if (!(type instanceof ParameterizedType)) {
+      throw new ApolloConfigException(String.format(
+          "Bind %s failed, the type arguments of %s should be specified", key, type));
+    }
+    return ((ParameterizedType) type).getActualTypeArguments()[index];
+  }
+
+  private static String child(String prefix, String name) {
+    return prefix.isEmpty() ? name : prefix + "." + name;
+  }
+
+  private static int indexOfAny(String value, char first, char second) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == first || c == second) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
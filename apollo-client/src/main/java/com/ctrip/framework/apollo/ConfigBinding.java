@@ -0,0 +1,95 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo;
+
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.util.ExceptionUtil;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The holder of an object bound by {@link ConfigBinder}, a new instance is bound and published
+ * whenever the keys under the prefix change.
+ * <p>
+ * A published instance is never modified afterwards, so callers should read {@link #get()} again
+ * instead of keeping the instance if they want the latest configurations.
+ *
+ * @param <T> the type of the bound object
+ * @since 2.6.0
+ */
+public class ConfigBinding<T> {
+
+  private static final Logger logger = LoggerFactory.getLogger(ConfigBinding.class);
+
+  private final Config m_config;
+  private final String m_prefix;
+  private final Supplier<T> m_binder;
+  private final AtomicReference<T> m_current;
+  private final ConfigChangeListener m_changeListener;
+
+  ConfigBinding(Config config, String prefix, Supplier<T> binder) {
+    m_config = config;
+    m_prefix = prefix;
+    m_binder = binder;
+    m_current = new AtomicReference<>();
+    m_changeListener = this::onChange;
+    // listen before the initial bind, so that a change in between is not missed
+    if (prefix.isEmpty()) {
+      config.addChangeListener(m_changeListener);
+    } else {
+      config.addChangeListener(m_changeListener, null, Collections.singleton(prefix + "."));
+    }
+    T initial;
+    try {
+      initial = binder.get();
+    } catch (RuntimeException | Error ex) {
+      config.removeChangeListener(m_changeListener);
+      throw ex;
+    }
+    // a rebind already done by the listener is at least as new as the initial one
+    m_current.compareAndSet(null, initial);
+  }
+
+  /**
+   * @return the object bound with the latest configurations
+   */
+  public T get() {
+    return m_current.get();
+  }
+
+  /**
+   * Stop rebinding on config changes, {@link #get()} keeps returning the last bound object.
+   */
+  public void close() {
+    m_config.removeChangeListener(m_changeListener);
+  }
+
+  private void onChange(ConfigChangeEvent changeEvent) {
+    try {
+      m_current.set(m_binder.get());
+    } catch (Throwable ex) {
+      // keep the last bound object, so that a malformed release doesn't break the application
+      Tracer.logError(ex);
+      logger.error("Rebind config of prefix '{}' in namespace {} failed, keep the last bound one: {}",
+          m_prefix, changeEvent.getNamespace(), ExceptionUtil.getDetailMessage(ex));
+    }
+  }
+}
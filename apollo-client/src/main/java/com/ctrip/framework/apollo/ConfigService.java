@@ -22,10 +22,12 @@ import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
 import com.ctrip.framework.apollo.internals.ConfigManager;
 import com.ctrip.framework.apollo.internals.ConfigMonitorInitializer;
+import com.ctrip.framework.apollo.internals.ConfigTransactionManager;
 import com.ctrip.framework.apollo.monitor.api.ConfigMonitor;
 import com.ctrip.framework.apollo.spi.ConfigFactory;
 import com.ctrip.framework.apollo.spi.ConfigRegistry;
 import com.ctrip.framework.apollo.util.ConfigUtil;
+import java.util.Arrays;
 
 /**
  * Entry point for client config use
@@ -37,6 +39,7 @@ public class ConfigService {
   private volatile ConfigMonitor m_configMonitor;
   private volatile ConfigManager m_configManager;
   private volatile ConfigRegistry m_configRegistry;
+  private volatile ConfigTransactionManager m_configTransactionManager;
   
   private ConfigMonitor getMonitor() {
       getManager();
@@ -62,6 +65,18 @@ public class ConfigService {
     return m_configManager;
   }
 
+  private ConfigTransactionManager getTransactionManager() {
+    getManager();
+    if (m_configTransactionManager == null) {
+      synchronized (this) {
+        if (m_configTransactionManager == null) {
+          m_configTransactionManager = ApolloInjector.getInstance(ConfigTransactionManager.class);
+        }
+      }
+    }
+    return m_configTransactionManager;
+  }
+
   private ConfigRegistry getRegistry() {
     if (m_configRegistry == null) {
       synchronized (this) {
@@ -114,6 +129,45 @@ public class ConfigService {
     return s_instance.getManager().getConfigFile(appId, namespace, configFileFormat);
   }
 
+  /**
+   * Get a consistent read view of the namespaces, the namespaces changed by the same release
+   * notification are always seen together.
+   *
+   * @param namespaces the namespaces of the application
+   * @return the snapshot view
+   * @since 2.6.0
+   */
+  public static ConfigSnapshotView snapshot(String... namespaces) {
+    ConfigManager manager = s_instance.getManager();
+    for (String namespace : namespaces) {
+      // make sure the configs are loaded
+      manager.getConfig(namespace);
+    }
+    String appId = ApolloInjector.getInstance(ConfigUtil.class).getAppId();
+    return s_instance.getTransactionManager().snapshot(appId, Arrays.asList(namespaces));
+  }
+
+  /**
+   * Add a listener notified with the namespaces changed by the same release notification at once.
+   *
+   * @param listener the listener
+   * @since 2.6.0
+   */
+  public static void addTransactionListener(ConfigTransactionListener listener) {
+    s_instance.getTransactionManager().addTransactionListener(listener);
+  }
+
+  /**
+   * Remove the transaction listener.
+   *
+   * @param listener the listener
+   * @return true if the listener is removed, false otherwise
+   * @since 2.6.0
+   */
+  public static boolean removeTransactionListener(ConfigTransactionListener listener) {
+    return s_instance.getTransactionManager().removeTransactionListener(listener);
+  }
+
   public static ConfigMonitor getConfigMonitor(){
       return s_instance.getMonitor();
   }
@@ -178,6 +232,7 @@ public class ConfigService {
     synchronized (s_instance) {
       s_instance.m_configManager = null;
       s_instance.m_configRegistry = null;
+      s_instance.m_configTransactionManager = null;
     }
   }
 }
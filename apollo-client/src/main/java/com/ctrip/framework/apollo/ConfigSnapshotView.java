@@ -0,0 +1,59 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo;
+
+import java.util.Set;
+
+/**
+ * A consistent read view of the configurations of several namespaces.
+ * <p>
+ * The namespaces changed by the same long polling notification are updated together, so a view
+ * never contains some of these changes but not the others. The view is immutable and reflects the
+ * configurations released in Apollo, i.e. the system properties, environment variables and the
+ * local resource files are not taken into account.
+ *
+ * @since 2.6.0
+ */
+public interface ConfigSnapshotView {
+
+  /**
+   * @return the version of this view, a view taken later always has a version not smaller than
+   * this one
+   */
+  long getVersion();
+
+  /**
+   * @return the namespaces in this view
+   */
+  Set<String> getNamespaces();
+
+  /**
+   * Return the property value of the namespace in this view.
+   *
+   * @param namespace    the namespace
+   * @param key          the property name
+   * @param defaultValue the default value when the namespace or the key is not found
+   * @return the property value
+   */
+  String getProperty(String namespace, String key, String defaultValue);
+
+  /**
+   * @param namespace the namespace
+   * @return the property names of the namespace in this view, empty if the namespace is not found
+   */
+  Set<String> getPropertyNames(String namespace);
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo;
+
+import com.ctrip.framework.apollo.model.ConfigTransactionEvent;
+
+/**
+ * Listener of the changes of several namespaces which are applied together.
+ *
+ * @since 2.6.0
+ */
+public interface ConfigTransactionListener {
+
+  /**
+   * Invoked with all the namespace changes triggered by the same long polling notification, or
+   * with the change of one namespace if it is not triggered by the long polling.
+   *
+   * @param transactionEvent the event for these changes
+   */
+  void onTransaction(ConfigTransactionEvent transactionEvent);
+}
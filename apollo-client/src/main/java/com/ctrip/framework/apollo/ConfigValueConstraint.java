@@ -0,0 +1,36 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo;
+
+/**
+ * A constraint the value of a config key must satisfy, a change violating it is rejected and the
+ * last good value is kept.
+ *
+ * @see ConfigValueConstraints
+ * @since 2.6.0
+ */
+@FunctionalInterface
+public interface ConfigValueConstraint {
+
+  /**
+   * Validate the value.
+   *
+   * @param value the new value, never null
+   * @return the reason if the value violates this constraint, null otherwise
+   */
+  String validate(String value);
+}
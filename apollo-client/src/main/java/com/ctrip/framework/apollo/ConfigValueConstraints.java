@@ -0,0 +1,145 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo;
+
+import com.ctrip.framework.apollo.util.function.Functions;
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * The common {@link ConfigValueConstraint}s, the types are checked the same way as the typed
+ * getters of {@link Config} parse the values.
+ *
+ * @since 2.6.0
+ */
+public final class ConfigValueConstraints {
+
+  private ConfigValueConstraints() {
+  }
+
+  /**
+   * @return the constraint that the value is an integer, as read by
+   * {@link Config#getIntProperty(String, Integer)}
+   */
+  public static ConfigValueConstraint isInt() {
+    return parsable(Functions.TO_INT_FUNCTION, "int");
+  }
+
+  /**
+   * @return the constraint that the value is a long, as read by
+   * {@link Config#getLongProperty(String, Long)}
+   */
+  public static ConfigValueConstraint isLong() {
+    return parsable(Functions.TO_LONG_FUNCTION, "long");
+  }
+
+  /**
+   * @return the constraint that the value is a double, as read by
+   * {@link Config#getDoubleProperty(String, Double)}
+   */
+  public static ConfigValueConstraint isDouble() {
+    return parsable(Functions.TO_DOUBLE_FUNCTION, "double");
+  }
+
+  /**
+   * @return the constraint that the value is either true or false, ignoring case
+   */
+  public static ConfigValueConstraint isBoolean() {
+    return value -> "true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value) ? null
+        : "not a boolean";
+  }
+
+  /**
+   * @return the constraint that the value is a duration, as read by
+   * {@link Config#getDurationProperty(String, long)}
+   */
+  public static ConfigValueConstraint isDuration() {
+    return parsable(Functions.TO_DURATION_FUNCTION, "duration");
+  }
+
+  /**
+   * @return the constraint that the value is a constant of the enum type, as read by
+   * {@link Config#getEnumProperty(String, Class, Enum)}
+   */
+  public static <E extends Enum<E>> ConfigValueConstraint isEnum(Class<E> enumType) {
+    Preconditions.checkNotNull(enumType, "enumType cannot be null");
+    return parsable(value -> Enum.valueOf(enumType, value), enumType.getSimpleName());
+  }
+
+  /**
+   * @return the constraint that the value is a long within [min, max]
+   */
+  public static ConfigValueConstraint inRange(long min, long max) {
+    Preconditions.checkArgument(min <= max, "min %s is greater than max %s", min, max);
+    return value -> {
+      long number;
+      try {
+        number = Long.parseLong(value);
+      } catch (NumberFormatException ex) {
+        return "not a long";
+      }
+      return number >= min && number <= max ? null
+          : String.format("out of range [%d, %d]", min, max);
+    };
+  }
+
+  /**
+   * @return the constraint that the whole value matches the regex
+   */
+  public static ConfigValueConstraint matches(String regex) {
+    Pattern pattern = Pattern.compile(regex);
+    return value -> pattern.matcher(value).matches() ? null : "not matching " + regex;
+  }
+
+  /**
+   * @param predicate   the custom predicate
+   * @param description the description of the predicate, used as the reason of the violation
+   * @return the constraint that the value satisfies the predicate
+   */
+  public static ConfigValueConstraint satisfies(Predicate<String> predicate, String description) {
+    Preconditions.checkNotNull(predicate, "predicate cannot be null");
+    return value -> predicate.test(value) ? null : "not " + description;
+  }
+
+  /**
+   * @return the constraint that the value satisfies all the constraints
+   */
+  public static ConfigValueConstraint allOf(ConfigValueConstraint... constraints) {
+    return value -> {
+      for (ConfigValueConstraint constraint : constraints) {
+        String violation = constraint.validate(value);
+        if (violation != null) {
+          return violation;
+        }
+      }
+      return null;
+    };
+  }
+
+  private static ConfigValueConstraint parsable(Function<String, ?> parser, String type) {
+    return value -> {
+      try {
+        parser.apply(value);
+        return null;
+      } catch (RuntimeException ex) {
+        return "not a valid " + type;
+      }
+    };
+  }
+}
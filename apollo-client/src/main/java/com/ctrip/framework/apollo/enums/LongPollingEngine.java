@@ -0,0 +1,50 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.enums;
+
+/**
+ * To indicate how the notifications are long polled from the config service
+ *
+ * @since 2.6.0
+ */
+public enum LongPollingEngine {
+  BLOCKING("One blocking thread per appId"),
+  MULTIPLEXED("All appIds multiplexed on one selector thread");
+
+  private final String description;
+
+  LongPollingEngine(String description) {
+    this.description = description;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * @param name the engine name, case insensitive
+   * @return the engine, or null if no engine matches the name
+   */
+  public static LongPollingEngine fromName(String name) {
+    for (LongPollingEngine engine : values()) {
+      if (engine.name().equalsIgnoreCase(name)) {
+        return engine;
+      }
+    }
+    return null;
+  }
+}
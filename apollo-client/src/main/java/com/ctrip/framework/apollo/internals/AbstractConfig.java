@@ -19,73 +19,90 @@ package com.ctrip.framework.apollo.internals;
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigChangeListener;
 import com.ctrip.framework.apollo.build.ApolloInjector;
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.enums.PropertyChangeType;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
 import com.ctrip.framework.apollo.model.ConfigChange;
 import com.ctrip.framework.apollo.model.ConfigChangeEvent;
 import com.ctrip.framework.apollo.tracer.Tracer;
-import com.ctrip.framework.apollo.tracer.spi.Transaction;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
 import com.ctrip.framework.apollo.util.function.Functions;
 import com.ctrip.framework.apollo.util.parser.Parsers;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.ctrip.framework.apollo.internals.ConfigValueCache.ValueType;
+import com.ctrip.framework.apollo.monitor.api.ApolloClientNamespaceMonitorApi.ValueCacheStats;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import java.util.*;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
  */
 public abstract class AbstractConfig implements Config {
-  private static final Logger logger = LoggerFactory.getLogger(AbstractConfig.class);
 
   protected static final ExecutorService m_executorService;
 
-  private final List<ConfigChangeListener> m_listeners = Lists.newCopyOnWriteArrayList();
-  private final Map<ConfigChangeListener, Set<String>> m_interestedKeys =
-      Collections.synchronizedMap(new IdentityHashMap<>());
-  private final Map<ConfigChangeListener, Set<String>> m_interestedKeyPrefixes =
-      Collections.synchronizedMap(new IdentityHashMap<>());
+  private final ConfigChangeListenerIndex m_listenerIndex = new ConfigChangeListenerIndex();
   private final ConfigUtil m_configUtil;
-  private volatile Cache<String, Integer> m_integerCache;
-  private volatile Cache<String, Long> m_longCache;
-  private volatile Cache<String, Short> m_shortCache;
-  private volatile Cache<String, Float> m_floatCache;
-  private volatile Cache<String, Double> m_doubleCache;
-  private volatile Cache<String, Byte> m_byteCache;
-  private volatile Cache<String, Boolean> m_booleanCache;
-  private volatile Cache<String, Date> m_dateCache;
-  private volatile Cache<String, Long> m_durationCache;
-  private final Map<String, Cache<String, String[]>> m_arrayCache;
-  private final List<Cache> allCaches;
+  private final ConfigValueCache m_valueCache;
   private final AtomicLong m_configVersion; //indicate config version
+  private volatile ConfigChangeCoalescer m_changeCoalescer;
 
   protected PropertiesFactory propertiesFactory;
 
+  // the parsers take the cache token as argument, so they are shared without capturing anything
+  private static final ValueParser<Object> APPLY_FUNCTION =
+      (value, function) -> ((Function<String, ?>) function).apply(value);
+  private static final ValueParser<String[]> SPLIT =
+      (value, delimiter) -> value.split((String) delimiter);
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static final ValueParser<Object> ENUM_VALUE_OF =
+      (value, enumType) -> Enum.valueOf((Class) enumType, value);
+  private static final ValueParser<Date> PARSE_DATE =
+      (value, format) -> Parsers.forDate().parse(value, (String) format);
+  private static final ValueParser<Date> PARSE_DATE_WITH_LOCALE = (value, formatAndLocale) -> {
+    DateFormatToken token = (DateFormatToken) formatAndLocale;
+    return Parsers.forDate().parse(value, token.format, token.locale);
+  };
+
   static {
-    m_executorService = Executors.newCachedThreadPool(ApolloThreadFactory
-        .create("Config", true));
+    m_executorService = ApolloExecutors.getProvider().newCachedExecutor("Config");
+  }
+
+  /**
+   * the dispatcher is shared by all the configs, so that a listener added to several configs
+   * still receives its changes one by one
+   */
+  private static final class ListenerDispatcherHolder {
+
+    private static final ConfigChangeListenerDispatcher DISPATCHER;
+
+    static {
+      ConfigUtil configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+      DISPATCHER = new ConfigChangeListenerDispatcher(m_executorService,
+          configUtil.getConfigListenerParallelism(), configUtil.getConfigListenerTimeoutInMillis());
+      DISPATCHER.scheduleCheck(ApolloExecutors.getProvider()
+          .newScheduledExecutor("ConfigChangeListenerDispatcher", 1));
+    }
+  }
+
+  private static final class ChangeCoalescerExecutorHolder {
+
+    private static final ScheduledExecutorService EXECUTOR = ApolloExecutors.getProvider()
+        .newScheduledExecutor("ConfigChangeCoalescer", 1);
   }
 
   public AbstractConfig() {
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
     m_configVersion = new AtomicLong();
-    m_arrayCache = Maps.newConcurrentMap();
-    allCaches = Lists.newArrayList();
+    m_valueCache = new ConfigValueCache(m_configUtil.getMaxConfigCacheSize(),
+        m_configUtil.getConfigCacheExpireTime(), m_configUtil.getConfigCacheExpireTimeUnit());
     propertiesFactory = ApolloInjector.getInstance(PropertiesFactory.class);
   }
 
@@ -101,36 +118,18 @@ public abstract class AbstractConfig implements Config {
 
   @Override
   public void addChangeListener(ConfigChangeListener listener, Set<String> interestedKeys, Set<String> interestedKeyPrefixes) {
-    if (!containsListenerInstance(listener)) {
-      m_listeners.add(listener);
-      if (interestedKeys != null && !interestedKeys.isEmpty()) {
-        m_interestedKeys.put(listener, Sets.newHashSet(interestedKeys));
-      }
-      if (interestedKeyPrefixes != null && !interestedKeyPrefixes.isEmpty()) {
-        m_interestedKeyPrefixes.put(listener, Sets.newHashSet(interestedKeyPrefixes));
-      }
-    }
+    m_listenerIndex.add(listener, interestedKeys, interestedKeyPrefixes);
   }
 
   @Override
   public boolean removeChangeListener(ConfigChangeListener listener) {
-    m_interestedKeys.remove(listener);
-    m_interestedKeyPrefixes.remove(listener);
-    return m_listeners.removeIf(addedListener -> addedListener == listener);
+    return m_listenerIndex.remove(listener);
   }
 
   @Override
   public Integer getIntProperty(String key, Integer defaultValue) {
     try {
-      if (m_integerCache == null) {
-        synchronized (this) {
-          if (m_integerCache == null) {
-            m_integerCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_INT_FUNCTION, m_integerCache, defaultValue);
+      return getValueFromCache(key, ValueType.INTEGER, Functions.TO_INT_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getIntProperty for %s failed, return default value %d", key,
@@ -142,15 +141,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Long getLongProperty(String key, Long defaultValue) {
     try {
-      if (m_longCache == null) {
-        synchronized (this) {
-          if (m_longCache == null) {
-            m_longCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_LONG_FUNCTION, m_longCache, defaultValue);
+      return getValueFromCache(key, ValueType.LONG, Functions.TO_LONG_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getLongProperty for %s failed, return default value %d", key,
@@ -162,15 +153,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Short getShortProperty(String key, Short defaultValue) {
     try {
-      if (m_shortCache == null) {
-        synchronized (this) {
-          if (m_shortCache == null) {
-            m_shortCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_SHORT_FUNCTION, m_shortCache, defaultValue);
+      return getValueFromCache(key, ValueType.SHORT, Functions.TO_SHORT_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getShortProperty for %s failed, return default value %d", key,
@@ -182,15 +165,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Float getFloatProperty(String key, Float defaultValue) {
     try {
-      if (m_floatCache == null) {
-        synchronized (this) {
-          if (m_floatCache == null) {
-            m_floatCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_FLOAT_FUNCTION, m_floatCache, defaultValue);
+      return getValueFromCache(key, ValueType.FLOAT, Functions.TO_FLOAT_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getFloatProperty for %s failed, return default value %f", key,
@@ -202,15 +177,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Double getDoubleProperty(String key, Double defaultValue) {
     try {
-      if (m_doubleCache == null) {
-        synchronized (this) {
-          if (m_doubleCache == null) {
-            m_doubleCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_DOUBLE_FUNCTION, m_doubleCache, defaultValue);
+      return getValueFromCache(key, ValueType.DOUBLE, Functions.TO_DOUBLE_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getDoubleProperty for %s failed, return default value %f", key,
@@ -222,15 +189,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Byte getByteProperty(String key, Byte defaultValue) {
     try {
-      if (m_byteCache == null) {
-        synchronized (this) {
-          if (m_byteCache == null) {
-            m_byteCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_BYTE_FUNCTION, m_byteCache, defaultValue);
+      return getValueFromCache(key, ValueType.BYTE, Functions.TO_BYTE_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getByteProperty for %s failed, return default value %d", key,
@@ -242,15 +201,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Boolean getBooleanProperty(String key, Boolean defaultValue) {
     try {
-      if (m_booleanCache == null) {
-        synchronized (this) {
-          if (m_booleanCache == null) {
-            m_booleanCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_BOOLEAN_FUNCTION, m_booleanCache, defaultValue);
+      return getValueFromCache(key, ValueType.BOOLEAN, Functions.TO_BOOLEAN_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getBooleanProperty for %s failed, return default value %b", key,
@@ -262,27 +213,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public String[] getArrayProperty(String key, final String delimiter, String[] defaultValue) {
     try {
-      if (!m_arrayCache.containsKey(delimiter)) {
-        synchronized (this) {
-          if (!m_arrayCache.containsKey(delimiter)) {
-            m_arrayCache.put(delimiter, this.newCache());
-          }
-        }
-      }
-
-      Cache<String, String[]> cache = m_arrayCache.get(delimiter);
-      String[] result = cache.getIfPresent(key);
-
-      if (result != null) {
-        return result;
-      }
-
-      return getValueAndStoreToCache(key, new Function<String, String[]>() {
-        @Override
-        public String[] apply(String input) {
-          return input.split(delimiter);
-        }
-      }, cache, defaultValue);
+      return getValueFromCache(key, ValueType.ARRAY, delimiter, SPLIT, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getArrayProperty for %s failed, return default value", key), ex));
@@ -293,11 +224,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public <T extends Enum<T>> T getEnumProperty(String key, Class<T> enumType, T defaultValue) {
     try {
-      String value = getProperty(key, null);
-
-      if (value != null) {
-        return Enum.valueOf(enumType, value);
-      }
+      return getValueFromCache(key, ValueType.ENUM, enumType, typed(ENUM_VALUE_OF), defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getEnumProperty for %s failed, return default value %s", key,
@@ -310,15 +237,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Date getDateProperty(String key, Date defaultValue) {
     try {
-      if (m_dateCache == null) {
-        synchronized (this) {
-          if (m_dateCache == null) {
-            m_dateCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_DATE_FUNCTION, m_dateCache, defaultValue);
+      return getValueFromCache(key, ValueType.DATE, Functions.TO_DATE_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getDateProperty for %s failed, return default value %s", key,
@@ -331,11 +250,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Date getDateProperty(String key, String format, Date defaultValue) {
     try {
-      String value = getProperty(key, null);
-
-      if (value != null) {
-        return Parsers.forDate().parse(value, format);
-      }
+      return getValueFromCache(key, ValueType.FORMATTED_DATE, format, PARSE_DATE, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getDateProperty for %s failed, return default value %s", key,
@@ -348,11 +263,8 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Date getDateProperty(String key, String format, Locale locale, Date defaultValue) {
     try {
-      String value = getProperty(key, null);
-
-      if (value != null) {
-        return Parsers.forDate().parse(value, format, locale);
-      }
+      return getValueFromCache(key, ValueType.FORMATTED_DATE, new DateFormatToken(format, locale),
+          PARSE_DATE_WITH_LOCALE, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getDateProperty for %s failed, return default value %s", key,
@@ -365,15 +277,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public long getDurationProperty(String key, long defaultValue) {
     try {
-      if (m_durationCache == null) {
-        synchronized (this) {
-          if (m_durationCache == null) {
-            m_durationCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_DURATION_FUNCTION, m_durationCache, defaultValue);
+      return getValueFromCache(key, ValueType.DURATION, Functions.TO_DURATION_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getDurationProperty for %s failed, return default value %d", key,
@@ -400,29 +304,37 @@ public abstract class AbstractConfig implements Config {
     return defaultValue;
   }
 
-  private <T> T getValueFromCache(String key, Function<String, T> parser, Cache<String, T> cache, T defaultValue) {
-    T result = cache.getIfPresent(key);
+  /**
+   * Get the typed value cache stats of this config.
+   *
+   * @return the stats keyed by value type, i.e. Integer, Date
+   */
+  public Map<String, ValueCacheStats> getValueCacheStats() {
+    return m_valueCache.stats();
+  }
+
+  private <T> T getValueFromCache(String key, ValueType type, Function<String, T> function,
+      T defaultValue) throws Exception {
+    return getValueFromCache(key, type, function, typed(APPLY_FUNCTION), defaultValue);
+  }
+
+  private <T> T getValueFromCache(String key, ValueType type, Object token,
+      ValueParser<T> parser, T defaultValue) throws Exception {
+    // get the generation before reading the value, so a stale value never survives invalidation
+    ConfigValueCache.Generation generation = m_valueCache.current();
+    T result = generation.get(type, token, key);
 
     if (result != null) {
       return result;
     }
 
-    return getValueAndStoreToCache(key, parser, cache, defaultValue);
-  }
-
-  private <T> T getValueAndStoreToCache(String key, Function<String, T> parser, Cache<String, T> cache, T defaultValue) {
-    long currentConfigVersion = m_configVersion.get();
     String value = getProperty(key, null);
 
     if (value != null) {
-      T result = parser.apply(value);
+      result = parser.parse(value, token);
 
       if (result != null) {
-        synchronized (this) {
-          if (m_configVersion.get() == currentConfigVersion) {
-            cache.put(key, result);
-          }
-        }
+        generation.put(type, token, key, result);
         return result;
       }
     }
@@ -430,42 +342,54 @@ public abstract class AbstractConfig implements Config {
     return defaultValue;
   }
 
-  private <T> Cache<String, T> newCache() {
-    Cache<String, T> cache = CacheBuilder.newBuilder()
-        .maximumSize(m_configUtil.getMaxConfigCacheSize())
-        .expireAfterAccess(m_configUtil.getConfigCacheExpireTime(), m_configUtil.getConfigCacheExpireTimeUnit())
-        .build();
-    allCaches.add(cache);
-    return cache;
+  @SuppressWarnings("unchecked")
+  private static <T> ValueParser<T> typed(ValueParser<?> parser) {
+    return (ValueParser<T>) parser;
   }
 
   /**
    * Clear config cache
    */
   protected void clearConfigCache() {
-    synchronized (this) {
-      for (Cache c : allCaches) {
-        if (c != null) {
-          c.invalidateAll();
-        }
-      }
-      m_configVersion.incrementAndGet();
-    }
+    m_valueCache.invalidateAll(m_configVersion.incrementAndGet());
   }
 
   /**
    * @param changes map's key is config property's key
    */
   protected void fireConfigChange(String appId, String namespace, Map<String, ConfigChange> changes) {
-    final Set<String> changedKeys = changes.keySet();
-    final List<ConfigChangeListener> listeners = this.findMatchedConfigChangeListeners(changedKeys);
+    long coalescingWindow = m_configUtil.getConfigChangeCoalescingWindowInMillis();
+    if (coalescingWindow <= 0) {
+      doFireConfigChange(appId, namespace, changes);
+      return;
+    }
+    // the changes within the window are merged and fired as one event
+    getChangeCoalescer(appId, namespace, coalescingWindow).add(changes);
+  }
+
+  private ConfigChangeCoalescer getChangeCoalescer(String appId, String namespace,
+      long coalescingWindow) {
+    if (m_changeCoalescer == null) {
+      synchronized (this) {
+        if (m_changeCoalescer == null) {
+          m_changeCoalescer = new ConfigChangeCoalescer(coalescingWindow,
+              ChangeCoalescerExecutorHolder.EXECUTOR,
+              mergedChanges -> doFireConfigChange(appId, namespace, mergedChanges));
+        }
+      }
+    }
+    return m_changeCoalescer;
+  }
+
+  private void doFireConfigChange(String appId, String namespace,
+      Map<String, ConfigChange> changes) {
+    final List<ConfigChangeListenerIndex.Match> matches = m_listenerIndex.match(changes.keySet());
 
     // notify those listeners
-    for (ConfigChangeListener listener : listeners) {
-      Set<String> interestedChangedKeys = resolveInterestedChangedKeys(listener, changedKeys);
+    for (ConfigChangeListenerIndex.Match match : matches) {
       InterestedConfigChangeEvent interestedConfigChangeEvent = new InterestedConfigChangeEvent(
-              appId, namespace, changes, interestedChangedKeys);
-      this.notifyAsync(listener, interestedConfigChangeEvent);
+              appId, namespace, changes, match.getInterestedChangedKeys());
+      this.notifyAsync(match.getListener(), interestedConfigChangeEvent);
     }
   }
 
@@ -473,100 +397,17 @@ public abstract class AbstractConfig implements Config {
    * Fire the listeners by event.
    */
   protected void fireConfigChange(final ConfigChangeEvent changeEvent) {
-    final List<ConfigChangeListener> listeners = this
-        .findMatchedConfigChangeListeners(changeEvent.changedKeys());
+    final List<ConfigChangeListenerIndex.Match> matches = m_listenerIndex
+        .match(changeEvent.changedKeys());
 
     // notify those listeners
-    for (ConfigChangeListener listener : listeners) {
-      this.notifyAsync(listener, changeEvent);
-    }
-  }
-
-  private List<ConfigChangeListener> findMatchedConfigChangeListeners(Set<String> changedKeys) {
-    final List<ConfigChangeListener> configChangeListeners = new ArrayList<>();
-    for (ConfigChangeListener configChangeListener : this.m_listeners) {
-      // check whether the listener is interested in this change event
-      if (this.isConfigChangeListenerInterested(configChangeListener, changedKeys)) {
-        configChangeListeners.add(configChangeListener);
-      }
+    for (ConfigChangeListenerIndex.Match match : matches) {
+      this.notifyAsync(match.getListener(), changeEvent);
     }
-    return configChangeListeners;
   }
 
   private void notifyAsync(final ConfigChangeListener listener, final ConfigChangeEvent changeEvent) {
-    m_executorService.submit(new Runnable() {
-      @Override
-      public void run() {
-        String listenerName = listener.getClass().getName();
-        Transaction transaction = Tracer.newTransaction("Apollo.ConfigChangeListener", listenerName);
-        try {
-          listener.onChange(changeEvent);
-          transaction.setStatus(Transaction.SUCCESS);
-        } catch (Throwable ex) {
-          transaction.setStatus(ex);
-          Tracer.logError(ex);
-          logger.error("Failed to invoke config change listener {}", listenerName, ex);
-        } finally {
-          transaction.complete();
-        }
-      }
-    });
-  }
-
-  private boolean isConfigChangeListenerInterested(ConfigChangeListener configChangeListener, Set<String> changedKeys) {
-    Set<String> interestedKeys = m_interestedKeys.get(configChangeListener);
-    Set<String> interestedKeyPrefixes = m_interestedKeyPrefixes.get(configChangeListener);
-
-    if ((interestedKeys == null || interestedKeys.isEmpty())
-        && (interestedKeyPrefixes == null || interestedKeyPrefixes.isEmpty())) {
-      return true; // no interested keys means interested in all keys
-    }
-
-    if (interestedKeys != null) {
-      for (String interestedKey : interestedKeys) {
-        if (changedKeys.contains(interestedKey)) {
-          return true;
-        }
-      }
-    }
-
-    if (interestedKeyPrefixes != null) {
-      for (String prefix : interestedKeyPrefixes) {
-        for (final String changedKey : changedKeys) {
-          if (changedKey.startsWith(prefix)) {
-            return true;
-          }
-        }
-      }
-    }
-
-    return false;
-  }
-
-  private Set<String> resolveInterestedChangedKeys(ConfigChangeListener configChangeListener, Set<String> changedKeys) {
-    Set<String> interestedChangedKeys = new HashSet<>();
-
-    if (this.m_interestedKeys.containsKey(configChangeListener)) {
-      Set<String> interestedKeys = this.m_interestedKeys.get(configChangeListener);
-      for (String interestedKey : interestedKeys) {
-        if (changedKeys.contains(interestedKey)) {
-          interestedChangedKeys.add(interestedKey);
-        }
-      }
-    }
-
-    if (this.m_interestedKeyPrefixes.containsKey(configChangeListener)) {
-      Set<String> interestedKeyPrefixes = this.m_interestedKeyPrefixes.get(configChangeListener);
-      for (String interestedKeyPrefix : interestedKeyPrefixes) {
-        for (String changedKey : changedKeys) {
-          if (changedKey.startsWith(interestedKeyPrefix)) {
-            interestedChangedKeys.add(changedKey);
-          }
-        }
-      }
-    }
-
-    return Collections.unmodifiableSet(interestedChangedKeys);
+    ListenerDispatcherHolder.DISPATCHER.dispatch(listener, changeEvent);
   }
 
   List<ConfigChange> calcPropertyChanges(String appId, String namespace, Properties previous,
@@ -611,12 +452,93 @@ public abstract class AbstractConfig implements Config {
     return changes;
   }
 
-  private boolean containsListenerInstance(ConfigChangeListener listener) {
-    for (ConfigChangeListener configChangeListener : m_listeners) {
-      if (configChangeListener == listener) {
+  /**
+   * Calculate the changes between two snapshots, only the keys changed since the previous snapshot
+   * are compared if the snapshots are derived from the same base.
+   */
+  List<ConfigChange> calcPropertyChanges(String appId, String namespace, ConfigSnapshot previous,
+                                         ConfigSnapshot current) {
+    if (previous == null) {
+      previous = ConfigSnapshot.empty();
+    }
+
+    if (current == null) {
+      current = ConfigSnapshot.empty();
+    }
+
+    Set<String> changedKeys = current.changedKeysSince(previous);
+    Set<String> currentKeys = changedKeys != null ? changedKeys : current.keySet();
+    Set<String> previousKeys = changedKeys != null ? changedKeys : previous.keySet();
+
+    List<ConfigChange> newChanges = Lists.newArrayList();
+    List<ConfigChange> modifiedChanges = Lists.newArrayList();
+    for (String key : currentKeys) {
+      String currentValue = current.get(key);
+      if (currentValue == null) {
+        continue;
+      }
+      String previousValue = previous.get(key);
+      if (previousValue == null) {
+        newChanges.add(new ConfigChange(appId, namespace, key, null, currentValue,
+            PropertyChangeType.ADDED));
+      } else if (!previousValue.equals(currentValue)) {
+        modifiedChanges.add(new ConfigChange(appId, namespace, key, previousValue, currentValue,
+            PropertyChangeType.MODIFIED));
+      }
+    }
+
+    List<ConfigChange> changes = newChanges;
+    for (String key : previousKeys) {
+      String previousValue = previous.get(key);
+      if (previousValue != null && current.get(key) == null) {
+        changes.add(new ConfigChange(appId, namespace, key, previousValue, null,
+            PropertyChangeType.DELETED));
+      }
+    }
+    changes.addAll(modifiedChanges);
+
+    return changes;
+  }
+
+  /**
+   * Parses the raw value with the cache token, i.e. the delimiter of an array property
+   */
+  /**
+   * The cache token of a date format with locale, cheaper to build and to hash than a list.
+   */
+  private static final class DateFormatToken {
+
+    private final String format;
+    private final Locale locale;
+    private final int hash;
+
+    private DateFormatToken(String format, Locale locale) {
+      this.format = format;
+      this.locale = locale;
+      this.hash = 31 * (format == null ? 0 : format.hashCode())
+          + (locale == null ? 0 : locale.hashCode());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
         return true;
       }
+      if (!(o instanceof DateFormatToken)) {
+        return false;
+      }
+      DateFormatToken that = (DateFormatToken) o;
+      return Objects.equal(format, that.format) && Objects.equal(locale, that.locale);
     }
-    return false;
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private interface ValueParser<T> {
+
+    T parse(String value, Object token) throws Exception;
   }
 }
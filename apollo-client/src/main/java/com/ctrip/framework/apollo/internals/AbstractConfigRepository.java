@@ -65,9 +65,13 @@ public abstract class AbstractConfigRepository implements ConfigRepository {
   }
 
   protected void fireRepositoryChange(String appId, String namespace, Properties newProperties) {
+    this.fireRepositoryChange(appId, namespace, ConfigSnapshot.copyOf(newProperties));
+  }
+
+  protected void fireRepositoryChange(String appId, String namespace, ConfigSnapshot newSnapshot) {
     for (RepositoryChangeListener listener : m_listeners) {
       try {
-        listener.onRepositoryChange(appId, namespace, newProperties);
+        listener.onRepositoryChange(appId, namespace, newSnapshot);
       } catch (Throwable ex) {
         Tracer.logError(ex);
         logger.error("Failed to invoke repository change listener {}", listener.getClass(), ex);
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.foundation.internals.ServiceBootstrap;
+import com.ctrip.framework.apollo.spi.ApolloExecutorProvider;
+
+/**
+ * Holds the {@link ApolloExecutorProvider} shared by the whole client.
+ *
+ * @since 2.6.0
+ */
+public final class ApolloExecutors {
+
+  private ApolloExecutors() {
+  }
+
+  public static ApolloExecutorProvider getProvider() {
+    return ProviderHolder.PROVIDER;
+  }
+
+  private static final class ProviderHolder {
+
+    private static final ApolloExecutorProvider PROVIDER = ServiceBootstrap.loadPrimary(
+        ApolloExecutorProvider.class);
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.enums.PropertyChangeType;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Objects;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Maps;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges the changes of one namespace which happen within a window, so that several releases
+ * published in a row are dispatched as one change event.
+ * <p>
+ * The window starts with the first pending change, a key changed several times is reported with
+ * its value before the window and its latest value, and it is dropped if the two are the same, e.g.
+ * a key added and then deleted within the window.
+ *
+ * @since 2.6.0
+ */
+class ConfigChangeCoalescer {
+
+  private static final Logger logger = LoggerFactory.getLogger(ConfigChangeCoalescer.class);
+
+  private final long m_windowInNanos;
+  private final Ticker m_ticker;
+  private final ScheduledExecutorService m_executorService;
+  private final Consumer<Map<String, ConfigChange>> m_dispatcher;
+  // the merged changes in the order the keys changed first, null if there is no pending window
+  private Map<String, ConfigChange> m_pendingChanges;
+  private long m_deadline;
+
+  ConfigChangeCoalescer(long windowInMillis, ScheduledExecutorService executorService,
+      Consumer<Map<String, ConfigChange>> dispatcher) {
+    this(windowInMillis, executorService, dispatcher, Ticker.systemTicker());
+  }
+
+  ConfigChangeCoalescer(long windowInMillis, ScheduledExecutorService executorService,
+      Consumer<Map<String, ConfigChange>> dispatcher, Ticker ticker) {
+    m_windowInNanos = TimeUnit.MILLISECONDS.toNanos(windowInMillis);
+    m_executorService = executorService;
+    m_dispatcher = dispatcher;
+    m_ticker = ticker;
+  }
+
+  /**
+   * Merge the changes into the pending window, a new window is started if there is none.
+   */
+  void add(Map<String, ConfigChange> changes) {
+    synchronized (this) {
+      boolean newWindow = m_pendingChanges == null;
+      if (newWindow) {
+        m_pendingChanges = Maps.newLinkedHashMap();
+        m_deadline = m_ticker.read() + m_windowInNanos;
+      }
+      for (ConfigChange change : changes.values()) {
+        ConfigChange pending = m_pendingChanges.get(change.getPropertyName());
+        if (pending == null) {
+          m_pendingChanges.put(change.getPropertyName(), copyOf(change));
+        } else {
+          pending.setNewValue(change.getNewValue());
+        }
+      }
+      if (!newWindow || scheduleFlush(m_windowInNanos)) {
+        return;
+      }
+    }
+    dispatchPendingChanges();
+  }
+
+  /**
+   * Dispatch the pending changes if the window has elapsed, otherwise check again at its end.
+   */
+  void flush() {
+    synchronized (this) {
+      if (m_pendingChanges == null) {
+        return;
+      }
+      long remaining = m_deadline - m_ticker.read();
+      if (remaining > 0 && scheduleFlush(remaining)) {
+        return;
+      }
+    }
+    dispatchPendingChanges();
+  }
+
+  private void dispatchPendingChanges() {
+    Map<String, ConfigChange> changes;
+    synchronized (this) {
+      if (m_pendingChanges == null) {
+        return;
+      }
+      changes = merge(m_pendingChanges);
+      m_pendingChanges = null;
+    }
+    if (!changes.isEmpty()) {
+      m_dispatcher.accept(changes);
+    }
+  }
+
+  /**
+   * @return false if the flush could not be scheduled, then the pending changes should be
+   * dispatched right away, otherwise no change would be dispatched any more
+   */
+  private boolean scheduleFlush(long delayInNanos) {
+    try {
+      m_executorService.schedule(this::flush, delayInNanos, TimeUnit.NANOSECONDS);
+      return true;
+    } catch (RejectedExecutionException ex) {
+      Tracer.logError(ex);
+      logger.error("Failed to schedule the coalesced config changes, dispatch them right away", ex);
+      return false;
+    }
+  }
+
+  private static Map<String, ConfigChange> merge(Map<String, ConfigChange> pendingChanges) {
+    Map<String, ConfigChange> changes = Maps.newLinkedHashMapWithExpectedSize(
+        pendingChanges.size());
+    for (ConfigChange change : pendingChanges.values()) {
+      String oldValue = change.getOldValue();
+      String newValue = change.getNewValue();
+      if (Objects.equal(oldValue, newValue)) {
+        continue;
+      }
+      if (oldValue == null) {
+        change.setChangeType(PropertyChangeType.ADDED);
+      } else if (newValue == null) {
+        change.setChangeType(PropertyChangeType.DELETED);
+      } else {
+        change.setChangeType(PropertyChangeType.MODIFIED);
+      }
+      changes.put(change.getPropertyName(), change);
+    }
+    return changes;
+  }
+
+  private static ConfigChange copyOf(ConfigChange change) {
+    return new ConfigChange(change.getAppId(), change.getNamespace(), change.getPropertyName(),
+        change.getOldValue(), change.getNewValue(), change.getChangeType());
+  }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorConstant.APOLLO_CLIENT_CONFIG_CHANGE_LISTENER_SLOW;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Sets;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Notifies the config change listeners with a bounded number of workers.
+ * <ul>
+ *   <li>each listener has its own queue which is drained by one worker at a time, so a listener
+ *   receives its changes one by one in the order they are dispatched</li>
+ *   <li>at most {@code parallelism} listeners are notified concurrently, no matter how many
+ *   changes are dispatched</li>
+ *   <li>a listener running longer than {@value #SLOW_THRESHOLD_IN_MILLIS} ms is reported as slow,
+ *   and once it runs longer than the timeout it is reported as stuck and interrupted, its worker
+ *   slot is then handed over so that the other listeners keep being notified</li>
+ * </ul>
+ *
+ * @since 2.6.0
+ */
+public class ConfigChangeListenerDispatcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(ConfigChangeListenerDispatcher.class);
+  static final long SLOW_THRESHOLD_IN_MILLIS = 1000;
+  private static final long CHECK_INTERVAL_IN_MILLIS = 500;
+  // the notifications a worker handles for one listener before moving on to the next listener
+  private static final int MAX_NOTIFICATIONS_PER_DRAIN = 64;
+
+  private final Executor m_executor;
+  private final int m_parallelism;
+  private final long m_slowThresholdInNanos;
+  private final long m_timeoutInNanos;
+  private final Ticker m_ticker;
+  // weak keys compare by identity, the idle queues do not reference their listeners
+  private final ConcurrentMap<ConfigChangeListener, ListenerQueue> m_listenerQueues =
+      new MapMaker().weakKeys().makeMap();
+  private final Queue<ListenerQueue> m_readyQueues = new ConcurrentLinkedQueue<>();
+  private final Set<Worker> m_workers = Sets.newConcurrentHashSet();
+  private final AtomicInteger m_workerCount = new AtomicInteger();
+
+  public ConfigChangeListenerDispatcher(Executor executor, int parallelism,
+      long timeoutInMillis) {
+    this(executor, parallelism, timeoutInMillis, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  ConfigChangeListenerDispatcher(Executor executor, int parallelism, long timeoutInMillis,
+      Ticker ticker) {
+    m_executor = executor;
+    m_parallelism = parallelism;
+    m_timeoutInNanos = TimeUnit.MILLISECONDS.toNanos(timeoutInMillis);
+    m_slowThresholdInNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(SLOW_THRESHOLD_IN_MILLIS),
+        m_timeoutInNanos);
+    m_ticker = ticker;
+  }
+
+  /**
+   * Queue the change event for the listener.
+   */
+  public void dispatch(ConfigChangeListener listener, ConfigChangeEvent changeEvent) {
+    ListenerQueue listenerQueue = m_listenerQueues.get(listener);
+    if (listenerQueue == null) {
+      listenerQueue = m_listenerQueues.computeIfAbsent(listener, key -> new ListenerQueue());
+    }
+    listenerQueue.offer(new Notification(listener, changeEvent));
+  }
+
+  /**
+   * Check the running listeners periodically with the given executor.
+   */
+  public void scheduleCheck(ScheduledExecutorService executorService) {
+    executorService.scheduleWithFixedDelay(this::check, CHECK_INTERVAL_IN_MILLIS,
+        CHECK_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Report the slow listeners and release the workers of the stuck ones.
+   */
+  void check() {
+    long now = m_ticker.read();
+    for (Worker worker : m_workers) {
+      worker.check(now);
+    }
+  }
+
+  @VisibleForTesting
+  int getWorkerCount() {
+    return m_workerCount.get();
+  }
+
+  private void schedule(ListenerQueue listenerQueue) {
+    m_readyQueues.offer(listenerQueue);
+    trySpawnWorker();
+  }
+
+  private void trySpawnWorker() {
+    while (!m_readyQueues.isEmpty()) {
+      int workerCount = m_workerCount.get();
+      if (workerCount >= m_parallelism) {
+        return;
+      }
+      if (m_workerCount.compareAndSet(workerCount, workerCount + 1)) {
+        Worker worker = new Worker();
+        try {
+          m_executor.execute(worker);
+        } catch (RejectedExecutionException ex) {
+          m_workerCount.decrementAndGet();
+          logger.error("Failed to notify config change listeners", ex);
+        }
+        return;
+      }
+    }
+  }
+
+  private static void notify(Notification notification) {
+    String listenerName = notification.listener.getClass().getName();
+    Transaction transaction = Tracer.newTransaction("Apollo.ConfigChangeListener", listenerName);
+    try {
+      notification.listener.onChange(notification.changeEvent);
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      Tracer.logError(ex);
+      logger.error("Failed to invoke config change listener {}", listenerName, ex);
+    } finally {
+      transaction.complete();
+    }
+  }
+
+  private static class Notification {
+
+    private final ConfigChangeListener listener;
+    private final ConfigChangeEvent changeEvent;
+
+    private Notification(ConfigChangeListener listener, ConfigChangeEvent changeEvent) {
+      this.listener = listener;
+      this.changeEvent = changeEvent;
+    }
+  }
+
+  private class ListenerQueue {
+
+    private final Queue<Notification> m_notifications = new ConcurrentLinkedQueue<>();
+    // whether this queue is waiting for or being drained by a worker
+    private final AtomicBoolean m_scheduled = new AtomicBoolean();
+
+    void offer(Notification notification) {
+      m_notifications.offer(notification);
+      if (m_scheduled.compareAndSet(false, true)) {
+        schedule(this);
+      }
+    }
+
+    void drain(Worker worker) {
+      for (int i = 0; i < MAX_NOTIFICATIONS_PER_DRAIN && !worker.isReleased(); i++) {
+        Notification notification = m_notifications.poll();
+        if (notification == null) {
+          break;
+        }
+        worker.run(notification);
+      }
+      m_scheduled.set(false);
+      if (!m_notifications.isEmpty() && m_scheduled.compareAndSet(false, true)) {
+        schedule(this);
+      }
+    }
+  }
+
+  private class Worker implements Runnable {
+
+    private Thread m_thread;
+    private Notification m_running;
+    private long m_startedAt;
+    private boolean m_reportedSlow;
+    // released workers no longer count towards the parallelism
+    private boolean m_released;
+
+    @Override
+    public void run() {
+      synchronized (this) {
+        m_thread = Thread.currentThread();
+      }
+      m_workers.add(this);
+      try {
+        ListenerQueue listenerQueue;
+        while (!isReleased() && (listenerQueue = m_readyQueues.poll()) != null) {
+          listenerQueue.drain(this);
+        }
+      } finally {
+        m_workers.remove(this);
+        if (release()) {
+          trySpawnWorker();
+        }
+      }
+    }
+
+    void run(Notification notification) {
+      synchronized (this) {
+        m_running = notification;
+        m_startedAt = m_ticker.read();
+        m_reportedSlow = false;
+      }
+      try {
+        ConfigChangeListenerDispatcher.notify(notification);
+      } finally {
+        synchronized (this) {
+          m_running = null;
+          if (m_released) {
+            // clear the interruption for timeout in case the listener did not
+            Thread.interrupted();
+          }
+        }
+      }
+    }
+
+    synchronized boolean isReleased() {
+      return m_released;
+    }
+
+    private synchronized boolean release() {
+      if (m_released) {
+        return false;
+      }
+      m_released = true;
+      m_workerCount.decrementAndGet();
+      return true;
+    }
+
+    void check(long now) {
+      String listenerName;
+      long elapsed;
+      boolean slow;
+      boolean stuck;
+      synchronized (this) {
+        if (m_running == null || m_released) {
+          return;
+        }
+        elapsed = now - m_startedAt;
+        slow = !m_reportedSlow && elapsed >= m_slowThresholdInNanos;
+        stuck = elapsed >= m_timeoutInNanos;
+        if (!slow && !stuck) {
+          return;
+        }
+        listenerName = m_running.listener.getClass().getName();
+        m_reportedSlow = true;
+        if (stuck) {
+          release();
+          m_thread.interrupt();
+        }
+      }
+      long elapsedInMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+      if (slow) {
+        Tracer.logEvent(APOLLO_CLIENT_CONFIG_CHANGE_LISTENER_SLOW, listenerName);
+        logger.warn("Config change listener {} has been running for {} ms", listenerName,
+            elapsedInMillis);
+      }
+      if (!stuck) {
+        return;
+      }
+      ApolloConfigException exception = new ApolloConfigException(String.format(
+          "Config change listener %s has been running for %d ms, which exceeds the timeout, "
+              + "its following changes are delayed until it returns", listenerName,
+          elapsedInMillis));
+      Tracer.logError(exception);
+      logger.error(exception.getMessage());
+      trySpawnWorker();
+    }
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The index of the config change listeners, by their interested keys and interested key prefixes.
+ * <p>
+ * Interested keys are kept in a hash map and interested key prefixes in a trie, so matching a
+ * change only costs a lookup plus a trie walk per changed key, no matter how many listeners are
+ * registered. Listeners without any interested keys or prefixes are interested in all changes.
+ * <p>
+ * Registration and removal are rare and serialized, matching is lock free: the listeners of each
+ * index entry are kept in copy-on-write arrays.
+ */
+class ConfigChangeListenerIndex {
+
+  private static final Registration[] EMPTY_REGISTRATIONS = new Registration[0];
+  private static final Comparator<Registration> REGISTRATION_ORDER =
+      Comparator.comparingLong(registration -> registration.sequence);
+
+  // guarded by this
+  private final Map<ConfigChangeListener, Registration> m_registrations = new IdentityHashMap<>();
+  // guarded by this
+  private long m_sequence;
+
+  private final ConcurrentMap<String, Registration[]> m_keyIndex = new ConcurrentHashMap<>();
+  private final PrefixNode m_prefixRoot = new PrefixNode();
+  private volatile Registration[] m_unfilteredRegistrations = EMPTY_REGISTRATIONS;
+
+  /**
+   * Register the listener, the same listener instance is only registered once.
+   *
+   * @return true if the listener is registered, false if it was already registered
+   */
+  synchronized boolean add(ConfigChangeListener listener, Set<String> interestedKeys,
+      Set<String> interestedKeyPrefixes) {
+    if (m_registrations.containsKey(listener)) {
+      return false;
+    }
+    Registration registration = new Registration(listener, m_sequence++, copyOf(interestedKeys),
+        copyOf(interestedKeyPrefixes));
+    m_registrations.put(listener, registration);
+
+    if (registration.isUnfiltered()) {
+      m_unfilteredRegistrations = append(m_unfilteredRegistrations, registration);
+      return true;
+    }
+    for (String interestedKey : registration.interestedKeys) {
+      m_keyIndex.put(interestedKey,
+          append(m_keyIndex.getOrDefault(interestedKey, EMPTY_REGISTRATIONS), registration));
+    }
+    for (String interestedKeyPrefix : registration.interestedKeyPrefixes) {
+      PrefixNode node = m_prefixRoot;
+      for (int i = 0; i < interestedKeyPrefix.length(); i++) {
+        node = node.children.computeIfAbsent(interestedKeyPrefix.charAt(i), c -> new PrefixNode());
+      }
+      node.registrations = append(node.registrations, registration);
+    }
+    return true;
+  }
+
+  /**
+   * Unregister the listener.
+   *
+   * @return true if the listener was registered
+   */
+  synchronized boolean remove(ConfigChangeListener listener) {
+    Registration registration = m_registrations.remove(listener);
+    if (registration == null) {
+      return false;
+    }
+
+    if (registration.isUnfiltered()) {
+      m_unfilteredRegistrations = without(m_unfilteredRegistrations, registration);
+      return true;
+    }
+    for (String interestedKey : registration.interestedKeys) {
+      Registration[] remaining = without(m_keyIndex.get(interestedKey), registration);
+      if (remaining.length == 0) {
+        m_keyIndex.remove(interestedKey);
+      } else {
+        m_keyIndex.put(interestedKey, remaining);
+      }
+    }
+    for (String interestedKeyPrefix : registration.interestedKeyPrefixes) {
+      removeFromTrie(interestedKeyPrefix, registration);
+    }
+    return true;
+  }
+
+  synchronized boolean contains(ConfigChangeListener listener) {
+    return m_registrations.containsKey(listener);
+  }
+
+  /**
+   * Find the listeners interested in the changed keys.
+   *
+   * @param changedKeys the changed keys
+   * @return the matched listeners in registration order, along with the changed keys each of them
+   * is interested in, which is empty for listeners interested in all changes
+   */
+  List<Match> match(Set<String> changedKeys) {
+    Map<Registration, Set<String>> matched = new HashMap<>();
+    for (String changedKey : changedKeys) {
+      Registration[] registrations = m_keyIndex.get(changedKey);
+      if (registrations != null) {
+        collect(matched, registrations, changedKey);
+      }
+      PrefixNode node = m_prefixRoot;
+      int depth = 0;
+      while (node != null) {
+        collect(matched, node.registrations, changedKey);
+        if (depth == changedKey.length()) {
+          break;
+        }
+        node = node.children.get(changedKey.charAt(depth++));
+      }
+    }
+
+    Registration[] unfilteredRegistrations = m_unfilteredRegistrations;
+    if (matched.isEmpty() && unfilteredRegistrations.length == 0) {
+      return Collections.emptyList();
+    }
+    List<Registration> registrations = new ArrayList<>(
+        matched.size() + unfilteredRegistrations.length);
+    registrations.addAll(matched.keySet());
+    Collections.addAll(registrations, unfilteredRegistrations);
+    registrations.sort(REGISTRATION_ORDER);
+
+    List<Match> matches = new ArrayList<>(registrations.size());
+    for (Registration registration : registrations) {
+      Set<String> interestedChangedKeys = matched.get(registration);
+      matches.add(new Match(registration.listener, interestedChangedKeys == null
+          ? Collections.emptySet() : Collections.unmodifiableSet(interestedChangedKeys)));
+    }
+    return matches;
+  }
+
+  private void removeFromTrie(String prefix, Registration registration) {
+    PrefixNode[] path = new PrefixNode[prefix.length() + 1];
+    path[0] = m_prefixRoot;
+    for (int i = 0; i < prefix.length(); i++) {
+      path[i + 1] = path[i].children.get(prefix.charAt(i));
+    }
+    PrefixNode node = path[prefix.length()];
+    node.registrations = without(node.registrations, registration);
+
+    // prune the empty branch, a concurrent match still walking it just finds nothing there
+    for (int i = prefix.length(); i > 0; i--) {
+      PrefixNode current = path[i];
+      if (current.registrations.length > 0 || !current.children.isEmpty()) {
+        break;
+      }
+      path[i - 1].children.remove(prefix.charAt(i - 1));
+    }
+  }
+
+  private static void collect(Map<Registration, Set<String>> matched, Registration[] registrations,
+      String changedKey) {
+    for (Registration registration : registrations) {
+      matched.computeIfAbsent(registration, r -> new HashSet<>()).add(changedKey);
+    }
+  }
+
+  private static Set<String> copyOf(Set<String> values) {
+    if (values == null || values.isEmpty()) {
+      return Collections.emptySet();
+    }
+    return new HashSet<>(values);
+  }
+
+  private static Registration[] append(Registration[] registrations, Registration registration) {
+    Registration[] appended = Arrays.copyOf(registrations, registrations.length + 1);
+    appended[registrations.length] = registration;
+    return appended;
+  }
+
+  private static Registration[] without(Registration[] registrations, Registration registration) {
+    List<Registration> remaining = new ArrayList<>(registrations.length);
+    for (Registration candidate : registrations) {
+      if (candidate != registration) {
+        remaining.add(candidate);
+      }
+    }
+    return remaining.toArray(EMPTY_REGISTRATIONS);
+  }
+
+  /**
+   * A listener interested in the change, along with the changed keys it is interested in.
+   */
+  static final class Match {
+
+    private final ConfigChangeListener listener;
+    private final Set<String> interestedChangedKeys;
+
+    Match(ConfigChangeListener listener, Set<String> interestedChangedKeys) {
+      this.listener = listener;
+      this.interestedChangedKeys = interestedChangedKeys;
+    }
+
+    ConfigChangeListener getListener() {
+      return listener;
+    }
+
+    Set<String> getInterestedChangedKeys() {
+      return interestedChangedKeys;
+    }
+  }
+
+  private static final class Registration {
+
+    private final ConfigChangeListener listener;
+    private final long sequence;
+    private final Set<String> interestedKeys;
+    private final Set<String> interestedKeyPrefixes;
+
+    private Registration(ConfigChangeListener listener, long sequence, Set<String> interestedKeys,
+        Set<String> interestedKeyPrefixes) {
+      this.listener = listener;
+      this.sequence = sequence;
+      this.interestedKeys = interestedKeys;
+      this.interestedKeyPrefixes = interestedKeyPrefixes;
+    }
+
+    private boolean isUnfiltered() {
+      return interestedKeys.isEmpty() && interestedKeyPrefixes.isEmpty();
+    }
+  }
+
+  private static final class PrefixNode {
+
+    private final ConcurrentMap<Character, PrefixNode> children = new ConcurrentHashMap<>();
+    private volatile Registration[] registrations = EMPTY_REGISTRATIONS;
+  }
+}
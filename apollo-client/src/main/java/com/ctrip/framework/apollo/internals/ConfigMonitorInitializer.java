@@ -89,7 +89,8 @@ public class ConfigMonitorInitializer {
     DefaultApolloClientThreadPoolApi defaultApolloClientThreadPoolApi = new DefaultApolloClientThreadPoolApi(
         RemoteConfigRepository.m_executorService,
         AbstractConfig.m_executorService, AbstractConfigFile.m_executorService,
-        AbstractApolloClientMetricsExporter.m_executorService);
+        AbstractApolloClientMetricsExporter.m_executorService,
+        ApolloExecutors.getProvider().getExecutors());
 
     MONITOR_CONTEXT.setApolloClientBootstrapArgsMonitorApi(defaultApolloClientBootstrapArgsApi);
     MONITOR_CONTEXT.setApolloClientExceptionMonitorApi(defaultApolloClientExceptionApi);
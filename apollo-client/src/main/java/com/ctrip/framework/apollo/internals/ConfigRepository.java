@@ -29,6 +29,19 @@ public interface ConfigRepository {
    */
   Properties getConfig();
 
+  /**
+   * Get the config snapshot from this repository, the snapshot is immutable and could be shared.
+   * <p>
+   * The default implementation wraps the properties returned by {@link #getConfig()}, which is
+   * expected to be a new instance for each call.
+   *
+   * @return config snapshot, or null if the config is not available
+   */
+  default ConfigSnapshot getConfigSnapshot() {
+    Properties properties = getConfig();
+    return properties == null ? null : ConfigSnapshot.wrap(properties);
+  }
+
   /**
    * Set the fallback repo for this repository.
    * @param upstreamConfigRepository the upstream repo
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.spi.ConfigServiceLoadBalancerClient;
+import com.ctrip.framework.apollo.spi.HealthAwareConfigServiceLoadBalancerClient;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.foundation.internals.ServiceBootstrap;
+import com.google.inject.Provider;
+
+/**
+ * Provides the {@link ConfigServiceLoadBalancerClient} shared by the config loading and the long
+ * polling, so that both of them feed and benefit from the same config service statistics.
+ */
+class ConfigServiceLoadBalancerClientProvider implements Provider<ConfigServiceLoadBalancerClient> {
+
+  @Override
+  public ConfigServiceLoadBalancerClient get() {
+    ConfigUtil configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    if (configUtil.isHealthAwareLoadBalancingEnabled()) {
+      return new HealthAwareConfigServiceLoadBalancerClient();
+    }
+    return ServiceBootstrap.loadPrimary(ConfigServiceLoadBalancerClient.class);
+  }
+}
@@ -27,7 +27,6 @@ import com.google.common.util.concurrent.RateLimiter;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -36,7 +35,6 @@ import org.slf4j.Logger;
 
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.dto.ServiceDTO;
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.ctrip.framework.apollo.tracer.spi.Transaction;
@@ -80,8 +78,8 @@ public class ConfigServiceLocator {
     }.getType();
     m_httpClient = ApolloInjector.getInstance(HttpClient.class);
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
-    this.m_executorService = Executors.newScheduledThreadPool(1,
-        ApolloThreadFactory.create("ConfigServiceLocator", true));
+    this.m_executorService = ApolloExecutors.getProvider()
+        .newScheduledExecutor("ConfigServiceLocator", 1);
     this.discoveryTaskQueueMark = new AtomicBoolean(false);
     this.m_discoveryRateLimiter = RateLimiter.create(m_configUtil.getDiscoveryQPS());
     initConfigServices();
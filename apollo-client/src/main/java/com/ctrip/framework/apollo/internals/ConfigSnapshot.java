@@ -0,0 +1,411 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An immutable snapshot of the configurations of a namespace.
+ * <p>
+ * Snapshots flow through the {@link ConfigRepository} chain and are shared by reference, a new
+ * snapshot is only created when the configurations really change. A snapshot derived from another
+ * one via {@link #update(Map)} or {@link #apply(Map)} is an overlay of the changed keys on top of a
+ * flat base snapshot, so deriving it costs O(changed keys), and the keys changed between two
+ * snapshots of the same base are known without comparing the whole namespace. The overlay is
+ * flattened once it grows beyond a fraction of its base.
+ * <p>
+ * For the {@link ConfigRepository} implementations which still return {@link Properties}, a
+ * snapshot could also wrap a properties instance which is no longer modified by anyone.
+ */
+public final class ConfigSnapshot {
+
+  private static final AtomicLong VERSION_SEQUENCE = new AtomicLong();
+  private static final ConfigSnapshot EMPTY = new ConfigSnapshot(0, null,
+      Collections.<String, String>emptyMap(), null, 0);
+  // marks a deleted key in the overlay, always compared by reference
+  private static final String DELETED = new String("<deleted>");
+  // the overlay is flattened once its changed keys exceed 1/COMPACT_FACTOR of the base
+  private static final int COMPACT_FACTOR = 4;
+
+  private final long m_version;
+  // the flat base if this snapshot is an overlay, null if this snapshot is flat
+  private final ConfigSnapshot m_base;
+  // all the configurations if flat, the changed keys against the base if an overlay
+  private final Map<String, String> m_values;
+  // the wrapped properties, m_values and m_base are null in this case
+  private final Properties m_properties;
+  private final int m_size;
+  private volatile Set<String> m_keys;
+
+  private ConfigSnapshot(long version, ConfigSnapshot base, Map<String, String> values,
+      Properties properties, int size) {
+    m_version = version;
+    m_base = base;
+    m_values = values;
+    m_properties = properties;
+    m_size = size;
+  }
+
+  /**
+   * @return the shared empty snapshot
+   */
+  public static ConfigSnapshot empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Create a snapshot with a copy of the configurations, entries with null key or value are ignored.
+   *
+   * @param configurations the configurations
+   * @return the snapshot
+   */
+  public static ConfigSnapshot of(Map<String, String> configurations) {
+    Preconditions.checkNotNull(configurations, "configurations cannot be null");
+    Map<String, String> values = Maps.newLinkedHashMapWithExpectedSize(configurations.size());
+    for (Map.Entry<String, String> entry : configurations.entrySet()) {
+      if (entry.getKey() != null && entry.getValue() != null) {
+        values.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return flat(values);
+  }
+
+  /**
+   * Create a snapshot with a copy of the string entries of the properties.
+   *
+   * @param properties the properties
+   * @return the snapshot
+   */
+  public static ConfigSnapshot copyOf(Properties properties) {
+    Preconditions.checkNotNull(properties, "properties cannot be null");
+    Map<String, String> values = Maps.newLinkedHashMapWithExpectedSize(properties.size());
+    for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+      if (entry.getKey() instanceof String && entry.getValue() instanceof String) {
+        values.put((String) entry.getKey(), (String) entry.getValue());
+      }
+    }
+    return flat(values);
+  }
+
+  /**
+   * Create a snapshot backed by the properties without copying them, the caller hands over the
+   * properties and must not modify them afterwards.
+   *
+   * @param properties the properties
+   * @return the snapshot
+   */
+  public static ConfigSnapshot wrap(Properties properties) {
+    Preconditions.checkNotNull(properties, "properties cannot be null");
+    return new ConfigSnapshot(VERSION_SEQUENCE.incrementAndGet(), null, null, properties, -1);
+  }
+
+  private static ConfigSnapshot flat(Map<String, String> values) {
+    if (values.isEmpty()) {
+      return EMPTY;
+    }
+    return new ConfigSnapshot(VERSION_SEQUENCE.incrementAndGet(), null, values, null,
+        values.size());
+  }
+
+  /**
+   * @return the version of this snapshot, a snapshot created later always has a larger version
+   */
+  public long getVersion() {
+    return m_version;
+  }
+
+  /**
+   * @param key the property key
+   * @return the property value, or null if the key doesn't exist
+   */
+  public String get(String key) {
+    if (m_properties != null) {
+      return m_properties.getProperty(key);
+    }
+    String value = m_values.get(key);
+    if (m_base == null) {
+      return value;
+    }
+    if (value == null) {
+      return m_base.m_values.get(key);
+    }
+    return value == DELETED ? null : value;
+  }
+
+  /**
+   * @return the unmodifiable property keys, in the order of the configurations
+   */
+  public Set<String> keySet() {
+    Set<String> keys = m_keys;
+    if (keys == null) {
+      keys = Collections.unmodifiableSet(computeKeys());
+      m_keys = keys;
+    }
+    return keys;
+  }
+
+  /**
+   * @return the number of the properties
+   */
+  public int size() {
+    return m_properties != null ? keySet().size() : m_size;
+  }
+
+  /**
+   * @return a new {@link Properties} instance with all the properties of this snapshot
+   */
+  public Properties toProperties() {
+    Properties properties = ApolloInjector.getInstance(PropertiesFactory.class)
+        .getPropertiesInstance();
+    if (m_properties != null) {
+      properties.putAll(m_properties);
+      return properties;
+    }
+    for (String key : keySet()) {
+      properties.setProperty(key, get(key));
+    }
+    return properties;
+  }
+
+  /**
+   * Derive a snapshot with the full configurations, only the changed keys are recorded.
+   *
+   * @param configurations the new full configurations
+   * @return the derived snapshot, or this snapshot if nothing changed
+   */
+  public ConfigSnapshot update(Map<String, String> configurations) {
+    Preconditions.checkNotNull(configurations, "configurations cannot be null");
+    if (m_properties != null) {
+      return of(configurations);
+    }
+    Map<String, String> changes = Maps.newLinkedHashMap();
+    int existing = 0;
+    for (Map.Entry<String, String> entry : configurations.entrySet()) {
+      String key = entry.getKey();
+      String value = entry.getValue();
+      if (key == null || value == null) {
+        continue;
+      }
+      String current = get(key);
+      if (current != null) {
+        existing++;
+      }
+      if (!value.equals(current)) {
+        changes.put(key, value);
+      }
+    }
+    if (existing < m_size) {
+      for (String key : keySet()) {
+        if (configurations.get(key) == null) {
+          changes.put(key, null);
+        }
+      }
+    }
+    return apply(changes);
+  }
+
+  /**
+   * Derive a snapshot with the changes applied, a null value means the key is deleted.
+   *
+   * @param changes the changed keys and their new values
+   * @return the derived snapshot, or this snapshot if nothing changed
+   */
+  public ConfigSnapshot apply(Map<String, String> changes) {
+    Preconditions.checkNotNull(changes, "changes cannot be null");
+    if (m_properties != null) {
+      Map<String, String> values = Maps.newLinkedHashMap(copyOf(m_properties).m_values);
+      for (Map.Entry<String, String> entry : changes.entrySet()) {
+        if (entry.getValue() == null) {
+          values.remove(entry.getKey());
+        } else {
+          values.put(entry.getKey(), entry.getValue());
+        }
+      }
+      return of(values);
+    }
+
+    ConfigSnapshot base = m_base != null ? m_base : this;
+    Map<String, String> delta = m_base != null ? Maps.newLinkedHashMap(m_values)
+        : Maps.<String, String>newLinkedHashMap();
+    boolean changed = false;
+    for (Map.Entry<String, String> entry : changes.entrySet()) {
+      String key = entry.getKey();
+      String value = entry.getValue();
+      if (key == null || Objects.equals(value, get(key))) {
+        continue;
+      }
+      changed = true;
+      if (Objects.equals(value, base.m_values.get(key))) {
+        // changed back to the value of the base
+        delta.remove(key);
+      } else {
+        delta.put(key, value == null ? DELETED : value);
+      }
+    }
+
+    if (!changed) {
+      return this;
+    }
+    if (delta.isEmpty()) {
+      return base;
+    }
+    if (delta.size() * COMPACT_FACTOR > base.m_size) {
+      return flat(merge(base, delta));
+    }
+    return overlay(base, delta);
+  }
+
+  private static ConfigSnapshot overlay(ConfigSnapshot base, Map<String, String> delta) {
+    int size = base.m_size;
+    for (Map.Entry<String, String> entry : delta.entrySet()) {
+      if (entry.getValue() == DELETED) {
+        size--;
+      } else if (!base.m_values.containsKey(entry.getKey())) {
+        size++;
+      }
+    }
+    return new ConfigSnapshot(VERSION_SEQUENCE.incrementAndGet(), base,
+        Collections.unmodifiableMap(delta), null, size);
+  }
+
+  private static Map<String, String> merge(ConfigSnapshot base, Map<String, String> delta) {
+    Map<String, String> values = Maps.newLinkedHashMapWithExpectedSize(
+        base.m_size + delta.size());
+    for (Map.Entry<String, String> entry : base.m_values.entrySet()) {
+      String value = delta.get(entry.getKey());
+      if (value == null) {
+        values.put(entry.getKey(), entry.getValue());
+      } else if (value != DELETED) {
+        values.put(entry.getKey(), value);
+      }
+    }
+    for (Map.Entry<String, String> entry : delta.entrySet()) {
+      if (entry.getValue() != DELETED && !values.containsKey(entry.getKey())) {
+        values.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return values;
+  }
+
+  private Set<String> computeKeys() {
+    if (m_properties != null) {
+      // Properties#stringPropertyNames is slow before jdk9, so iterate the entry set directly
+      Set<String> keys = Sets.newLinkedHashSetWithExpectedSize(m_properties.size());
+      for (Map.Entry<Object, Object> entry : m_properties.entrySet()) {
+        if (entry.getKey() instanceof String && entry.getValue() instanceof String) {
+          keys.add((String) entry.getKey());
+        }
+      }
+      return keys;
+    }
+    if (m_base == null) {
+      return m_values.keySet();
+    }
+    Set<String> keys = Sets.newLinkedHashSetWithExpectedSize(m_size);
+    for (String key : m_base.m_values.keySet()) {
+      if (m_values.get(key) != DELETED) {
+        keys.add(key);
+      }
+    }
+    for (Map.Entry<String, String> entry : m_values.entrySet()) {
+      if (entry.getValue() != DELETED) {
+        keys.add(entry.getKey());
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Get the keys which might be changed since the previous snapshot.
+   *
+   * @param previous the previous snapshot
+   * @return the candidate keys if both snapshots are derived from the same base, otherwise null
+   * which means all the keys need to be compared
+   */
+  Set<String> changedKeysSince(ConfigSnapshot previous) {
+    if (previous == this) {
+      return Collections.emptySet();
+    }
+    if (previous == null || m_properties != null || previous.m_properties != null
+        || base() != previous.base()) {
+      return null;
+    }
+    Set<String> keys = Sets.newLinkedHashSet();
+    if (m_base != null) {
+      keys.addAll(m_values.keySet());
+    }
+    if (previous.m_base != null) {
+      keys.addAll(previous.m_values.keySet());
+    }
+    return keys;
+  }
+
+  private ConfigSnapshot base() {
+    return m_base != null ? m_base : this;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ConfigSnapshot)) {
+      return false;
+    }
+    ConfigSnapshot other = (ConfigSnapshot) o;
+    Set<String> keys = changedKeysSince(other);
+    if (keys == null) {
+      if (size() != other.size()) {
+        return false;
+      }
+      keys = keySet();
+    }
+    for (String key : keys) {
+      if (!Objects.equals(get(key), other.get(key))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hashCode = 0;
+    for (String key : keySet()) {
+      hashCode += key.hashCode() ^ Objects.hashCode(get(key));
+    }
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    return "ConfigSnapshot{" +
+        "version=" + m_version +
+        ", size=" + size() +
+        '}';
+  }
+}
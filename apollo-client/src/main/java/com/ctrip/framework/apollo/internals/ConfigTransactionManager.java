@@ -0,0 +1,301 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.ConfigSnapshotView;
+import com.ctrip.framework.apollo.ConfigTransactionListener;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.model.ConfigTransactionEvent;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Sets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies the changes of the namespaces notified by the same long polling response together.
+ * <p>
+ * A batch is opened for the namespaces of a long polling notification, the configs keep updating
+ * themselves as usual, while the changes they report are held by the batch until all the notified
+ * repositories finish syncing. The batch is then committed as a new version of the snapshot views
+ * and the {@link ConfigTransactionListener}s are notified with one event, in the order of the
+ * commits. Changes reported outside of any batch are committed right away.
+ *
+ * @since 2.6.0
+ */
+public class ConfigTransactionManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(ConfigTransactionManager.class);
+  // a batch is committed anyway after this time, so that a stuck sync doesn't hold the changes
+  private static final long BATCH_TIMEOUT_IN_SECONDS = 60;
+
+  private final ScheduledExecutorService m_executorService;
+  private final List<ConfigTransactionListener> m_listeners = new CopyOnWriteArrayList<>();
+  // the open batches in the order they are opened, guarded by this
+  private final List<Batch> m_openBatches = new LinkedList<>();
+  private volatile Committed m_committed = new Committed(0,
+      ImmutableMap.<String, ConfigSnapshot>of());
+
+  public ConfigTransactionManager() {
+    this(ApolloExecutors.getProvider().newScheduledExecutor("ConfigTransaction", 1));
+  }
+
+  ConfigTransactionManager(ScheduledExecutorService executorService) {
+    m_executorService = executorService;
+  }
+
+  public void addTransactionListener(ConfigTransactionListener listener) {
+    if (!m_listeners.contains(listener)) {
+      m_listeners.add(listener);
+    }
+  }
+
+  public boolean removeTransactionListener(ConfigTransactionListener listener) {
+    return m_listeners.remove(listener);
+  }
+
+  /**
+   * @return the latest committed view of the namespaces
+   */
+  public ConfigSnapshotView snapshot(String appId, Collection<String> namespaces) {
+    Committed committed = m_committed;
+    Map<String, ConfigSnapshot> snapshots = Maps.newLinkedHashMap();
+    for (String namespace : namespaces) {
+      ConfigSnapshot snapshot = committed.snapshots.get(key(appId, namespace));
+      if (snapshot != null) {
+        snapshots.put(namespace, snapshot);
+      }
+    }
+    return new SnapshotView(committed.version, snapshots);
+  }
+
+  /**
+   * Open a batch for the namespaces notified by a long polling response, each namespace is
+   * expected to call {@link #onSyncCompleted(String, String)} once.
+   */
+  void begin(String appId, Collection<String> namespaces) {
+    if (namespaces.isEmpty()) {
+      return;
+    }
+    final Batch batch = new Batch(appId, namespaces);
+    synchronized (this) {
+      m_openBatches.add(batch);
+    }
+    try {
+      m_executorService.schedule(() -> expire(batch), BATCH_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+    } catch (RejectedExecutionException ex) {
+      Tracer.logError(ex);
+      logger.error("Failed to schedule the expiration of config transaction", ex);
+    }
+  }
+
+  /**
+   * Called when the repository of the namespace finished the sync triggered by the long polling.
+   */
+  synchronized void onSyncCompleted(String appId, String namespace) {
+    for (Iterator<Batch> iterator = m_openBatches.iterator(); iterator.hasNext(); ) {
+      Batch batch = iterator.next();
+      if (batch.appId.equals(appId) && batch.remaining.remove(namespace)) {
+        if (batch.remaining.isEmpty()) {
+          iterator.remove();
+          commit(appId, batch.snapshots, batch.changes);
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Called when the config of the namespace is initialized.
+   */
+  synchronized void onConfigInitialized(String appId, String namespace, ConfigSnapshot snapshot) {
+    if (snapshot == null) {
+      return;
+    }
+    commit(appId, Collections.singletonMap(namespace, snapshot),
+        Collections.<String, Map<String, ConfigChange>>emptyMap());
+  }
+
+  /**
+   * Called when the config of the namespace is updated, the changes could be empty if the
+   * snapshot changed but the values seen by the config didn't.
+   */
+  synchronized void onConfigChanged(String appId, String namespace, ConfigSnapshot snapshot,
+      Map<String, ConfigChange> changes) {
+    for (Batch batch : m_openBatches) {
+      if (batch.appId.equals(appId) && batch.namespaces.contains(namespace)) {
+        batch.record(namespace, snapshot, changes);
+        return;
+      }
+    }
+    commit(appId, Collections.singletonMap(namespace, snapshot),
+        changes.isEmpty() ? Collections.<String, Map<String, ConfigChange>>emptyMap()
+            : Collections.singletonMap(namespace, changes));
+  }
+
+  private synchronized void expire(Batch batch) {
+    if (!m_openBatches.remove(batch)) {
+      return;
+    }
+    logger.warn("Config transaction of appId {} is not completed in {} seconds, namespaces: {}",
+        batch.appId, BATCH_TIMEOUT_IN_SECONDS, batch.remaining.elementSet());
+    commit(batch.appId, batch.snapshots, batch.changes);
+  }
+
+  private void commit(String appId, Map<String, ConfigSnapshot> snapshots,
+      Map<String, Map<String, ConfigChange>> changes) {
+    if (snapshots.isEmpty()) {
+      return;
+    }
+    Committed previous = m_committed;
+    Map<String, ConfigSnapshot> committedSnapshots = Maps.newHashMap(previous.snapshots);
+    for (Map.Entry<String, ConfigSnapshot> entry : snapshots.entrySet()) {
+      committedSnapshots.put(key(appId, entry.getKey()), entry.getValue());
+    }
+    Committed committed = new Committed(previous.version + 1,
+        ImmutableMap.copyOf(committedSnapshots));
+    m_committed = committed;
+
+    if (changes.isEmpty() || m_listeners.isEmpty()) {
+      return;
+    }
+    Map<String, ConfigChangeEvent> changeEvents = Maps.newLinkedHashMap();
+    for (Map.Entry<String, Map<String, ConfigChange>> entry : changes.entrySet()) {
+      changeEvents.put(entry.getKey(),
+          new ConfigChangeEvent(appId, entry.getKey(), entry.getValue()));
+    }
+    ConfigTransactionEvent event = new ConfigTransactionEvent(appId,
+        Collections.unmodifiableMap(changeEvents),
+        new SnapshotView(committed.version, Maps.newLinkedHashMap(snapshots)));
+    try {
+      // a single thread keeps the events in the order of the commits
+      m_executorService.execute(() -> notifyListeners(event));
+    } catch (RejectedExecutionException ex) {
+      Tracer.logError(ex);
+      logger.error("Failed to notify config transaction listeners", ex);
+    }
+  }
+
+  private void notifyListeners(ConfigTransactionEvent event) {
+    for (ConfigTransactionListener listener : m_listeners) {
+      try {
+        listener.onTransaction(event);
+      } catch (Throwable ex) {
+        Tracer.logError(ex);
+        logger.error("Failed to invoke config transaction listener {}",
+            listener.getClass().getName(), ex);
+      }
+    }
+  }
+
+  private static String key(String appId, String namespace) {
+    return appId + "+" + namespace;
+  }
+
+  private static class Batch {
+
+    private final String appId;
+    private final Set<String> namespaces;
+    private final Multiset<String> remaining;
+    private final Map<String, ConfigSnapshot> snapshots = Maps.newLinkedHashMap();
+    private final Map<String, Map<String, ConfigChange>> changes = Maps.newLinkedHashMap();
+
+    Batch(String appId, Collection<String> namespaces) {
+      this.appId = appId;
+      this.namespaces = Sets.newHashSet(namespaces);
+      this.remaining = HashMultiset.create(namespaces);
+    }
+
+    void record(String namespace, ConfigSnapshot snapshot, Map<String, ConfigChange> changes) {
+      snapshots.put(namespace, snapshot);
+      if (changes.isEmpty()) {
+        return;
+      }
+      Map<String, ConfigChange> namespaceChanges = this.changes.get(namespace);
+      if (namespaceChanges == null) {
+        namespaceChanges = Maps.newLinkedHashMap();
+        this.changes.put(namespace, namespaceChanges);
+      }
+      namespaceChanges.putAll(changes);
+    }
+  }
+
+  private static class Committed {
+
+    private final long version;
+    private final Map<String, ConfigSnapshot> snapshots;
+
+    Committed(long version, Map<String, ConfigSnapshot> snapshots) {
+      this.version = version;
+      this.snapshots = snapshots;
+    }
+  }
+
+  private static class SnapshotView implements ConfigSnapshotView {
+
+    private final long version;
+    private final Map<String, ConfigSnapshot> snapshots;
+
+    SnapshotView(long version, Map<String, ConfigSnapshot> snapshots) {
+      this.version = version;
+      this.snapshots = snapshots;
+    }
+
+    @Override
+    public long getVersion() {
+      return version;
+    }
+
+    @Override
+    public Set<String> getNamespaces() {
+      return Collections.unmodifiableSet(snapshots.keySet());
+    }
+
+    @Override
+    public String getProperty(String namespace, String key, String defaultValue) {
+      ConfigSnapshot snapshot = snapshots.get(namespace);
+      String value = snapshot == null ? null : snapshot.get(key);
+      return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public Set<String> getPropertyNames(String namespace) {
+      ConfigSnapshot snapshot = snapshots.get(namespace);
+      return snapshot == null ? Collections.<String>emptySet() : snapshot.keySet();
+    }
+
+    @Override
+    public String toString() {
+      return "ConfigSnapshotView{version=" + version + ", namespaces=" + snapshots.keySet() + "}";
+    }
+  }
+}
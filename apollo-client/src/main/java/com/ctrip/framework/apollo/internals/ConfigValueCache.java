@@ -0,0 +1,230 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.monitor.api.ApolloClientNamespaceMonitorApi.ValueCacheStats;
+import com.google.common.collect.Maps;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The cache of parsed property values, keyed by (value type, parser token, property key).
+ * <p>
+ * All the entries of a config version live in one {@link Generation}, invalidation simply swaps in
+ * a new generation, so neither reads nor writes need any lock. A value parsed against an old config
+ * version could only be put into the old generation, which is no longer visible.
+ * <p>
+ * Like the Guava caches it replaces, one per value type and per array delimiter, the cache is
+ * bounded per value type and token, i.e. the max size applies to each of them, and entries expire
+ * after access. A max size of 0 disables the cache. Size eviction is an approximated LRU over a few
+ * sampled entries.
+ */
+class ConfigValueCache {
+
+  /**
+   * The value types of the cache, each type has its own stats.
+   */
+  enum ValueType {
+    INTEGER("Integer"), LONG("Long"), SHORT("Short"), FLOAT("Float"), DOUBLE("Double"),
+    BYTE("Byte"), BOOLEAN("Boolean"), DATE("Date"), DURATION("Duration"), ARRAY("Array"),
+    ENUM("Enum"), FORMATTED_DATE("FormattedDate");
+
+    private final String displayName;
+
+    ValueType(String displayName) {
+      this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+      return displayName;
+    }
+  }
+
+  // bound the tokens of a value type, e.g. custom parser functions or date formats
+  private static final int MAX_TOKENS_PER_TYPE = 64;
+  private static final int EVICTION_SAMPLES = 16;
+  private static final ValueType[] VALUE_TYPES = ValueType.values();
+
+  private final long m_maxSize;
+  private final long m_expireAfterAccessNanos;
+  // skip updating the access time of a hot entry if it was just updated
+  private final long m_accessRefreshNanos;
+  private final AtomicReference<Generation> m_generation;
+  private final LongAdder[] m_hits;
+  private final LongAdder[] m_misses;
+
+  /**
+   * @param maxSize the max size of each value type and token, 0 to disable the cache
+   */
+  ConfigValueCache(long maxSize, long expireAfterAccess, TimeUnit timeUnit) {
+    m_maxSize = maxSize;
+    m_expireAfterAccessNanos = timeUnit.toNanos(expireAfterAccess);
+    m_accessRefreshNanos = m_expireAfterAccessNanos / 16;
+    m_generation = new AtomicReference<>(new Generation(0));
+    m_hits = new LongAdder[VALUE_TYPES.length];
+    m_misses = new LongAdder[VALUE_TYPES.length];
+    for (int i = 0; i < VALUE_TYPES.length; i++) {
+      m_hits[i] = new LongAdder();
+      m_misses[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * The generation to read from and write to, callers should get it <em>before</em> reading the
+   * raw property value, so that the parsed value never outlives its config version.
+   */
+  Generation current() {
+    return m_generation.get();
+  }
+
+  /**
+   * Drop all the cached values by swapping in a new generation.
+   *
+   * @param version the new config version
+   */
+  void invalidateAll(long version) {
+    m_generation.set(new Generation(version));
+  }
+
+  /**
+   * @return the hit/miss stats keyed by the display name of the value type
+   */
+  Map<String, ValueCacheStats> stats() {
+    Map<String, ValueCacheStats> stats = Maps.newLinkedHashMap();
+    for (ValueType type : VALUE_TYPES) {
+      long hits = m_hits[type.ordinal()].sum();
+      long misses = m_misses[type.ordinal()].sum();
+      if (hits + misses > 0) {
+        stats.put(type.getDisplayName(), new ValueCacheStats(hits, misses));
+      }
+    }
+    return stats;
+  }
+
+  final class Generation {
+
+    private final long m_version;
+    private final ConcurrentMap<Object, Entries>[] m_tokens;
+
+    @SuppressWarnings("unchecked")
+    private Generation(long version) {
+      m_version = version;
+      m_tokens = new ConcurrentMap[VALUE_TYPES.length];
+      for (int i = 0; i < VALUE_TYPES.length; i++) {
+        m_tokens[i] = new ConcurrentHashMap<>();
+      }
+    }
+
+    long version() {
+      return m_version;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(ValueType type, Object token, String key) {
+      Entries entries = m_tokens[type.ordinal()].get(token);
+      Entry entry = entries == null ? null : entries.m_entries.get(key);
+      if (entry != null) {
+        long now = System.nanoTime();
+        long idle = now - entry.lastAccess;
+        if (idle < m_expireAfterAccessNanos) {
+          if (idle > m_accessRefreshNanos) {
+            entry.lastAccess = now;
+          }
+          m_hits[type.ordinal()].increment();
+          return (T) entry.value;
+        }
+        entries.remove(key, entry);
+      }
+      m_misses[type.ordinal()].increment();
+      return null;
+    }
+
+    void put(ValueType type, Object token, String key, Object value) {
+      if (m_maxSize <= 0) {
+        return;
+      }
+      ConcurrentMap<Object, Entries> tokens = m_tokens[type.ordinal()];
+      Entries entries = tokens.get(token);
+      if (entries == null) {
+        if (tokens.size() >= MAX_TOKENS_PER_TYPE) {
+          return;
+        }
+        entries = tokens.computeIfAbsent(token, k -> new Entries());
+      }
+      entries.put(key, new Entry(value, System.nanoTime()));
+    }
+  }
+
+  /**
+   * The entries of a value type and token, bounded by the max size.
+   */
+  private final class Entries {
+
+    private final ConcurrentMap<String, Entry> m_entries = new ConcurrentHashMap<>();
+    private final AtomicInteger m_size = new AtomicInteger();
+
+    private void put(String key, Entry entry) {
+      if (m_entries.put(key, entry) == null && m_size.incrementAndGet() > m_maxSize) {
+        evict(key);
+      }
+    }
+
+    private void remove(String key, Entry entry) {
+      if (m_entries.remove(key, entry)) {
+        m_size.decrementAndGet();
+      }
+    }
+
+    private void evict(String justPut) {
+      String victimKey = null;
+      Entry victim = null;
+      int samples = 0;
+      Iterator<Map.Entry<String, Entry>> iterator = m_entries.entrySet().iterator();
+      while (iterator.hasNext() && samples < EVICTION_SAMPLES) {
+        Map.Entry<String, Entry> candidate = iterator.next();
+        if (candidate.getKey().equals(justPut)) {
+          continue;
+        }
+        samples++;
+        if (victim == null || candidate.getValue().lastAccess - victim.lastAccess < 0) {
+          victimKey = candidate.getKey();
+          victim = candidate.getValue();
+        }
+      }
+      if (victim != null) {
+        remove(victimKey, victim);
+      }
+    }
+  }
+
+  private static final class Entry {
+
+    private final Object value;
+    private volatile long lastAccess;
+
+    private Entry(Object value, long lastAccess) {
+      this.value = value;
+      this.lastAccess = lastAccess;
+    }
+  }
+}
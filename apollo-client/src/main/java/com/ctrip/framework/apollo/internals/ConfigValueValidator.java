@@ -0,0 +1,81 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.ConfigValueConstraint;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableListMultimap;
+import java.util.Map;
+
+/**
+ * The constraints registered to a config, looked up by exact key and by key prefix. Constraints
+ * are rarely added, so they are kept in immutable multimaps replaced on each addition.
+ */
+class ConfigValueValidator {
+
+  private volatile ImmutableListMultimap<String, ConfigValueConstraint> m_keyConstraints =
+      ImmutableListMultimap.of();
+  private volatile ImmutableListMultimap<String, ConfigValueConstraint> m_prefixConstraints =
+      ImmutableListMultimap.of();
+
+  synchronized void addConstraint(String key, ConfigValueConstraint constraint) {
+    Preconditions.checkNotNull(key, "key cannot be null");
+    Preconditions.checkNotNull(constraint, "constraint cannot be null");
+    m_keyConstraints = ImmutableListMultimap.<String, ConfigValueConstraint>builder()
+        .putAll(m_keyConstraints).put(key, constraint).build();
+  }
+
+  synchronized void addPrefixConstraint(String keyPrefix, ConfigValueConstraint constraint) {
+    Preconditions.checkNotNull(keyPrefix, "keyPrefix cannot be null");
+    Preconditions.checkNotNull(constraint, "constraint cannot be null");
+    m_prefixConstraints = ImmutableListMultimap.<String, ConfigValueConstraint>builder()
+        .putAll(m_prefixConstraints).put(keyPrefix, constraint).build();
+  }
+
+  boolean isEmpty() {
+    return m_keyConstraints.isEmpty() && m_prefixConstraints.isEmpty();
+  }
+
+  /**
+   * @return the reason of the first violated constraint, null if the value satisfies them all
+   */
+  String validate(String key, String value) {
+    for (ConfigValueConstraint constraint : m_keyConstraints.get(key)) {
+      String violation = validate(constraint, value);
+      if (violation != null) {
+        return violation;
+      }
+    }
+    for (Map.Entry<String, ConfigValueConstraint> entry : m_prefixConstraints.entries()) {
+      if (key.startsWith(entry.getKey())) {
+        String violation = validate(entry.getValue(), value);
+        if (violation != null) {
+          return violation;
+        }
+      }
+    }
+    return null;
+  }
+
+  static String validate(ConfigValueConstraint constraint, String value) {
+    try {
+      return constraint.validate(value);
+    } catch (Throwable ex) {
+      return "constraint failed with " + ex;
+    }
+  }
+}
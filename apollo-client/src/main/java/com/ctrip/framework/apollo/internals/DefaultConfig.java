@@ -16,6 +16,7 @@
  */
 package com.ctrip.framework.apollo.internals;
 
+import com.ctrip.framework.apollo.ConfigValueConstraint;
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorConstant.*;
 import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
@@ -27,6 +28,8 @@ import com.google.common.collect.Sets;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -53,9 +56,17 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
   private final String m_appId;
   private final String m_namespace;
   private final Properties m_resourceProperties;
-  private final AtomicReference<Properties> m_configProperties;
+  private final AtomicReference<ConfigSnapshot> m_configSnapshot;
   private final ConfigRepository m_configRepository;
   private final RateLimiter m_warnLogRateLimiter;
+  private final ConfigTransactionManager m_transactionManager;
+  private volatile PropertyNames m_propertyNames;
+  private final ConfigValueValidator m_valueValidator = new ConfigValueValidator();
+  /**
+   * the rejected values by key, a value still in the repository is rejected again on every sync but
+   * only reported once
+   */
+  private final Map<String, String> m_rejectedValues = Maps.newHashMap();
 
   private volatile ConfigSourceType m_sourceType = ConfigSourceType.NONE;
 
@@ -84,15 +95,17 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
     m_namespace = namespace;
     m_resourceProperties = loadFromResource(m_appId, m_namespace);
     m_configRepository = configRepository;
-    m_configProperties = new AtomicReference<>();
+    m_configSnapshot = new AtomicReference<>();
     m_warnLogRateLimiter = RateLimiter.create(0.017); // 1 warning log output per minute
+    m_transactionManager = ApolloInjector.getInstance(ConfigTransactionManager.class);
     initialize();
   }
 
   private void initialize() {
     try {
       m_configRepository.initialize();
-      updateConfig(m_configRepository.getConfig(), m_configRepository.getSourceType());
+      updateConfig(m_configRepository.getConfigSnapshot(), m_configRepository.getSourceType());
+      m_transactionManager.onConfigInitialized(m_appId, m_namespace, m_configSnapshot.get());
     } catch (Throwable ex) {
       Tracer.logError(ex);
       logger.warn("Init Apollo Local Config failed - namespace: {}, reason: {}.",
@@ -111,9 +124,9 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
    * @return value
    */
   protected String getPropertyFromRepository(String key) {
-    Properties properties = m_configProperties.get();
-    if (properties != null) {
-      return properties.getProperty(key);
+    ConfigSnapshot snapshot = m_configSnapshot.get();
+    if (snapshot != null) {
+      return snapshot.get(key);
     }
     return null;
   }
@@ -138,7 +151,7 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
    * @param value value
    */
   protected void tryWarnLog(String value) {
-    if (value == null && m_configProperties.get() == null && m_warnLogRateLimiter.tryAcquire()) {
+    if (value == null && m_configSnapshot.get() == null && m_warnLogRateLimiter.tryAcquire()) {
       logger.warn(
           "Could not load config for namespace {} from Apollo, please check whether the configs are released in Apollo! Return default value now!",
           m_namespace);
@@ -151,11 +164,11 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
    * @return property names
    */
   protected Set<String> getPropertyNamesFromRepository() {
-    Properties properties = m_configProperties.get();
-    if (properties == null) {
+    ConfigSnapshot snapshot = m_configSnapshot.get();
+    if (snapshot == null) {
       return Collections.emptySet();
     }
-    return this.stringPropertyNames(properties);
+    return new LinkedHashSet<>(snapshot.keySet());
   }
 
   /**
@@ -200,8 +213,31 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
     return value == null ? defaultValue : value;
   }
 
+  /**
+   * The property names are only computed again when the config snapshot changes, and the same set
+   * is returned as long as the names are the same, e.g. when only the values are changed.
+   * <p>
+   * Since 2.6.0 the returned set is unmodifiable and shared between the callers, modifying it
+   * throws {@link UnsupportedOperationException}, callers used to modify the returned copy should
+   * copy it first. The set is never modified afterwards, so it can be kept as a snapshot of names.
+   */
   @Override
   public Set<String> getPropertyNames() {
+    ConfigSnapshot snapshot = m_configSnapshot.get();
+    PropertyNames propertyNames = m_propertyNames;
+    if (propertyNames == null || propertyNames.snapshot != snapshot) {
+      Set<String> names = computePropertyNames();
+      if (propertyNames != null && propertyNames.names.equals(names)) {
+        propertyNames = new PropertyNames(snapshot, propertyNames.names);
+      } else {
+        propertyNames = new PropertyNames(snapshot, Collections.unmodifiableSet(names));
+      }
+      m_propertyNames = propertyNames;
+    }
+    return propertyNames.names;
+  }
+
+  private Set<String> computePropertyNames() {
     // propertyNames include system property and system env might cause some compatibility issues, though that looks like the correct implementation.
     Set<String> fromRepository = this.getPropertyNamesFromRepository();
     Set<String> fromAdditional = this.getPropertyNamesFromAdditional();
@@ -236,6 +272,37 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
     return h.keySet();
   }
 
+  @Override
+  public void addConstraint(String key, ConfigValueConstraint constraint) {
+    m_valueValidator.addConstraint(key, constraint);
+    checkCurrentValue(key, constraint);
+  }
+
+  @Override
+  public void addPrefixConstraint(String keyPrefix, ConfigValueConstraint constraint) {
+    m_valueValidator.addPrefixConstraint(keyPrefix, constraint);
+    for (String key : getPropertyNames()) {
+      if (key.startsWith(keyPrefix)) {
+        checkCurrentValue(key, constraint);
+      }
+    }
+  }
+
+  /**
+   * The current value is already in use, so it is kept even if it violates the new constraint.
+   */
+  private void checkCurrentValue(String key, ConfigValueConstraint constraint) {
+    String value = getProperty(key, null);
+    if (value == null) {
+      return;
+    }
+    String violation = ConfigValueValidator.validate(constraint, value);
+    if (violation != null) {
+      logger.warn("The current value of {} violates the constraint added: {}, keep it until a "
+          + "valid release.", key, violation);
+    }
+  }
+
   @Override
   public synchronized void onRepositoryChange(String namespace, Properties newProperties) {
     this.onRepositoryChange(m_appId, m_namespace, newProperties);
@@ -243,16 +310,42 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
 
   @Override
   public synchronized void onRepositoryChange(String appId, String namespace, Properties newProperties) {
-    if (newProperties.equals(m_configProperties.get())) {
+    this.onRepositoryChange(appId, namespace, ConfigSnapshot.copyOf(newProperties));
+  }
+
+  @Override
+  public synchronized void onRepositoryChange(String appId, String namespace,
+      ConfigSnapshot newSnapshot) {
+    ConfigSnapshot previous = m_configSnapshot.get();
+    if (newSnapshot == previous) {
       return;
     }
 
-    ConfigSourceType sourceType = m_configRepository.getSourceType();
-    Properties newConfigProperties = propertiesFactory.getPropertiesInstance();
-    newConfigProperties.putAll(newProperties);
+    // forget the rejected values no longer released, so that they are reported again if released
+    if (!m_rejectedValues.isEmpty()) {
+      ConfigSnapshot released = newSnapshot;
+      m_rejectedValues.entrySet()
+          .removeIf(entry -> !entry.getValue().equals(released.get(entry.getKey())));
+    }
 
-    Map<String, ConfigChange> actualChanges = updateAndCalcConfigChanges(newConfigProperties,
-        sourceType);
+    List<ConfigChange> configChanges =
+        calcPropertyChanges(m_appId, m_namespace, previous, newSnapshot);
+    if (configChanges.isEmpty()) {
+      return;
+    }
+
+    Map<String, String> lastGoodValues = rejectInvalidChanges(configChanges);
+    if (!lastGoodValues.isEmpty()) {
+      newSnapshot = newSnapshot.apply(lastGoodValues);
+      if (configChanges.isEmpty()) {
+        return;
+      }
+    }
+
+    ConfigSourceType sourceType = m_configRepository.getSourceType();
+    Map<String, ConfigChange> actualChanges = updateAndCalcConfigChanges(configChanges,
+        newSnapshot, sourceType);
+    m_transactionManager.onConfigChanged(m_appId, m_namespace, newSnapshot, actualChanges);
 
     //check double checked result
     if (actualChanges.isEmpty()) {
@@ -264,16 +357,46 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
     Tracer.logEvent(APOLLO_CLIENT_CONFIGCHANGES, m_namespace);
   }
 
-  private void updateConfig(Properties newConfigProperties, ConfigSourceType sourceType) {
-    m_configProperties.set(newConfigProperties);
-    m_sourceType = sourceType;
+  /**
+   * Remove the changes violating the constraints of this config.
+   *
+   * @return the last good values of the rejected keys, null if the key didn't exist before
+   */
+  private Map<String, String> rejectInvalidChanges(List<ConfigChange> configChanges) {
+    if (m_valueValidator.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<String, String> lastGoodValues = Maps.newHashMap();
+    for (Iterator<ConfigChange> iterator = configChanges.iterator(); iterator.hasNext(); ) {
+      ConfigChange change = iterator.next();
+      if (change.getNewValue() == null) {
+        continue;
+      }
+      String key = change.getPropertyName();
+      String violation = m_valueValidator.validate(key, change.getNewValue());
+      if (violation == null) {
+        continue;
+      }
+      iterator.remove();
+      lastGoodValues.put(key, change.getOldValue());
+      if (change.getNewValue().equals(m_rejectedValues.put(key, change.getNewValue()))) {
+        // already reported
+        continue;
+      }
+      Tracer.logEvent(APOLLO_CLIENT_CONFIG_REJECTED, m_namespace);
+      logger.warn("Rejected the change of {} in namespace {}: {}, keep the last good value.",
+          key, m_namespace, violation);
+    }
+    return lastGoodValues;
   }
 
-  private Map<String, ConfigChange> updateAndCalcConfigChanges(Properties newConfigProperties,
-      ConfigSourceType sourceType) {
-    List<ConfigChange> configChanges =
-        calcPropertyChanges(m_appId, m_namespace, m_configProperties.get(), newConfigProperties);
+  private void updateConfig(ConfigSnapshot newConfigSnapshot, ConfigSourceType sourceType) {
+    m_configSnapshot.set(newConfigSnapshot);
+    m_sourceType = sourceType;
+  }
 
+  private Map<String, ConfigChange> updateAndCalcConfigChanges(List<ConfigChange> configChanges,
+      ConfigSnapshot newConfigSnapshot, ConfigSourceType sourceType) {
     ImmutableMap.Builder<String, ConfigChange> actualChanges =
         new ImmutableMap.Builder<>();
 
@@ -284,8 +407,8 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
       change.setOldValue(this.getProperty(change.getPropertyName(), change.getOldValue()));
     }
 
-    //2. update m_configProperties
-    updateConfig(newConfigProperties, sourceType);
+    //2. update m_configSnapshot
+    updateConfig(newConfigSnapshot, sourceType);
     clearConfigCache();
 
     //3. use getProperty to update configChange's new value and calc the final changes
@@ -353,4 +476,15 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
 
     return properties;
   }
+
+  private static class PropertyNames {
+
+    private final ConfigSnapshot snapshot;
+    private final Set<String> names;
+
+    PropertyNames(ConfigSnapshot snapshot, Set<String> names) {
+      this.snapshot = snapshot;
+      this.names = names;
+    }
+  }
 }
@@ -16,8 +16,6 @@
  */
 package com.ctrip.framework.apollo.internals;
 
-import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorConstant.APOLLO_CLIENT_NAMESPACE_USAGE;
-
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigFile;
 import com.ctrip.framework.apollo.build.ApolloInjector;
@@ -27,7 +25,6 @@ import com.ctrip.framework.apollo.spi.ConfigFactory;
 import com.ctrip.framework.apollo.spi.ConfigFactoryManager;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.google.common.collect.HashBasedTable;
-import com.ctrip.framework.apollo.tracer.Tracer;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Table;
 import com.google.common.collect.Tables;
@@ -37,6 +34,13 @@ import java.util.Map;
  * @author Jason Song(song_s@ctrip.com)
  */
 public class DefaultConfigManager implements ConfigManager {
+  private static final NamespaceUsageRecorder NAMESPACE_USAGE_RECORDER = new NamespaceUsageRecorder();
+
+  static {
+    NAMESPACE_USAGE_RECORDER.scheduleFlush(
+        ApolloExecutors.getProvider().newScheduledExecutor("NamespaceUsage", 1));
+  }
+
   private ConfigFactoryManager m_factoryManager;
 
   private ConfigUtil m_configUtil;
@@ -78,7 +82,7 @@ public class DefaultConfigManager implements ConfigManager {
       }
     }
     if (!ConfigSourceType.NONE.equals(config.getSourceType())) {
-      Tracer.logMetricsForCount(APOLLO_CLIENT_NAMESPACE_USAGE + ":" + namespace);
+      NAMESPACE_USAGE_RECORDER.record(namespace);
     }
 
     return config;
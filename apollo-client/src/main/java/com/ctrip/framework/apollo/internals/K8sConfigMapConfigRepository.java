@@ -29,16 +29,30 @@ import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.ctrip.framework.apollo.util.ExceptionUtil;
 import com.ctrip.framework.apollo.util.escape.EscapeUtil;
 import com.google.common.base.Preconditions;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import org.slf4j.Logger;
 
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * Caches the config of a namespace in a Kubernetes ConfigMap.
+ * <p>
+ * The writes are coalesced: changes arriving within
+ * {@link ConfigUtil#getK8sConfigMapWriteDebounceInMillis()} of the first pending one are merged
+ * into a single write of the latest properties, and a write is skipped when its content is the
+ * same as the last persisted one.
+ *
  * @author dyx1234
  */
 public class K8sConfigMapConfigRepository extends AbstractConfigRepository
@@ -55,6 +69,11 @@ public class K8sConfigMapConfigRepository extends AbstractConfigRepository
     private volatile ConfigRepository upstream;
     private volatile ConfigSourceType sourceType = ConfigSourceType.CONFIGMAP;
     private static final Gson GSON = new Gson();
+    private static final ScheduledExecutorService persistExecutorService =
+            ApolloExecutors.getProvider().newScheduledExecutor("K8sConfigMapPersist", 1);
+    private final AtomicReference<Properties> pendingProperties = new AtomicReference<>();
+    private final Object persistLock = new Object();
+    private volatile HashCode persistedDigest;
 
     public K8sConfigMapConfigRepository(String appId, String namespace, ConfigRepository upstream) {
         this.appId = appId;
@@ -216,7 +235,29 @@ public class K8sConfigMapConfigRepository extends AbstractConfigRepository
             return;
         }
         this.configMapProperties = newProperties;
-        persistConfigMap(configMapProperties);
+        schedulePersist(configMapProperties);
+    }
+
+    /**
+     * Persist the properties after the debounce delay, the properties scheduled in the meantime
+     * replace the pending ones so only the latest are written.
+     */
+    private void schedulePersist(Properties properties) {
+        long debounce = configUtil.getK8sConfigMapWriteDebounceInMillis();
+        if (debounce <= 0) {
+            persistConfigMap(properties);
+            return;
+        }
+        if (pendingProperties.getAndSet(properties) == null) {
+            persistExecutorService.schedule(this::persistPendingProperties, debounce, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void persistPendingProperties() {
+        Properties properties = pendingProperties.getAndSet(null);
+        if (properties != null) {
+            persistConfigMap(properties);
+        }
     }
 
     @Override
@@ -242,6 +283,32 @@ public class K8sConfigMapConfigRepository extends AbstractConfigRepository
     }
 
     void persistConfigMap(Properties properties) {
+        synchronized (persistLock) {
+            HashCode digest = digest(properties);
+            if (digest.equals(persistedDigest)) {
+                logger.debug("Config of {} is not changed since last persisted, skip writing ConfigMap {}",
+                        configMapKey, configMapName);
+                return;
+            }
+            // only the write pod writes, the other pods don't even read the configmap
+            if (!kubernetesManager.isWritePod(k8sNamespace)) {
+                logger.debug("Not the write pod of ConfigMap {}, skip writing", configMapName);
+                return;
+            }
+            // the configmap might be written by another pod or before this process started
+            if (digest.equals(currentConfigMapDigest())) {
+                logger.debug("Config of {} is already in ConfigMap {}, skip writing", configMapKey,
+                        configMapName);
+                persistedDigest = digest;
+                return;
+            }
+            if (doPersistConfigMap(properties)) {
+                persistedDigest = digest;
+            }
+        }
+    }
+
+    private boolean doPersistConfigMap(Properties properties) {
         Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "persistK8sConfigMap");
         transaction.addData("configMapName", configMapName);
         transaction.addData("k8sNamespace", k8sNamespace);
@@ -252,8 +319,9 @@ public class K8sConfigMapConfigRepository extends AbstractConfigRepository
             data.put(configMapKey, jsonConfig);
 
             // update configmap
-            kubernetesManager.updateConfigMap(k8sNamespace, configMapName, data);
+            boolean updated = kubernetesManager.updateConfigMap(k8sNamespace, configMapName, data);
             transaction.setStatus(Transaction.SUCCESS);
+            return updated;
         } catch (Exception ex) {
             ApolloConfigException exception =
                     new ApolloConfigException(
@@ -261,9 +329,44 @@ public class K8sConfigMapConfigRepository extends AbstractConfigRepository
             Tracer.logError(exception);
             transaction.setStatus(exception);
             logger.error("Persist config to Kubernetes ConfigMap failed!", exception);
+            return false;
         } finally {
             transaction.complete();
         }
     }
 
+    /**
+     * @return the digest of the config currently in the configmap, or null if not available
+     */
+    private HashCode currentConfigMapDigest() {
+        try {
+            String jsonConfig = kubernetesManager.getValueFromConfigMap(k8sNamespace, configMapName, configMapKey);
+            if (jsonConfig == null || jsonConfig.isEmpty()) {
+                return null;
+            }
+            Type type = new TypeToken<Map<String, String>>() {}.getType();
+            Map<String, String> configMap = GSON.fromJson(jsonConfig, type);
+            return configMap == null ? null : digest(configMap);
+        } catch (Throwable ex) {
+            logger.debug("Read ConfigMap {} failed, reason: {}", configMapName,
+                    ExceptionUtil.getDetailMessage(ex));
+            return null;
+        }
+    }
+
+    /**
+     * The digest of the properties regardless of their order
+     */
+    private static HashCode digest(Properties properties) {
+        Map<String, String> map = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            map.put(key, properties.getProperty(key));
+        }
+        return digest(map);
+    }
+
+    private static HashCode digest(Map<String, String> map) {
+        return Hashing.sha256().hashString(GSON.toJson(new TreeMap<>(map)), StandardCharsets.UTF_8);
+    }
+
 }
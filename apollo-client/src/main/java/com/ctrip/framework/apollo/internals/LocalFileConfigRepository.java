@@ -19,16 +19,21 @@ package com.ctrip.framework.apollo.internals;
 import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorConstant.*;
 import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Properties;
+import java.util.zip.CRC32;
 
 import org.slf4j.Logger;
 
@@ -50,11 +55,19 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     implements RepositoryChangeListener {
   private static final Logger logger = DeferredLoggerFactory.getLogger(LocalFileConfigRepository.class);
   private static final String CONFIG_DIR = "/config-cache";
+  private static final String BACKUP_FILE_SUFFIX = ".bak";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+  /**
+   * The header is a properties comment, so the cache file could still be read by the older
+   * versions and by human beings.
+   */
+  private static final String HEADER_PREFIX = "#Apollo-Local-Cache: ";
+  private static final int HEADER_VERSION = 1;
   private final String m_appId;
   private final String m_namespace;
   private File m_baseDir;
   private final ConfigUtil m_configUtil;
-  private volatile Properties m_fileProperties;
+  private volatile ConfigSnapshot m_fileSnapshot;
   private volatile ConfigRepository m_upstream;
 
   private volatile ConfigSourceType m_sourceType = ConfigSourceType.LOCAL;
@@ -103,12 +116,15 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
 
   @Override
   public Properties getConfig() {
-    if (m_fileProperties == null) {
+    return getConfigSnapshot().toProperties();
+  }
+
+  @Override
+  public ConfigSnapshot getConfigSnapshot() {
+    if (m_fileSnapshot == null) {
       sync();
     }
-    Properties result = propertiesFactory.getPropertiesInstance();
-    result.putAll(m_fileProperties);
-    return result;
+    return m_fileSnapshot;
   }
 
   @Override
@@ -136,13 +152,16 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
 
   @Override
   public void onRepositoryChange(String appId, String namespace, Properties newProperties) {
-    if (newProperties.equals(m_fileProperties)) {
+    this.onRepositoryChange(appId, namespace, ConfigSnapshot.copyOf(newProperties));
+  }
+
+  @Override
+  public void onRepositoryChange(String appId, String namespace, ConfigSnapshot newSnapshot) {
+    if (newSnapshot.equals(m_fileSnapshot)) {
       return;
     }
-    Properties newFileProperties = propertiesFactory.getPropertiesInstance();
-    newFileProperties.putAll(newProperties);
-    updateFileProperties(newFileProperties, m_upstream.getSourceType());
-    this.fireRepositoryChange(appId, namespace, newProperties);
+    updateFileSnapshot(newSnapshot, m_upstream.getSourceType());
+    this.fireRepositoryChange(appId, namespace, newSnapshot);
   }
 
   @Override
@@ -158,7 +177,8 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     Throwable exception = null;
     try {
       transaction.addData("Basedir", m_baseDir.getAbsolutePath());
-      m_fileProperties = this.loadFromLocalCacheFile(m_baseDir, m_appId, m_namespace);
+      m_fileSnapshot = ConfigSnapshot.wrap(
+          this.loadFromLocalCacheFile(m_baseDir, m_appId, m_namespace));
       m_sourceType = ConfigSourceType.LOCAL;
       transaction.setStatus(Transaction.SUCCESS);
     } catch (Throwable ex) {
@@ -170,7 +190,7 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
       transaction.complete();
     }
 
-    if (m_fileProperties == null) {
+    if (m_fileSnapshot == null) {
       m_sourceType = ConfigSourceType.NONE;
       throw new ApolloConfigException(
           "Load config from local config failed!", exception);
@@ -182,7 +202,11 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
       return false;
     }
     try {
-      updateFileProperties(m_upstream.getConfig(), m_upstream.getSourceType());
+      ConfigSnapshot upstreamSnapshot = m_upstream.getConfigSnapshot();
+      if (upstreamSnapshot == null) {
+        throw new ApolloConfigException("Upstream config is not available");
+      }
+      updateFileSnapshot(upstreamSnapshot, m_upstream.getSourceType());
       return true;
     } catch (Throwable ex) {
       Tracer.logError(ex);
@@ -193,12 +217,13 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     return false;
   }
 
-  private synchronized void updateFileProperties(Properties newProperties, ConfigSourceType sourceType) {
+  private synchronized void updateFileSnapshot(ConfigSnapshot newSnapshot,
+      ConfigSourceType sourceType) {
     this.m_sourceType = sourceType;
-    if (newProperties.equals(m_fileProperties)) {
+    if (newSnapshot.equals(m_fileSnapshot)) {
       return;
     }
-    this.m_fileProperties = newProperties;
+    this.m_fileSnapshot = newSnapshot;
     persistLocalCacheFile(m_baseDir, m_appId, m_namespace);
   }
 
@@ -206,35 +231,36 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     Preconditions.checkNotNull(baseDir, "Basedir cannot be null");
 
     File file = assembleLocalCacheFile(baseDir, appId, namespace);
-    Properties properties = null;
-
-    if (file.isFile() && file.canRead()) {
-      InputStream in = null;
-
-      try {
-        in = new FileInputStream(file);
-        properties = propertiesFactory.getPropertiesInstance();
-        properties.load(in);
-        logger.debug("Loading local config file {} successfully!", file.getAbsolutePath());
-      } catch (IOException ex) {
-        Tracer.logError(ex);
-        throw new ApolloConfigException(String
-            .format("Loading config from local cache file %s failed", file.getAbsolutePath()), ex);
-      } finally {
-        try {
-          if (in != null) {
-            in.close();
-          }
-        } catch (IOException ex) {
-          // ignore
-        }
+    try {
+      return loadFromLocalCacheFile(file);
+    } catch (ApolloConfigException ex) {
+      File backupFile = assembleLocalCacheBackupFile(file);
+      if (!backupFile.isFile()) {
+        throw ex;
       }
-    } else {
+      Tracer.logError(ex);
+      logger.warn("{}, fall back to the last good generation {}", ex.getMessage(),
+          backupFile.getAbsolutePath());
+      return loadFromLocalCacheFile(backupFile);
+    }
+  }
+
+  private Properties loadFromLocalCacheFile(File file) {
+    if (!file.isFile() || !file.canRead()) {
       throw new ApolloConfigException(
           String.format("Cannot read from local cache file %s", file.getAbsolutePath()));
     }
 
-    return properties;
+    try {
+      byte[] content = decodeLocalCacheFile(Files.readAllBytes(file.toPath()));
+      Properties properties = propertiesFactory.getPropertiesInstance();
+      properties.load(new ByteArrayInputStream(content));
+      logger.debug("Loading local config file {} successfully!", file.getAbsolutePath());
+      return properties;
+    } catch (IOException ex) {
+      throw new ApolloConfigException(String
+          .format("Loading config from local cache file %s failed", file.getAbsolutePath()), ex);
+    }
   }
 
   void persistLocalCacheFile(File baseDir, String appId, String namespace) {
@@ -243,13 +269,12 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     }
     File file = assembleLocalCacheFile(baseDir, appId, namespace);
 
-    OutputStream out = null;
-
     Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "persistLocalConfigFile");
     transaction.addData("LocalConfigFile", file.getAbsolutePath());
     try {
-      out = new FileOutputStream(file);
-      m_fileProperties.store(out, "Persisted by DefaultConfig");
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      m_fileSnapshot.toProperties().store(out, "Persisted by DefaultConfig");
+      writeLocalCacheFile(file, encodeLocalCacheFile(out.toByteArray()));
       transaction.setStatus(Transaction.SUCCESS);
     } catch (IOException ex) {
       ApolloConfigException exception =
@@ -260,17 +285,161 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
       logger.warn("Persist local cache file {} failed, reason: {}.", file.getAbsolutePath(),
           ExceptionUtil.getDetailMessage(ex));
     } finally {
-      if (out != null) {
-        try {
-          out.close();
-        } catch (IOException ex) {
-          //ignore
+      transaction.complete();
+    }
+  }
+
+  /**
+   * Writes the content to a temp file, flushes it to the disk and then renames it to the cache
+   * file, so a crash never leaves a partially written cache file behind. The previous generation
+   * is kept as the backup file if it passes the checksum, otherwise the existing backup file is
+   * kept as the last good generation.
+   */
+  private void writeLocalCacheFile(File file, byte[] content) throws IOException {
+    Path target = file.toPath();
+    Path tempFile = Files.createTempFile(target.getParent(), file.getName(), TEMP_FILE_SUFFIX);
+    try {
+      try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+        writeLocalCacheContent(channel, content);
+        channel.force(true);
+      }
+      if (Files.exists(target)) {
+        if (isValidLocalCacheFile(target)) {
+          move(target, assembleLocalCacheBackupFile(file).toPath());
+        } else {
+          logger.warn("Local cache file {} is corrupted, keep the existing backup file",
+              file.getAbsolutePath());
         }
       }
-      transaction.complete();
+      move(tempFile, target);
+      forceDirectory(target.getParent());
+    } finally {
+      Files.deleteIfExists(tempFile);
     }
   }
 
+  private boolean isValidLocalCacheFile(Path path) {
+    try {
+      decodeLocalCacheFile(Files.readAllBytes(path));
+      return true;
+    } catch (IOException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Visible for fault injection in tests.
+   */
+  void writeLocalCacheContent(FileChannel channel, byte[] content) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(content);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException ex) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private void forceDirectory(Path directory) {
+    // makes the rename durable, not supported on some platforms like windows
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException ex) {
+      // ignore
+    }
+  }
+
+  static byte[] encodeLocalCacheFile(byte[] content) {
+    CRC32 crc32 = new CRC32();
+    crc32.update(content, 0, content.length);
+    byte[] header = String.format("%sversion=%d, crc32=%08x, length=%d\n", HEADER_PREFIX,
+        HEADER_VERSION, crc32.getValue(), content.length).getBytes(StandardCharsets.ISO_8859_1);
+
+    byte[] result = new byte[header.length + content.length];
+    System.arraycopy(header, 0, result, 0, header.length);
+    System.arraycopy(content, 0, result, header.length, content.length);
+    return result;
+  }
+
+  /**
+   * Validates the header and returns the properties content, the files without header are
+   * written by the older versions or by hand, which are returned as is.
+   *
+   * @throws IOException if the file is corrupted
+   */
+  static byte[] decodeLocalCacheFile(byte[] data) throws IOException {
+    byte[] prefix = HEADER_PREFIX.getBytes(StandardCharsets.ISO_8859_1);
+    // an empty file or a partial header is what a crash leaves behind, so they are corrupted
+    int prefixLength = Math.min(prefix.length, data.length);
+    boolean hasHeader = true;
+    for (int i = 0; i < prefixLength; i++) {
+      if (data[i] != prefix[i]) {
+        hasHeader = false;
+        break;
+      }
+    }
+    if (!hasHeader) {
+      return data;
+    }
+
+    int headerEnd = -1;
+    for (int i = prefixLength; i < data.length; i++) {
+      if (data[i] == '\n') {
+        headerEnd = i;
+        break;
+      }
+    }
+    if (headerEnd < 0) {
+      throw new IOException("Incomplete header");
+    }
+
+    String header = new String(data, prefix.length, headerEnd - prefix.length,
+        StandardCharsets.ISO_8859_1);
+    int version;
+    long checksum;
+    int length;
+    try {
+      String[] fields = header.split(", ");
+      version = Integer.parseInt(headerField(fields, 0, "version"));
+      checksum = Long.parseLong(headerField(fields, 1, "crc32"), 16);
+      length = Integer.parseInt(headerField(fields, 2, "length"));
+    } catch (RuntimeException ex) {
+      throw new IOException("Malformed header: " + header, ex);
+    }
+    if (version != HEADER_VERSION) {
+      throw new IOException("Unsupported version: " + version);
+    }
+
+    int contentStart = headerEnd + 1;
+    if (data.length - contentStart != length) {
+      throw new IOException(String.format("Length mismatch, expected %d but was %d", length,
+          data.length - contentStart));
+    }
+    CRC32 crc32 = new CRC32();
+    crc32.update(data, contentStart, length);
+    if (crc32.getValue() != checksum) {
+      throw new IOException("Checksum mismatch");
+    }
+
+    byte[] content = new byte[length];
+    System.arraycopy(data, contentStart, content, 0, length);
+    return content;
+  }
+
+  private static String headerField(String[] fields, int index, String name) {
+    String field = fields[index];
+    if (!field.startsWith(name + "=")) {
+      throw new IllegalArgumentException(name + " is missing");
+    }
+    return field.substring(name.length() + 1);
+  }
+
   private void checkLocalConfigCacheDir(File baseDir) {
     if (baseDir.exists()) {
       return;
@@ -301,4 +470,8 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
             .join(appId, m_configUtil.getCluster(), namespace));
     return new File(baseDir, fileName);
   }
+
+  private File assembleLocalCacheBackupFile(File file) {
+    return new File(file.getParentFile(), file.getName() + BACKUP_FILE_SUFFIX);
+  }
 }
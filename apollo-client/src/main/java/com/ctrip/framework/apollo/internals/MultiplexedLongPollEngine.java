@@ -0,0 +1,288 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
+import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.core.schedule.ExponentialSchedulePolicy;
+import com.ctrip.framework.apollo.core.schedule.SchedulePolicy;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.ctrip.framework.apollo.util.http.HttpClient;
+import com.ctrip.framework.apollo.util.http.HttpRequest;
+import com.ctrip.framework.apollo.util.http.HttpResponse;
+import com.ctrip.framework.apollo.util.http.NonBlockingHttpClient;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.gson.Gson;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Long polls the notifications of all the appIds with one {@link NonBlockingHttpClient}, so the
+ * number of threads doesn't grow with the number of appIds. Each appId still has its own request,
+ * its own choice of config service and its own failure backoff.
+ * <p>
+ * The selector only speaks plain http, the long polling against an https config service falls back
+ * to the blocking {@link HttpClient}.
+ */
+class MultiplexedLongPollEngine {
+  private static final Logger logger = LoggerFactory.getLogger(MultiplexedLongPollEngine.class);
+  private static final Gson GSON = new Gson();
+  // the delay before trying again when the long polling rate limit is reached
+  private static final long RATE_LIMITED_RETRY_DELAY_IN_MILLIS = 100;
+
+  private final RemoteConfigLongPollService m_longPollService;
+  private final AtomicBoolean m_longPollingStopped;
+  private final RateLimiter m_longPollRateLimiter;
+  private final NonBlockingHttpClient m_nonBlockingHttpClient;
+  private final ScheduledExecutorService m_scheduledExecutorService;
+  private final ExecutorService m_blockingExecutorService;
+  private final ConcurrentMap<String, AppLongPoll> m_appLongPolls;
+
+  MultiplexedLongPollEngine(RemoteConfigLongPollService longPollService,
+      AtomicBoolean longPollingStopped, RateLimiter longPollRateLimiter) {
+    m_longPollService = longPollService;
+    m_longPollingStopped = longPollingStopped;
+    m_longPollRateLimiter = longPollRateLimiter;
+    m_nonBlockingHttpClient = new NonBlockingHttpClient("MultiplexedLongPollSelector");
+    m_scheduledExecutorService = ApolloExecutors.getProvider()
+        .newScheduledExecutor("MultiplexedLongPollEngine", 1);
+    m_blockingExecutorService = ApolloExecutors.getProvider()
+        .newCachedExecutor("MultiplexedLongPollEngine-blocking");
+    m_appLongPolls = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Start long polling for the appId, any previous long polling of the appId is superseded.
+   */
+  void start(String appId, String cluster, String dataCenter, String secret,
+      long initialDelayInMills) {
+    AppLongPoll appLongPoll = new AppLongPoll(appId, cluster, dataCenter, secret);
+    m_appLongPolls.put(appId, appLongPoll);
+    if (initialDelayInMills > 0) {
+      logger.debug("Long polling will start in {} ms.", initialDelayInMills);
+    }
+    appLongPoll.schedule(Math.max(initialDelayInMills, 0), TimeUnit.MILLISECONDS);
+  }
+
+  private final class AppLongPoll {
+    private final String m_appId;
+    private final String m_cluster;
+    private final String m_dataCenter;
+    private final String m_secret;
+    private final SchedulePolicy m_failSchedulePolicyInSecond;
+    private volatile ServiceDTO m_lastServiceDto;
+
+    private AppLongPoll(String appId, String cluster, String dataCenter, String secret) {
+      m_appId = appId;
+      m_cluster = cluster;
+      m_dataCenter = dataCenter;
+      m_secret = secret;
+      m_failSchedulePolicyInSecond = new ExponentialSchedulePolicy(1, 120); //in second
+    }
+
+    private boolean isActive() {
+      if (m_appLongPolls.get(m_appId) != this) {
+        return false;
+      }
+      if (m_longPollingStopped.get()) {
+        m_appLongPolls.remove(m_appId, this);
+        return false;
+      }
+      return true;
+    }
+
+    private void schedule(long delay, TimeUnit unit) {
+      m_scheduledExecutorService.schedule(new Runnable() {
+        @Override
+        public void run() {
+          poll();
+        }
+      }, delay, unit);
+    }
+
+    private void poll() {
+      if (!isActive()) {
+        return;
+      }
+      if (!m_longPollRateLimiter.tryAcquire()) {
+        schedule(RATE_LIMITED_RETRY_DELAY_IN_MILLIS, TimeUnit.MILLISECONDS);
+        return;
+      }
+      String url = null;
+      try {
+        if (m_lastServiceDto == null) {
+          m_lastServiceDto = m_longPollService.resolveConfigService();
+        }
+        final ServiceDTO serviceDto = m_lastServiceDto;
+        url = m_longPollService.assembleLongPollRefreshUrl(serviceDto.getHomepageUrl(), m_appId,
+            m_cluster, m_dataCenter, m_longPollService.getNotifications(m_appId));
+
+        logger.debug("Long polling from {}", url);
+
+        final HttpRequest request = m_longPollService.assembleLongPollRequest(url, m_appId,
+            m_secret);
+
+        if (NonBlockingHttpClient.isSupported(url)) {
+          final String requestUrl = url;
+          m_nonBlockingHttpClient.execute(request, new NonBlockingHttpClient.ResponseCallback() {
+            @Override
+            public void onResponse(final HttpResponse<String> response) {
+              m_longPollService.onConfigServiceResponded(serviceDto);
+              m_scheduledExecutorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                  HttpResponse<List<ApolloConfigNotification>> decodedResponse;
+                  try {
+                    decodedResponse = decode(response);
+                  } catch (Throwable ex) {
+                    onLongPollFailure(requestUrl, ex);
+                    return;
+                  }
+                  onLongPollResponse(serviceDto, requestUrl, decodedResponse);
+                }
+              });
+            }
+
+            @Override
+            public void onFailure(final Throwable ex) {
+              m_longPollService.onConfigServiceFailed(serviceDto, ex);
+              m_scheduledExecutorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                  onLongPollFailure(requestUrl, ex);
+                }
+              });
+            }
+          });
+        } else {
+          pollBlocking(serviceDto, url, request);
+        }
+      } catch (Throwable ex) {
+        onLongPollFailure(url, ex);
+      }
+    }
+
+    private void pollBlocking(final ServiceDTO serviceDto, final String url,
+        final HttpRequest request) {
+      m_blockingExecutorService.execute(new Runnable() {
+        @Override
+        public void run() {
+          HttpResponse<List<ApolloConfigNotification>> response;
+          try {
+            response = ApolloInjector.getInstance(HttpClient.class)
+                .doGet(request, m_longPollService.getResponseType());
+          } catch (final Throwable ex) {
+            m_longPollService.onConfigServiceFailed(serviceDto, ex);
+            m_scheduledExecutorService.execute(new Runnable() {
+              @Override
+              public void run() {
+                onLongPollFailure(url, ex);
+              }
+            });
+            return;
+          }
+          m_longPollService.onConfigServiceResponded(serviceDto);
+          final HttpResponse<List<ApolloConfigNotification>> finalResponse = response;
+          m_scheduledExecutorService.execute(new Runnable() {
+            @Override
+            public void run() {
+              onLongPollResponse(serviceDto, url, finalResponse);
+            }
+          });
+        }
+      });
+    }
+
+    private HttpResponse<List<ApolloConfigNotification>> decode(HttpResponse<String> response) {
+      List<ApolloConfigNotification> notifications = null;
+      if (response.getStatusCode() == 200 && response.getBody() != null) {
+        notifications = GSON.fromJson(response.getBody(), m_longPollService.getResponseType());
+      }
+      return new HttpResponse<>(response.getStatusCode(), notifications);
+    }
+
+    /**
+     * The transaction is opened and completed here on the scheduler thread, as the request itself
+     * hops between the selector, blocking and scheduler threads.
+     */
+    private void onLongPollResponse(ServiceDTO serviceDto, String url,
+        HttpResponse<List<ApolloConfigNotification>> response) {
+      Transaction transaction = newTransaction(url);
+      long nextPollDelayInMillis = 0;
+      try {
+        if (isActive()) {
+          m_longPollService.handleLongPollResponse(m_appId, serviceDto, url, response,
+              transaction);
+        }
+
+        //try to load balance
+        if (response.getStatusCode() == 304 && ThreadLocalRandom.current().nextBoolean()) {
+          m_lastServiceDto = null;
+        }
+
+        m_failSchedulePolicyInSecond.success();
+        transaction.addData("StatusCode", response.getStatusCode());
+        transaction.setStatus(Transaction.SUCCESS);
+      } catch (Throwable ex) {
+        nextPollDelayInMillis = TimeUnit.SECONDS.toMillis(handleFailure(url, ex, transaction));
+      } finally {
+        transaction.complete();
+      }
+      schedule(nextPollDelayInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void onLongPollFailure(String url, Throwable ex) {
+      Transaction transaction = newTransaction(url);
+      long sleepTimeInSecond;
+      try {
+        sleepTimeInSecond = handleFailure(url, ex, transaction);
+      } finally {
+        transaction.complete();
+      }
+      schedule(sleepTimeInSecond, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return the delay in seconds before the next long polling
+     */
+    private long handleFailure(String url, Throwable ex, Transaction transaction) {
+      m_lastServiceDto = null;
+      long sleepTimeInSecond = m_failSchedulePolicyInSecond.fail();
+      m_longPollService.handleLongPollFailure(m_appId, m_cluster, url, ex, sleepTimeInSecond,
+          transaction);
+      return sleepTimeInSecond;
+    }
+
+    private Transaction newTransaction(String url) {
+      Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "pollNotification");
+      if (url != null) {
+        transaction.addData("Url", url);
+      }
+      return transaction;
+    }
+  }
+}
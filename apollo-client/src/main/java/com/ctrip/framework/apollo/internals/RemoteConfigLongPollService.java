@@ -26,8 +26,8 @@ import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.core.schedule.ExponentialSchedulePolicy;
 import com.ctrip.framework.apollo.core.schedule.SchedulePolicy;
 import com.ctrip.framework.apollo.core.signature.Signature;
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
+import com.ctrip.framework.apollo.enums.LongPollingEngine;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
 import com.ctrip.framework.apollo.spi.ConfigServiceLoadBalancerClient;
 import com.ctrip.framework.apollo.tracer.Tracer;
@@ -37,7 +37,6 @@ import com.ctrip.framework.apollo.util.ExceptionUtil;
 import com.ctrip.framework.apollo.util.http.HttpClient;
 import com.ctrip.framework.apollo.util.http.HttpRequest;
 import com.ctrip.framework.apollo.util.http.HttpResponse;
-import com.ctrip.framework.foundation.internals.ServiceBootstrap;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 import com.google.common.collect.HashBasedTable;
@@ -55,6 +54,7 @@ import com.google.common.util.concurrent.RateLimiter;
 import com.google.gson.Gson;
 import java.lang.reflect.Type;
 import java.net.SocketTimeoutException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
@@ -86,8 +86,9 @@ public class RemoteConfigLongPollService {
   private ConfigUtil m_configUtil;
   private HttpClient m_httpClient;
   private ConfigServiceLocator m_serviceLocator;
-  private final ConfigServiceLoadBalancerClient configServiceLoadBalancerClient = ServiceBootstrap.loadPrimary(
-      ConfigServiceLoadBalancerClient.class);
+  private volatile MultiplexedLongPollEngine m_multiplexedLongPollEngine;
+  private final ConfigServiceLoadBalancerClient configServiceLoadBalancerClient;
+  private final ConfigTransactionManager m_transactionManager;
 
   /**
    * Constructor.
@@ -95,8 +96,8 @@ public class RemoteConfigLongPollService {
   public RemoteConfigLongPollService() {
     m_longPollFailSchedulePolicyInSecond = new ExponentialSchedulePolicy(1, 120); //in second
     m_longPollingStopped = new AtomicBoolean(false);
-    m_longPollingService = Executors.newCachedThreadPool(
-        ApolloThreadFactory.create("RemoteConfigLongPollService", true));
+    m_longPollingService = ApolloExecutors.getProvider()
+        .newCachedExecutor("RemoteConfigLongPollService");
     m_longPollStarted = new ConcurrentHashMap<>();
     m_longPollNamespaces = Maps.newConcurrentMap();
     m_notifications = Tables.synchronizedTable(HashBasedTable.<String, String, Long>create());
@@ -106,6 +107,9 @@ public class RemoteConfigLongPollService {
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
     m_httpClient = ApolloInjector.getInstance(HttpClient.class);
     m_serviceLocator = ApolloInjector.getInstance(ConfigServiceLocator.class);
+    configServiceLoadBalancerClient = ApolloInjector.getInstance(
+        ConfigServiceLoadBalancerClient.class);
+    m_transactionManager = ApolloInjector.getInstance(ConfigTransactionManager.class);
     m_longPollRateLimiter = RateLimiter.create(m_configUtil.getLongPollQPS());
   }
 
@@ -131,6 +135,11 @@ public class RemoteConfigLongPollService {
       final String dataCenter = m_configUtil.getDataCenter();
       final String secret = m_configUtil.getAccessKeySecret(appId);
       final long longPollingInitialDelayInMills = m_configUtil.getLongPollingInitialDelayInMills();
+      if (m_configUtil.getLongPollingEngine() == LongPollingEngine.MULTIPLEXED) {
+        getMultiplexedLongPollEngine().start(appId, cluster, dataCenter, secret,
+            longPollingInitialDelayInMills);
+        return;
+      }
       m_longPollingService.submit(new Runnable() {
         @Override
         public void run() {
@@ -158,6 +167,18 @@ public class RemoteConfigLongPollService {
     this.m_longPollingStopped.compareAndSet(false, true);
   }
 
+  private MultiplexedLongPollEngine getMultiplexedLongPollEngine() {
+    if (m_multiplexedLongPollEngine == null) {
+      synchronized (this) {
+        if (m_multiplexedLongPollEngine == null) {
+          m_multiplexedLongPollEngine = new MultiplexedLongPollEngine(this, m_longPollingStopped,
+              m_longPollRateLimiter);
+        }
+      }
+    }
+    return m_multiplexedLongPollEngine;
+  }
+
   private void doLongPollingRefresh(String appId, String cluster, String dataCenter, String secret) {
     ServiceDTO lastServiceDto = null;
     while (!m_longPollingStopped.get() && !Thread.currentThread().isInterrupted()) {
@@ -181,25 +202,14 @@ public class RemoteConfigLongPollService {
 
         logger.debug("Long polling from {}", url);
 
-        HttpRequest request = new HttpRequest(url);
-        request.setReadTimeout(LONG_POLLING_READ_TIMEOUT);
-        if (!StringUtils.isBlank(secret)) {
-          Map<String, String> headers = Signature.buildHttpHeaders(url, appId, secret);
-          request.setHeaders(headers);
-        }
+        HttpRequest request = assembleLongPollRequest(url, appId, secret);
 
         transaction.addData("Url", url);
 
         final HttpResponse<List<ApolloConfigNotification>> response =
-            m_httpClient.doGet(request, m_responseType);
-
-        logger.debug("Long polling response: {}, url: {}", response.getStatusCode(), url);
-        if (response.getStatusCode() == 200 && response.getBody() != null) {
-          updateNotifications(appId, response.getBody());
-          updateRemoteNotifications(response.getBody());
-          transaction.addData("Result", response.getBody().toString());
-          notify(appId, lastServiceDto, response.getBody());
-        }
+            doLongPoll(lastServiceDto, request);
+
+        handleLongPollResponse(appId, lastServiceDto, url, response, transaction);
 
         //try to load balance
         if (response.getStatusCode() == 304 && ThreadLocalRandom.current().nextBoolean()) {
@@ -211,15 +221,8 @@ public class RemoteConfigLongPollService {
         transaction.setStatus(Transaction.SUCCESS);
       } catch (Throwable ex) {
         lastServiceDto = null;
-        Tracer.logEvent(APOLLO_CONFIG_EXCEPTION, ExceptionUtil.getDetailMessage(ex));
-        transaction.setStatus(ex);
         long sleepTimeInSecond = m_longPollFailSchedulePolicyInSecond.fail();
-        if (ex.getCause() instanceof SocketTimeoutException) {
-          Tracer.logEvent(APOLLO_CLIENT_NAMESPACE_TIMEOUT, assembleNamespaces(appId));
-        }
-        logger.warn(
-            "Long polling failed, will retry in {} seconds. appId: {}, cluster: {}, namespaces: {}, long polling url: {}, reason: {}",
-            sleepTimeInSecond, appId, cluster, assembleNamespaces(appId), url, ExceptionUtil.getDetailMessage(ex));
+        handleLongPollFailure(appId, cluster, url, ex, sleepTimeInSecond, transaction);
         try {
           TimeUnit.SECONDS.sleep(sleepTimeInSecond);
         } catch (InterruptedException ie) {
@@ -231,6 +234,60 @@ public class RemoteConfigLongPollService {
     }
   }
 
+  private HttpResponse<List<ApolloConfigNotification>> doLongPoll(ServiceDTO serviceDto,
+      HttpRequest request) {
+    HttpResponse<List<ApolloConfigNotification>> response;
+    try {
+      response = m_httpClient.doGet(request, m_responseType);
+    } catch (RuntimeException ex) {
+      onConfigServiceFailed(serviceDto, ex);
+      throw ex;
+    }
+    onConfigServiceResponded(serviceDto);
+    return response;
+  }
+
+  HttpRequest assembleLongPollRequest(String url, String appId, String secret) {
+    HttpRequest request = new HttpRequest(url);
+    request.setReadTimeout(LONG_POLLING_READ_TIMEOUT);
+    if (!StringUtils.isBlank(secret)) {
+      Map<String, String> headers = Signature.buildHttpHeaders(url, appId, secret);
+      request.setHeaders(headers);
+    }
+    return request;
+  }
+
+  void handleLongPollResponse(String appId, ServiceDTO serviceDto, String url,
+      HttpResponse<List<ApolloConfigNotification>> response, Transaction transaction) {
+    logger.debug("Long polling response: {}, url: {}", response.getStatusCode(), url);
+    if (response.getStatusCode() == 200 && response.getBody() != null) {
+      updateNotifications(appId, response.getBody());
+      updateRemoteNotifications(response.getBody());
+      transaction.addData("Result", response.getBody().toString());
+      notify(appId, serviceDto, response.getBody());
+    }
+  }
+
+  void handleLongPollFailure(String appId, String cluster, String url, Throwable ex,
+      long sleepTimeInSecond, Transaction transaction) {
+    Tracer.logEvent(APOLLO_CONFIG_EXCEPTION, ExceptionUtil.getDetailMessage(ex));
+    transaction.setStatus(ex);
+    if (ex.getCause() instanceof SocketTimeoutException) {
+      Tracer.logEvent(APOLLO_CLIENT_NAMESPACE_TIMEOUT, assembleNamespaces(appId));
+    }
+    logger.warn(
+        "Long polling failed, will retry in {} seconds. appId: {}, cluster: {}, namespaces: {}, long polling url: {}, reason: {}",
+        sleepTimeInSecond, appId, cluster, assembleNamespaces(appId), url, ExceptionUtil.getDetailMessage(ex));
+  }
+
+  Map<String, Long> getNotifications(String appId) {
+    return m_notifications.row(appId);
+  }
+
+  Type getResponseType() {
+    return m_responseType;
+  }
+
   private void notify(String appId, ServiceDTO lastServiceDto, List<ApolloConfigNotification> notifications) {
     if (notifications == null || notifications.isEmpty()) {
       return;
@@ -239,17 +296,33 @@ public class RemoteConfigLongPollService {
     if (namespaceRepositories == null) {
          return;
     }
+    //the namespaces notified together are committed as one config transaction
+    Map<String, List<RemoteConfigRepository>> toBeNotified = Maps.newLinkedHashMap();
+    List<String> transactionNamespaces = Lists.newArrayList();
     for (ApolloConfigNotification notification : notifications) {
       String namespaceName = notification.getNamespaceName();
-      //create a new list to avoid ConcurrentModificationException
-      List<RemoteConfigRepository> toBeNotified =
-               Lists.newArrayList(namespaceRepositories.get(namespaceName));
-      ApolloNotificationMessages originalMessages = m_remoteNotificationMessages.get(namespaceName);
-      ApolloNotificationMessages remoteMessages = originalMessages == null ? null : originalMessages.clone();
       //since .properties are filtered out by default, so we need to check if there is any listener for it
-      toBeNotified.addAll(namespaceRepositories.get(
-               String.format("%s.%s", namespaceName, ConfigFileFormat.Properties.getValue())));
-      for (RemoteConfigRepository remoteConfigRepository : toBeNotified) {
+      String namespaceNameWithPropertiesSuffix =
+          String.format("%s.%s", namespaceName, ConfigFileFormat.Properties.getValue());
+      for (String namespace : Arrays.asList(namespaceName, namespaceNameWithPropertiesSuffix)) {
+        //create a new list to avoid ConcurrentModificationException
+        List<RemoteConfigRepository> repositories =
+            Lists.newArrayList(namespaceRepositories.get(namespace));
+        for (int i = 0; i < repositories.size(); i++) {
+          transactionNamespaces.add(namespace);
+        }
+        if (!repositories.isEmpty()) {
+          toBeNotified.computeIfAbsent(namespaceName, key -> Lists.newArrayList())
+              .addAll(repositories);
+        }
+      }
+    }
+    m_transactionManager.begin(appId, transactionNamespaces);
+
+    for (Map.Entry<String, List<RemoteConfigRepository>> entry : toBeNotified.entrySet()) {
+      ApolloNotificationMessages originalMessages = m_remoteNotificationMessages.get(entry.getKey());
+      ApolloNotificationMessages remoteMessages = originalMessages == null ? null : originalMessages.clone();
+      for (RemoteConfigRepository remoteConfigRepository : entry.getValue()) {
         try {
           remoteConfigRepository.onLongPollNotified(lastServiceDto, remoteMessages);
         } catch (Throwable ex) {
@@ -339,7 +412,18 @@ public class RemoteConfigLongPollService {
     return GSON.toJson(notifications);
   }
 
-  private ServiceDTO resolveConfigService() {
+  /**
+   * the latency is not reported as the long polling requests are held by the server
+   */
+  void onConfigServiceResponded(ServiceDTO serviceDto) {
+    this.configServiceLoadBalancerClient.onSuccess(serviceDto, -1);
+  }
+
+  void onConfigServiceFailed(ServiceDTO serviceDto, Throwable ex) {
+    this.configServiceLoadBalancerClient.onFailure(serviceDto, ex);
+  }
+
+  ServiceDTO resolveConfigService() {
     List<ServiceDTO> configServices = this.getConfigServices();
     return this.configServiceLoadBalancerClient.chooseOneFrom(configServices);
   }
@@ -30,12 +30,12 @@ import com.ctrip.framework.apollo.core.enums.ConfigurationChangeType;
 import com.ctrip.framework.apollo.core.schedule.ExponentialSchedulePolicy;
 import com.ctrip.framework.apollo.core.schedule.SchedulePolicy;
 import com.ctrip.framework.apollo.core.signature.Signature;
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.ctrip.framework.apollo.spi.ConfigServiceLoadBalancerClient;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.ctrip.framework.apollo.tracer.spi.Transaction;
 import com.ctrip.framework.apollo.util.ConfigUtil;
@@ -51,12 +51,10 @@ import com.google.common.escape.Escaper;
 import com.google.common.net.UrlEscapers;
 import com.google.common.util.concurrent.RateLimiter;
 import com.google.gson.Gson;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -74,23 +72,26 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
   private static final Escaper queryParamEscaper = UrlEscapers.urlFormParameterEscaper();
 
   private final ConfigServiceLocator m_serviceLocator;
+  private final ConfigServiceLoadBalancerClient m_loadBalancerClient;
   private final HttpClient m_httpClient;
   private final ConfigUtil m_configUtil;
   private final RemoteConfigLongPollService remoteConfigLongPollService;
   private volatile AtomicReference<ApolloConfig> m_configCache;
+  private volatile ConfigSnapshot m_configSnapshot;
   private final String m_appId;
   private final String m_namespace;
   protected final static ScheduledExecutorService m_executorService;
   private final AtomicReference<ServiceDTO> m_longPollServiceDto;
   private final AtomicReference<ApolloNotificationMessages> m_remoteMessages;
+  private final ConfigTransactionManager m_transactionManager;
   private final RateLimiter m_loadConfigRateLimiter;
   private final AtomicBoolean m_configNeedForceRefresh;
   private final SchedulePolicy m_loadConfigFailSchedulePolicy;
   private static final Gson GSON = new Gson();
 
   static {
-    m_executorService = Executors.newScheduledThreadPool(1,
-        ApolloThreadFactory.create("RemoteConfigRepository", true));
+    m_executorService = ApolloExecutors.getProvider()
+        .newScheduledExecutor("RemoteConfigRepository", 1);
   }
 
   /**
@@ -106,7 +107,9 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
     m_httpClient = ApolloInjector.getInstance(HttpClient.class);
     m_serviceLocator = ApolloInjector.getInstance(ConfigServiceLocator.class);
+    m_loadBalancerClient = ApolloInjector.getInstance(ConfigServiceLoadBalancerClient.class);
     remoteConfigLongPollService = ApolloInjector.getInstance(RemoteConfigLongPollService.class);
+    m_transactionManager = ApolloInjector.getInstance(ConfigTransactionManager.class);
     m_longPollServiceDto = new AtomicReference<>();
     m_remoteMessages = new AtomicReference<>();
     m_loadConfigRateLimiter = RateLimiter.create(m_configUtil.getLoadConfigQPS());
@@ -119,13 +122,18 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
 
   @Override
   public Properties getConfig() {
+    return getConfigSnapshot().toProperties();
+  }
+
+  @Override
+  public ConfigSnapshot getConfigSnapshot() {
     if (m_configCache.get() == null) {
       long start = System.currentTimeMillis();
       this.sync();
       Tracer.logEvent(APOLLO_CLIENT_NAMESPACE_FIRST_LOAD_SPEND+":"+m_namespace,
           String.valueOf(System.currentTimeMillis() - start));
     }
-    return transformApolloConfigToProperties(m_configCache.get());
+    return m_configSnapshot;
   }
 
   @Override
@@ -165,8 +173,9 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
       //reference equals means HTTP 304
       if (previous != current) {
         logger.debug("Remote Config refreshed!");
+        m_configSnapshot = transformApolloConfigToSnapshot(m_configSnapshot, current);
         m_configCache.set(current);
-        this.fireRepositoryChange(m_appId, m_namespace, this.getConfig());
+        this.fireRepositoryChange(m_appId, m_namespace, m_configSnapshot);
       }
 
       if (current != null) {
@@ -183,10 +192,13 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     }
   }
 
-  private Properties transformApolloConfigToProperties(ApolloConfig apolloConfig) {
-    Properties result = propertiesFactory.getPropertiesInstance();
-    result.putAll(apolloConfig.getConfigurations());
-    return result;
+  private ConfigSnapshot transformApolloConfigToSnapshot(ConfigSnapshot previous,
+      ApolloConfig apolloConfig) {
+    if (previous == null) {
+      return ConfigSnapshot.of(apolloConfig.getConfigurations());
+    }
+    //only the changed keys are recorded, so the listeners could compare the snapshots cheaply
+    return previous.update(apolloConfig.getConfigurations());
   }
 
   private ApolloConfig loadApolloConfig() {
@@ -210,14 +222,13 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     String url = null;
     retryLoopLabel:
     for (int i = 0; i < maxRetries; i++) {
-      List<ServiceDTO> randomConfigServices = Lists.newLinkedList(configServices);
-      Collections.shuffle(randomConfigServices);
+      List<ServiceDTO> prioritizedConfigServices = m_loadBalancerClient.prioritize(configServices);
       //Access the server which notifies the client first
       if (m_longPollServiceDto.get() != null) {
-        randomConfigServices.add(0, m_longPollServiceDto.getAndSet(null));
+        prioritizedConfigServices.add(0, m_longPollServiceDto.getAndSet(null));
       }
 
-      for (ServiceDTO configService : randomConfigServices) {
+      for (ServiceDTO configService : prioritizedConfigServices) {
         if (onErrorSleepTime > 0) {
           logger.warn(
               "Load config failed, will retry in {} {}. appId: {}, cluster: {}, namespaces: {}",
@@ -245,7 +256,7 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
         transaction.addData("Url", url);
         try {
 
-          HttpResponse<ApolloConfig> response = m_httpClient.doGet(request, ApolloConfig.class);
+          HttpResponse<ApolloConfig> response = doGet(configService, request);
           m_configNeedForceRefresh.set(false);
           m_loadConfigFailSchedulePolicy.success();
 
@@ -319,6 +330,20 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     throw new ApolloConfigException(message, exception);
   }
 
+  private HttpResponse<ApolloConfig> doGet(ServiceDTO configService, HttpRequest request) {
+    long start = System.nanoTime();
+    HttpResponse<ApolloConfig> response;
+    try {
+      response = m_httpClient.doGet(request, ApolloConfig.class);
+    } catch (RuntimeException ex) {
+      m_loadBalancerClient.onFailure(configService, ex);
+      throw ex;
+    }
+    m_loadBalancerClient.onSuccess(configService,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    return response;
+  }
+
   String assembleQueryConfigUrl(String uri, String appId, String cluster, String namespace,
                                 String dataCenter, ApolloNotificationMessages remoteMessages, ApolloConfig previousConfig) {
 
@@ -372,7 +397,11 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
       @Override
       public void run() {
         m_configNeedForceRefresh.set(true);
-        trySync();
+        try {
+          trySync();
+        } finally {
+          m_transactionManager.onSyncCompleted(m_appId, m_namespace);
+        }
       }
     });
   }
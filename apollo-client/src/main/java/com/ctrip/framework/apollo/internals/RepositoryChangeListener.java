@@ -36,4 +36,18 @@ public interface RepositoryChangeListener {
    * @param newProperties the properties after change
    */
   void onRepositoryChange(String appId, String namespace, Properties newProperties);
+
+  /**
+   * Invoked when config repository changes.
+   * <p>
+   * The snapshot is shared by all the listeners, the default implementation converts it to
+   * properties for the listeners not aware of snapshots.
+   *
+   * @param appId the appId of this repository change
+   * @param namespace the namespace of this repository change
+   * @param newSnapshot the immutable config snapshot after change
+   */
+  default void onRepositoryChange(String appId, String namespace, ConfigSnapshot newSnapshot) {
+    onRepositoryChange(appId, namespace, newSnapshot.toProperties());
+  }
 }
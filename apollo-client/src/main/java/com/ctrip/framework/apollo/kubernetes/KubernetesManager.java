@@ -36,12 +36,14 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Manages Kubernetes ConfigMap operations.
  * Required Kubernetes permissions:
- * - pods: [get, list] - For pod selection and write eligibility
+ * - pods: [get, list] - For electing the single pod writing the ConfigMap
  * - configmaps: [get, create, update] - For ConfigMap operations
  */
 @Service
@@ -52,10 +54,12 @@ public class KubernetesManager {
 
     private static final int MAX_SEARCH_NUM = 100;
 
+    private static final long WRITE_TOKEN_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
     private ApiClient client;
     private CoreV1Api coreV1Api;
-    private int propertyKubernetesMaxWritePods = 3;
     private String localPodName = System.getenv("HOSTNAME");
+    private final ConcurrentMap<String, WriteToken> writeTokens = new ConcurrentHashMap<>();
 
     public KubernetesManager() {
         try {
@@ -69,10 +73,9 @@ public class KubernetesManager {
     }
 
     @VisibleForTesting
-    public KubernetesManager(CoreV1Api coreV1Api, String localPodName, int propertyKubernetesMaxWritePods) {
+    public KubernetesManager(CoreV1Api coreV1Api, String localPodName) {
         this.coreV1Api = coreV1Api;
         this.localPodName = localPodName;
-        this.propertyKubernetesMaxWritePods = propertyKubernetesMaxWritePods;
     }
 
     private V1ConfigMap buildConfigMap(String name, String namespace, Map<String, String> data) {
@@ -143,7 +146,8 @@ public class KubernetesManager {
      * @param k8sNamespace configmap namespace
      * @param name               config map name
      * @param data               new data
-     * @return config map name
+     * @return true if the config map holds the data, false if not written, e.g. this pod is not the
+     * write pod
      */
     // Set the retry times using the client retry mechanism (CAS)
     public boolean updateConfigMap(String k8sNamespace, String name, Map<String, String> data) throws ApiException {
@@ -153,7 +157,7 @@ public class KubernetesManager {
         }
 
         if (!isWritePod(k8sNamespace)) {
-            return true;
+            return false;
         }
 
         int maxRetries = 5;
@@ -231,41 +235,69 @@ public class KubernetesManager {
     }
 
     /**
-     * check pod whether pod can write configmap
+     * check pod whether pod can write configmap, the result is kept as a write token for a while so
+     * the pods are not listed on every update. When the election fails, the last token is kept, a
+     * pod never elected writes as before, e.g. when it is not allowed to get or list the pods.
      *
      * @param k8sNamespace config map namespace
      * @return true if this pod can write configmap, false otherwise
      */
-    private boolean isWritePod(String k8sNamespace) {
+    public boolean isWritePod(String k8sNamespace) {
+        long now = System.currentTimeMillis();
+        WriteToken token = writeTokens.get(k8sNamespace);
+        if (token != null && token.expireTime > now) {
+            return token.granted;
+        }
         try {
-            if (Strings.isNullOrEmpty(localPodName)) {
-                return true;
-            }
-            V1Pod localPod = coreV1Api.readNamespacedPod(localPodName, k8sNamespace, null);
-            V1ObjectMeta localMetadata = localPod.getMetadata();
-            if (localMetadata == null || localMetadata.getLabels() == null) {
-                return true;
-            }
-            String appName = localMetadata.getLabels().get("app");
-            String labelSelector = "app=" + appName;
-
-            V1PodList v1PodList = coreV1Api.listNamespacedPod(k8sNamespace, null, null,
-                    null, RUNNING_POD_FIELD_SELECTOR, labelSelector,
-                    MAX_SEARCH_NUM, null, null
-                    , null, null);
-
-            return v1PodList.getItems().stream()
-                    .map(V1Pod::getMetadata)
-                    .filter(Objects::nonNull)
-                    //Make each node selects the same write nodes by sorting
-                    .filter(metadata -> metadata.getCreationTimestamp() != null)
-                    .sorted(Comparator.comparing(V1ObjectMeta::getCreationTimestamp))
-                    .map(V1ObjectMeta::getName)
-                    .limit(propertyKubernetesMaxWritePods)
-                    .anyMatch(localPodName::equals);
+            boolean granted = electWritePod(k8sNamespace);
+            writeTokens.put(k8sNamespace, new WriteToken(granted, now + WRITE_TOKEN_TTL_MILLIS));
+            return granted;
         } catch (Exception e) {
-            logger.info("Error determining write pod eligibility:{}", e.getMessage(), e);
+            boolean granted = token == null || token.granted;
+            logger.warn("Error electing the write pod, {} the configmap: {}",
+                    granted ? "keep writing" : "skip writing", e.getMessage(), e);
+            return granted;
+        }
+    }
+
+    /**
+     * The oldest running pod of the app is elected as the single writer of the configmap, every pod
+     * elects the same one by sorting on the creation time and then the name
+     */
+    private boolean electWritePod(String k8sNamespace) throws ApiException {
+        if (Strings.isNullOrEmpty(localPodName)) {
             return true;
         }
+        V1Pod localPod = coreV1Api.readNamespacedPod(localPodName, k8sNamespace, null);
+        V1ObjectMeta localMetadata = localPod.getMetadata();
+        if (localMetadata == null || localMetadata.getLabels() == null) {
+            return true;
+        }
+        String appName = localMetadata.getLabels().get("app");
+        String labelSelector = "app=" + appName;
+
+        V1PodList v1PodList = coreV1Api.listNamespacedPod(k8sNamespace, null, null,
+                null, RUNNING_POD_FIELD_SELECTOR, labelSelector,
+                MAX_SEARCH_NUM, null, null
+                , null, null);
+
+        return v1PodList.getItems().stream()
+                .map(V1Pod::getMetadata)
+                .filter(Objects::nonNull)
+                .filter(metadata -> metadata.getCreationTimestamp() != null && metadata.getName() != null)
+                .min(Comparator.comparing(V1ObjectMeta::getCreationTimestamp)
+                        .thenComparing(V1ObjectMeta::getName))
+                .map(metadata -> localPodName.equals(metadata.getName()))
+                .orElse(false);
+    }
+
+    private static class WriteToken {
+        private final boolean granted;
+        private final long expireTime;
+
+        private WriteToken(boolean granted, long expireTime) {
+            this.granted = granted;
+            this.expireTime = expireTime;
+        }
     }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.model;
+
+import com.ctrip.framework.apollo.ConfigSnapshotView;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A change event of the namespaces changed together.
+ *
+ * @since 2.6.0
+ */
+public class ConfigTransactionEvent {
+
+  private final String m_appId;
+  private final Map<String, ConfigChangeEvent> m_changeEvents;
+  private final ConfigSnapshotView m_snapshot;
+
+  /**
+   * Constructor.
+   *
+   * @param appId        the appId of the namespaces
+   * @param changeEvents the change events, keyed by namespace
+   * @param snapshot     the view of the changed namespaces right after the changes
+   */
+  public ConfigTransactionEvent(String appId, Map<String, ConfigChangeEvent> changeEvents,
+      ConfigSnapshotView snapshot) {
+    this.m_appId = appId;
+    this.m_changeEvents = changeEvents;
+    this.m_snapshot = snapshot;
+  }
+
+  /**
+   * Get the appId of this transaction event.
+   *
+   * @return the appId
+   */
+  public String getAppId() {
+    return m_appId;
+  }
+
+  /**
+   * Get the version of the changes, the same as the version of {@link #getSnapshot()}.
+   *
+   * @return the version
+   */
+  public long getVersion() {
+    return m_snapshot.getVersion();
+  }
+
+  /**
+   * Get the namespaces changed.
+   *
+   * @return the namespaces
+   */
+  public Set<String> changedNamespaces() {
+    return m_changeEvents.keySet();
+  }
+
+  /**
+   * Get the change event of the namespace specified.
+   *
+   * @param namespace the namespace
+   * @return the change event, null if the namespace is not changed
+   */
+  public ConfigChangeEvent getChangeEvent(String namespace) {
+    return m_changeEvents.get(namespace);
+  }
+
+  /**
+   * Get the view of the changed namespaces right after the changes.
+   *
+   * @return the snapshot view
+   */
+  public ConfigSnapshotView getSnapshot() {
+    return m_snapshot;
+  }
+}
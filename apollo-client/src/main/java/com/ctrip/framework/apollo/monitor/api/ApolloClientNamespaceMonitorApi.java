@@ -27,7 +27,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 public interface ApolloClientNamespaceMonitorApi {
 
   /**
-   * NamespaceMetrics: 1.usageCount 2.firstLoadSpend 3.latestUpdateTime 4.releaseKey
+   * NamespaceMetrics: 1.usageCount 2.firstLoadSpend 3.latestUpdateTime 4.releaseKey 5.rejectedCount
    */
   Map<String, NamespaceMetrics> getNamespaceMetrics();
 
@@ -46,6 +46,11 @@ public interface ApolloClientNamespaceMonitorApi {
    */
   List<String> getTimeoutNamespaces();
 
+  /**
+   * get typed value cache stats of the namespace, key is the value type, i.e. Integer, Date
+   */
+  Map<String, ValueCacheStats> getNamespaceValueCacheStats(String namespace);
+
 
   class NamespaceMetrics {
 
@@ -53,6 +58,7 @@ public interface ApolloClientNamespaceMonitorApi {
     private long firstLoadTimeSpendInMs;
     private LocalDateTime latestUpdateTime = LocalDateTime.now();
     private String releaseKey = "";
+    private AtomicInteger rejectedCount = new AtomicInteger(0);
 
     public String getReleaseKey() {
       return releaseKey;
@@ -70,6 +76,10 @@ public interface ApolloClientNamespaceMonitorApi {
       usageCount.incrementAndGet();
     }
 
+    public void addUsageCount(int count) {
+      usageCount.addAndGet(count);
+    }
+
     public long getFirstLoadTimeSpendInMs() {
       return firstLoadTimeSpendInMs;
     }
@@ -85,6 +95,42 @@ public interface ApolloClientNamespaceMonitorApi {
     public void setLatestUpdateTime(LocalDateTime latestUpdateTime) {
       this.latestUpdateTime = latestUpdateTime;
     }
+
+    /**
+     * @return the number of the config changes rejected by the constraints
+     * @since 2.6.0
+     */
+    public int getRejectedCount() {
+      return rejectedCount.get();
+    }
+
+    public void incrementRejectedCount() {
+      rejectedCount.incrementAndGet();
+    }
+  }
+
+  class ValueCacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+
+    public ValueCacheStats(long hitCount, long missCount) {
+      this.hitCount = hitCount;
+      this.missCount = missCount;
+    }
+
+    public long getHitCount() {
+      return hitCount;
+    }
+
+    public long getMissCount() {
+      return missCount;
+    }
+
+    public double getHitRate() {
+      long requestCount = hitCount + missCount;
+      return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
   }
 
 
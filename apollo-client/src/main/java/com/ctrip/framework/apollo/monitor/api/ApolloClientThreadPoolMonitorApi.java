@@ -16,6 +16,7 @@
  */
 package com.ctrip.framework.apollo.monitor.api;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ThreadPoolExecutor;
 
@@ -49,6 +50,15 @@ public interface ApolloClientThreadPoolMonitorApi {
    */
   ApolloThreadPoolInfo getMetricsExporterThreadPoolInfo();
 
+  /**
+   * the times each config change listener was found running slowly, keyed by the listener class
+   *
+   * @since 2.6.0
+   */
+  default Map<String, Integer> getSlowConfigChangeListeners() {
+    return Collections.emptyMap();
+  }
+
 
   class ApolloThreadPoolInfo {
 
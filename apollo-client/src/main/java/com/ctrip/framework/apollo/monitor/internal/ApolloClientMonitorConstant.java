@@ -27,12 +27,15 @@ public class ApolloClientMonitorConstant {
   public static final String MBEAN_NAME = "apollo.client.monitor:type=";
   public static final String NAMESPACE = "namespace";
   public static final String TIMESTAMP = "timestamp";
+  public static final String COUNT = "count";
   public static final String THROWABLE = "throwable";
   public static final String NAMESPACE_RELEASE_KEY = "releaseKey";
   public static final String ENV = "env";
   public static final String VERSION = "version";
   public static final String META_FRESH = "metaFreshTime";
   public static final String CONFIG_SERVICE_URL = "configServiceUrl";
+  public static final String VALUE_TYPE = "valueType";
+  public static final String LISTENER = "listener";
 
   /**
    * tracer
@@ -50,6 +53,8 @@ public class ApolloClientMonitorConstant {
   public static final String APOLLO_CLIENT_NAMESPACE_TIMEOUT = "Apollo.Client.NamespaceTimeout";
   public static final String APOLLO_CLIENT_NAMESPACE_USAGE = "Apollo.Client.NamespaceUsage";
   public static final String APOLLO_CLIENT_NAMESPACE_FIRST_LOAD_SPEND = "Apollo.Client.NamespaceFirstLoadSpendTime";
+  public static final String APOLLO_CLIENT_CONFIG_CHANGE_LISTENER_SLOW = "Apollo.Client.ConfigChangeListenerSlow";
+  public static final String APOLLO_CLIENT_CONFIG_REJECTED = "Apollo.Client.ConfigRejected";
 
   /**
    * listener tag
@@ -69,7 +74,12 @@ public class ApolloClientMonitorConstant {
   public static final String METRICS_NAMESPACE_USAGE = "apollo_client_namespace_usage";
   public static final String METRICS_NAMESPACE_NOT_FOUND = "apollo_client_namespace_not_found";
   public static final String METRICS_NAMESPACE_TIMEOUT = "apollo_client_namespace_timeout";
+  public static final String METRICS_NAMESPACE_VALUE_CACHE_HIT = "apollo_client_namespace_value_cache_hit";
+  public static final String METRICS_NAMESPACE_VALUE_CACHE_MISS = "apollo_client_namespace_value_cache_miss";
+  public static final String METRICS_NAMESPACE_CONFIG_REJECTED = "apollo_client_namespace_config_rejected";
   public static final String METRICS_THREAD_POOL_NAME = "thread_pool_name";
+  public static final String METRICS_CONFIG_CHANGE_LISTENER_NAME = "listener_name";
+  public static final String METRICS_CONFIG_CHANGE_LISTENER_SLOW = "apollo_client_config_change_listener_slow";
   public static final String METRICS_THREAD_POOL_ACTIVE_TASK_COUNT = "apollo_client_thread_pool_active_task_count";
   public static final String METRICS_THREAD_POOL_QUEUE_SIZE = "apollo_client_thread_pool_queue_size";
   public static final String METRICS_THREAD_POOL_COMPLETED_TASK_COUNT = "apollo_client_thread_pool_completed_task_count";
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.monitor.internal.enums;
+
+/**
+ * What to do with a monitor event when the event buffer is full
+ *
+ * @since 2.6.0
+ */
+public enum MonitorEventBackpressurePolicy {
+  /**
+   * drop the event being published
+   */
+  DISCARD_NEWEST,
+
+  /**
+   * drop the oldest buffered event to make room for the event being published
+   */
+  DISCARD_OLDEST,
+
+  /**
+   * dispatch the event on the publishing thread
+   */
+  CALLER_RUNS;
+
+  /**
+   * @param name the policy name, case insensitive
+   * @return the policy, or null if no policy matches the name
+   */
+  public static MonitorEventBackpressurePolicy fromName(String name) {
+    for (MonitorEventBackpressurePolicy policy : values()) {
+      if (policy.name().equalsIgnoreCase(name)) {
+        return policy;
+      }
+    }
+    return null;
+  }
+}
@@ -17,25 +17,90 @@
 package com.ctrip.framework.apollo.monitor.internal.event;
 
 import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.internals.ApolloExecutors;
+import com.ctrip.framework.apollo.monitor.internal.enums.MonitorEventBackpressurePolicy;
 import com.ctrip.framework.apollo.monitor.internal.listener.ApolloClientMonitorEventListener;
 import com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorContext;
 import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.apollo.util.ExceptionUtil;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
+ * Publishes the monitor events to a ring buffer, a dedicated thread dispatches them to all the
+ * listeners supporting the event, so the publishing thread never runs the listeners unless the
+ * backpressure policy says so.
+ *
  * @author Rawven
  */
 public class ApolloClientMonitorEventPublisher {
 
+  private static final Logger logger = LoggerFactory.getLogger(
+      ApolloClientMonitorEventPublisher.class);
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
   private static ApolloClientMonitorContext MONITOR_CONTEXT = ApolloInjector.getInstance(
       ApolloClientMonitorContext.class);
   private static ConfigUtil m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+  private static volatile Dispatcher s_dispatcher;
 
   public static void publish(ApolloClientMonitorEvent event) {
     if (m_configUtil.isClientMonitorEnabled()) {
-      for (ApolloClientMonitorEventListener listener : MONITOR_CONTEXT.getApolloClientMonitorEventListeners()) {
-        if (listener.isSupported(event)) {
+      getDispatcher().publish(event);
+    }
+  }
+
+  /**
+   * @return the number of events dropped because the buffer was full
+   */
+  public static long getDroppedEventCount() {
+    Dispatcher dispatcher = s_dispatcher;
+    return dispatcher == null ? 0 : dispatcher.m_droppedEvents.get();
+  }
+
+  /**
+   * @return the number of events dispatched to the listeners
+   */
+  public static long getDispatchedEventCount() {
+    Dispatcher dispatcher = s_dispatcher;
+    return dispatcher == null ? 0 : dispatcher.m_dispatchedEvents.get();
+  }
+
+  /**
+   * @return the number of events waiting to be dispatched
+   */
+  public static int getPendingEventCount() {
+    Dispatcher dispatcher = s_dispatcher;
+    return dispatcher == null ? 0 : dispatcher.m_buffer.size();
+  }
+
+  private static Dispatcher getDispatcher() {
+    Dispatcher dispatcher = s_dispatcher;
+    if (dispatcher == null) {
+      synchronized (ApolloClientMonitorEventPublisher.class) {
+        dispatcher = s_dispatcher;
+        if (dispatcher == null) {
+          dispatcher = new Dispatcher(m_configUtil.getMonitorEventBufferSize(),
+              m_configUtil.getMonitorEventBackpressurePolicy());
+          dispatcher.start();
+          s_dispatcher = dispatcher;
+        }
+      }
+    }
+    return dispatcher;
+  }
+
+  private static void dispatch(ApolloClientMonitorEvent event) {
+    for (ApolloClientMonitorEventListener listener : MONITOR_CONTEXT.getApolloClientMonitorEventListeners()) {
+      if (listener.isSupported(event)) {
+        try {
           listener.collect(event);
-          return;
+        } catch (Throwable ex) {
+          logger.warn("Monitor event listener {} failed to collect event {}, reason: {}",
+              listener.getName(), event.getName(), ExceptionUtil.getDetailMessage(ex));
         }
       }
     }
@@ -45,8 +110,108 @@ public class ApolloClientMonitorEventPublisher {
     MONITOR_CONTEXT = ApolloInjector.getInstance(
         ApolloClientMonitorContext.class);
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
-
+    synchronized (ApolloClientMonitorEventPublisher.class) {
+      if (s_dispatcher != null) {
+        s_dispatcher.stop();
+        s_dispatcher = null;
+      }
+    }
   }
-}
 
+  private static class Dispatcher implements Runnable {
+    private final ApolloClientMonitorEventRingBuffer m_buffer;
+    private final MonitorEventBackpressurePolicy m_backpressurePolicy;
+    private final AtomicLong m_droppedEvents = new AtomicLong();
+    private final AtomicLong m_dispatchedEvents = new AtomicLong();
+    private volatile boolean m_stopped;
+    private volatile boolean m_consumerWaiting;
+    private volatile Thread m_consumer;
+    private ExecutorService m_executorService;
+
+    Dispatcher(int bufferSize, MonitorEventBackpressurePolicy backpressurePolicy) {
+      m_buffer = new ApolloClientMonitorEventRingBuffer(bufferSize > 0 ? bufferSize : 8192);
+      m_backpressurePolicy = backpressurePolicy != null ? backpressurePolicy
+          : MonitorEventBackpressurePolicy.DISCARD_NEWEST;
+    }
+
+    void start() {
+      m_executorService = ApolloExecutors.getProvider()
+          .newCachedExecutor("ApolloClientMonitorEventPublisher");
+      m_executorService.execute(this);
+    }
+
+    void stop() {
+      m_stopped = true;
+      LockSupport.unpark(m_consumer);
+      m_executorService.shutdown();
+    }
+
+    void publish(ApolloClientMonitorEvent event) {
+      if (!m_buffer.offer(event) && !onBufferFull(event)) {
+        return;
+      }
+      if (m_consumerWaiting) {
+        LockSupport.unpark(m_consumer);
+      }
+    }
+
+    /**
+     * @return true if the event is buffered
+     */
+    private boolean onBufferFull(ApolloClientMonitorEvent event) {
+      switch (m_backpressurePolicy) {
+        case CALLER_RUNS:
+          dispatch(event);
+          m_dispatchedEvents.incrementAndGet();
+          return false;
+        case DISCARD_OLDEST:
+          if (m_buffer.poll() != null) {
+            onDropped();
+          }
+          if (m_buffer.offer(event)) {
+            return true;
+          }
+          onDropped();
+          return false;
+        case DISCARD_NEWEST:
+        default:
+          onDropped();
+          return false;
+      }
+    }
 
+    private void onDropped() {
+      long dropped = m_droppedEvents.incrementAndGet();
+      // log on 1, 2, 4, 8... to avoid flooding the log when the buffer stays full
+      if ((dropped & (dropped - 1)) == 0) {
+        logger.warn("Monitor event buffer of size {} is full, {} events dropped so far",
+            m_buffer.capacity(), dropped);
+      }
+    }
+
+    @Override
+    public void run() {
+      // set before the waiting flag, so the publishers always unpark this thread
+      m_consumer = Thread.currentThread();
+      while (!m_stopped) {
+        ApolloClientMonitorEvent event = m_buffer.poll();
+        if (event != null) {
+          dispatch(event);
+          m_dispatchedEvents.incrementAndGet();
+          continue;
+        }
+        m_consumerWaiting = true;
+        // double check, the producer might have published before seeing the waiting flag
+        event = m_buffer.poll();
+        if (event == null) {
+          LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        m_consumerWaiting = false;
+        if (event != null) {
+          dispatch(event);
+          m_dispatchedEvents.incrementAndGet();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.monitor.internal.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer of monitor events, every slot carries a sequence telling whether
+ * it is ready to be written or read, so producers and consumers only contend on their own cursor.
+ *
+ * @since 2.6.0
+ */
+final class ApolloClientMonitorEventRingBuffer {
+
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private final int m_mask;
+  private final AtomicLongArray m_sequences;
+  private final AtomicReferenceArray<ApolloClientMonitorEvent> m_events;
+  private final AtomicLong m_tail = new AtomicLong();
+  private final AtomicLong m_head = new AtomicLong();
+
+  /**
+   * @param capacity the capacity, rounded up to the next power of two
+   */
+  ApolloClientMonitorEventRingBuffer(int capacity) {
+    int size = capacity <= 1 ? 2 : Math.min(MAX_CAPACITY, Integer.highestOneBit(capacity - 1) << 1);
+    m_mask = size - 1;
+    m_sequences = new AtomicLongArray(size);
+    m_events = new AtomicReferenceArray<>(size);
+    for (int i = 0; i < size; i++) {
+      m_sequences.set(i, i);
+    }
+  }
+
+  /**
+   * @return false if the buffer is full
+   */
+  boolean offer(ApolloClientMonitorEvent event) {
+    long position = m_tail.get();
+    while (true) {
+      int index = (int) (position & m_mask);
+      long difference = m_sequences.get(index) - position;
+      if (difference == 0) {
+        if (m_tail.compareAndSet(position, position + 1)) {
+          m_events.lazySet(index, event);
+          // publish the slot to the consumers
+          m_sequences.lazySet(index, position + 1);
+          return true;
+        }
+        position = m_tail.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = m_tail.get();
+      }
+    }
+  }
+
+  /**
+   * @return the oldest event, or null if the buffer is empty
+   */
+  ApolloClientMonitorEvent poll() {
+    long position = m_head.get();
+    while (true) {
+      int index = (int) (position & m_mask);
+      long difference = m_sequences.get(index) - (position + 1);
+      if (difference == 0) {
+        if (m_head.compareAndSet(position, position + 1)) {
+          ApolloClientMonitorEvent event = m_events.get(index);
+          m_events.lazySet(index, null);
+          // hand the slot back to the producers of the next round
+          m_sequences.lazySet(index, position + m_mask + 1);
+          return event;
+        }
+        position = m_head.get();
+      } else if (difference < 0) {
+        return null;
+      } else {
+        position = m_head.get();
+      }
+    }
+  }
+
+  int size() {
+    long size = m_tail.get() - m_head.get();
+    return (int) Math.max(0, Math.min(size, capacity()));
+  }
+
+  int capacity() {
+    return m_mask + 1;
+  }
+}
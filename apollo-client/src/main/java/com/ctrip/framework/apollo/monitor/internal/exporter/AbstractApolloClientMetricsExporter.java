@@ -16,14 +16,13 @@
  */
 package com.ctrip.framework.apollo.monitor.internal.exporter;
 
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
+import com.ctrip.framework.apollo.internals.ApolloExecutors;
 import com.ctrip.framework.apollo.monitor.internal.listener.ApolloClientMonitorEventListener;
 import com.ctrip.framework.apollo.monitor.internal.model.CounterModel;
 import com.ctrip.framework.apollo.monitor.internal.model.GaugeModel;
 import com.ctrip.framework.apollo.monitor.internal.model.SampleModel;
 import java.util.List;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
@@ -40,8 +39,8 @@ public abstract class AbstractApolloClientMetricsExporter implements ApolloClien
   private static final int THREAD_POOL_SIZE = 1;
 
   static {
-    m_executorService = Executors.newScheduledThreadPool(THREAD_POOL_SIZE,
-        ApolloThreadFactory.create(ApolloClientMetricsExporter.class.getName(), true));
+    m_executorService = ApolloExecutors.getProvider().newScheduledExecutor(
+        ApolloClientMetricsExporter.class.getName(), THREAD_POOL_SIZE);
   }
 
   protected List<ApolloClientMonitorEventListener> listeners;
@@ -16,6 +16,7 @@
  */
 package com.ctrip.framework.apollo.monitor.internal.jmx.mbean;
 
+import com.ctrip.framework.apollo.monitor.api.ApolloClientNamespaceMonitorApi.ValueCacheStats;
 import java.util.List;
 import java.util.Map;
 import javax.management.MXBean;
@@ -29,7 +30,7 @@ public interface ApolloClientJmxNamespaceMBean {
   // declare the interface separately.
 
   /**
-   * NamespaceMetrics: 1.usageCount 2.firstLoadSpend 3.latestUpdateTime 4.releaseKey
+   * NamespaceMetrics: 1.usageCount 2.firstLoadSpend 3.latestUpdateTime 4.releaseKey 5.rejectedCount
    */
   Map<String, NamespaceMetricsString> getNamespaceMetricsString();
 
@@ -48,6 +49,11 @@ public interface ApolloClientJmxNamespaceMBean {
    */
   List<String> getTimeoutNamespaces();
 
+  /**
+   * get typed value cache stats of the namespace, key is the value type, i.e. Integer, Date
+   */
+  Map<String, ValueCacheStats> getNamespaceValueCacheStats(String namespace);
+
 
   class NamespaceMetricsString {
 
@@ -55,6 +61,7 @@ public interface ApolloClientJmxNamespaceMBean {
     private long firstLoadTimeSpendInMs;
     private String latestUpdateTime;
     private String releaseKey = "";
+    private int rejectedCount;
 
     public int getUsageCount() {
       return usageCount;
@@ -87,6 +94,14 @@ public interface ApolloClientJmxNamespaceMBean {
     public void setReleaseKey(String releaseKey) {
       this.releaseKey = releaseKey;
     }
+
+    public int getRejectedCount() {
+      return rejectedCount;
+    }
+
+    public void setRejectedCount(int rejectedCount) {
+      this.rejectedCount = rejectedCount;
+    }
   }
 
 }
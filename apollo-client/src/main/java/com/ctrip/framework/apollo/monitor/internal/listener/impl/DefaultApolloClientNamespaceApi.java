@@ -21,6 +21,7 @@ import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorCon
 
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
+import com.ctrip.framework.apollo.internals.AbstractConfig;
 import com.ctrip.framework.apollo.internals.ConfigManager;
 import com.ctrip.framework.apollo.monitor.api.ApolloClientNamespaceMonitorApi;
 import com.ctrip.framework.apollo.monitor.internal.jmx.mbean.ApolloClientJmxNamespaceMBean;
@@ -89,7 +90,7 @@ public class DefaultApolloClientNamespaceApi extends
     String eventName = event.getName();
     switch (eventName) {
       case APOLLO_CLIENT_NAMESPACE_USAGE:
-        handleUsageEvent(namespaceMetrics, namespace);
+        handleUsageEvent(event, namespaceMetrics, namespace);
         break;
       case METRICS_NAMESPACE_LATEST_UPDATE_TIME:
         handleUpdateTimeEvent(event, namespaceMetrics);
@@ -100,6 +101,9 @@ public class DefaultApolloClientNamespaceApi extends
       case NAMESPACE_RELEASE_KEY:
         handleReleaseKeyEvent(event, namespaceMetrics);
         break;
+      case APOLLO_CLIENT_CONFIG_REJECTED:
+        handleConfigRejectedEvent(namespaceMetrics, namespace);
+        break;
       default:
         logger.warn("Unhandled event name: {}", eventName);
         break;
@@ -115,9 +119,18 @@ public class DefaultApolloClientNamespaceApi extends
   }
 
 
-  private void handleUsageEvent(NamespaceMetrics namespaceMetrics, String namespace) {
-    namespaceMetrics.incrementUsageCount();
+  private void handleUsageEvent(ApolloClientMonitorEvent event, NamespaceMetrics namespaceMetrics,
+      String namespace) {
+    Integer count = event.getAttachmentValue(ApolloClientMonitorConstant.COUNT);
+    int usageCount = count == null ? 1 : count;
+    namespaceMetrics.addUsageCount(usageCount);
     createOrUpdateCounterSample(ApolloClientMonitorConstant.METRICS_NAMESPACE_USAGE,
+        new String[]{NAMESPACE}, new String[]{namespace}, usageCount);
+  }
+
+  private void handleConfigRejectedEvent(NamespaceMetrics namespaceMetrics, String namespace) {
+    namespaceMetrics.incrementRejectedCount();
+    createOrUpdateCounterSample(METRICS_NAMESPACE_CONFIG_REJECTED,
         new String[]{NAMESPACE}, new String[]{namespace}, 1);
   }
 
@@ -147,10 +160,20 @@ public class DefaultApolloClientNamespaceApi extends
           new String[]{NAMESPACE}, new String[]{namespace},
           metrics.getFirstLoadTimeSpendInMs());
 
+      Config config = configManager.getConfig(namespace);
       createOrUpdateGaugeSample(
           METRICS_NAMESPACE_ITEM_NUM,
           new String[]{NAMESPACE}, new String[]{namespace},
-          configManager.getConfig(namespace).getPropertyNames().size());
+          config.getPropertyNames().size());
+
+      getValueCacheStats(config).forEach((valueType, stats) -> {
+        createOrUpdateGaugeSample(METRICS_NAMESPACE_VALUE_CACHE_HIT,
+            new String[]{NAMESPACE, VALUE_TYPE}, new String[]{namespace, valueType},
+            stats.getHitCount());
+        createOrUpdateGaugeSample(METRICS_NAMESPACE_VALUE_CACHE_MISS,
+            new String[]{NAMESPACE, VALUE_TYPE}, new String[]{namespace, valueType},
+            stats.getMissCount());
+      });
     });
 
     //  update NamespaceStatus metrics
@@ -186,6 +209,7 @@ public class DefaultApolloClientNamespaceApi extends
               .ifPresent(namespaceMetricsString::setLatestUpdateTime);
       namespaceMetricsString.setUsageCount(metrics.getUsageCount());
       namespaceMetricsString.setReleaseKey(metrics.getReleaseKey());
+      namespaceMetricsString.setRejectedCount(metrics.getRejectedCount());
       namespaceMetricsStringMap.put(namespace, namespaceMetricsString);
     });
     return namespaceMetricsStringMap;
@@ -197,4 +221,16 @@ public class DefaultApolloClientNamespaceApi extends
     return (config != null) ? config.getPropertyNames().size() : 0;
   }
 
+  @Override
+  public Map<String, ValueCacheStats> getNamespaceValueCacheStats(String namespace) {
+    return getValueCacheStats(configManager.getConfig(namespace));
+  }
+
+  private Map<String, ValueCacheStats> getValueCacheStats(Config config) {
+    if (config instanceof AbstractConfig) {
+      return ((AbstractConfig) config).getValueCacheStats();
+    }
+    return Collections.emptyMap();
+  }
+
 }
@@ -22,13 +22,19 @@ import com.ctrip.framework.apollo.internals.AbstractConfig;
 import com.ctrip.framework.apollo.internals.AbstractConfigFile;
 import com.ctrip.framework.apollo.internals.RemoteConfigRepository;
 import com.ctrip.framework.apollo.monitor.api.ApolloClientThreadPoolMonitorApi;
+import com.ctrip.framework.apollo.monitor.internal.event.ApolloClientMonitorEvent;
 import com.ctrip.framework.apollo.monitor.internal.exporter.AbstractApolloClientMetricsExporter;
 import com.ctrip.framework.apollo.monitor.internal.jmx.mbean.ApolloClientJmxThreadPoolMBean;
 import com.ctrip.framework.apollo.monitor.internal.listener.AbstractApolloClientMonitorEventListener;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Rawven
@@ -41,26 +47,94 @@ public class DefaultApolloClientThreadPoolApi extends
   public static final String ABSTRACT_CONFIG = AbstractConfig.class.getSimpleName();
   public static final String ABSTRACT_CONFIG_FILE = AbstractConfigFile.class.getSimpleName();
   public static final String METRICS_EXPORTER = AbstractApolloClientMetricsExporter.class.getSimpleName();
-  private final Map<String, ApolloThreadPoolInfo> executorMap = Maps.newHashMap();
+  private final Map<String, ApolloThreadPoolInfo> executorMap = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, AtomicInteger> slowListeners = Maps.newConcurrentMap();
+  private final Set<ExecutorService> fixedExecutorServices = Sets.newIdentityHashSet();
+  private final Map<String, ExecutorService> otherExecutorServices;
+  private final ConcurrentMap<String, ExecutorService> reportedOtherExecutorServices =
+      Maps.newConcurrentMap();
 
   public DefaultApolloClientThreadPoolApi(
       ExecutorService remoteConfigRepositoryExecutorService,
       ExecutorService abstractConfigExecutorService,
       ExecutorService abstractConfigFileExecutorService,
       ExecutorService metricsExporterExecutorService) {
+    this(remoteConfigRepositoryExecutorService, abstractConfigExecutorService,
+        abstractConfigFileExecutorService, metricsExporterExecutorService,
+        Collections.<String, ExecutorService>emptyMap());
+  }
+
+  /**
+   * @param otherExecutorServices the other executors to report, e.g. the ones created by
+   *                              {@link com.ctrip.framework.apollo.spi.ApolloExecutorProvider}, the
+   *                              executors already reported above are ignored. The map is read
+   *                              again on every export, so the executors created later are
+   *                              reported too
+   * @since 2.6.0
+   */
+  public DefaultApolloClientThreadPoolApi(
+      ExecutorService remoteConfigRepositoryExecutorService,
+      ExecutorService abstractConfigExecutorService,
+      ExecutorService abstractConfigFileExecutorService,
+      ExecutorService metricsExporterExecutorService,
+      Map<String, ExecutorService> otherExecutorServices) {
     super(TAG_THREAD_POOL);
     executorMap.put(REMOTE_CONFIG_REPOSITORY,
-        new ApolloThreadPoolInfo((ThreadPoolExecutor) remoteConfigRepositoryExecutorService));
-    executorMap.put(ABSTRACT_CONFIG,
-        new ApolloThreadPoolInfo((ThreadPoolExecutor) abstractConfigExecutorService));
-    executorMap.put(ABSTRACT_CONFIG_FILE,
-        new ApolloThreadPoolInfo((ThreadPoolExecutor) abstractConfigFileExecutorService));
-    executorMap.put(METRICS_EXPORTER,
-        new ApolloThreadPoolInfo((ThreadPoolExecutor) metricsExporterExecutorService));
+        toThreadPoolInfo(remoteConfigRepositoryExecutorService));
+    executorMap.put(ABSTRACT_CONFIG, toThreadPoolInfo(abstractConfigExecutorService));
+    executorMap.put(ABSTRACT_CONFIG_FILE, toThreadPoolInfo(abstractConfigFileExecutorService));
+    executorMap.put(METRICS_EXPORTER, toThreadPoolInfo(metricsExporterExecutorService));
+
+    fixedExecutorServices.add(remoteConfigRepositoryExecutorService);
+    fixedExecutorServices.add(abstractConfigExecutorService);
+    fixedExecutorServices.add(abstractConfigFileExecutorService);
+    fixedExecutorServices.add(metricsExporterExecutorService);
+    this.otherExecutorServices = otherExecutorServices;
+    refreshOtherExecutorServices();
+  }
+
+  /**
+   * report the executors created since the last time, an executor created again with the same name
+   * replaces the previous one
+   */
+  private synchronized void refreshOtherExecutorServices() {
+    otherExecutorServices.forEach((name, executorService) -> {
+      if (fixedExecutorServices.contains(executorService)
+          || reportedOtherExecutorServices.get(name) == executorService) {
+        return;
+      }
+      if (!reportedOtherExecutorServices.containsKey(name) && executorMap.containsKey(name)) {
+        // never replace the fixed ones
+        return;
+      }
+      reportedOtherExecutorServices.put(name, executorService);
+      executorMap.put(name, toThreadPoolInfo(executorService));
+    });
+  }
+
+  /**
+   * executors without pool, e.g. the virtual thread ones, are reported as empty pools
+   */
+  private static ApolloThreadPoolInfo toThreadPoolInfo(ExecutorService executorService) {
+    if (executorService instanceof ThreadPoolExecutor) {
+      return new ApolloThreadPoolInfo((ThreadPoolExecutor) executorService);
+    }
+    return new ApolloThreadPoolInfo();
+  }
+
+  @Override
+  public void collect0(ApolloClientMonitorEvent event) {
+    if (APOLLO_CLIENT_CONFIG_CHANGE_LISTENER_SLOW.equals(event.getName())) {
+      String listener = event.getAttachmentValue(LISTENER);
+      slowListeners.computeIfAbsent(listener, key -> new AtomicInteger()).incrementAndGet();
+      createOrUpdateCounterSample(METRICS_CONFIG_CHANGE_LISTENER_SLOW,
+          new String[]{METRICS_CONFIG_CHANGE_LISTENER_NAME}, new String[]{listener}, 1);
+    }
   }
 
   @Override
   public void export0() {
+    refreshOtherExecutorServices();
     executorMap.forEach((key, value) -> exportThreadPoolMetrics(value, key));
   }
 
@@ -103,6 +177,7 @@ public class DefaultApolloClientThreadPoolApi extends
 
   @Override
   public Map<String, ApolloThreadPoolInfo> getThreadPoolInfo() {
+    refreshOtherExecutorServices();
     return executorMap;
   }
 
@@ -125,4 +200,11 @@ public class DefaultApolloClientThreadPoolApi extends
   public ApolloThreadPoolInfo getMetricsExporterThreadPoolInfo() {
     return executorMap.get(METRICS_EXPORTER);
   }
+
+  @Override
+  public Map<String, Integer> getSlowConfigChangeListeners() {
+    Map<String, Integer> result = Maps.newHashMap();
+    slowListeners.forEach((listener, count) -> result.put(listener, count.get()));
+    return result;
+  }
 }
\ No newline at end of file
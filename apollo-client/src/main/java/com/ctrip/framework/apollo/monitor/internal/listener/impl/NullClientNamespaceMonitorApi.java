@@ -54,4 +54,9 @@ public class NullClientNamespaceMonitorApi implements ApolloClientNamespaceMonit
     return 0;
   }
 
+  @Override
+  public Map<String, ValueCacheStats> getNamespaceValueCacheStats(String namespace) {
+    return Collections.emptyMap();
+  }
+
 }
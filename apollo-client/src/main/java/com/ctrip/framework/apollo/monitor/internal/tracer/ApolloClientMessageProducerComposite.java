@@ -70,6 +70,13 @@ public class ApolloClientMessageProducerComposite implements MessageProducer {
     }
   }
 
+  @Override
+  public void logMetricsForCount(String name, int count) {
+    for (MessageProducer producer : producers) {
+      producer.logMetricsForCount(name, count);
+    }
+  }
+
   @Override
   public Transaction newTransaction(String type, String name) {
     for (MessageProducer producer : producers) {
@@ -47,7 +47,9 @@ public class ApolloClientMonitorMessageProducer implements MessageProducer {
       APOLLO_CLIENT_CONFIGMETA,
       APOLLO_CLIENT_NAMESPACE_TIMEOUT,
       APOLLO_CLIENT_NAMESPACE_USAGE,
-      APOLLO_CLIENT_NAMESPACE_NOT_FOUND
+      APOLLO_CLIENT_NAMESPACE_NOT_FOUND,
+      APOLLO_CLIENT_CONFIG_CHANGE_LISTENER_SLOW,
+      APOLLO_CLIENT_CONFIG_REJECTED
   ));
 
   @Override
@@ -97,6 +99,12 @@ public class ApolloClientMonitorMessageProducer implements MessageProducer {
       case APOLLO_CLIENT_NAMESPACE_NOT_FOUND:
         publishNamespaceNotFoundEvent(name);
         break;
+      case APOLLO_CLIENT_CONFIG_CHANGE_LISTENER_SLOW:
+        publishConfigChangeListenerSlowEvent(name);
+        break;
+      case APOLLO_CLIENT_CONFIG_REJECTED:
+        publishConfigRejectedEvent(name);
+        break;
       case APOLLO_CLIENT_CONFIGMETA:
         // No need to collect
         break;
@@ -156,6 +164,21 @@ public class ApolloClientMonitorMessageProducer implements MessageProducer {
             .putAttachment(NAMESPACE, name));
   }
 
+  private void publishConfigChangeListenerSlowEvent(String name) {
+    ApolloClientMonitorEventPublisher.publish(
+        ApolloClientMonitorEventFactory.getInstance()
+            .createEvent(APOLLO_CLIENT_CONFIG_CHANGE_LISTENER_SLOW)
+            .withTag(TAG_THREAD_POOL)
+            .putAttachment(LISTENER, name));
+  }
+
+  private void publishConfigRejectedEvent(String name) {
+    ApolloClientMonitorEventPublisher.publish(
+        ApolloClientMonitorEventFactory.getInstance().createEvent(APOLLO_CLIENT_CONFIG_REJECTED)
+            .withTag(TAG_NAMESPACE)
+            .putAttachment(NAMESPACE, name));
+  }
+
   private void handleClientConfigEvent(String type, String name) {
     String namespace = type.substring(APOLLO_CLIENT_CONFIGS.length());
     ApolloClientMonitorEventPublisher.publish(
@@ -184,12 +207,18 @@ public class ApolloClientMonitorMessageProducer implements MessageProducer {
 
   @Override
   public void logMetricsForCount(String name) {
+    logMetricsForCount(name, 1);
+  }
+
+  @Override
+  public void logMetricsForCount(String name, int count) {
     String[] split = name.split(":");
     if (split.length == 2 && APOLLO_CLIENT_NAMESPACE_USAGE.equals(split[0])) {
       ApolloClientMonitorEventPublisher.publish(
           ApolloClientMonitorEventFactory.getInstance()
               .createEvent(APOLLO_CLIENT_NAMESPACE_USAGE)
               .putAttachment(NAMESPACE, split[1])
+              .putAttachment(COUNT, count)
               .withTag(TAG_NAMESPACE));
     }
   }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.spi;
+
+import com.ctrip.framework.apollo.core.spi.Ordered;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * The provider of all the executors used by the apollo client, the one with the highest
+ * precedence is used.
+ *
+ * @since 2.6.0
+ */
+public interface ApolloExecutorProvider extends Ordered {
+
+  /**
+   * Create an executor which creates new threads as needed, it is used for the blocking or the
+   * short-lived tasks, e.g. long polling and notifying the change listeners.
+   *
+   * @param name the name of the executor, also used as the prefix of the thread names
+   * @return the executor
+   */
+  ExecutorService newCachedExecutor(String name);
+
+  /**
+   * Create an executor which runs the periodic tasks.
+   *
+   * @param name         the name of the executor, also used as the prefix of the thread names
+   * @param corePoolSize the number of threads to keep in the pool
+   * @return the executor
+   */
+  ScheduledExecutorService newScheduledExecutor(String name, int corePoolSize);
+
+  /**
+   * @return the executors created by this provider, keyed by their names
+   */
+  Map<String, ExecutorService> getExecutors();
+}
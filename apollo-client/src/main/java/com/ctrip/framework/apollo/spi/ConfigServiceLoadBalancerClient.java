@@ -19,6 +19,8 @@ package com.ctrip.framework.apollo.spi;
 import com.ctrip.framework.apollo.core.dto.ServiceDTO;
 import com.ctrip.framework.apollo.core.spi.Ordered;
 import com.ctrip.framework.apollo.internals.ConfigServiceLocator;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public interface ConfigServiceLoadBalancerClient extends Ordered {
@@ -31,4 +33,38 @@ public interface ConfigServiceLoadBalancerClient extends Ordered {
    * @throws IllegalArgumentException if arg is null of empty
    */
   ServiceDTO chooseOneFrom(List<ServiceDTO> configServices);
+
+  /**
+   * order the config services for a request which falls back to the next one on failure
+   *
+   * @param configServices the return of {@link ConfigServiceLocator#getConfigServices()}
+   * @return a new mutable list with the config services in the order they should be tried
+   * @since 2.6.0
+   */
+  default List<ServiceDTO> prioritize(List<ServiceDTO> configServices) {
+    List<ServiceDTO> services = new ArrayList<>(configServices);
+    Collections.shuffle(services);
+    return services;
+  }
+
+  /**
+   * called when a config service responds to a request
+   *
+   * @param configService the config service called
+   * @param latencyInMillis the latency of the request, negative if it should not be taken into
+   *                        account, e.g. the long polling requests which are held by the server
+   * @since 2.6.0
+   */
+  default void onSuccess(ServiceDTO configService, long latencyInMillis) {
+  }
+
+  /**
+   * called when a request to a config service fails
+   *
+   * @param configService the config service called
+   * @param ex the failure
+   * @since 2.6.0
+   */
+  default void onFailure(ServiceDTO configService, Throwable ex) {
+  }
 }
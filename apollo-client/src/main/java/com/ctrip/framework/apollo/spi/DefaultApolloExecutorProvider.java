@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.spi;
+
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import org.slf4j.Logger;
+
+/**
+ * default service provider of {@link ApolloExecutorProvider}
+ * <p>
+ * The cached executors run on virtual threads when they are enabled and the runtime supports them
+ * (java 21+), otherwise they run on the daemon platform threads of {@link ApolloThreadFactory}.
+ * The scheduled executors always run on platform threads.
+ *
+ * @since 2.6.0
+ */
+public class DefaultApolloExecutorProvider implements ApolloExecutorProvider {
+
+  private static final Logger logger = DeferredLoggerFactory.getLogger(
+      DefaultApolloExecutorProvider.class);
+  private static final int ORDER = 0;
+
+  private final Map<String, ExecutorService> executors = new ConcurrentHashMap<>();
+
+  @Override
+  public ExecutorService newCachedExecutor(String name) {
+    ExecutorService executor = null;
+    if (isVirtualThreadsEnabled()) {
+      executor = VirtualThreads.newThreadPerTaskExecutor(name);
+    }
+    if (executor == null) {
+      executor = Executors.newCachedThreadPool(ApolloThreadFactory.create(name, true));
+    }
+    executors.put(name, executor);
+    return executor;
+  }
+
+  @Override
+  public ScheduledExecutorService newScheduledExecutor(String name, int corePoolSize) {
+    ScheduledExecutorService executor = Executors.newScheduledThreadPool(corePoolSize,
+        ApolloThreadFactory.create(name, true));
+    executors.put(name, executor);
+    return executor;
+  }
+
+  @Override
+  public Map<String, ExecutorService> getExecutors() {
+    return Collections.unmodifiableMap(executors);
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER;
+  }
+
+  protected boolean isVirtualThreadsEnabled() {
+    try {
+      return ApolloInjector.getInstance(ConfigUtil.class).isVirtualThreadsEnabled();
+    } catch (Throwable ex) {
+      logger.warn("Failed to check whether virtual threads are enabled, use platform threads", ex);
+      return false;
+    }
+  }
+
+  /**
+   * Access the virtual thread api reflectively so that the client still runs on java 8.
+   */
+  static final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+      Method ofVirtual = null;
+      Method builderName = null;
+      Method builderFactory = null;
+      Method newThreadPerTaskExecutor = null;
+      try {
+        Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        ofVirtual = Thread.class.getMethod("ofVirtual");
+        builderName = builderClass.getMethod("name", String.class, long.class);
+        builderFactory = builderClass.getMethod("factory");
+        newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor",
+            ThreadFactory.class);
+      } catch (Throwable ex) {
+        // virtual threads are not supported by the runtime
+        ofVirtual = null;
+      }
+      OF_VIRTUAL = ofVirtual;
+      BUILDER_NAME = builderName;
+      BUILDER_FACTORY = builderFactory;
+      NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+      return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @return the executor running each task on a new virtual thread, or null if not supported
+     */
+    static ExecutorService newThreadPerTaskExecutor(String name) {
+      if (!isSupported()) {
+        logger.warn("Virtual threads are not supported by the current runtime, "
+            + "use platform threads for {}", name);
+        return null;
+      }
+      try {
+        Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), "Apollo-" + name + "-", 1L);
+        ThreadFactory threadFactory = (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+      } catch (Throwable ex) {
+        logger.warn("Failed to create virtual thread executor for {}, use platform threads", name,
+            ex);
+        return null;
+      }
+    }
+  }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.spi;
+
+import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ConfigServiceLoadBalancerClient} which spreads the requests by the health of each config
+ * service.
+ * <ul>
+ *   <li>the latency and error rate of each config service are tracked as exponentially weighted
+ *   moving averages, and a config service is chosen with a probability proportional to
+ *   {@code (1 - errorRate) / latency}, so the slow ones still receive a little traffic to refresh
+ *   their statistics</li>
+ *   <li>after {@value #FAILURE_THRESHOLD} consecutive failures the circuit of a config service is
+ *   opened and it is skipped for a while, the open time doubles on each further failure up to
+ *   {@value #MAX_OPEN_MILLIS} ms</li>
+ *   <li>once the open time elapses, a single request is let through to probe the config service,
+ *   a success closes the circuit while a failure opens it again</li>
+ * </ul>
+ * Responses with a status code below 500 are counted as successes as the config service is
+ * healthy enough to answer.
+ *
+ * @since 2.6.0
+ */
+public class HealthAwareConfigServiceLoadBalancerClient implements ConfigServiceLoadBalancerClient {
+
+  private static final int ORDER = 100;
+  static final double EWMA_ALPHA = 0.3;
+  static final int FAILURE_THRESHOLD = 3;
+  static final long MIN_OPEN_MILLIS = 1000;
+  static final long MAX_OPEN_MILLIS = 60000;
+  private static final double MAX_ERROR_RATE = 0.95;
+  private static final double MIN_LATENCY_MILLIS = 1;
+
+  private final ConcurrentMap<String, ServiceHealth> m_serviceHealths = new ConcurrentHashMap<>();
+  private final Ticker m_ticker;
+
+  public HealthAwareConfigServiceLoadBalancerClient() {
+    this(Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  HealthAwareConfigServiceLoadBalancerClient(Ticker ticker) {
+    m_ticker = ticker;
+  }
+
+  @Override
+  public ServiceDTO chooseOneFrom(List<ServiceDTO> configServices) {
+    checkArgument(configServices);
+    retainServiceHealths(configServices);
+    if (configServices.size() == 1) {
+      return configServices.get(0);
+    }
+    long now = currentTimeMillis();
+    List<Candidate> available = new ArrayList<>(configServices.size());
+    Candidate earliestToClose = null;
+    for (ServiceDTO configService : configServices) {
+      ServiceHealth health = getServiceHealth(configService);
+      if (health.tryProbe(now)) {
+        return configService;
+      }
+      Candidate candidate = new Candidate(configService, health);
+      if (health.isAvailable()) {
+        available.add(candidate);
+      } else if (earliestToClose == null || candidate.openUntil < earliestToClose.openUntil) {
+        earliestToClose = candidate;
+      }
+    }
+    if (available.isEmpty()) {
+      return earliestToClose.configService;
+    }
+    assignWeights(available);
+    return available.get(pickWeighted(available)).configService;
+  }
+
+  @Override
+  public List<ServiceDTO> prioritize(List<ServiceDTO> configServices) {
+    checkArgument(configServices);
+    retainServiceHealths(configServices);
+    List<Candidate> available = new ArrayList<>(configServices.size());
+    List<Candidate> open = new ArrayList<>();
+    for (ServiceDTO configService : configServices) {
+      ServiceHealth health = getServiceHealth(configService);
+      Candidate candidate = new Candidate(configService, health);
+      if (health.isAvailable()) {
+        available.add(candidate);
+      } else {
+        open.add(candidate);
+      }
+    }
+    List<ServiceDTO> prioritized = new ArrayList<>(configServices.size());
+    assignWeights(available);
+    while (!available.isEmpty()) {
+      prioritized.add(available.remove(pickWeighted(available)).configService);
+    }
+    Collections.sort(open, Comparator.comparingLong(candidate -> candidate.openUntil));
+    for (Candidate candidate : open) {
+      prioritized.add(candidate.configService);
+    }
+    return prioritized;
+  }
+
+  @Override
+  public void onSuccess(ServiceDTO configService, long latencyInMillis) {
+    getServiceHealth(configService).onSuccess(latencyInMillis);
+  }
+
+  @Override
+  public void onFailure(ServiceDTO configService, Throwable ex) {
+    if (ex instanceof ApolloConfigStatusCodeException
+        && ((ApolloConfigStatusCodeException) ex).getStatusCode() < 500) {
+      getServiceHealth(configService).onSuccess(-1);
+      return;
+    }
+    getServiceHealth(configService).onFailure(currentTimeMillis());
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER;
+  }
+
+  /**
+   * drops the statistics of the config services which are no longer returned by the meta server
+   */
+  private void retainServiceHealths(List<ServiceDTO> configServices) {
+    Set<String> homepageUrls = Sets.newHashSetWithExpectedSize(configServices.size());
+    for (ServiceDTO configService : configServices) {
+      homepageUrls.add(configService.getHomepageUrl());
+    }
+    m_serviceHealths.keySet().retainAll(homepageUrls);
+  }
+
+  @VisibleForTesting
+  ServiceHealth getServiceHealth(ServiceDTO configService) {
+    ServiceHealth health = m_serviceHealths.get(configService.getHomepageUrl());
+    if (health == null) {
+      health = m_serviceHealths.computeIfAbsent(configService.getHomepageUrl(),
+          key -> new ServiceHealth());
+    }
+    return health;
+  }
+
+  private void checkArgument(List<ServiceDTO> configServices) {
+    if (null == configServices) {
+      throw new IllegalArgumentException("arg is null");
+    }
+    if (configServices.isEmpty()) {
+      throw new IllegalArgumentException("arg is empty");
+    }
+  }
+
+  private long currentTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(m_ticker.read());
+  }
+
+  /**
+   * the config services without any latency sample are treated as the fastest known one, so that
+   * they get enough traffic to be measured
+   */
+  private static void assignWeights(List<Candidate> candidates) {
+    double fastestLatency = Double.MAX_VALUE;
+    for (Candidate candidate : candidates) {
+      if (candidate.latency >= 0) {
+        fastestLatency = Math.min(fastestLatency, candidate.latency);
+      }
+    }
+    if (fastestLatency == Double.MAX_VALUE) {
+      fastestLatency = MIN_LATENCY_MILLIS;
+    }
+    for (Candidate candidate : candidates) {
+      double latency = candidate.latency >= 0 ? candidate.latency : fastestLatency;
+      candidate.weight = (1 - Math.min(candidate.errorRate, MAX_ERROR_RATE))
+          / Math.max(latency, MIN_LATENCY_MILLIS);
+    }
+  }
+
+  private static int pickWeighted(List<Candidate> candidates) {
+    double totalWeight = 0;
+    for (Candidate candidate : candidates) {
+      totalWeight += candidate.weight;
+    }
+    double random = ThreadLocalRandom.current().nextDouble() * totalWeight;
+    for (int i = 0; i < candidates.size(); i++) {
+      random -= candidates.get(i).weight;
+      if (random < 0) {
+        return i;
+      }
+    }
+    return candidates.size() - 1;
+  }
+
+  private static class Candidate {
+
+    private final ServiceDTO configService;
+    private final double latency;
+    private final double errorRate;
+    private final long openUntil;
+    private double weight;
+
+    private Candidate(ServiceDTO configService, ServiceHealth health) {
+      this.configService = configService;
+      synchronized (health) {
+        this.latency = health.latency;
+        this.errorRate = health.errorRate;
+        this.openUntil = health.openUntil;
+      }
+    }
+  }
+
+  @VisibleForTesting
+  static class ServiceHealth {
+
+    // negative until the first latency sample
+    private double latency = -1;
+    private double errorRate;
+    private int consecutiveFailures;
+    private long openUntil;
+    private long openMillis;
+
+    synchronized boolean isAvailable() {
+      return consecutiveFailures < FAILURE_THRESHOLD;
+    }
+
+    /**
+     * lets a single request through once the circuit has been open long enough
+     */
+    synchronized boolean tryProbe(long now) {
+      if (isAvailable() || now < openUntil) {
+        return false;
+      }
+      // keep the other requests away until the probe completes
+      openUntil = now + openMillis;
+      return true;
+    }
+
+    synchronized void onSuccess(long latencyInMillis) {
+      if (latencyInMillis >= 0) {
+        latency = latency < 0 ? latencyInMillis : ewma(latency, latencyInMillis);
+      }
+      errorRate = ewma(errorRate, 0);
+      consecutiveFailures = 0;
+      openMillis = 0;
+      openUntil = 0;
+    }
+
+    synchronized void onFailure(long now) {
+      errorRate = ewma(errorRate, 1);
+      consecutiveFailures++;
+      if (consecutiveFailures >= FAILURE_THRESHOLD) {
+        openMillis = openMillis == 0 ? MIN_OPEN_MILLIS : Math.min(openMillis * 2, MAX_OPEN_MILLIS);
+        openUntil = now + openMillis;
+      }
+    }
+
+    synchronized double getLatency() {
+      return latency;
+    }
+
+    synchronized double getErrorRate() {
+      return errorRate;
+    }
+
+    private static double ewma(double average, double sample) {
+      return average + EWMA_ALPHA * (sample - average);
+    }
+  }
+}
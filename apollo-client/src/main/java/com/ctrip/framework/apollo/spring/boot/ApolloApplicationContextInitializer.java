@@ -25,6 +25,7 @@ import com.ctrip.framework.apollo.core.utils.DeferredLogger;
 import com.ctrip.framework.apollo.spring.config.CachedCompositePropertySource;
 import com.ctrip.framework.apollo.spring.config.ConfigPropertySourceFactory;
 import com.ctrip.framework.apollo.spring.config.PropertySourcesConstants;
+import com.ctrip.framework.apollo.spring.util.ConfigPrefetchUtil;
 import com.ctrip.framework.apollo.spring.util.PropertySourcesUtil;
 import com.ctrip.framework.apollo.spring.util.SpringInjector;
 import com.ctrip.framework.apollo.util.ConfigUtil;
@@ -98,7 +99,17 @@ public class ApolloApplicationContextInitializer implements
       ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_ENABLED,
       ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EXTERNAL_EXPORT_PERIOD,
       ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_JMX_ENABLED,
-      ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EXCEPTION_QUEUE_SIZE,};
+      ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EXCEPTION_QUEUE_SIZE,
+      ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EVENT_BUFFER_SIZE,
+      ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EVENT_BACKPRESSURE_POLICY,
+      ApolloClientSystemConsts.APOLLO_LONG_POLLING_ENGINE,
+      ApolloClientSystemConsts.APOLLO_CONFIG_PREFETCH_PARALLELISM,
+      ApolloClientSystemConsts.APOLLO_CACHE_KUBERNETES_WRITE_DEBOUNCE,
+      ApolloClientSystemConsts.APOLLO_CLIENT_VIRTUAL_THREADS_ENABLED,
+      ApolloClientSystemConsts.APOLLO_CONFIG_SERVICE_HEALTH_AWARE_LOAD_BALANCING_ENABLED,
+      ApolloClientSystemConsts.APOLLO_CONFIG_LISTENER_PARALLELISM,
+      ApolloClientSystemConsts.APOLLO_CONFIG_LISTENER_TIMEOUT,
+      ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_COALESCING_WINDOW,};
 
   private final ConfigPropertySourceFactory configPropertySourceFactory = SpringInjector
       .getInstance(ConfigPropertySourceFactory.class);
@@ -147,6 +158,7 @@ public class ApolloApplicationContextInitializer implements
     } else {
       composite = new CompositePropertySource(PropertySourcesConstants.APOLLO_BOOTSTRAP_PROPERTY_SOURCE_NAME);
     }
+    ConfigPrefetchUtil.prefetch(configUtil.getAppId(), namespaceList);
     for (String namespace : namespaceList) {
       Config config = ConfigService.getConfig(namespace);
 
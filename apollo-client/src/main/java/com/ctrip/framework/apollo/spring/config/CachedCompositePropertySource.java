@@ -18,8 +18,17 @@ package com.ctrip.framework.apollo.spring.config;
 
 import com.ctrip.framework.apollo.ConfigChangeListener;
 import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import org.springframework.core.env.CompositePropertySource;
+import org.springframework.core.env.EnumerablePropertySource;
 import org.springframework.core.env.PropertySource;
+import org.springframework.util.StringUtils;
 
 /**
  * @author Shawyeok (shawyeok@outlook.com)
@@ -27,24 +36,39 @@ import org.springframework.core.env.PropertySource;
 public class CachedCompositePropertySource extends CompositePropertySource implements
     ConfigChangeListener {
 
-  private volatile String[] names;
+  private volatile PropertyNames names;
+  private volatile boolean stale;
 
   public CachedCompositePropertySource(String name) {
     super(name);
   }
 
+  /**
+   * Once any source has changed, the names of each source are enumerated again, which is cheap for
+   * the unchanged {@link ConfigPropertySource}s as they reuse their cached array, and the names are
+   * only merged again if any source returns different names.
+   */
   @Override
   public String[] getPropertyNames() {
-    String[] propertyNames = this.names;
-    if (propertyNames == null) {
-      this.names = propertyNames = super.getPropertyNames();
+    PropertyNames propertyNames = this.names;
+    if (propertyNames != null && !stale) {
+      return propertyNames.merged;
     }
-    return propertyNames;
+    // reset before enumerating, so that the changes during enumeration mark the names stale again
+    stale = false;
+    List<String[]> sourceNames = enumerateSourceNames(getPropertySources());
+    if (propertyNames != null && propertyNames.isSameAs(sourceNames)) {
+      return propertyNames.merged;
+    }
+    propertyNames = new PropertyNames(sourceNames, merge(sourceNames));
+    this.names = propertyNames;
+    return propertyNames.merged;
   }
 
   @Override
   public void addPropertySource(PropertySource<?> propertySource) {
     super.addPropertySource(propertySource);
+    this.names = null;
     if (propertySource instanceof ConfigPropertySource) {
       ((ConfigPropertySource) propertySource).addChangeListener(this);
     }
@@ -53,6 +77,7 @@ public class CachedCompositePropertySource extends CompositePropertySource imple
   @Override
   public void addFirstPropertySource(PropertySource<?> propertySource) {
     super.addFirstPropertySource(propertySource);
+    this.names = null;
     if (propertySource instanceof ConfigPropertySource) {
       ((ConfigPropertySource) propertySource).addChangeListener(this);
     }
@@ -60,7 +85,55 @@ public class CachedCompositePropertySource extends CompositePropertySource imple
 
   @Override
   public void onChange(ConfigChangeEvent changeEvent) {
-    // clear property names cache if any sources has changed
-    this.names = null;
+    // only mark the names stale, the unchanged sources are not enumerated again
+    this.stale = true;
+  }
+
+  private static List<String[]> enumerateSourceNames(Collection<PropertySource<?>> sources) {
+    List<String[]> sourceNames = new ArrayList<>(sources.size());
+    for (PropertySource<?> propertySource : sources) {
+      if (!(propertySource instanceof EnumerablePropertySource)) {
+        throw new IllegalStateException(
+            "Failed to enumerate property names due to non-enumerable property source: "
+                + propertySource);
+      }
+      sourceNames.add(((EnumerablePropertySource<?>) propertySource).getPropertyNames());
+    }
+    return sourceNames;
+  }
+
+  private static String[] merge(List<String[]> sourceNames) {
+    int total = 0;
+    for (String[] names : sourceNames) {
+      total += names.length;
+    }
+    Set<String> allNames = new LinkedHashSet<>(total);
+    for (String[] names : sourceNames) {
+      Collections.addAll(allNames, names);
+    }
+    return StringUtils.toStringArray(allNames);
+  }
+
+  private static class PropertyNames {
+
+    private final List<String[]> sourceNames;
+    private final String[] merged;
+
+    PropertyNames(List<String[]> sourceNames, String[] merged) {
+      this.sourceNames = sourceNames;
+      this.merged = merged;
+    }
+
+    boolean isSameAs(List<String[]> otherSourceNames) {
+      if (sourceNames.size() != otherSourceNames.size()) {
+        return false;
+      }
+      for (int i = 0; i < sourceNames.size(); i++) {
+        if (!Arrays.equals(sourceNames.get(i), otherSourceNames.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
   }
 }
@@ -17,6 +17,8 @@
 package com.ctrip.framework.apollo.spring.config;
 
 import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.internals.DefaultConfig;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 import org.springframework.core.env.EnumerablePropertySource;
@@ -31,6 +33,8 @@ import com.ctrip.framework.apollo.Config;
 public class ConfigPropertySource extends EnumerablePropertySource<Config> {
   private static final String[] EMPTY_ARRAY = new String[0];
 
+  private volatile PropertyNames propertyNames;
+
   ConfigPropertySource(String name, Config source) {
     super(name, source);
   }
@@ -40,13 +44,25 @@ public class ConfigPropertySource extends EnumerablePropertySource<Config> {
     return this.source.getProperty(name, null) != null;
   }
 
+  /**
+   * The array is only built again when the config returns different property names. The sets
+   * returned by {@link DefaultConfig} are never modified, so the same set means the same names,
+   * the sets of the other configs might be modified in place, so they are compared with a copy.
+   * <p>
+   * The cached array is returned as is, the same way as
+   * {@link CachedCompositePropertySource#getPropertyNames()}, callers must not modify it.
+   */
   @Override
   public String[] getPropertyNames() {
-    Set<String> propertyNames = this.source.getPropertyNames();
-    if (propertyNames.isEmpty()) {
-      return EMPTY_ARRAY;
+    Set<String> names = this.source.getPropertyNames();
+    PropertyNames cached = this.propertyNames;
+    if (cached == null || !cached.isSameAs(names)) {
+      String[] array = names.isEmpty() ? EMPTY_ARRAY : names.toArray(new String[names.size()]);
+      Set<String> snapshot = this.source instanceof DefaultConfig ? names : new LinkedHashSet<>(names);
+      cached = new PropertyNames(snapshot, array);
+      this.propertyNames = cached;
     }
-    return propertyNames.toArray(new String[propertyNames.size()]);
+    return cached.array;
   }
 
   @Override
@@ -57,4 +73,19 @@ public class ConfigPropertySource extends EnumerablePropertySource<Config> {
   public void addChangeListener(ConfigChangeListener listener) {
     this.source.addChangeListener(listener);
   }
+
+  private static class PropertyNames {
+
+    private final Set<String> names;
+    private final String[] array;
+
+    PropertyNames(Set<String> names, String[] array) {
+      this.names = names;
+      this.array = array;
+    }
+
+    boolean isSameAs(Set<String> otherNames) {
+      return names == otherNames || names.equals(otherNames);
+    }
+  }
 }
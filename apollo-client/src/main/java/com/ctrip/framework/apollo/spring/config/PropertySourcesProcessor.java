@@ -22,6 +22,7 @@ import com.ctrip.framework.apollo.ConfigService;
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.spring.events.ApolloConfigChangeEvent;
+import com.ctrip.framework.apollo.spring.util.ConfigPrefetchUtil;
 import com.ctrip.framework.apollo.spring.util.PropertySourcesUtil;
 import com.ctrip.framework.apollo.spring.util.SpringInjector;
 import com.ctrip.framework.apollo.util.ConfigUtil;
@@ -104,6 +105,14 @@ public class PropertySourcesProcessor implements BeanFactoryPostProcessor, Envir
 
     //sort by order asc
     ImmutableSortedSet<Integer> orders = ImmutableSortedSet.copyOf(APP_NAMESPACE_NAMES.keySet());
+
+    // fetch all the namespaces concurrently, the property sources are still added in order below
+    Multimap<String, String> appNamespaces = LinkedHashMultimap.create();
+    for (int order : orders) {
+      appNamespaces.putAll(APP_NAMESPACE_NAMES.get(order));
+    }
+    ConfigPrefetchUtil.prefetch(appNamespaces);
+
     Iterator<Integer> iterator = orders.iterator();
 
     while (iterator.hasNext()) {
@@ -20,7 +20,6 @@ import com.ctrip.framework.apollo.ConfigChangeListener;
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
 import com.ctrip.framework.apollo.model.ConfigChangeEvent;
-import com.ctrip.framework.apollo.spring.annotation.ApolloJsonValue;
 import com.ctrip.framework.apollo.spring.events.ApolloConfigChangeEvent;
 import com.ctrip.framework.apollo.spring.util.SpringInjector;
 import com.ctrip.framework.apollo.util.ConfigUtil;
@@ -37,11 +36,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.TypeConverter;
+import org.springframework.beans.TypeConverterSupport;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.util.CollectionUtils;
 
 /**
@@ -56,6 +57,7 @@ public class AutoUpdateConfigChangeListener implements ConfigChangeListener,
   private final boolean typeConverterHasConvertIfNecessaryWithFieldParameter;
   private ConfigurableBeanFactory beanFactory;
   private TypeConverter typeConverter;
+  private boolean typeConverterSupportsTypeDescriptor;
   private final PlaceholderHelper placeholderHelper;
   private final SpringValueRegistry springValueRegistry;
   private final Map<String, Gson> datePatternGsonMap;
@@ -113,13 +115,14 @@ public class AutoUpdateConfigChangeListener implements ConfigChangeListener,
         .resolvePropertyValue(beanFactory, springValue.getBeanName(), springValue.getPlaceholder());
 
     if (springValue.isJson()) {
-      ApolloJsonValue apolloJsonValue = springValue.isField() ?
-              springValue.getField().getAnnotation(ApolloJsonValue.class) :
-              springValue.getMethodParameter().getMethodAnnotation(ApolloJsonValue.class);
-      String datePattern = apolloJsonValue != null ? apolloJsonValue.datePattern() : StringUtils.EMPTY;
-      value = parseJsonValue((String) value, springValue.getGenericType(), datePattern);
+      value = parseJsonValue((String) value, springValue.getGenericType(),
+          springValue.getJsonDatePattern());
     } else {
-      if (springValue.isField()) {
+      if (typeConverterSupportsTypeDescriptor) {
+        // the type descriptor is resolved once on registration instead of on every conversion
+        value = this.typeConverter.convertIfNecessary(value, springValue.getTargetType(),
+            springValue.getTypeDescriptor());
+      } else if (springValue.isField()) {
         // org.springframework.beans.TypeConverter#convertIfNecessary(java.lang.Object, java.lang.Class, java.lang.reflect.Field) is available from Spring 3.2.0+
         if (typeConverterHasConvertIfNecessaryWithFieldParameter) {
           value = this.typeConverter
@@ -162,11 +165,30 @@ public class AutoUpdateConfigChangeListener implements ConfigChangeListener,
     return true;
   }
 
+  /**
+   * org.springframework.beans.TypeConverterSupport#convertIfNecessary(java.lang.Object, java.lang.Class, org.springframework.core.convert.TypeDescriptor) is available from Spring 5.1.0+
+   */
+  private boolean testTypeConverterSupportsTypeDescriptor(TypeConverter typeConverter) {
+    if (!(typeConverter instanceof TypeConverterSupport)) {
+      return false;
+    }
+    try {
+      TypeConverterSupport.class.getMethod("convertIfNecessary", Object.class, Class.class,
+          TypeDescriptor.class);
+    } catch (Throwable ex) {
+      return false;
+    }
+
+    return true;
+  }
+
   @Override
   public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
     //it is safe enough to cast as all known application context is derived from ConfigurableApplicationContext
     this.beanFactory = ((ConfigurableApplicationContext) applicationContext).getBeanFactory();
     this.typeConverter = this.beanFactory.getTypeConverter();
+    this.typeConverterSupportsTypeDescriptor = testTypeConverterSupportsTypeDescriptor(
+        this.typeConverter);
   }
 
   @Override
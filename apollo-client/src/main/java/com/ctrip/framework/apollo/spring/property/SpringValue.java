@@ -16,12 +16,19 @@
  */
 package com.ctrip.framework.apollo.spring.property;
 
+import com.ctrip.framework.apollo.core.utils.StringUtils;
+import com.ctrip.framework.apollo.spring.annotation.ApolloJsonValue;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import org.springframework.core.MethodParameter;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.util.ClassUtils;
 
 /**
  * Spring @Value method info
@@ -31,6 +38,9 @@ import org.springframework.core.MethodParameter;
  */
 public class SpringValue {
 
+  private static final MethodType INJECTOR_TYPE = MethodType
+      .methodType(void.class, Object.class, Object.class);
+
   private MethodParameter methodParameter;
   private Field field;
   private WeakReference<Object> beanRef;
@@ -40,6 +50,10 @@ public class SpringValue {
   private Class<?> targetType;
   private Type genericType;
   private boolean isJson;
+  private String jsonDatePattern;
+  private TypeDescriptor typeDescriptor;
+  // (bean, value) -> void, compiled on registration, null if the member is not accessible that way
+  private volatile MethodHandle injector;
 
   public SpringValue(String key, String placeholder, Object bean, String beanName, Field field, boolean isJson) {
     this.beanRef = new WeakReference<>(bean);
@@ -51,6 +65,9 @@ public class SpringValue {
     this.isJson = isJson;
     if(isJson){
       this.genericType = field.getGenericType();
+      this.jsonDatePattern = resolveJsonDatePattern(field.getAnnotation(ApolloJsonValue.class));
+    } else {
+      this.typeDescriptor = new TypeDescriptor(field);
     }
   }
 
@@ -65,37 +82,110 @@ public class SpringValue {
     this.isJson = isJson;
     if(isJson){
       this.genericType = method.getGenericParameterTypes()[0];
+      this.jsonDatePattern = resolveJsonDatePattern(
+          methodParameter.getMethodAnnotation(ApolloJsonValue.class));
+    } else {
+      this.typeDescriptor = new TypeDescriptor(methodParameter);
     }
   }
 
-  public void update(Object newVal) throws IllegalAccessException, InvocationTargetException {
-    if (isField()) {
-      injectField(newVal);
-    } else {
-      injectMethod(newVal);
+  /**
+   * Compile the injector used by {@link #update(Object)}, called when the value is registered for
+   * auto update. The values not registered, or whose member can't be accessed by a method handle,
+   * are injected by reflection.
+   */
+  public void compileInjector() {
+    if (injector == null) {
+      injector = isField() ? compileFieldInjector(field)
+          : compileMethodInjector(methodParameter.getMethod());
     }
   }
 
-  private void injectField(Object newVal) throws IllegalAccessException {
+  public void update(Object newVal) throws IllegalAccessException, InvocationTargetException {
     Object bean = beanRef.get();
     if (bean == null) {
       return;
     }
+    MethodHandle injector = this.injector;
+    if (injector != null && isAssignable(newVal)) {
+      injectByHandle(injector, bean, newVal);
+    } else if (isField()) {
+      injectField(bean, newVal);
+    } else {
+      injectMethod(bean, newVal);
+    }
+  }
+
+  /**
+   * The handle is adapted to (Object, Object) by {@link MethodHandle#asType}, which would fail with
+   * a {@link ClassCastException}, so the values not exactly of the target type are injected by
+   * reflection, which converts them or fails with an {@link IllegalArgumentException} as before.
+   */
+  private boolean isAssignable(Object newVal) {
+    if (newVal == null) {
+      return !targetType.isPrimitive();
+    }
+    return ClassUtils.resolvePrimitiveIfNecessary(targetType).isInstance(newVal);
+  }
+
+  private void injectByHandle(MethodHandle injector, Object bean, Object newVal)
+      throws InvocationTargetException {
+    try {
+      injector.invokeExact(bean, newVal);
+    } catch (ClassCastException ex) {
+      if (isField()) {
+        // the same exception Field.set fails with
+        throw new IllegalArgumentException(ex.getMessage(), ex);
+      }
+      throw new InvocationTargetException(ex);
+    } catch (RuntimeException | Error ex) {
+      if (isField()) {
+        throw ex;
+      }
+      // thrown by the setter, wrapped the same way as Method.invoke
+      throw new InvocationTargetException(ex);
+    } catch (Throwable ex) {
+      throw new InvocationTargetException(ex);
+    }
+  }
+
+  private void injectField(Object bean, Object newVal) throws IllegalAccessException {
     boolean accessible = field.isAccessible();
     field.setAccessible(true);
     field.set(bean, newVal);
     field.setAccessible(accessible);
   }
 
-  private void injectMethod(Object newVal)
+  private void injectMethod(Object bean, Object newVal)
       throws InvocationTargetException, IllegalAccessException {
-    Object bean = beanRef.get();
-    if (bean == null) {
-      return;
-    }
     methodParameter.getMethod().invoke(bean, newVal);
   }
 
+  private static MethodHandle compileFieldInjector(Field field) {
+    try {
+      // make a private copy accessible, so the field shared with others stays untouched
+      Field copy = field.getDeclaringClass().getDeclaredField(field.getName());
+      copy.setAccessible(true);
+      return MethodHandles.lookup().unreflectSetter(copy).asType(INJECTOR_TYPE);
+    } catch (Throwable ex) {
+      // e.g. static or final fields, fall back to reflection
+      return null;
+    }
+  }
+
+  private static MethodHandle compileMethodInjector(Method method) {
+    try {
+      return MethodHandles.publicLookup().unreflect(method).asType(INJECTOR_TYPE);
+    } catch (Throwable ex) {
+      // e.g. static or non-public methods, fall back to reflection
+      return null;
+    }
+  }
+
+  private static String resolveJsonDatePattern(ApolloJsonValue apolloJsonValue) {
+    return apolloJsonValue != null ? apolloJsonValue.datePattern() : StringUtils.EMPTY;
+  }
+
   public String getBeanName() {
     return beanName;
   }
@@ -128,6 +218,20 @@ public class SpringValue {
     return isJson;
   }
 
+  /**
+   * @return the date pattern of the {@link ApolloJsonValue}, only available for json values
+   */
+  public String getJsonDatePattern() {
+    return jsonDatePattern;
+  }
+
+  /**
+   * @return the type descriptor of the injection target, only available for non-json values
+   */
+  public TypeDescriptor getTypeDescriptor() {
+    return typeDescriptor;
+  }
+
   boolean isTargetBeanValid() {
     return beanRef.get() != null;
   }
@@ -16,7 +16,7 @@
  */
 package com.ctrip.framework.apollo.spring.property;
 
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.internals.ApolloExecutors;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
@@ -25,7 +25,6 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -50,6 +49,7 @@ public class SpringValueRegistry {
       }
     }
 
+    springValue.compileInjector();
     registry.get(beanFactory).put(key, springValue);
 
     // lazy initialize
@@ -67,7 +67,7 @@ public class SpringValueRegistry {
   }
 
   private void initialize() {
-    Executors.newSingleThreadScheduledExecutor(ApolloThreadFactory.create("SpringValueRegistry", true)).scheduleAtFixedRate(
+    ApolloExecutors.getProvider().newScheduledExecutor("SpringValueRegistry", 1).scheduleAtFixedRate(
         new Runnable() {
           @Override
           public void run() {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.spring.util;
+
+import com.ctrip.framework.apollo.Config;
+import com.ctrip.framework.apollo.ConfigService;
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.internals.ApolloExecutors;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fetch the configs of the namespaces concurrently before the property sources are built, so the
+ * startup latency is no longer the sum of the fetch time of each namespace.
+ * <p>
+ * The configs are cached by {@link ConfigService}, the property sources are still built one by one
+ * in the declared order and simply get the prefetched configs.
+ */
+public class ConfigPrefetchUtil {
+
+  private static final Logger logger = LoggerFactory.getLogger(ConfigPrefetchUtil.class);
+
+  /**
+   * Prefetch the configs of the namespaces of the app.
+   */
+  public static void prefetch(String appId, Collection<String> namespaces) {
+    Multimap<String, String> appNamespaces = LinkedHashMultimap.create();
+    appNamespaces.putAll(appId, namespaces);
+    prefetch(appNamespaces);
+  }
+
+  /**
+   * Prefetch the configs of the namespaces, at most
+   * {@link ConfigUtil#getConfigPrefetchParallelism()} namespaces are fetched at the same time.
+   *
+   * @param appNamespaces app id -> namespaces
+   */
+  public static void prefetch(Multimap<String, String> appNamespaces) {
+    int parallelism = Math.min(
+        ApolloInjector.getInstance(ConfigUtil.class).getConfigPrefetchParallelism(),
+        appNamespaces.size());
+    if (parallelism <= 1) {
+      // nothing to gain, the namespaces will be fetched when building the property sources
+      return;
+    }
+
+    // the executor is shared, the parallelism of this prefetch is bounded by the permits
+    Semaphore permits = new Semaphore(parallelism);
+    try {
+      List<Future<Config>> futures = new ArrayList<>(appNamespaces.size());
+      for (Map.Entry<String, String> entry : appNamespaces.entries()) {
+        String appId = entry.getKey();
+        String namespace = entry.getValue();
+        permits.acquire();
+        futures.add(ExecutorHolder.EXECUTOR_SERVICE.submit(() -> {
+          try {
+            return ConfigService.getConfig(appId, namespace);
+          } finally {
+            permits.release();
+          }
+        }));
+      }
+      for (Future<Config> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException ex) {
+          // the namespace will be fetched again when building the property sources
+          logger.warn("Prefetch config failed, will retry when building the property sources",
+              ex.getCause());
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class ExecutorHolder {
+    private static final ExecutorService EXECUTOR_SERVICE = ApolloExecutors.getProvider()
+        .newCachedExecutor("ConfigPrefetch");
+  }
+}
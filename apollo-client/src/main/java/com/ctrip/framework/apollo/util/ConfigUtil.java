@@ -24,6 +24,8 @@ import com.ctrip.framework.apollo.core.MetaDomainConsts;
 import com.ctrip.framework.apollo.core.enums.Env;
 import com.ctrip.framework.apollo.core.enums.EnvUtils;
 import com.ctrip.framework.apollo.core.utils.DeprecatedPropertyNotifyUtil;
+import com.ctrip.framework.apollo.enums.LongPollingEngine;
+import com.ctrip.framework.apollo.monitor.internal.enums.MonitorEventBackpressurePolicy;
 import com.ctrip.framework.foundation.Foundation;
 import com.google.common.base.Strings;
 import com.google.common.util.concurrent.RateLimiter;
@@ -65,6 +67,7 @@ public class ConfigUtil {
   private long configCacheExpireTime = 1;//1 minute
   private TimeUnit configCacheExpireTimeUnit = TimeUnit.MINUTES;//1 minute
   private long longPollingInitialDelayInMills = 2000;//2 seconds
+  private LongPollingEngine longPollingEngine = LongPollingEngine.BLOCKING;
   private boolean autoUpdateInjectedSpringProperties = true;
   private final RateLimiter warnLogRateLimiter;
   private boolean propertiesOrdered = false;
@@ -77,6 +80,16 @@ public class ConfigUtil {
   private String monitorExternalType = "";
   private long monitorExternalExportPeriod = 10;
   private int monitorExceptionQueueSize = 25;
+  private int monitorEventBufferSize = 8192;
+  private int configPrefetchParallelism = 8;
+  private long k8sConfigMapWriteDebounceInMillis = 1000;
+  private int configListenerParallelism = 8;
+  private long configListenerTimeoutInMillis = 60000;
+  private long configChangeCoalescingWindowInMillis = 0;
+  private boolean virtualThreadsEnabled = false;
+  private boolean healthAwareLoadBalancingEnabled = false;
+  private MonitorEventBackpressurePolicy monitorEventBackpressurePolicy =
+      MonitorEventBackpressurePolicy.DISCARD_NEWEST;
 
   public ConfigUtil() {
     warnLogRateLimiter = RateLimiter.create(0.017); // 1 warning log output per minute
@@ -87,6 +100,7 @@ public class ConfigUtil {
     initQPS();
     initMaxConfigCacheSize();
     initLongPollingInitialDelayInMills();
+    initLongPollingEngine();
     initAutoUpdateInjectedSpringProperties();
     initPropertiesOrdered();
     initPropertyNamesCacheEnabled();
@@ -98,6 +112,15 @@ public class ConfigUtil {
     initClientMonitorExternalType();
     initClientMonitorExternalExportPeriod();
     initClientMonitorExceptionQueueSize();
+    initClientMonitorEventBufferSize();
+    initClientMonitorEventBackpressurePolicy();
+    initConfigPrefetchParallelism();
+    initK8sConfigMapWriteDebounce();
+    initConfigListenerParallelism();
+    initConfigListenerTimeout();
+    initConfigChangeCoalescingWindow();
+    initVirtualThreadsEnabled();
+    initHealthAwareLoadBalancingEnabled();
   }
 
   /**
@@ -474,6 +497,33 @@ public class ConfigUtil {
     return longPollingInitialDelayInMills;
   }
 
+  private void initLongPollingEngine() {
+    String customizedLongPollingEngine = System
+        .getProperty(ApolloClientSystemConsts.APOLLO_LONG_POLLING_ENGINE);
+    if (Strings.isNullOrEmpty(customizedLongPollingEngine)) {
+      customizedLongPollingEngine = System
+          .getenv(ApolloClientSystemConsts.APOLLO_LONG_POLLING_ENGINE_ENVIRONMENT_VARIABLES);
+    }
+    if (Strings.isNullOrEmpty(customizedLongPollingEngine)) {
+      customizedLongPollingEngine = Foundation.app()
+          .getProperty(ApolloClientSystemConsts.APOLLO_LONG_POLLING_ENGINE, null);
+    }
+    if (!Strings.isNullOrEmpty(customizedLongPollingEngine)) {
+      LongPollingEngine engine = LongPollingEngine.fromName(customizedLongPollingEngine.trim());
+      if (engine == null) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+            ApolloClientSystemConsts.APOLLO_LONG_POLLING_ENGINE, customizedLongPollingEngine,
+            longPollingEngine);
+      } else {
+        longPollingEngine = engine;
+      }
+    }
+  }
+
+  public LongPollingEngine getLongPollingEngine() {
+    return longPollingEngine;
+  }
+
   private void initAutoUpdateInjectedSpringProperties() {
     // 1. Get from System Property
     String enableAutoUpdate = System.getProperty("apollo.autoUpdateInjectedSpringProperties");
@@ -618,6 +668,175 @@ public class ConfigUtil {
     return monitorExceptionQueueSize;
   }
 
+  private void initClientMonitorEventBufferSize() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EVENT_BUFFER_SIZE);
+
+    if (value != null) {
+      if (value <= 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: 8192",
+                ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EVENT_BUFFER_SIZE, value);
+      } else {
+        monitorEventBufferSize = value;
+      }
+    }
+  }
+
+  public int getMonitorEventBufferSize() {
+    return monitorEventBufferSize;
+  }
+
+  private void initClientMonitorEventBackpressurePolicy() {
+    String customizedPolicy = System.getProperty(
+        ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EVENT_BACKPRESSURE_POLICY);
+    if (Strings.isNullOrEmpty(customizedPolicy)) {
+      customizedPolicy = Foundation.app()
+          .getProperty(ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EVENT_BACKPRESSURE_POLICY, null);
+    }
+    if (!Strings.isNullOrEmpty(customizedPolicy)) {
+      MonitorEventBackpressurePolicy policy = MonitorEventBackpressurePolicy.fromName(
+          customizedPolicy.trim());
+      if (policy == null) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+            ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EVENT_BACKPRESSURE_POLICY,
+            customizedPolicy, monitorEventBackpressurePolicy);
+      } else {
+        monitorEventBackpressurePolicy = policy;
+      }
+    }
+  }
+
+  public MonitorEventBackpressurePolicy getMonitorEventBackpressurePolicy() {
+    return monitorEventBackpressurePolicy;
+  }
+
+  private void initConfigPrefetchParallelism() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_CONFIG_PREFETCH_PARALLELISM);
+
+    if (value != null) {
+      if (value <= 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: 8",
+                ApolloClientSystemConsts.APOLLO_CONFIG_PREFETCH_PARALLELISM, value);
+      } else {
+        configPrefetchParallelism = value;
+      }
+    }
+  }
+
+  /**
+   * @return the max number of namespaces fetched concurrently on startup, 1 means fetching them one by one
+   */
+  public int getConfigPrefetchParallelism() {
+    return configPrefetchParallelism;
+  }
+
+  private void initK8sConfigMapWriteDebounce() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_CACHE_KUBERNETES_WRITE_DEBOUNCE);
+
+    if (value != null) {
+      if (value < 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: 1000",
+                ApolloClientSystemConsts.APOLLO_CACHE_KUBERNETES_WRITE_DEBOUNCE, value);
+      } else {
+        k8sConfigMapWriteDebounceInMillis = value;
+      }
+    }
+  }
+
+  /**
+   * @return the delay for coalescing the writes of kubernetes configmap cache, 0 means writing immediately
+   */
+  public long getK8sConfigMapWriteDebounceInMillis() {
+    return k8sConfigMapWriteDebounceInMillis;
+  }
+
+  private void initConfigListenerParallelism() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_CONFIG_LISTENER_PARALLELISM);
+
+    if (value != null) {
+      if (value <= 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: 8",
+                ApolloClientSystemConsts.APOLLO_CONFIG_LISTENER_PARALLELISM, value);
+      } else {
+        configListenerParallelism = value;
+      }
+    }
+  }
+
+  /**
+   * @return the max number of config change listeners notified concurrently
+   */
+  public int getConfigListenerParallelism() {
+    return configListenerParallelism;
+  }
+
+  private void initConfigListenerTimeout() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_CONFIG_LISTENER_TIMEOUT);
+
+    if (value != null) {
+      if (value <= 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: 60000",
+                ApolloClientSystemConsts.APOLLO_CONFIG_LISTENER_TIMEOUT, value);
+      } else {
+        configListenerTimeoutInMillis = value;
+      }
+    }
+  }
+
+  /**
+   * @return the time after which a running config change listener is considered stuck
+   */
+  public long getConfigListenerTimeoutInMillis() {
+    return configListenerTimeoutInMillis;
+  }
+
+  private void initConfigChangeCoalescingWindow() {
+    Integer value = getCustomizedIntegerValue(
+        ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_COALESCING_WINDOW);
+
+    if (value != null) {
+      if (value < 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: 0",
+                ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_COALESCING_WINDOW, value);
+      } else {
+        configChangeCoalescingWindowInMillis = value;
+      }
+    }
+  }
+
+  /**
+   * @return the window within which the changes of a namespace are merged, 0 means disabled
+   */
+  public long getConfigChangeCoalescingWindowInMillis() {
+    return configChangeCoalescingWindowInMillis;
+  }
+
+  private void initVirtualThreadsEnabled() {
+    virtualThreadsEnabled = getPropertyBoolean(ApolloClientSystemConsts.APOLLO_CLIENT_VIRTUAL_THREADS_ENABLED,
+            ApolloClientSystemConsts.APOLLO_CLIENT_VIRTUAL_THREADS_ENABLED_ENVIRONMENT_VARIABLES,
+            virtualThreadsEnabled);
+  }
+
+  /**
+   * @return whether to run the apollo client tasks on virtual threads, only takes effect on java 21+
+   */
+  public boolean isVirtualThreadsEnabled() {
+    return virtualThreadsEnabled;
+  }
+
+  private void initHealthAwareLoadBalancingEnabled() {
+    healthAwareLoadBalancingEnabled = getPropertyBoolean(
+        ApolloClientSystemConsts.APOLLO_CONFIG_SERVICE_HEALTH_AWARE_LOAD_BALANCING_ENABLED,
+        ApolloClientSystemConsts.APOLLO_CONFIG_SERVICE_HEALTH_AWARE_LOAD_BALANCING_ENABLED_ENVIRONMENT_VARIABLES,
+        healthAwareLoadBalancingEnabled);
+  }
+
+  /**
+   * @return whether to balance the config service requests by their latency and failures
+   */
+  public boolean isHealthAwareLoadBalancingEnabled() {
+    return healthAwareLoadBalancingEnabled;
+  }
+
   private boolean getPropertyBoolean(String propertyName, String envName, boolean defaultVal) {
     String enablePropertyNamesCache = System.getProperty(propertyName);
     if (Strings.isNullOrEmpty(enablePropertyNamesCache)) {
@@ -16,24 +16,37 @@
  */
 package com.ctrip.framework.apollo.util;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * An OrderedProperties instance will keep appearance order in config file.
+ * <p>
+ * The properties are kept in a {@link ConcurrentHashMap} instead of the synchronized table of
+ * {@link java.util.Hashtable}, so reading them takes no lock. The appearance order is only
+ * maintained by the writes which add or remove keys, the reads iterate an array snapshot of it,
+ * which is rebuilt once after such writes.
  *
  * <strong>
- * Warnings: 1. It should be noticed that stream APIs or JDk1.8 APIs( listed in
- * https://github.com/ctripcorp/apollo/pull/2861) are not implemented here. 2. {@link Properties}
- * implementation are different between JDK1.8 and later JDKs. At least, {@link Properties} have an
- * individual implementation in JDK10. Hence, there should be an individual putAll method here.
+ * Warnings: 1. All the {@link java.util.Hashtable} and {@link Properties} methods are overridden
+ * to work on the ordered properties, the table of the super class is always empty. 2. The views
+ * returned by {@link #keySet()}, {@link #values()} and {@link #entrySet()} are weakly consistent,
+ * like the ones of {@link ConcurrentHashMap}.
  * </strong>
  *
  * @author songdragon@zts.io
@@ -41,92 +54,577 @@ import java.util.Set;
 public class OrderedProperties extends Properties {
 
   private static final long serialVersionUID = -1741073539526213291L;
-  private final Set<String> propertyNames;
+  private static final Object[] EMPTY_KEYS = new Object[0];
+
+  private final ConcurrentHashMap<Object, Object> map;
+  // the appearance order of the keys, also the lock of the writes adding or removing keys
+  private final LinkedHashSet<Object> keyOrder;
+  private transient volatile OrderSnapshot orderSnapshot;
+  private transient volatile Set<Object> keySetView;
+  private transient volatile Set<Entry<Object, Object>> entrySetView;
+  private transient volatile Collection<Object> valuesView;
 
   public OrderedProperties() {
-    propertyNames = Collections.synchronizedSet(new LinkedHashSet<String>());
+    map = new ConcurrentHashMap<>();
+    keyOrder = new LinkedHashSet<>();
+  }
+
+  @Override
+  public String getProperty(String key) {
+    Object value = map.get(key);
+    String property = value instanceof String ? (String) value : null;
+    return property == null && defaults != null ? defaults.getProperty(key) : property;
+  }
+
+  @Override
+  public String getProperty(String key, String defaultValue) {
+    String value = getProperty(key);
+    return value == null ? defaultValue : value;
+  }
+
+  @Override
+  public Object get(Object key) {
+    return map.get(key);
+  }
+
+  @Override
+  public Object getOrDefault(Object key, Object defaultValue) {
+    return map.getOrDefault(key, defaultValue);
   }
 
   @Override
-  public synchronized Object put(Object key, Object value) {
-    addPropertyName(key);
-    return super.put(key, value);
+  public int size() {
+    return map.size();
   }
 
-  private void addPropertyName(Object key) {
-    if (key instanceof String) {
-      propertyNames.add((String) key);
+  @Override
+  public boolean isEmpty() {
+    return map.isEmpty();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return map.containsKey(key);
+  }
+
+  @Override
+  public boolean containsValue(Object value) {
+    return map.containsValue(value);
+  }
+
+  @Override
+  public boolean contains(Object value) {
+    return map.containsValue(value);
+  }
+
+  @Override
+  public Object put(Object key, Object value) {
+    // replacing the value of an existing key doesn't change the order
+    Object previous = map.replace(key, value);
+    if (previous != null) {
+      return previous;
+    }
+    synchronized (keyOrder) {
+      previous = map.put(key, value);
+      if (previous == null) {
+        addKey(key);
+      }
+      return previous;
     }
   }
 
   @Override
-  public Set<String> stringPropertyNames() {
-    return propertyNames;
+  public Object putIfAbsent(Object key, Object value) {
+    Object previous = map.get(key);
+    if (previous != null) {
+      return previous;
+    }
+    synchronized (keyOrder) {
+      previous = map.putIfAbsent(key, value);
+      if (previous == null) {
+        addKey(key);
+      }
+      return previous;
+    }
   }
 
   @Override
-  public Enumeration<?> propertyNames() {
-    return Collections.enumeration(propertyNames);
+  public void putAll(Map<?, ?> t) {
+    synchronized (keyOrder) {
+      for (Entry<?, ?> entry : t.entrySet()) {
+        if (map.put(entry.getKey(), entry.getValue()) == null) {
+          addKey(entry.getKey());
+        }
+      }
+    }
   }
 
   @Override
-  public synchronized Enumeration<Object> keys() {
-    return new Enumeration<Object>() {
-      private final Iterator<String> i = propertyNames.iterator();
+  public Object remove(Object key) {
+    synchronized (keyOrder) {
+      Object previous = map.remove(key);
+      if (previous != null) {
+        removeKey(key);
+      }
+      return previous;
+    }
+  }
 
-      @Override
-      public boolean hasMoreElements() {
-        return i.hasNext();
+  @Override
+  public boolean remove(Object key, Object value) {
+    synchronized (keyOrder) {
+      boolean removed = map.remove(key, value);
+      if (removed) {
+        removeKey(key);
       }
+      return removed;
+    }
+  }
 
-      @Override
-      public Object nextElement() {
-        return i.next();
+  @Override
+  public boolean replace(Object key, Object oldValue, Object newValue) {
+    return map.replace(key, oldValue, newValue);
+  }
+
+  @Override
+  public Object replace(Object key, Object value) {
+    return map.replace(key, value);
+  }
+
+  @Override
+  public void replaceAll(BiFunction<? super Object, ? super Object, ?> function) {
+    map.replaceAll(function);
+  }
+
+  @Override
+  public Object computeIfAbsent(Object key, Function<? super Object, ?> mappingFunction) {
+    synchronized (keyOrder) {
+      boolean absent = !map.containsKey(key);
+      Object value = map.computeIfAbsent(key, mappingFunction);
+      if (absent && value != null) {
+        addKey(key);
       }
-    };
+      return value;
+    }
   }
 
   @Override
-  public Set<Object> keySet() {
-    return new LinkedHashSet<Object>(propertyNames);
+  public Object computeIfPresent(Object key,
+      BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+    synchronized (keyOrder) {
+      Object value = map.computeIfPresent(key, remappingFunction);
+      syncKey(key);
+      return value;
+    }
+  }
+
+  @Override
+  public Object compute(Object key,
+      BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+    synchronized (keyOrder) {
+      Object value = map.compute(key, remappingFunction);
+      syncKey(key);
+      return value;
+    }
+  }
+
+  @Override
+  public Object merge(Object key, Object value,
+      BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+    synchronized (keyOrder) {
+      Object merged = map.merge(key, value, remappingFunction);
+      syncKey(key);
+      return merged;
+    }
+  }
+
+  @Override
+  public void clear() {
+    synchronized (keyOrder) {
+      map.clear();
+      keyOrder.clear();
+      orderSnapshot = null;
+    }
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super Object, ? super Object> action) {
+    Objects.requireNonNull(action);
+    for (Object key : orderedKeys()) {
+      Object value = map.get(key);
+      if (value != null) {
+        action.accept(key, value);
+      }
+    }
+  }
+
+  @Override
+  public Set<String> stringPropertyNames() {
+    return snapshot().stringPropertyNames;
   }
 
+  @Override
+  public Enumeration<?> propertyNames() {
+    return Collections.enumeration(stringPropertyNames());
+  }
+
+  @Override
+  public Enumeration<Object> keys() {
+    return keyIterator();
+  }
+
+  @Override
+  public Enumeration<Object> elements() {
+    return valueIterator();
+  }
+
+  @Override
+  public Set<Object> keySet() {
+    Set<Object> view = keySetView;
+    if (view == null) {
+      keySetView = view = new KeySetView();
+    }
+    return view;
+  }
 
   @Override
   public Set<Entry<Object, Object>> entrySet() {
-    Set<Entry<Object, Object>> original = super.entrySet();
-    LinkedHashMap<Object, Entry<Object, Object>> entryMap = new LinkedHashMap<>();
-    for (String propertyName : propertyNames) {
-      entryMap.put(propertyName, null);
+    Set<Entry<Object, Object>> view = entrySetView;
+    if (view == null) {
+      entrySetView = view = new EntrySetView();
     }
+    return view;
+  }
 
-    for (Entry<Object, Object> entry : original) {
-      entryMap.put(entry.getKey(), entry);
+  @Override
+  public Collection<Object> values() {
+    Collection<Object> view = valuesView;
+    if (view == null) {
+      valuesView = view = new ValuesView();
     }
+    return view;
+  }
 
-    return new LinkedHashSet<>(entryMap.values());
+  @Override
+  public Object clone() {
+    OrderedProperties clone = new OrderedProperties();
+    clone.defaults = defaults;
+    clone.putAll(this);
+    return clone;
   }
 
   @Override
-  public synchronized void putAll(Map<?, ?> t) {
-    super.putAll(t);
-    for (Object name : t.keySet()) {
-      addPropertyName(name);
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof Map)) {
+      return false;
+    }
+    Map<?, ?> other = (Map<?, ?>) o;
+    if (other.size() != size()) {
+      return false;
     }
+    for (Entry<Object, Object> entry : map.entrySet()) {
+      if (!entry.getValue().equals(other.get(entry.getKey()))) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
-  public synchronized void clear() {
-    super.clear();
-    this.propertyNames.clear();
+  public int hashCode() {
+    return map.hashCode();
   }
 
   @Override
-  public synchronized Object remove(Object key) {
-    if (key instanceof String) {
-      this.propertyNames.remove(key);
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (Object key : orderedKeys()) {
+      Object value = map.get(key);
+      if (value != null) {
+        if (sb.length() > 1) {
+          sb.append(", ");
+        }
+        sb.append(key).append('=').append(value);
+      }
     }
-    return super.remove(key);
+    return sb.append('}').toString();
   }
 
+  // must be called with the lock of keyOrder held
+  private void addKey(Object key) {
+    keyOrder.add(key);
+    orderSnapshot = null;
+  }
+
+  // must be called with the lock of keyOrder held
+  private void removeKey(Object key) {
+    keyOrder.remove(key);
+    orderSnapshot = null;
+  }
+
+  // must be called with the lock of keyOrder held
+  private void syncKey(Object key) {
+    if (map.containsKey(key)) {
+      if (!keyOrder.contains(key)) {
+        addKey(key);
+      }
+    } else if (keyOrder.contains(key)) {
+      removeKey(key);
+    }
+  }
+
+  private OrderedIterator<Object> keyIterator() {
+    return new OrderedIterator<Object>() {
+      @Override
+      Object next(Object key, Object value) {
+        return key;
+      }
+    };
+  }
+
+  private OrderedIterator<Object> valueIterator() {
+    return new OrderedIterator<Object>() {
+      @Override
+      Object next(Object key, Object value) {
+        return value;
+      }
+    };
+  }
+
+  private Object[] orderedKeys() {
+    return snapshot().keys;
+  }
+
+  private OrderSnapshot snapshot() {
+    OrderSnapshot snapshot = orderSnapshot;
+    if (snapshot == null) {
+      synchronized (keyOrder) {
+        snapshot = orderSnapshot;
+        if (snapshot == null) {
+          orderSnapshot = snapshot = new OrderSnapshot(keyOrder);
+        }
+      }
+    }
+    return snapshot;
+  }
+
+  private static class OrderSnapshot {
+
+    private final Object[] keys;
+    private final Set<String> stringPropertyNames;
+
+    OrderSnapshot(Set<Object> keyOrder) {
+      keys = keyOrder.isEmpty() ? EMPTY_KEYS : keyOrder.toArray();
+      Set<String> names = new LinkedHashSet<>();
+      for (Object key : keys) {
+        if (key instanceof String) {
+          names.add((String) key);
+        }
+      }
+      stringPropertyNames = Collections.unmodifiableSet(names);
+    }
+  }
+
+  /**
+   * Iterates the snapshot of the key order, skipping the keys removed since the snapshot.
+   */
+  private abstract class OrderedIterator<T> implements Iterator<T>, Enumeration<T> {
+
+    private final Object[] keys = orderedKeys();
+    private int index;
+    private Object nextKey;
+    private Object nextValue;
+    private Object lastKey;
+
+    abstract T next(Object key, Object value);
+
+    @Override
+    public boolean hasNext() {
+      while (nextKey == null && index < keys.length) {
+        Object key = keys[index++];
+        Object value = map.get(key);
+        if (value != null) {
+          nextKey = key;
+          nextValue = value;
+        }
+      }
+      return nextKey != null;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      T next = next(nextKey, nextValue);
+      lastKey = nextKey;
+      nextKey = null;
+      nextValue = null;
+      return next;
+    }
+
+    @Override
+    public void remove() {
+      if (lastKey == null) {
+        throw new IllegalStateException();
+      }
+      OrderedProperties.this.remove(lastKey);
+      lastKey = null;
+    }
+
+    @Override
+    public boolean hasMoreElements() {
+      return hasNext();
+    }
+
+    @Override
+    public T nextElement() {
+      return next();
+    }
+  }
+
+  private class KeySetView extends AbstractSet<Object> {
+
+    @Override
+    public Iterator<Object> iterator() {
+      return keyIterator();
+    }
+
+    @Override
+    public int size() {
+      return map.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return map.containsKey(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      return OrderedProperties.this.remove(o) != null;
+    }
+
+    @Override
+    public void clear() {
+      OrderedProperties.this.clear();
+    }
+  }
+
+  private class ValuesView extends AbstractCollection<Object> {
+
+    @Override
+    public Iterator<Object> iterator() {
+      return valueIterator();
+    }
+
+    @Override
+    public int size() {
+      return map.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return map.containsValue(o);
+    }
+
+    @Override
+    public void clear() {
+      OrderedProperties.this.clear();
+    }
+  }
+
+  private class EntrySetView extends AbstractSet<Entry<Object, Object>> {
+
+    @Override
+    public Iterator<Entry<Object, Object>> iterator() {
+      return new OrderedIterator<Entry<Object, Object>>() {
+        @Override
+        Entry<Object, Object> next(Object key, Object value) {
+          return new PropertyEntry(key, value);
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return map.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> entry = (Entry<?, ?>) o;
+      Object value = map.get(entry.getKey());
+      return value != null && value.equals(entry.getValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> entry = (Entry<?, ?>) o;
+      return OrderedProperties.this.remove(entry.getKey(), entry.getValue());
+    }
+
+    @Override
+    public void clear() {
+      OrderedProperties.this.clear();
+    }
+  }
+
+  private class PropertyEntry implements Entry<Object, Object> {
+
+    private final Object key;
+    private Object value;
+
+    PropertyEntry(Object key, Object value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public Object getKey() {
+      return key;
+    }
+
+    @Override
+    public Object getValue() {
+      return value;
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      Objects.requireNonNull(value);
+      Object previous = this.value;
+      this.value = value;
+      put(key, value);
+      return previous;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> entry = (Entry<?, ?>) o;
+      return key.equals(entry.getKey()) && value.equals(entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return key.hashCode() ^ value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + value;
+    }
+  }
 }
@@ -20,30 +20,39 @@ import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
 import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.foundation.internals.ServiceBootstrap;
 import com.google.common.base.Function;
-import com.google.common.io.CharStreams;
 import com.google.gson.Gson;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.Type;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
  */
 public class DefaultHttpClient implements HttpClient {
   private ConfigUtil m_configUtil;
+  private HttpTransport m_httpTransport;
   private static final Gson GSON = new Gson();
 
   /**
    * Constructor.
    */
   public DefaultHttpClient() {
+    this(ServiceBootstrap.loadPrimary(HttpTransport.class));
+  }
+
+  /**
+   * Constructor with the specified transport.
+   *
+   * @param httpTransport the transport
+   * @since 2.6.0
+   */
+  public DefaultHttpClient(HttpTransport httpTransport) {
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    m_httpTransport = httpTransport;
   }
 
   /**
@@ -56,9 +65,9 @@ public class DefaultHttpClient implements HttpClient {
    */
   @Override
   public <T> HttpResponse<T> doGet(HttpRequest httpRequest, final Class<T> responseType) {
-    Function<String, T> convertResponse = new Function<String, T>() {
+    Function<Reader, T> convertResponse = new Function<Reader, T>() {
       @Override
-      public T apply(String input) {
+      public T apply(Reader input) {
         return GSON.fromJson(input, responseType);
       }
     };
@@ -76,9 +85,9 @@ public class DefaultHttpClient implements HttpClient {
    */
   @Override
   public <T> HttpResponse<T> doGet(HttpRequest httpRequest, final Type responseType) {
-    Function<String, T> convertResponse = new Function<String, T>() {
+    Function<Reader, T> convertResponse = new Function<Reader, T>() {
       @Override
-      public T apply(String input) {
+      public T apply(Reader input) {
         return GSON.fromJson(input, responseType);
       }
     };
@@ -86,23 +95,14 @@ public class DefaultHttpClient implements HttpClient {
     return doGetWithSerializeFunction(httpRequest, convertResponse);
   }
 
+  /**
+   * The response body is decoded while it is being read, so large namespaces are never held as a
+   * whole string in memory.
+   */
   private <T> HttpResponse<T> doGetWithSerializeFunction(HttpRequest httpRequest,
-                                                         Function<String, T> serializeFunction) {
-    InputStreamReader isr = null;
-    InputStreamReader esr = null;
+                                                         Function<Reader, T> serializeFunction) {
     int statusCode;
     try {
-      HttpURLConnection conn = (HttpURLConnection) new URL(httpRequest.getUrl()).openConnection();
-
-      conn.setRequestMethod("GET");
-
-      Map<String, String> headers = httpRequest.getHeaders();
-      if (headers != null && !headers.isEmpty()) {
-        for (Map.Entry<String, String> entry : headers.entrySet()) {
-          conn.setRequestProperty(entry.getKey(), entry.getValue());
-        }
-      }
-
       int connectTimeout = httpRequest.getConnectTimeout();
       if (connectTimeout < 0) {
         connectTimeout = m_configUtil.getConnectTimeout();
@@ -113,69 +113,22 @@ public class DefaultHttpClient implements HttpClient {
         readTimeout = m_configUtil.getReadTimeout();
       }
 
-      conn.setConnectTimeout(connectTimeout);
-      conn.setReadTimeout(readTimeout);
+      try (HttpTransportResponse response = m_httpTransport.doGet(httpRequest, connectTimeout,
+          readTimeout)) {
+        statusCode = response.getStatusCode();
 
-      conn.connect();
-
-      statusCode = conn.getResponseCode();
-      String response;
-
-      try {
-        isr = new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8);
-        response = CharStreams.toString(isr);
-      } catch (IOException ex) {
-        /**
-         * according to https://docs.oracle.com/javase/7/docs/technotes/guides/net/http-keepalive.html,
-         * we should clean up the connection by reading the response body so that the connection
-         * could be reused.
-         */
-        InputStream errorStream = conn.getErrorStream();
-
-        if (errorStream != null) {
-          esr = new InputStreamReader(errorStream, StandardCharsets.UTF_8);
-          try {
-            CharStreams.toString(esr);
-          } catch (IOException ioe) {
-            //ignore
-          }
+        if (statusCode == 200) {
+          Reader reader = new BufferedReader(
+              new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+          return new HttpResponse<>(statusCode, serializeFunction.apply(reader));
         }
 
-        // 200 and 304 should not trigger IOException, thus we must throw the original exception out
-        if (statusCode == 200 || statusCode == 304) {
-          throw ex;
+        if (statusCode == 304) {
+          return new HttpResponse<>(statusCode, null);
         }
-        // for status codes like 404, IOException is expected when calling conn.getInputStream()
-        throw new ApolloConfigStatusCodeException(statusCode, ex);
-      }
-
-      if (statusCode == 200) {
-        return new HttpResponse<>(statusCode, serializeFunction.apply(response));
-      }
-
-      if (statusCode == 304) {
-        return new HttpResponse<>(statusCode, null);
       }
-    } catch (ApolloConfigStatusCodeException ex) {
-      throw ex;
     } catch (Throwable ex) {
       throw new ApolloConfigException("Could not complete get operation", ex);
-    } finally {
-      if (isr != null) {
-        try {
-          isr.close();
-        } catch (IOException ex) {
-          // ignore
-        }
-      }
-
-      if (esr != null) {
-        try {
-          esr.close();
-        } catch (IOException ex) {
-          // ignore
-        }
-      }
     }
 
     throw new ApolloConfigStatusCodeException(statusCode,
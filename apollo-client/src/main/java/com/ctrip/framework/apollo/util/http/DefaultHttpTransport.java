@@ -0,0 +1,166 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.util.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Default {@link HttpTransport} based on {@link HttpURLConnection}, which asks for compressed
+ * responses and relies on the jdk keep-alive cache to reuse the connections.
+ *
+ * @since 2.6.0
+ */
+public class DefaultHttpTransport implements HttpTransport {
+
+  static final String ACCEPT_ENCODING = "Accept-Encoding";
+  static final String SUPPORTED_ENCODINGS = "gzip, deflate";
+  private static final int DRAIN_BUFFER_SIZE = 4096;
+
+  @Override
+  public HttpTransportResponse doGet(HttpRequest httpRequest, int connectTimeout, int readTimeout)
+      throws IOException {
+    HttpURLConnection conn = (HttpURLConnection) new URL(httpRequest.getUrl()).openConnection();
+
+    conn.setRequestMethod("GET");
+    conn.setRequestProperty(ACCEPT_ENCODING, SUPPORTED_ENCODINGS);
+
+    Map<String, String> headers = httpRequest.getHeaders();
+    if (headers != null && !headers.isEmpty()) {
+      for (Map.Entry<String, String> entry : headers.entrySet()) {
+        conn.setRequestProperty(entry.getKey(), entry.getValue());
+      }
+    }
+
+    conn.setConnectTimeout(connectTimeout);
+    conn.setReadTimeout(readTimeout);
+
+    conn.connect();
+
+    int statusCode = conn.getResponseCode();
+    InputStream rawBody;
+    try {
+      rawBody = conn.getInputStream();
+    } catch (IOException ex) {
+      /**
+       * according to https://docs.oracle.com/javase/7/docs/technotes/guides/net/http-keepalive.html,
+       * we should clean up the connection by reading the response body so that the connection
+       * could be reused.
+       */
+      InputStream errorStream = conn.getErrorStream();
+      if (errorStream != null) {
+        drainQuietly(errorStream);
+      }
+
+      // 200 and 304 should not trigger IOException, thus we must throw the original exception out
+      if (statusCode == 200 || statusCode == 304) {
+        throw ex;
+      }
+      // for status codes like 404, IOException is expected when calling conn.getInputStream()
+      return new HttpTransportResponse(statusCode, null, null);
+    }
+
+    if (statusCode != 200) {
+      drainQuietly(rawBody);
+      return new HttpTransportResponse(statusCode, null, null);
+    }
+
+    try {
+      InputStream body = decode(rawBody, conn.getContentEncoding());
+      return new HttpTransportResponse(statusCode, body, new DrainingCloseable(rawBody, body));
+    } catch (IOException ex) {
+      drainQuietly(rawBody);
+      throw ex;
+    }
+  }
+
+  private InputStream decode(InputStream rawBody, String contentEncoding) throws IOException {
+    if (contentEncoding == null) {
+      return rawBody;
+    }
+    String encoding = contentEncoding.trim();
+    if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) {
+      return new GZIPInputStream(rawBody);
+    }
+    if ("deflate".equalsIgnoreCase(encoding)) {
+      return new InflaterInputStream(rawBody);
+    }
+    return rawBody;
+  }
+
+  private static void drainQuietly(InputStream inputStream) {
+    try {
+      drain(inputStream);
+    } catch (IOException ex) {
+      // ignore
+    } finally {
+      closeQuietly(inputStream);
+    }
+  }
+
+  private static void drain(InputStream inputStream) throws IOException {
+    byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+    while (inputStream.read(buffer) != -1) {
+      // discard
+    }
+  }
+
+  private static void closeQuietly(InputStream inputStream) {
+    try {
+      inputStream.close();
+    } catch (IOException ex) {
+      // ignore
+    }
+  }
+
+  @Override
+  public int getOrder() {
+    return LOWEST_PRECEDENCE;
+  }
+
+  /**
+   * Reads the remaining bytes of the raw body before closing, so that the connection goes back to
+   * the keep-alive cache instead of being closed.
+   */
+  private static class DrainingCloseable implements Closeable {
+    private final InputStream m_rawBody;
+    private final InputStream m_body;
+
+    DrainingCloseable(InputStream rawBody, InputStream body) {
+      this.m_rawBody = rawBody;
+      this.m_body = body;
+    }
+
+    @Override
+    public void close() {
+      try {
+        drain(m_rawBody);
+      } catch (IOException ex) {
+        // ignore
+      } finally {
+        // closing the decoded body releases the inflater as well as the raw body
+        closeQuietly(m_body);
+      }
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.util.http;
+
+import com.ctrip.framework.apollo.core.spi.Ordered;
+import java.io.IOException;
+
+/**
+ * The transport used by {@link DefaultHttpClient} to exchange bytes with the remote server, the
+ * one with the highest precedence is used.
+ *
+ * @since 2.6.0
+ */
+public interface HttpTransport extends Ordered {
+
+  /**
+   * Do get operation for the http request.
+   *
+   * @param httpRequest    the request
+   * @param connectTimeout the connect timeout in milliseconds
+   * @param readTimeout    the read timeout in milliseconds
+   * @return the response, whose body is already decoded according to the content encoding
+   * @throws IOException if any io error happened
+   */
+  HttpTransportResponse doGet(HttpRequest httpRequest, int connectTimeout, int readTimeout)
+      throws IOException;
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.util.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The raw response of {@link HttpTransport}, the caller must close it after consuming the body so
+ * that the underlying connection could be reused.
+ *
+ * @since 2.6.0
+ */
+public class HttpTransportResponse implements Closeable {
+  private final int m_statusCode;
+  private final InputStream m_body;
+  private final Closeable m_closeable;
+
+  /**
+   * @param statusCode the status code
+   * @param body       the decoded body, null if there is no body
+   * @param closeable  releases the underlying connection, could be null
+   */
+  public HttpTransportResponse(int statusCode, InputStream body, Closeable closeable) {
+    this.m_statusCode = statusCode;
+    this.m_body = body;
+    this.m_closeable = closeable;
+  }
+
+  public int getStatusCode() {
+    return m_statusCode;
+  }
+
+  public InputStream getBody() {
+    return m_body;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (m_closeable != null) {
+      m_closeable.close();
+    } else if (m_body != null) {
+      m_body.close();
+    }
+  }
+}
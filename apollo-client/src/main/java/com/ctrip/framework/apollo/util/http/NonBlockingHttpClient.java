@@ -0,0 +1,619 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.util.http;
+
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.ctrip.framework.apollo.internals.ApolloExecutors;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.base.Strings;
+import com.google.common.net.InetAddresses;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A minimal HTTP/1.1 client which drives all its requests on one selector thread, so the requests
+ * which are mostly idle, e.g. long polling, don't need a thread each.
+ * <p>
+ * Only plain http GET requests are supported. Each request uses its own connection which is closed
+ * after the response, and the response body is read as a UTF-8 string. The callbacks are invoked
+ * on the selector thread, so they must not block. The host names are looked up on another thread of
+ * the same executor, so a slow DNS doesn't stall the other requests.
+ */
+public class NonBlockingHttpClient {
+  private static final Logger logger = LoggerFactory.getLogger(NonBlockingHttpClient.class);
+  private static final byte[] CRLF = {'\r', '\n'};
+  private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+  private static final int DEFAULT_HTTP_PORT = 80;
+  private static final int READ_BUFFER_SIZE = 8192;
+  // how often the connect and read timeouts are checked
+  private static final long TIMEOUT_CHECK_INTERVAL_IN_MILLIS = 100;
+
+  private final ConfigUtil m_configUtil;
+  private final Selector m_selector;
+  private final Queue<Exchange> m_pendingExchanges;
+  private final AtomicBoolean m_closed;
+  private final ByteBuffer m_readBuffer;
+  // runs the select loop and the host name lookups
+  private final ExecutorService m_executorService;
+
+  /**
+   * The callback of a request.
+   */
+  public interface ResponseCallback {
+
+    /**
+     * Invoked when the response status is 200 or 304, the body is null for 304.
+     *
+     * @param response the response
+     */
+    void onResponse(HttpResponse<String> response);
+
+    /**
+     * Invoked when the request failed, including the response status is neither 200 nor 304.
+     *
+     * @param ex the failure
+     */
+    void onFailure(Throwable ex);
+  }
+
+  /**
+   * Constructor, the select loop is started immediately on an executor of the
+   * {@link com.ctrip.framework.apollo.spi.ApolloExecutorProvider}, which also looks up the host
+   * names.
+   *
+   * @param threadNamePrefix the name of the executor, also the prefix of its thread names
+   */
+  public NonBlockingHttpClient(String threadNamePrefix) {
+    m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    m_pendingExchanges = new ConcurrentLinkedQueue<>();
+    m_closed = new AtomicBoolean(false);
+    m_readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    try {
+      m_selector = Selector.open();
+    } catch (IOException ex) {
+      throw new ApolloConfigException("Open selector failed", ex);
+    }
+    m_executorService = ApolloExecutors.getProvider().newCachedExecutor(threadNamePrefix);
+    m_executorService.execute(new Runnable() {
+      @Override
+      public void run() {
+        runSelectLoop();
+      }
+    });
+  }
+
+  /**
+   * @param url the url
+   * @return whether the url could be requested by this client
+   */
+  public static boolean isSupported(String url) {
+    return url != null && url.regionMatches(true, 0, "http://", 0, "http://".length());
+  }
+
+  /**
+   * Execute the get request asynchronously.
+   *
+   * @param httpRequest the request
+   * @param callback    the callback to be invoked exactly once
+   */
+  public void execute(HttpRequest httpRequest, ResponseCallback callback) {
+    Exchange exchange;
+    try {
+      exchange = new Exchange(httpRequest, callback);
+    } catch (Throwable ex) {
+      callback.onFailure(new ApolloConfigException("Could not complete get operation", ex));
+      return;
+    }
+    if (m_closed.get()) {
+      exchange.fail(new IOException("Http client is closed"));
+      return;
+    }
+    if (exchange.isResolved()) {
+      enqueue(exchange);
+      return;
+    }
+    final Exchange toResolve = exchange;
+    try {
+      m_executorService.execute(new Runnable() {
+        @Override
+        public void run() {
+          if (toResolve.resolve()) {
+            enqueue(toResolve);
+          }
+        }
+      });
+    } catch (RejectedExecutionException ex) {
+      exchange.fail(new IOException("Http client is closed"));
+    }
+  }
+
+  private void enqueue(Exchange exchange) {
+    m_pendingExchanges.add(exchange);
+    // the select loop might have stopped in the meantime
+    if (m_closed.get() && m_pendingExchanges.remove(exchange)) {
+      exchange.fail(new IOException("Http client is closed"));
+      return;
+    }
+    m_selector.wakeup();
+  }
+
+  /**
+   * Close the client, the ongoing requests are failed.
+   */
+  public void close() {
+    if (m_closed.compareAndSet(false, true)) {
+      m_selector.wakeup();
+    }
+  }
+
+  private void runSelectLoop() {
+    try {
+      while (!m_closed.get()) {
+        m_selector.select(TIMEOUT_CHECK_INTERVAL_IN_MILLIS);
+        registerPendingExchanges();
+        processSelectedKeys();
+        checkTimeouts();
+      }
+    } catch (ClosedSelectorException ex) {
+      //ignore
+    } catch (Throwable ex) {
+      logger.error("Non-blocking http client stopped unexpectedly", ex);
+    } finally {
+      failAll();
+      m_executorService.shutdown();
+    }
+  }
+
+  private void registerPendingExchanges() {
+    Exchange exchange;
+    while ((exchange = m_pendingExchanges.poll()) != null) {
+      exchange.register();
+    }
+  }
+
+  private void processSelectedKeys() {
+    Iterator<SelectionKey> iterator = m_selector.selectedKeys().iterator();
+    while (iterator.hasNext()) {
+      SelectionKey key = iterator.next();
+      iterator.remove();
+      Exchange exchange = (Exchange) key.attachment();
+      if (!key.isValid()) {
+        continue;
+      }
+      try {
+        if (key.isConnectable()) {
+          exchange.finishConnect();
+        } else if (key.isWritable()) {
+          exchange.write();
+        } else if (key.isReadable()) {
+          exchange.read();
+        }
+      } catch (Throwable ex) {
+        exchange.fail(ex);
+      }
+    }
+  }
+
+  private void checkTimeouts() {
+    long now = System.nanoTime();
+    for (SelectionKey key : m_selector.keys()) {
+      Exchange exchange = (Exchange) key.attachment();
+      if (exchange != null && key.isValid()) {
+        exchange.checkTimeout(now);
+      }
+    }
+  }
+
+  private void failAll() {
+    Exchange exchange;
+    while ((exchange = m_pendingExchanges.poll()) != null) {
+      exchange.fail(new IOException("Http client is closed"));
+    }
+    try {
+      Set<SelectionKey> keys = m_selector.keys();
+      for (SelectionKey key : keys.toArray(new SelectionKey[0])) {
+        Exchange attached = (Exchange) key.attachment();
+        if (attached != null) {
+          attached.fail(new IOException("Http client is closed"));
+        }
+      }
+      m_selector.close();
+    } catch (Throwable ex) {
+      //ignore
+    }
+  }
+
+  private final class Exchange {
+    private final String m_url;
+    private final ByteBuffer m_requestBuffer;
+    private final ResponseCallback m_callback;
+    private final long m_connectTimeoutInNanos;
+    private final long m_readTimeoutInNanos;
+    private InetSocketAddress m_address;
+    private byte[] m_received = new byte[READ_BUFFER_SIZE];
+    private int m_receivedLength;
+    // where the next search of the response head end starts
+    private int m_headScanOffset;
+    private ChunkedDecoder m_chunkedDecoder;
+    private SocketChannel m_channel;
+    private SelectionKey m_key;
+    private long m_connectDeadline;
+    private long m_lastActivity;
+    private boolean m_connected;
+    private boolean m_completed;
+    // the response head, parsed once received fully
+    private int m_bodyStart = -1;
+    private int m_statusCode;
+    private long m_contentLength = -1;
+    private boolean m_chunked;
+
+    private Exchange(HttpRequest httpRequest, ResponseCallback callback) {
+      m_url = httpRequest.getUrl();
+      m_callback = callback;
+      URI uri = URI.create(m_url);
+      if (!isSupported(m_url) || Strings.isNullOrEmpty(uri.getHost())) {
+        throw new IllegalArgumentException("Unsupported url: " + m_url);
+      }
+      int port = uri.getPort() < 0 ? DEFAULT_HTTP_PORT : uri.getPort();
+      // ip addresses need no lookup, the host names are looked up off the selector thread
+      m_address = InetAddresses.isInetAddress(uri.getHost())
+          ? new InetSocketAddress(uri.getHost(), port)
+          : InetSocketAddress.createUnresolved(uri.getHost(), port);
+
+      int connectTimeout = httpRequest.getConnectTimeout();
+      if (connectTimeout < 0) {
+        connectTimeout = m_configUtil.getConnectTimeout();
+      }
+      int readTimeout = httpRequest.getReadTimeout();
+      if (readTimeout < 0) {
+        readTimeout = m_configUtil.getReadTimeout();
+      }
+      m_connectTimeoutInNanos = TimeUnit.MILLISECONDS.toNanos(connectTimeout);
+      m_readTimeoutInNanos = TimeUnit.MILLISECONDS.toNanos(readTimeout);
+      m_requestBuffer = ByteBuffer.wrap(assembleRequest(uri, port, httpRequest.getHeaders()));
+    }
+
+    private byte[] assembleRequest(URI uri, int port, Map<String, String> headers) {
+      String path = Strings.isNullOrEmpty(uri.getRawPath()) ? "/" : uri.getRawPath();
+      if (uri.getRawQuery() != null) {
+        path = path + "?" + uri.getRawQuery();
+      }
+      StringBuilder request = new StringBuilder(256 + path.length());
+      request.append("GET ").append(path).append(" HTTP/1.1\r\n");
+      request.append("Host: ").append(uri.getHost());
+      if (port != DEFAULT_HTTP_PORT) {
+        request.append(':').append(port);
+      }
+      request.append("\r\n");
+      request.append("Accept: application/json\r\n");
+      request.append("Connection: close\r\n");
+      if (headers != null) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+          request.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+      }
+      request.append("\r\n");
+      return request.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private boolean isResolved() {
+      return !m_address.isUnresolved();
+    }
+
+    /**
+     * Look up the host name, which might block.
+     *
+     * @return whether the host name is resolved, the exchange is failed otherwise
+     */
+    private boolean resolve() {
+      InetSocketAddress resolved = new InetSocketAddress(m_address.getHostString(),
+          m_address.getPort());
+      if (resolved.isUnresolved()) {
+        fail(new UnknownHostException(m_address.getHostString()));
+        return false;
+      }
+      m_address = resolved;
+      return true;
+    }
+
+    private void register() {
+      try {
+        m_channel = SocketChannel.open();
+        m_channel.configureBlocking(false);
+        m_connectDeadline = System.nanoTime() + m_connectTimeoutInNanos;
+        if (m_channel.connect(m_address)) {
+          m_key = m_channel.register(m_selector, SelectionKey.OP_WRITE, this);
+          onConnected();
+        } else {
+          m_key = m_channel.register(m_selector, SelectionKey.OP_CONNECT, this);
+        }
+      } catch (Throwable ex) {
+        fail(ex);
+      }
+    }
+
+    private void finishConnect() throws IOException {
+      if (m_channel.finishConnect()) {
+        m_key.interestOps(SelectionKey.OP_WRITE);
+        onConnected();
+      }
+    }
+
+    private void onConnected() {
+      m_connected = true;
+      m_lastActivity = System.nanoTime();
+    }
+
+    private void write() throws IOException {
+      m_channel.write(m_requestBuffer);
+      m_lastActivity = System.nanoTime();
+      if (!m_requestBuffer.hasRemaining()) {
+        m_key.interestOps(SelectionKey.OP_READ);
+      }
+    }
+
+    private void read() throws IOException {
+      m_readBuffer.clear();
+      int read = m_channel.read(m_readBuffer);
+      if (read < 0) {
+        tryComplete(true);
+        return;
+      }
+      m_lastActivity = System.nanoTime();
+      if (m_receivedLength + read > m_received.length) {
+        m_received = Arrays.copyOf(m_received,
+            Math.max(m_received.length * 2, m_receivedLength + read));
+      }
+      System.arraycopy(m_readBuffer.array(), 0, m_received, m_receivedLength, read);
+      m_receivedLength += read;
+      tryComplete(false);
+    }
+
+    private void checkTimeout(long now) {
+      if (!m_connected && now - m_connectDeadline > 0) {
+        fail(new SocketTimeoutException("connect timed out"));
+      } else if (m_connected && now - m_lastActivity > m_readTimeoutInNanos) {
+        fail(new SocketTimeoutException("Read timed out"));
+      }
+    }
+
+    /**
+     * Only the bytes received since the last call are scanned, so a large response is not parsed
+     * again on every read.
+     */
+    private void tryComplete(boolean endOfStream) throws IOException {
+      if (m_bodyStart < 0) {
+        int headerEnd = indexOf(m_received, Math.max(0, m_headScanOffset - HEADER_END.length + 1),
+            m_receivedLength, HEADER_END);
+        if (headerEnd < 0) {
+          if (endOfStream) {
+            throw new EOFException("Unexpected end of stream before the response head");
+          }
+          m_headScanOffset = m_receivedLength;
+          return;
+        }
+        parseHead(new String(m_received, 0, headerEnd, StandardCharsets.ISO_8859_1));
+        m_bodyStart = headerEnd + HEADER_END.length;
+        if (m_chunked) {
+          m_chunkedDecoder = new ChunkedDecoder(m_bodyStart);
+        }
+      }
+
+      if (m_statusCode == 304 || m_statusCode == 204) {
+        complete(null);
+        return;
+      }
+
+      String body = null;
+      if (m_chunked) {
+        byte[] decoded = m_chunkedDecoder.decode(m_received, m_receivedLength);
+        if (decoded != null) {
+          body = new String(decoded, StandardCharsets.UTF_8);
+        }
+      } else if (m_contentLength >= 0) {
+        if (m_receivedLength - m_bodyStart >= m_contentLength) {
+          body = new String(m_received, m_bodyStart, (int) m_contentLength, StandardCharsets.UTF_8);
+        }
+      } else if (endOfStream) {
+        body = new String(m_received, m_bodyStart, m_receivedLength - m_bodyStart,
+            StandardCharsets.UTF_8);
+      }
+
+      if (body != null) {
+        complete(body);
+      } else if (endOfStream) {
+        throw new EOFException("Unexpected end of stream before the response body completes");
+      }
+    }
+
+    private void parseHead(String head) throws IOException {
+      String[] lines = head.split("\r\n");
+      String[] statusLine = lines[0].split(" ", 3);
+      if (statusLine.length < 2 || !statusLine[0].startsWith("HTTP/")) {
+        throw new IOException("Invalid status line: " + lines[0]);
+      }
+      try {
+        m_statusCode = Integer.parseInt(statusLine[1]);
+      } catch (NumberFormatException ex) {
+        throw new IOException("Invalid status line: " + lines[0], ex);
+      }
+      for (int i = 1; i < lines.length; i++) {
+        int separator = lines[i].indexOf(':');
+        if (separator <= 0) {
+          continue;
+        }
+        String name = lines[i].substring(0, separator).trim().toLowerCase(Locale.ROOT);
+        String value = lines[i].substring(separator + 1).trim();
+        if ("content-length".equals(name)) {
+          m_contentLength = Long.parseLong(value);
+        } else if ("transfer-encoding".equals(name)) {
+          m_chunked = value.toLowerCase(Locale.ROOT).contains("chunked");
+        }
+      }
+    }
+
+    private void complete(String body) {
+      if (m_completed) {
+        return;
+      }
+      m_completed = true;
+      closeChannel();
+      if (m_statusCode == 200 || m_statusCode == 304) {
+        invokeCallback(new HttpResponse<>(m_statusCode, m_statusCode == 200 ? body : null), null);
+      } else {
+        invokeCallback(null, new ApolloConfigStatusCodeException(m_statusCode,
+            String.format("Get operation failed for %s", m_url)));
+      }
+    }
+
+    private void fail(Throwable ex) {
+      if (m_completed) {
+        return;
+      }
+      m_completed = true;
+      closeChannel();
+      if (!(ex instanceof ApolloConfigException)) {
+        ex = new ApolloConfigException("Could not complete get operation", ex);
+      }
+      invokeCallback(null, ex);
+    }
+
+    private void invokeCallback(HttpResponse<String> response, Throwable ex) {
+      try {
+        if (ex == null) {
+          m_callback.onResponse(response);
+        } else {
+          m_callback.onFailure(ex);
+        }
+      } catch (Throwable callbackException) {
+        logger.warn("Invoke http response callback failed, url: {}", m_url, callbackException);
+      }
+    }
+
+    private void closeChannel() {
+      if (m_key != null) {
+        m_key.cancel();
+      }
+      if (m_channel != null) {
+        try {
+          m_channel.close();
+        } catch (IOException ex) {
+          //ignore
+        }
+      }
+    }
+  }
+
+  /**
+   * Decodes a chunked body as it is received, the chunks already decoded are not scanned again.
+   */
+  static final class ChunkedDecoder {
+    private final ByteArrayOutputStream m_body = new ByteArrayOutputStream();
+    // the start of the next chunk size line, or of the next trailer line after the last chunk
+    private int m_position;
+    private boolean m_lastChunk;
+
+    ChunkedDecoder(int start) {
+      m_position = start;
+    }
+
+    /**
+     * @param data the received bytes, starting with the ones already decoded
+     * @param end  the end of the received bytes
+     * @return the decoded body, or null if the chunked body is not complete yet
+     */
+    byte[] decode(byte[] data, int end) throws IOException {
+      while (true) {
+        int lineEnd = indexOf(data, m_position, end, CRLF);
+        if (lineEnd < 0) {
+          return null;
+        }
+        if (m_lastChunk) {
+          // the optional trailers always end with an empty line
+          boolean emptyLine = lineEnd == m_position;
+          m_position = lineEnd + CRLF.length;
+          if (emptyLine) {
+            return m_body.toByteArray();
+          }
+          continue;
+        }
+        String sizeLine = new String(data, m_position, lineEnd - m_position,
+            StandardCharsets.ISO_8859_1);
+        int extension = sizeLine.indexOf(';');
+        if (extension >= 0) {
+          sizeLine = sizeLine.substring(0, extension);
+        }
+        int size;
+        try {
+          size = Integer.parseInt(sizeLine.trim(), 16);
+        } catch (NumberFormatException ex) {
+          throw new IOException("Invalid chunk size: " + sizeLine, ex);
+        }
+        int chunkStart = lineEnd + CRLF.length;
+        if (size == 0) {
+          m_lastChunk = true;
+          m_position = chunkStart;
+          continue;
+        }
+        if (end - chunkStart < size + CRLF.length) {
+          return null;
+        }
+        m_body.write(data, chunkStart, size);
+        m_position = chunkStart + size + CRLF.length;
+      }
+    }
+  }
+
+  private static int indexOf(byte[] data, int from, int to, byte[] target) {
+    outer:
+    for (int i = from; i <= to - target.length; i++) {
+      for (int j = 0; j < target.length; j++) {
+        if (data[i + j] != target[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+}
@@ -18,11 +18,24 @@ package com.ctrip.framework.apollo.util.yaml;
 
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,29 +49,199 @@ import org.yaml.snakeyaml.representer.Representer;
 
 /**
  * Transplanted from org.springframework.beans.factory.config.YamlProcessor since apollo can't depend on Spring directly
+ * <p>
+ * A single document of block mapping is split into its top-level sections, each section is parsed
+ * and flattened on its own, and cached by the hash of its text. So when a large yaml namespace
+ * changes, only the changed sections are parsed again. Documents which can't be split safely, e.g.
+ * with multiple documents or anchors, are always parsed as a whole.
  *
  * @since 1.3.0
  */
 public class YamlParser {
   private static final Logger logger = LoggerFactory.getLogger(YamlParser.class);
 
+  private static final int MAX_POOLED_YAML_COUNT = Runtime.getRuntime().availableProcessors();
+  // the flattened properties take roughly the same memory as the yaml text
+  private static final long MAX_SECTION_CACHE_WEIGHT = 16 * 1024 * 1024;
+  private static final HashFunction SECTION_HASH_FUNCTION = Hashing.murmur3_128();
+  // anchors and aliases refer to other sections, e.g. "&anchor" or "*alias" at the start of a node
+  private static final Pattern ANCHOR_OR_ALIAS_PATTERN = Pattern.compile("(?:^|[\\s\\[{,])[&*][^\\s\\[\\]{},]");
+
   private PropertiesFactory propertiesFactory = ApolloInjector.getInstance(PropertiesFactory.class);
 
+  // Yaml is not thread safe, so the instances are borrowed from the pool one thread at a time
+  private final BlockingQueue<Yaml> yamlPool = new ArrayBlockingQueue<>(MAX_POOLED_YAML_COUNT);
+
+  private final Cache<HashCode, FlattenedSection> sectionCache = CacheBuilder.newBuilder()
+      .maximumWeight(MAX_SECTION_CACHE_WEIGHT)
+      .weigher((HashCode hash, FlattenedSection section) -> section.weight)
+      .recordStats()
+      .build();
+
   /**
    * Transform yaml content to properties
    */
   public Properties yamlToProperties(String yamlContent) {
-    Yaml yaml = createYaml();
-    final Properties result = propertiesFactory.getPropertiesInstance();
+    Properties result = tryTransformBySections(yamlContent);
+    if (result != null) {
+      return result;
+    }
+
+    final Properties properties = propertiesFactory.getPropertiesInstance();
+    Yaml yaml = borrowYaml();
     process(new MatchCallback() {
       @Override
-      public void process(Properties properties, Map<String, Object> map) {
-        result.putAll(properties);
+      public void process(Properties flattened, Map<String, Object> map) {
+        properties.putAll(flattened);
       }
     }, yaml, yamlContent);
-    return result;
+    // only return the instance after a successful parsing, so a broken one never goes back
+    returnYaml(yaml);
+    return properties;
+  }
+
+  /**
+   * @return the properties, or null if the content can't be handled section by section
+   */
+  private Properties tryTransformBySections(String yamlContent) {
+    List<String> sections = splitTopLevelSections(yamlContent);
+    if (sections == null) {
+      return null;
+    }
+
+    List<FlattenedSection> flattenedSections = new ArrayList<>(sections.size());
+    Set<String> topLevelKeys = new HashSet<>();
+    for (String section : sections) {
+      HashCode hash = SECTION_HASH_FUNCTION.hashUnencodedChars(section);
+      FlattenedSection flattened = sectionCache.getIfPresent(hash);
+      if (flattened == null) {
+        flattened = flattenSection(section);
+        if (flattened == null) {
+          return null;
+        }
+        sectionCache.put(hash, flattened);
+      }
+      // duplicate keys are rejected by parsing the whole document
+      if (!topLevelKeys.add(flattened.topLevelKey)) {
+        return null;
+      }
+      flattenedSections.add(flattened);
+    }
+
+    Properties properties = propertiesFactory.getPropertiesInstance();
+    for (FlattenedSection flattened : flattenedSections) {
+      properties.putAll(flattened.properties);
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("Loaded {} top-level sections from YAML", sections.size());
+    }
+    return properties;
   }
 
+  /**
+   * @return the flattened section, or null if the section is not a mapping of exactly one key
+   */
+  private FlattenedSection flattenSection(String section) {
+    Yaml yaml = borrowYaml();
+    Object object;
+    try {
+      object = yaml.load(section);
+    } catch (Throwable ex) {
+      // let the whole document report the error
+      return null;
+    }
+    returnYaml(yaml);
+
+    if (!(object instanceof Map) || ((Map<?, ?>) object).size() != 1) {
+      return null;
+    }
+    Map<String, Object> map = asMap(object);
+    return new FlattenedSection(map.keySet().iterator().next(), getFlattenedMap(map));
+  }
+
+  /**
+   * Split the single document of block mapping into the text of its top-level entries, the
+   * comments and blank lines are kept in the section before them.
+   *
+   * @return the sections, or null if the content can't be split safely
+   */
+  static List<String> splitTopLevelSections(String content) {
+    if (content == null || ANCHOR_OR_ALIAS_PATTERN.matcher(content).find()) {
+      return null;
+    }
+    List<String> sections = new ArrayList<>();
+    int sectionStart = 0;
+    boolean keySeen = false;
+    int lineStart = 0;
+    while (lineStart < content.length()) {
+      int lineEnd = content.indexOf('\n', lineStart);
+      if (lineEnd < 0) {
+        lineEnd = content.length();
+      }
+      char first = content.charAt(lineStart);
+      if (content.startsWith("---", lineStart) || content.startsWith("...", lineStart)) {
+        // multiple documents
+        return null;
+      }
+      switch (first) {
+        case ' ':
+        case '\t':
+        case '\r':
+        case '\n':
+        case '#':
+          // nested content, comments and blank lines
+          break;
+        case '-':
+          if (!keySeen) {
+            // a sequence document
+            return null;
+          }
+          // a sequence at the same indentation as its key
+          break;
+        case '[':
+        case '{':
+        case '?':
+        case '|':
+        case '>':
+        case '!':
+        case '%':
+        case '@':
+        case '`':
+          // flow collections, complex keys, block scalars, tags, directives and reserved indicators
+          return null;
+        default:
+          if (keySeen) {
+            sections.add(content.substring(sectionStart, lineStart));
+            sectionStart = lineStart;
+          }
+          keySeen = true;
+      }
+      lineStart = lineEnd + 1;
+    }
+    if (!keySeen) {
+      return null;
+    }
+    sections.add(content.substring(sectionStart));
+    return sections;
+  }
+
+  /**
+   * @return the stats of the section cache
+   */
+  CacheStats sectionCacheStats() {
+    return sectionCache.stats();
+  }
+
+  private Yaml borrowYaml() {
+    Yaml yaml = yamlPool.poll();
+    return yaml != null ? yaml : createYaml();
+  }
+
+  private void returnYaml(Yaml yaml) {
+    yamlPool.offer(yaml);
+  }
+
+
   /**
    * Create the {@link Yaml} instance to use.
    */
@@ -166,4 +349,23 @@ public class YamlParser {
     void process(Properties properties, Map<String, Object> map);
   }
 
+  /**
+   * The flattened properties of a top-level section, which are never modified once cached.
+   */
+  private static class FlattenedSection {
+    private final String topLevelKey;
+    private final Map<String, Object> properties;
+    private final int weight;
+
+    private FlattenedSection(String topLevelKey, Map<String, Object> properties) {
+      this.topLevelKey = topLevelKey;
+      this.properties = properties;
+      int weight = 0;
+      for (Map.Entry<String, Object> entry : properties.entrySet()) {
+        weight += entry.getKey().length() + String.valueOf(entry.getValue()).length();
+      }
+      this.weight = weight;
+    }
+  }
+
 }
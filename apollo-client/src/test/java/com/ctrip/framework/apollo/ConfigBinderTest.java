@@ -0,0 +1,276 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.enums.PropertyChangeType;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+public class ConfigBinderTest {
+
+  private static final String someNamespace = "someNamespace";
+
+  private Map<String, String> configurations;
+  private Config config;
+
+  @Before
+  public void setUp() {
+    configurations = Maps.newLinkedHashMap();
+    config = mock(Config.class);
+    when(config.getProperty(anyString(), isNull())).thenAnswer(
+        invocation -> configurations.get(invocation.getArgument(0, String.class)));
+    when(config.getPropertyNames()).thenAnswer(
+        invocation -> Collections.unmodifiableSet(configurations.keySet()));
+  }
+
+  @Test
+  public void testBindOnce() {
+    configurations.put("db.url", "jdbc:mysql://localhost:3306/apollo");
+    configurations.put("db.max-pool-size", "20");
+    configurations.put("db.timeout", "1m30s");
+    configurations.put("db.read-only", "true");
+    configurations.put("db.mode", "REPLICA");
+    configurations.put("db.pool.min-idle", "2");
+    configurations.put("db.hosts", "a, b,c");
+    configurations.put("db.replicas[1].url", "jdbc:replica1");
+    configurations.put("db.replicas[0].url", "jdbc:replica0");
+    configurations.put("db.replicas[0].pool.min-idle", "5");
+    configurations.put("db.ports[0]", "3306");
+    configurations.put("db.ports[1]", "3307");
+    configurations.put("db.weights.a", "1");
+    configurations.put("db.weights.b", "2");
+    configurations.put("db.pools.read.min-idle", "3");
+    configurations.put("other.url", "someUrl");
+
+    DataSourceProperties properties = ConfigBinder.bindOnce(config, "db",
+        DataSourceProperties.class);
+
+    assertEquals("jdbc:mysql://localhost:3306/apollo", properties.getUrl());
+    assertTrue(properties.urlSetBySetter);
+    assertEquals(20, properties.maxPoolSize);
+    assertEquals(Duration.ofSeconds(90), properties.timeout);
+    assertTrue(properties.readOnly);
+    assertEquals(Mode.REPLICA, properties.mode);
+    assertEquals(2, properties.pool.minIdle);
+    assertEquals(Lists.newArrayList("a", "b", "c"), properties.hosts);
+    assertEquals(2, properties.replicas.size());
+    assertEquals("jdbc:replica0", properties.replicas.get(0).url);
+    assertEquals(5, properties.replicas.get(0).pool.minIdle);
+    assertEquals("jdbc:replica1", properties.replicas.get(1).url);
+    assertNull(properties.replicas.get(1).pool);
+    assertEquals(2, properties.ports.size());
+    assertTrue(properties.ports.contains(3307));
+    assertEquals(ImmutableMap.of("a", 1, "b", 2), properties.weights);
+    assertEquals(3, properties.pools.get("read").minIdle);
+  }
+
+  @Test
+  public void testKeepDefaultsOfMissingKeys() {
+    configurations.put("db.url", "someUrl");
+
+    DataSourceProperties properties = ConfigBinder.bindOnce(config, "db",
+        DataSourceProperties.class);
+
+    assertEquals("someUrl", properties.getUrl());
+    assertEquals(10, properties.maxPoolSize);
+    assertNull(properties.pool);
+    assertNull(properties.hosts);
+    assertNull(properties.weights);
+  }
+
+  @Test(expected = ApolloConfigException.class)
+  public void testBindMalformedValue() {
+    configurations.put("db.max-pool-size", "twenty");
+
+    ConfigBinder.bindOnce(config, "db", DataSourceProperties.class);
+  }
+
+  @Test
+  public void testRebindOnChange() {
+    configurations.put("db.url", "someUrl");
+    configurations.put("db.hosts", "a,b");
+
+    ConfigBinding<DataSourceProperties> binding = ConfigBinder.bind(config, "db",
+        DataSourceProperties.class);
+    ArgumentCaptor<ConfigChangeListener> listener = ArgumentCaptor.forClass(
+        ConfigChangeListener.class);
+    verify(config).addChangeListener(listener.capture(), isNull(),
+        eq(Collections.singleton("db.")));
+
+    DataSourceProperties first = binding.get();
+    assertSame(first, binding.get());
+
+    configurations.put("db.url", "anotherUrl");
+    listener.getValue().onChange(changeEvent("db.url", "someUrl", "anotherUrl"));
+
+    DataSourceProperties second = binding.get();
+    assertNotSame(first, second);
+    assertEquals("anotherUrl", second.getUrl());
+    // the published instance is never modified
+    assertEquals("someUrl", first.getUrl());
+    assertEquals(Lists.newArrayList("a", "b"), second.hosts);
+  }
+
+  @Test
+  public void testListenBeforeInitialBind() {
+    configurations.put("db.url", "someUrl");
+
+    ConfigBinder.bind(config, "db", DataSourceProperties.class);
+
+    // a change between the initial bind and the listening would be missed otherwise
+    InOrder inOrder = inOrder(config);
+    inOrder.verify(config).addChangeListener(any(ConfigChangeListener.class), isNull(), any());
+    inOrder.verify(config, atLeastOnce()).getPropertyNames();
+  }
+
+  @Test
+  public void testStopListeningWhenInitialBindFails() {
+    configurations.put("db.max-pool-size", "twenty");
+
+    try {
+      ConfigBinder.bind(config, "db", DataSourceProperties.class);
+      fail("the initial bind should fail");
+    } catch (ApolloConfigException ex) {
+      // expected
+    }
+
+    ArgumentCaptor<ConfigChangeListener> listener = ArgumentCaptor.forClass(
+        ConfigChangeListener.class);
+    verify(config).addChangeListener(listener.capture(), isNull(), any());
+    verify(config).removeChangeListener(listener.getValue());
+  }
+
+  @Test
+  public void testKeepLastBoundOnRebindFailure() {
+    configurations.put("db.max-pool-size", "20");
+
+    ConfigBinding<DataSourceProperties> binding = ConfigBinder.bind(config, "db",
+        DataSourceProperties.class);
+    ArgumentCaptor<ConfigChangeListener> listener = ArgumentCaptor.forClass(
+        ConfigChangeListener.class);
+    verify(config).addChangeListener(listener.capture(), isNull(), any());
+    DataSourceProperties first = binding.get();
+
+    configurations.put("db.max-pool-size", "twenty");
+    listener.getValue().onChange(changeEvent("db.max-pool-size", "20", "twenty"));
+
+    assertSame(first, binding.get());
+    assertEquals(20, binding.get().maxPoolSize);
+  }
+
+  @Test
+  public void testClose() {
+    ConfigBinding<DataSourceProperties> binding = ConfigBinder.bind(config, "db",
+        DataSourceProperties.class);
+    ArgumentCaptor<ConfigChangeListener> listener = ArgumentCaptor.forClass(
+        ConfigChangeListener.class);
+    verify(config).addChangeListener(listener.capture(), isNull(), any());
+
+    binding.close();
+
+    verify(config).removeChangeListener(listener.getValue());
+  }
+
+  @Test
+  public void testBindWholeConfig() {
+    configurations.put("url", "someUrl");
+    configurations.put("read-only", "false");
+
+    ConfigBinding<DataSourceProperties> binding = ConfigBinder.bind(config, "",
+        DataSourceProperties.class);
+
+    verify(config).addChangeListener(any(ConfigChangeListener.class));
+    assertEquals("someUrl", binding.get().getUrl());
+    assertFalse(binding.get().readOnly);
+  }
+
+  private static ConfigChangeEvent changeEvent(String key, String oldValue, String newValue) {
+    return new ConfigChangeEvent("someAppId", someNamespace, ImmutableMap.of(key,
+        new ConfigChange("someAppId", someNamespace, key, oldValue, newValue,
+            PropertyChangeType.MODIFIED)));
+  }
+
+  enum Mode {
+    PRIMARY, REPLICA
+  }
+
+  static class PoolProperties {
+
+    private int minIdle;
+  }
+
+  static class ReplicaProperties {
+
+    private String url;
+    private PoolProperties pool;
+  }
+
+  static class DataSourceProperties {
+
+    private String url;
+    private int maxPoolSize = 10;
+    private Duration timeout;
+    private boolean readOnly;
+    private Mode mode;
+    private PoolProperties pool;
+    private List<String> hosts;
+    private List<ReplicaProperties> replicas;
+    private Set<Integer> ports;
+    private Map<String, Integer> weights;
+    private Map<String, PoolProperties> pools;
+    private transient boolean urlSetBySetter;
+
+    public String getUrl() {
+      return url;
+    }
+
+    public void setUrl(String url) {
+      this.url = url;
+      this.urlSetBySetter = true;
+    }
+  }
+}
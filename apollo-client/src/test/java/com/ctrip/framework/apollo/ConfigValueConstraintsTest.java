@@ -0,0 +1,74 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.ctrip.framework.apollo.enums.PropertyChangeType;
+import org.junit.Test;
+
+public class ConfigValueConstraintsTest {
+
+  @Test
+  public void testTypeConstraints() {
+    assertNull(ConfigValueConstraints.isInt().validate("-12"));
+    assertNotNull(ConfigValueConstraints.isInt().validate("12a"));
+    assertNotNull(ConfigValueConstraints.isInt().validate("3000000000"));
+    assertNull(ConfigValueConstraints.isLong().validate("3000000000"));
+    assertNull(ConfigValueConstraints.isDouble().validate("1.5"));
+    assertNotNull(ConfigValueConstraints.isDouble().validate("one"));
+    assertNull(ConfigValueConstraints.isBoolean().validate("TRUE"));
+    assertNotNull(ConfigValueConstraints.isBoolean().validate("yes"));
+    assertNull(ConfigValueConstraints.isDuration().validate("1h30m"));
+    assertNotNull(ConfigValueConstraints.isDuration().validate("soon"));
+    assertNull(ConfigValueConstraints.isEnum(PropertyChangeType.class).validate("ADDED"));
+    assertNotNull(ConfigValueConstraints.isEnum(PropertyChangeType.class).validate("added"));
+  }
+
+  @Test
+  public void testRangeConstraint() {
+    ConfigValueConstraint constraint = ConfigValueConstraints.inRange(1, 10);
+
+    assertNull(constraint.validate("1"));
+    assertNull(constraint.validate("10"));
+    assertNotNull(constraint.validate("0"));
+    assertNotNull(constraint.validate("11"));
+    assertNotNull(constraint.validate("five"));
+  }
+
+  @Test
+  public void testRegexAndPredicateConstraints() {
+    assertNull(ConfigValueConstraints.matches("[a-z]+").validate("abc"));
+    assertNotNull(ConfigValueConstraints.matches("[a-z]+").validate("abc1"));
+
+    ConfigValueConstraint notBlank = ConfigValueConstraints.satisfies(
+        value -> !value.trim().isEmpty(), "blank");
+    assertNull(notBlank.validate("a"));
+    assertNotNull(notBlank.validate(" "));
+  }
+
+  @Test
+  public void testAllOfConstraints() {
+    ConfigValueConstraint constraint = ConfigValueConstraints.allOf(
+        ConfigValueConstraints.isInt(), ConfigValueConstraints.inRange(0, 100));
+
+    assertNull(constraint.validate("50"));
+    assertNotNull(constraint.validate("500"));
+    assertNotNull(constraint.validate("fifty"));
+  }
+}
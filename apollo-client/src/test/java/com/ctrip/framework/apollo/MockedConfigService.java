@@ -158,7 +158,7 @@ public class MockedConfigService implements AutoCloseable {
       int mockedStatusCode,
       ApolloConfig apolloConfig
   ) {
-    mockConfigs(failedAtFirstTime, mockedStatusCode, apolloConfig, "/configs/.*");
+    mockConfigs(failedAtFirstTime, mockedStatusCode, apolloConfig, "/configs/.*", 0);
   }
 
   public void mockConfigs(
@@ -183,14 +183,30 @@ public class MockedConfigService implements AutoCloseable {
         Pattern.quote(appId),
         Pattern.quote(cluster),
         Pattern.quote(namespace));
-    mockConfigs(failedAtFirstTime, mockedStatusCode, apolloConfig, path);
+    mockConfigs(failedAtFirstTime, mockedStatusCode, apolloConfig, path, 0);
+  }
+
+  public void mockConfigsWithDelay(
+      long milliseconds,
+      String appId,
+      String cluster,
+      String namespace,
+      int mockedStatusCode,
+      ApolloConfig apolloConfig
+  ) {
+    String path = String.format("/configs/%s/%s/%s.*",
+        Pattern.quote(appId),
+        Pattern.quote(cluster),
+        Pattern.quote(namespace));
+    mockConfigs(false, mockedStatusCode, apolloConfig, path, milliseconds);
   }
 
   private void mockConfigs(
       boolean failedAtFirstTime,
       int mockedStatusCode,
       ApolloConfig apolloConfig,
-      String path
+      String path,
+      long delayInMS
   ) {
     // cannot use /configs/* as the path, because mock server will treat * as a wildcard
     RequestDefinition requestDefinition = HttpRequest.request("GET").withPath(path);
@@ -207,12 +223,14 @@ public class MockedConfigService implements AutoCloseable {
     }
 
     String body = gson.toJson(apolloConfig);
-    server.when(requestDefinition)
-        .respond(HttpResponse.response()
-            .withStatusCode(mockedStatusCode)
-            .withContentType(MediaType.JSON_UTF_8)
-            .withBody(body)
-        );
+    HttpResponse response = HttpResponse.response()
+        .withStatusCode(mockedStatusCode)
+        .withContentType(MediaType.JSON_UTF_8)
+        .withBody(body);
+    if (delayInMS > 0) {
+      response.withDelay(TimeUnit.MILLISECONDS, delayInMS);
+    }
+    server.when(requestDefinition).respond(response);
   }
 
   public void mockLongPollNotifications(
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ctrip.framework.apollo.BaseIntegrationTest;
+import com.ctrip.framework.apollo.MockedConfigService;
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.ctrip.framework.apollo.spring.boot.ApolloApplicationContextInitializer;
+import com.ctrip.framework.apollo.spring.config.PropertySourcesConstants;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Properties;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.CompositePropertySource;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertiesPropertySource;
+import org.springframework.core.env.PropertySource;
+
+class ConfigPrefetchIntegrationTest extends BaseIntegrationTest {
+
+  private static final long DELAY_IN_MS = 1000;
+  private static final List<String> NAMESPACES = Lists.newArrayList("ns1", "ns2", "ns3", "ns4");
+
+  @AfterEach
+  void clearBootstrapNamespaces() {
+    System.clearProperty(PropertySourcesConstants.APOLLO_BOOTSTRAP_NAMESPACES);
+  }
+
+  @Test
+  void prefetchNamespacesConcurrently() {
+    mockDelayedConfigs();
+
+    long elapsed = initializeBootstrapPropertySources();
+
+    // the namespaces are fetched one by one without prefetching, which takes 4 delays at least
+    assertTrue(elapsed < DELAY_IN_MS * (NAMESPACES.size() - 1),
+        "bootstrap took " + elapsed + "ms");
+  }
+
+  @Test
+  void fetchNamespacesOneByOneWithoutParallelism() {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil() {
+      @Override
+      public int getConfigPrefetchParallelism() {
+        return 1;
+      }
+    });
+    mockDelayedConfigs();
+
+    long elapsed = initializeBootstrapPropertySources();
+
+    assertTrue(elapsed >= DELAY_IN_MS * NAMESPACES.size(), "bootstrap took " + elapsed + "ms");
+  }
+
+  private void mockDelayedConfigs() {
+    MockedConfigService mockedConfigService = newMockedConfigService();
+    for (String namespace : NAMESPACES) {
+      ApolloConfig apolloConfig = new ApolloConfig(someAppId, someClusterName, namespace,
+          "someReleaseKey");
+      // the same key in every namespace, so the order of the property sources is observable
+      apolloConfig.setConfigurations(ImmutableMap.of("someKey", namespace,
+          namespace + ".key", namespace));
+      mockedConfigService.mockConfigsWithDelay(DELAY_IN_MS, someAppId, someClusterName, namespace,
+          HttpServletResponse.SC_OK, apolloConfig);
+    }
+  }
+
+  private long initializeBootstrapPropertySources() {
+    Properties properties = new Properties();
+    properties.setProperty(PropertySourcesConstants.APOLLO_BOOTSTRAP_ENABLED, "true");
+    properties.setProperty(PropertySourcesConstants.APOLLO_BOOTSTRAP_NAMESPACES,
+        String.join(",", NAMESPACES));
+    GenericApplicationContext context = new GenericApplicationContext();
+    ConfigurableEnvironment environment = context.getEnvironment();
+    environment.getPropertySources()
+        .addLast(new PropertiesPropertySource("bootstrapProperties", properties));
+
+    long start = System.currentTimeMillis();
+    new ApolloApplicationContextInitializer().initialize(context);
+    long elapsed = System.currentTimeMillis() - start;
+
+    CompositePropertySource composite = (CompositePropertySource) environment.getPropertySources()
+        .get(PropertySourcesConstants.APOLLO_BOOTSTRAP_PROPERTY_SOURCE_NAME);
+    List<String> propertySourceNames = Lists.newArrayList();
+    for (PropertySource<?> propertySource : composite.getPropertySources()) {
+      propertySourceNames.add(propertySource.getName());
+    }
+    assertEquals(NAMESPACES, propertySourceNames);
+    assertEquals("ns1", environment.getProperty("someKey"));
+    for (String namespace : NAMESPACES) {
+      assertEquals(namespace, environment.getProperty(namespace + ".key"));
+    }
+    return elapsed;
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.enums.PropertyChangeType;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class ConfigChangeCoalescerTest {
+
+  private static final String someAppId = "someAppId";
+  private static final String someNamespace = "someNamespace";
+  private static final long WINDOW_IN_MILLIS = 1000;
+
+  private AtomicLong nanos;
+  private ScheduledExecutorService executorService;
+  private List<Map<String, ConfigChange>> dispatched;
+  private ConfigChangeCoalescer coalescer;
+
+  @Before
+  public void setUp() {
+    nanos = new AtomicLong();
+    executorService = mock(ScheduledExecutorService.class);
+    dispatched = Lists.newArrayList();
+    coalescer = new ConfigChangeCoalescer(WINDOW_IN_MILLIS, executorService, dispatched::add,
+        new Ticker() {
+          @Override
+          public long read() {
+            return nanos.get();
+          }
+        });
+  }
+
+  @Test
+  public void testMergeChangesWithinWindow() {
+    coalescer.add(changes(
+        change("k1", "v1", "v2", PropertyChangeType.MODIFIED),
+        change("k2", null, "v1", PropertyChangeType.ADDED)));
+    advance(300);
+    coalescer.add(changes(
+        change("k1", "v2", "v3", PropertyChangeType.MODIFIED),
+        change("k3", "v1", null, PropertyChangeType.DELETED)));
+
+    verify(executorService, times(1)).schedule(any(Runnable.class),
+        eq(TimeUnit.MILLISECONDS.toNanos(WINDOW_IN_MILLIS)), eq(TimeUnit.NANOSECONDS));
+    assertTrue(dispatched.isEmpty());
+
+    advance(700);
+    coalescer.flush();
+
+    assertEquals(1, dispatched.size());
+    Map<String, ConfigChange> merged = dispatched.get(0);
+    assertEquals(3, merged.size());
+    assertChange(merged.get("k1"), "v1", "v3", PropertyChangeType.MODIFIED);
+    assertChange(merged.get("k2"), null, "v1", PropertyChangeType.ADDED);
+    assertChange(merged.get("k3"), "v1", null, PropertyChangeType.DELETED);
+  }
+
+  @Test
+  public void testCollapseChangesCancellingEachOther() {
+    coalescer.add(changes(
+        change("added", null, "v1", PropertyChangeType.ADDED),
+        change("modified", "v1", "v2", PropertyChangeType.MODIFIED),
+        change("deleted", "v1", null, PropertyChangeType.DELETED)));
+    coalescer.add(changes(
+        change("added", "v1", null, PropertyChangeType.DELETED),
+        change("modified", "v2", "v1", PropertyChangeType.MODIFIED),
+        change("deleted", null, "v2", PropertyChangeType.ADDED)));
+
+    advance(WINDOW_IN_MILLIS);
+    coalescer.flush();
+
+    assertEquals(1, dispatched.size());
+    Map<String, ConfigChange> merged = dispatched.get(0);
+    assertEquals(1, merged.size());
+    assertNull(merged.get("added"));
+    assertNull(merged.get("modified"));
+    assertChange(merged.get("deleted"), "v1", "v2", PropertyChangeType.MODIFIED);
+  }
+
+  @Test
+  public void testSkipDispatchIfAllChangesCancelled() {
+    coalescer.add(changes(change("k1", null, "v1", PropertyChangeType.ADDED)));
+    coalescer.add(changes(change("k1", "v1", null, PropertyChangeType.DELETED)));
+
+    advance(WINDOW_IN_MILLIS);
+    coalescer.flush();
+
+    assertTrue(dispatched.isEmpty());
+  }
+
+  @Test
+  public void testRescheduleIfFlushedBeforeWindowEnds() {
+    coalescer.add(changes(change("k1", "v1", "v2", PropertyChangeType.MODIFIED)));
+
+    advance(400);
+    coalescer.flush();
+
+    assertTrue(dispatched.isEmpty());
+    verify(executorService, times(1)).schedule(any(Runnable.class),
+        eq(TimeUnit.MILLISECONDS.toNanos(600)), eq(TimeUnit.NANOSECONDS));
+
+    advance(600);
+    coalescer.flush();
+
+    assertEquals(1, dispatched.size());
+  }
+
+  @Test
+  public void testStartNewWindowAfterFlush() {
+    coalescer.add(changes(change("k1", "v1", "v2", PropertyChangeType.MODIFIED)));
+    advance(WINDOW_IN_MILLIS);
+    coalescer.flush();
+
+    coalescer.add(changes(change("k1", "v2", "v3", PropertyChangeType.MODIFIED)));
+    advance(WINDOW_IN_MILLIS);
+    coalescer.flush();
+    // nothing is pending any more
+    coalescer.flush();
+
+    verify(executorService, times(2)).schedule(any(Runnable.class), anyLong(),
+        eq(TimeUnit.NANOSECONDS));
+    assertEquals(2, dispatched.size());
+    assertChange(dispatched.get(0).get("k1"), "v1", "v2", PropertyChangeType.MODIFIED);
+    assertChange(dispatched.get(1).get("k1"), "v2", "v3", PropertyChangeType.MODIFIED);
+  }
+
+  @Test
+  public void testScheduledFlushDispatchesChanges() {
+    coalescer.add(changes(change("k1", "v1", "v2", PropertyChangeType.MODIFIED)));
+
+    ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService).schedule(flush.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+    advance(WINDOW_IN_MILLIS);
+    flush.getValue().run();
+
+    assertEquals(1, dispatched.size());
+  }
+
+  @Test
+  public void testDispatchRightAwayIfFlushIsRejected() {
+    when(executorService.schedule(any(Runnable.class), anyLong(), eq(TimeUnit.NANOSECONDS)))
+        .thenThrow(new RejectedExecutionException("shutdown"));
+
+    coalescer.add(changes(change("k1", "v1", "v2", PropertyChangeType.MODIFIED)));
+
+    assertEquals(1, dispatched.size());
+    assertChange(dispatched.get(0).get("k1"), "v1", "v2", PropertyChangeType.MODIFIED);
+
+    // the later changes are not stuck in a window never flushed
+    coalescer.add(changes(change("k1", "v2", "v3", PropertyChangeType.MODIFIED)));
+
+    assertEquals(2, dispatched.size());
+    assertChange(dispatched.get(1).get("k1"), "v2", "v3", PropertyChangeType.MODIFIED);
+  }
+
+  @Test
+  public void testDispatchRightAwayIfRescheduleIsRejected() {
+    coalescer.add(changes(change("k1", "v1", "v2", PropertyChangeType.MODIFIED)));
+    when(executorService.schedule(any(Runnable.class), anyLong(), eq(TimeUnit.NANOSECONDS)))
+        .thenThrow(new RejectedExecutionException("shutdown"));
+
+    advance(400);
+    coalescer.flush();
+
+    assertEquals(1, dispatched.size());
+  }
+
+  private void advance(long millis) {
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+
+  private static ConfigChange change(String key, String oldValue, String newValue,
+      PropertyChangeType changeType) {
+    return new ConfigChange(someAppId, someNamespace, key, oldValue, newValue, changeType);
+  }
+
+  private static Map<String, ConfigChange> changes(ConfigChange... changes) {
+    Map<String, ConfigChange> result = Maps.newLinkedHashMap();
+    for (ConfigChange change : changes) {
+      result.put(change.getPropertyName(), change);
+    }
+    return result;
+  }
+
+  private static void assertChange(ConfigChange change, String oldValue, String newValue,
+      PropertyChangeType changeType) {
+    assertEquals(someAppId, change.getAppId());
+    assertEquals(someNamespace, change.getNamespace());
+    assertEquals(oldValue, change.getOldValue());
+    assertEquals(newValue, change.getNewValue());
+    assertEquals(changeType, change.getChangeType());
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.google.common.base.Ticker;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigChangeListenerDispatcherTest {
+
+  private static final AtomicInteger inFlight = new AtomicInteger();
+  private static final AtomicInteger maxInFlight = new AtomicInteger();
+  private ExecutorService executorService;
+  private ScheduledExecutorService checkExecutorService;
+
+  @Before
+  public void setUp() {
+    inFlight.set(0);
+    maxInFlight.set(0);
+    executorService = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "ConfigChangeListenerDispatcherTest");
+      thread.setDaemon(true);
+      return thread;
+    });
+    checkExecutorService = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    executorService.shutdownNow();
+    checkExecutorService.shutdownNow();
+  }
+
+  @Test
+  public void testDeliverInOrderPerListener() throws Exception {
+    ConfigChangeListenerDispatcher dispatcher = new ConfigChangeListenerDispatcher(
+        executorService, 4, 60000);
+    int events = 10000;
+    List<OrderCheckingListener> listeners = new CopyOnWriteArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      listeners.add(new OrderCheckingListener(events));
+    }
+
+    for (int i = 0; i < events; i++) {
+      for (OrderCheckingListener listener : listeners) {
+        dispatcher.dispatch(listener, changeEvent(i));
+      }
+    }
+
+    for (OrderCheckingListener listener : listeners) {
+      assertTrue(listener.await(10, TimeUnit.SECONDS));
+      assertEquals(0, listener.outOfOrder.get());
+    }
+    assertTrue(maxInFlight.get() <= 4);
+  }
+
+  @Test
+  public void testFloodThroughMisbehavingListeners() throws Exception {
+    ConfigChangeListenerDispatcher dispatcher = new ConfigChangeListenerDispatcher(
+        executorService, 1, 1000);
+    dispatcher.scheduleCheck(checkExecutorService);
+    int events = 100000;
+    CountDownLatch hangingListenerReleased = new CountDownLatch(1);
+    OrderCheckingListener hangingListener = new OrderCheckingListener(events) {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        try {
+          hangingListenerReleased.await();
+        } catch (InterruptedException ex) {
+          // keep hanging even interrupted
+          try {
+            hangingListenerReleased.await();
+          } catch (InterruptedException ignore) {
+          }
+        }
+        super.onChange(changeEvent);
+      }
+    };
+    OrderCheckingListener throwingListener = new OrderCheckingListener(events) {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        super.onChange(changeEvent);
+        if (changeEvent.getNamespace().endsWith("000")) {
+          throw new IllegalStateException("some failure");
+        }
+      }
+    };
+    OrderCheckingListener slowListener = new OrderCheckingListener(events) {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        if (changeEvent.getNamespace().endsWith("0000")) {
+          try {
+            TimeUnit.MILLISECONDS.sleep(20);
+          } catch (InterruptedException ignore) {
+          }
+        }
+        super.onChange(changeEvent);
+      }
+    };
+    OrderCheckingListener normalListener = new OrderCheckingListener(events);
+    List<OrderCheckingListener> listeners = Arrays.asList(
+        hangingListener, throwingListener, slowListener, normalListener);
+
+    for (int i = 0; i < events; i++) {
+      ConfigChangeEvent changeEvent = changeEvent(i);
+      for (OrderCheckingListener listener : listeners) {
+        dispatcher.dispatch(listener, changeEvent);
+      }
+    }
+
+    // the others are not blocked once the hanging listener exceeds the timeout
+    assertTrue(throwingListener.await(30, TimeUnit.SECONDS));
+    assertTrue(slowListener.await(30, TimeUnit.SECONDS));
+    assertTrue(normalListener.await(30, TimeUnit.SECONDS));
+    assertEquals(0, hangingListener.received.get());
+
+    hangingListenerReleased.countDown();
+    assertTrue(hangingListener.await(30, TimeUnit.SECONDS));
+
+    for (OrderCheckingListener listener : listeners) {
+      assertEquals(0, listener.outOfOrder.get());
+    }
+    // the worker released from the hanging listener is not counted as it doesn't return in time
+    assertEquals(1, maxInFlight.get());
+  }
+
+  @Test
+  public void testReleaseWorkerOfStuckListener() throws Exception {
+    AtomicLong nanos = new AtomicLong();
+    ConfigChangeListenerDispatcher dispatcher = new ConfigChangeListenerDispatcher(
+        executorService, 1, 2000, new Ticker() {
+      @Override
+      public long read() {
+        return nanos.get();
+      }
+    });
+    CountDownLatch stuckListenerStarted = new CountDownLatch(1);
+    CountDownLatch stuckListenerInterrupted = new CountDownLatch(1);
+    ConfigChangeListener stuckListener = changeEvent -> {
+      stuckListenerStarted.countDown();
+      try {
+        TimeUnit.MINUTES.sleep(1);
+      } catch (InterruptedException ex) {
+        stuckListenerInterrupted.countDown();
+      }
+    };
+    OrderCheckingListener anotherListener = new OrderCheckingListener(1);
+
+    dispatcher.dispatch(stuckListener, changeEvent(0));
+    assertTrue(stuckListenerStarted.await(5, TimeUnit.SECONDS));
+    dispatcher.dispatch(anotherListener, changeEvent(0));
+
+    // slow but not stuck yet
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+    dispatcher.check();
+    assertEquals(1, dispatcher.getWorkerCount());
+    assertEquals(0, anotherListener.received.get());
+
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+    dispatcher.check();
+
+    assertTrue(stuckListenerInterrupted.await(5, TimeUnit.SECONDS));
+    assertTrue(anotherListener.await(5, TimeUnit.SECONDS));
+  }
+
+  private static ConfigChangeEvent changeEvent(int sequence) {
+    return new ConfigChangeEvent("someAppId", String.valueOf(sequence),
+        Collections.emptyMap());
+  }
+
+  private static class OrderCheckingListener implements ConfigChangeListener {
+
+    private final CountDownLatch allReceived;
+    private final AtomicInteger received = new AtomicInteger();
+    private final AtomicInteger outOfOrder = new AtomicInteger();
+
+    private OrderCheckingListener(int events) {
+      allReceived = new CountDownLatch(events);
+    }
+
+    @Override
+    public void onChange(ConfigChangeEvent changeEvent) {
+      int current = inFlight.incrementAndGet();
+      maxInFlight.accumulateAndGet(current, Math::max);
+      if (Integer.parseInt(changeEvent.getNamespace()) != received.getAndIncrement()) {
+        outOfOrder.incrementAndGet();
+      }
+      inFlight.decrementAndGet();
+      allReceived.countDown();
+    }
+
+    boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+      return allReceived.await(timeout, unit);
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.internals.ConfigChangeListenerIndex.Match;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigChangeListenerIndexTest {
+
+  private ConfigChangeListenerIndex index;
+
+  @Before
+  public void setUp() {
+    index = new ConfigChangeListenerIndex();
+  }
+
+  @Test
+  public void testMatchInterestedKeys() {
+    ConfigChangeListener someListener = changeEvent -> {
+    };
+    ConfigChangeListener anotherListener = changeEvent -> {
+    };
+    index.add(someListener, Sets.newHashSet("someKey", "anotherKey"), null);
+    index.add(anotherListener, Sets.newHashSet("yetAnotherKey"), Collections.emptySet());
+
+    List<Match> matches = index.match(Sets.newHashSet("someKey", "anotherKey", "unknownKey"));
+
+    assertEquals(1, matches.size());
+    assertSame(someListener, matches.get(0).getListener());
+    assertEquals(Sets.newHashSet("someKey", "anotherKey"),
+        matches.get(0).getInterestedChangedKeys());
+  }
+
+  @Test
+  public void testMatchInterestedKeyPrefixes() {
+    ConfigChangeListener someListener = changeEvent -> {
+    };
+    ConfigChangeListener anotherListener = changeEvent -> {
+    };
+    index.add(someListener, null, Sets.newHashSet("spring.", "spring.datasource."));
+    index.add(anotherListener, Sets.newHashSet("server.port"), Sets.newHashSet("server.tomcat"));
+
+    List<Match> matches = index.match(Sets.newHashSet("spring.datasource.url",
+        "spring.application.name", "spring", "server.tomcat", "server.port", "server"));
+
+    assertEquals(2, matches.size());
+    assertSame(someListener, matches.get(0).getListener());
+    assertEquals(Sets.newHashSet("spring.datasource.url", "spring.application.name"),
+        matches.get(0).getInterestedChangedKeys());
+    assertSame(anotherListener, matches.get(1).getListener());
+    assertEquals(Sets.newHashSet("server.tomcat", "server.port"),
+        matches.get(1).getInterestedChangedKeys());
+  }
+
+  @Test
+  public void testUnfilteredListenerMatchesAllChanges() {
+    ConfigChangeListener someListener = changeEvent -> {
+    };
+    index.add(someListener, null, null);
+
+    List<Match> matches = index.match(Sets.newHashSet("someKey"));
+
+    assertEquals(1, matches.size());
+    assertSame(someListener, matches.get(0).getListener());
+    assertTrue(matches.get(0).getInterestedChangedKeys().isEmpty());
+  }
+
+  @Test
+  public void testEmptyPrefixMatchesAllKeys() {
+    ConfigChangeListener someListener = changeEvent -> {
+    };
+    index.add(someListener, null, Sets.newHashSet(""));
+
+    List<Match> matches = index.match(Sets.newHashSet("someKey", ""));
+
+    assertEquals(1, matches.size());
+    assertEquals(Sets.newHashSet("someKey", ""), matches.get(0).getInterestedChangedKeys());
+  }
+
+  @Test
+  public void testMatchesInRegistrationOrder() {
+    ConfigChangeListener first = changeEvent -> {
+    };
+    ConfigChangeListener second = changeEvent -> {
+    };
+    ConfigChangeListener third = changeEvent -> {
+    };
+    index.add(first, null, Sets.newHashSet("some"));
+    index.add(second, null, null);
+    index.add(third, Sets.newHashSet("someKey"), null);
+
+    List<Match> matches = index.match(Sets.newHashSet("someKey"));
+
+    assertEquals(3, matches.size());
+    assertSame(first, matches.get(0).getListener());
+    assertSame(second, matches.get(1).getListener());
+    assertSame(third, matches.get(2).getListener());
+  }
+
+  @Test
+  public void testAddSameListenerOnlyOnce() {
+    ConfigChangeListener someListener = changeEvent -> {
+    };
+
+    assertTrue(index.add(someListener, Sets.newHashSet("someKey"), null));
+    assertFalse(index.add(someListener, Sets.newHashSet("anotherKey"), null));
+
+    assertTrue(index.contains(someListener));
+    assertEquals(1, index.match(Sets.newHashSet("someKey")).size());
+    assertTrue(index.match(Sets.newHashSet("anotherKey")).isEmpty());
+  }
+
+  @Test
+  public void testRemove() {
+    ConfigChangeListener someListener = changeEvent -> {
+    };
+    ConfigChangeListener anotherListener = changeEvent -> {
+    };
+    index.add(someListener, Sets.newHashSet("someKey"), Sets.newHashSet("some.prefix"));
+    index.add(anotherListener, null, Sets.newHashSet("some"));
+
+    assertTrue(index.remove(someListener));
+    assertFalse(index.remove(someListener));
+    assertFalse(index.contains(someListener));
+
+    List<Match> matches = index.match(Sets.newHashSet("someKey", "some.prefix.key"));
+    assertEquals(1, matches.size());
+    assertSame(anotherListener, matches.get(0).getListener());
+
+    assertTrue(index.remove(anotherListener));
+    assertTrue(index.match(Sets.newHashSet("someKey", "some.prefix.key")).isEmpty());
+  }
+}
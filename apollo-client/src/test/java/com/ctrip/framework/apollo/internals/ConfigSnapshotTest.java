@@ -0,0 +1,182 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.Test;
+
+public class ConfigSnapshotTest {
+
+  @Test
+  public void testOf() {
+    Map<String, String> configurations = Maps.newLinkedHashMap();
+    configurations.put("b", "1");
+    configurations.put("a", "2");
+    configurations.put("c", null);
+
+    ConfigSnapshot snapshot = ConfigSnapshot.of(configurations);
+    configurations.put("a", "3");
+
+    assertEquals("1", snapshot.get("b"));
+    assertEquals("2", snapshot.get("a"));
+    assertNull(snapshot.get("c"));
+    assertEquals(2, snapshot.size());
+    assertEquals(Lists.newArrayList("b", "a"), Lists.newArrayList(snapshot.keySet()));
+  }
+
+  @Test
+  public void testUpdate() {
+    ConfigSnapshot snapshot = ConfigSnapshot.of(configurations(20));
+
+    Map<String, String> newConfigurations = configurations(20);
+    newConfigurations.put("key1", "newValue");
+    newConfigurations.remove("key2");
+    newConfigurations.put("newKey", "newValue");
+
+    ConfigSnapshot newSnapshot = snapshot.update(newConfigurations);
+
+    assertTrue(newSnapshot.getVersion() > snapshot.getVersion());
+    assertEquals("newValue", newSnapshot.get("key1"));
+    assertNull(newSnapshot.get("key2"));
+    assertEquals("newValue", newSnapshot.get("newKey"));
+    assertEquals("value3", newSnapshot.get("key3"));
+    assertEquals(20, newSnapshot.size());
+    assertEquals(newConfigurations.keySet(), newSnapshot.keySet());
+    assertEquals(Sets.newHashSet("key1", "key2", "newKey"), newSnapshot.changedKeysSince(snapshot));
+
+    // the previous snapshot is not affected
+    assertEquals("value1", snapshot.get("key1"));
+    assertEquals("value2", snapshot.get("key2"));
+    assertNull(snapshot.get("newKey"));
+  }
+
+  @Test
+  public void testUpdateWithNoChange() {
+    ConfigSnapshot snapshot = ConfigSnapshot.of(configurations(10));
+
+    assertSame(snapshot, snapshot.update(configurations(10)));
+    assertSame(snapshot, snapshot.apply(ImmutableMap.of("key1", "value1")));
+  }
+
+  @Test
+  public void testApplyChangedBack() {
+    ConfigSnapshot snapshot = ConfigSnapshot.of(configurations(10));
+
+    ConfigSnapshot changed = snapshot.apply(ImmutableMap.of("key1", "newValue"));
+    ConfigSnapshot changedBack = changed.apply(ImmutableMap.of("key1", "value1"));
+
+    assertSame(snapshot, changedBack);
+  }
+
+  @Test
+  public void testApplyOnOverlay() {
+    ConfigSnapshot snapshot = ConfigSnapshot.of(configurations(20));
+
+    ConfigSnapshot first = snapshot.apply(ImmutableMap.of("key1", "newValue"));
+    Map<String, String> changes = Maps.newHashMap();
+    changes.put("key2", null);
+    ConfigSnapshot second = first.apply(changes);
+
+    assertEquals("newValue", second.get("key1"));
+    assertNull(second.get("key2"));
+    assertEquals(19, second.size());
+    assertEquals(Sets.newHashSet("key1", "key2"), second.changedKeysSince(first));
+    assertEquals(Sets.newHashSet("key1", "key2"), second.changedKeysSince(snapshot));
+  }
+
+  @Test
+  public void testCompact() {
+    ConfigSnapshot snapshot = ConfigSnapshot.of(configurations(8));
+
+    Map<String, String> changes = Maps.newHashMap();
+    changes.put("key1", "newValue");
+    changes.put("key2", "newValue");
+    changes.put("key3", "newValue");
+    ConfigSnapshot compacted = snapshot.apply(changes);
+
+    // too many changes, so it is flattened and not derived from the base anymore
+    assertNull(compacted.changedKeysSince(snapshot));
+    assertEquals("newValue", compacted.get("key1"));
+    assertEquals("value4", compacted.get("key4"));
+    assertEquals(Lists.newArrayList(configurations(8).keySet()),
+        Lists.newArrayList(compacted.keySet()));
+  }
+
+  @Test
+  public void testWrapAndCopyOf() {
+    Properties properties = new Properties();
+    properties.setProperty("someKey", "someValue");
+    properties.put("someObjectKey", new Object());
+
+    ConfigSnapshot wrapped = ConfigSnapshot.wrap(properties);
+    ConfigSnapshot copied = ConfigSnapshot.copyOf(properties);
+
+    assertEquals("someValue", wrapped.get("someKey"));
+    assertEquals(Collections.singleton("someKey"), wrapped.keySet());
+    assertEquals(1, wrapped.size());
+    assertEquals(wrapped, copied);
+    assertEquals(wrapped.hashCode(), copied.hashCode());
+
+    ConfigSnapshot updated = wrapped.update(ImmutableMap.of("someKey", "anotherValue"));
+    assertEquals("anotherValue", updated.get("someKey"));
+    assertEquals("someValue", properties.getProperty("someKey"));
+  }
+
+  @Test
+  public void testEquals() {
+    ConfigSnapshot snapshot = ConfigSnapshot.of(configurations(10));
+    ConfigSnapshot changed = snapshot.apply(ImmutableMap.of("key1", "newValue"));
+
+    assertEquals(snapshot, ConfigSnapshot.of(configurations(10)));
+    assertNotEquals(snapshot, changed);
+    assertEquals(changed, snapshot.apply(ImmutableMap.of("key1", "newValue")));
+    assertEquals(changed, ConfigSnapshot.copyOf(changed.toProperties()));
+    assertEquals(ConfigSnapshot.empty(), ConfigSnapshot.of(Collections.<String, String>emptyMap()));
+  }
+
+  @Test
+  public void testToProperties() {
+    ConfigSnapshot snapshot = ConfigSnapshot.of(configurations(10))
+        .apply(ImmutableMap.of("key1", "newValue"));
+
+    Properties properties = snapshot.toProperties();
+
+    assertEquals(10, properties.size());
+    assertEquals("newValue", properties.getProperty("key1"));
+    assertEquals("value2", properties.getProperty("key2"));
+  }
+
+  private Map<String, String> configurations(int size) {
+    Map<String, String> configurations = Maps.newLinkedHashMap();
+    for (int i = 1; i <= size; i++) {
+      configurations.put("key" + i, "value" + i);
+    }
+    return configurations;
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.ctrip.framework.apollo.ConfigSnapshotView;
+import com.ctrip.framework.apollo.enums.PropertyChangeType;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import com.ctrip.framework.apollo.model.ConfigTransactionEvent;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class ConfigTransactionManagerTest {
+
+  private static final String someAppId = "someAppId";
+  private static final String someNamespace = "someNamespace";
+  private static final String anotherNamespace = "anotherNamespace";
+  private static final String someKey = "someKey";
+
+  private ScheduledExecutorService executorService;
+  private List<ConfigTransactionEvent> events;
+  private ConfigTransactionManager transactionManager;
+
+  @Before
+  public void setUp() {
+    executorService = mock(ScheduledExecutorService.class);
+    // notify the listeners in the calling thread
+    doAnswer(invocation -> {
+      invocation.getArgument(0, Runnable.class).run();
+      return null;
+    }).when(executorService).execute(any(Runnable.class));
+
+    events = Lists.newArrayList();
+    transactionManager = new ConfigTransactionManager(executorService);
+    transactionManager.addTransactionListener(events::add);
+
+    transactionManager.onConfigInitialized(someAppId, someNamespace, snapshot("v1"));
+    transactionManager.onConfigInitialized(someAppId, anotherNamespace, snapshot("v1"));
+  }
+
+  @Test
+  public void testCommitNamespacesOfBatchTogether() {
+    ConfigSnapshotView before = snapshot();
+
+    transactionManager.begin(someAppId, Lists.newArrayList(someNamespace, anotherNamespace));
+    transactionManager.onConfigChanged(someAppId, someNamespace, snapshot("v2"),
+        changes(someNamespace, "v1", "v2"));
+    transactionManager.onSyncCompleted(someAppId, someNamespace);
+
+    // the batch is not committed until all the namespaces are synced
+    ConfigSnapshotView inBatch = snapshot();
+    assertEquals(before.getVersion(), inBatch.getVersion());
+    assertEquals("v1", inBatch.getProperty(someNamespace, someKey, null));
+    assertTrue(events.isEmpty());
+
+    transactionManager.onConfigChanged(someAppId, anotherNamespace, snapshot("v2"),
+        changes(anotherNamespace, "v1", "v2"));
+    transactionManager.onSyncCompleted(someAppId, anotherNamespace);
+
+    ConfigSnapshotView after = snapshot();
+    assertEquals(before.getVersion() + 1, after.getVersion());
+    assertEquals("v2", after.getProperty(someNamespace, someKey, null));
+    assertEquals("v2", after.getProperty(anotherNamespace, someKey, null));
+
+    assertEquals(1, events.size());
+    ConfigTransactionEvent event = events.get(0);
+    assertEquals(someAppId, event.getAppId());
+    assertEquals(after.getVersion(), event.getVersion());
+    assertEquals(2, event.changedNamespaces().size());
+    assertEquals("v2", event.getChangeEvent(someNamespace).getChange(someKey).getNewValue());
+    assertEquals("v2", event.getChangeEvent(anotherNamespace).getChange(someKey).getNewValue());
+    assertEquals("v2", event.getSnapshot().getProperty(anotherNamespace, someKey, null));
+  }
+
+  @Test
+  public void testCommitChangeOutsideBatchImmediately() {
+    transactionManager.begin(someAppId, Collections.singletonList(someNamespace));
+
+    transactionManager.onConfigChanged(someAppId, anotherNamespace, snapshot("v2"),
+        changes(anotherNamespace, "v1", "v2"));
+
+    assertEquals("v2", snapshot().getProperty(anotherNamespace, someKey, null));
+    assertEquals("v1", snapshot().getProperty(someNamespace, someKey, null));
+    assertEquals(1, events.size());
+    assertEquals(Collections.singleton(anotherNamespace), events.get(0).changedNamespaces());
+  }
+
+  @Test
+  public void testCommitSnapshotWithoutChanges() {
+    transactionManager.begin(someAppId, Collections.singletonList(someNamespace));
+    transactionManager.onConfigChanged(someAppId, someNamespace, snapshot("v2"),
+        Collections.<String, ConfigChange>emptyMap());
+    transactionManager.onSyncCompleted(someAppId, someNamespace);
+
+    assertEquals("v2", snapshot().getProperty(someNamespace, someKey, null));
+    assertTrue(events.isEmpty());
+  }
+
+  @Test
+  public void testCommitExpiredBatch() {
+    transactionManager.begin(someAppId, Lists.newArrayList(someNamespace, anotherNamespace));
+    transactionManager.onConfigChanged(someAppId, someNamespace, snapshot("v2"),
+        changes(someNamespace, "v1", "v2"));
+    transactionManager.onSyncCompleted(someAppId, someNamespace);
+
+    ArgumentCaptor<Runnable> expire = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService).schedule(expire.capture(), anyLong(), eq(TimeUnit.SECONDS));
+    expire.getValue().run();
+
+    assertEquals("v2", snapshot().getProperty(someNamespace, someKey, null));
+    assertEquals(1, events.size());
+
+    // the sync completed after the expiration is ignored
+    transactionManager.onSyncCompleted(someAppId, anotherNamespace);
+    assertEquals(1, events.size());
+  }
+
+  @Test
+  public void testSnapshotOfUnknownNamespace() {
+    ConfigSnapshotView view = transactionManager.snapshot(someAppId,
+        Lists.newArrayList(someNamespace, "unknownNamespace"));
+
+    assertEquals(Collections.singleton(someNamespace), view.getNamespaces());
+    assertEquals("default", view.getProperty("unknownNamespace", someKey, "default"));
+    assertTrue(view.getPropertyNames("unknownNamespace").isEmpty());
+    assertNull(view.getProperty(someNamespace, "unknownKey", null));
+  }
+
+  private ConfigSnapshotView snapshot() {
+    return transactionManager.snapshot(someAppId,
+        Lists.newArrayList(someNamespace, anotherNamespace));
+  }
+
+  private static ConfigSnapshot snapshot(String value) {
+    return ConfigSnapshot.of(ImmutableMap.of(someKey, value));
+  }
+
+  private static Map<String, ConfigChange> changes(String namespace, String oldValue,
+      String newValue) {
+    return ImmutableMap.of(someKey, new ConfigChange(someAppId, namespace, someKey, oldValue,
+        newValue, PropertyChangeType.MODIFIED));
+  }
+}
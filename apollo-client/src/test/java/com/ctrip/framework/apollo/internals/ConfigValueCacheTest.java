@@ -0,0 +1,143 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.ctrip.framework.apollo.internals.ConfigValueCache.Generation;
+import com.ctrip.framework.apollo.internals.ConfigValueCache.ValueType;
+import com.ctrip.framework.apollo.monitor.api.ApolloClientNamespaceMonitorApi.ValueCacheStats;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ConfigValueCacheTest {
+
+  private static final Object SOME_TOKEN = new Object();
+  private static final Object ANOTHER_TOKEN = new Object();
+
+  @Test
+  public void testGetAndPut() {
+    ConfigValueCache cache = new ConfigValueCache(10, 1, TimeUnit.MINUTES);
+    Generation generation = cache.current();
+
+    assertNull(generation.get(ValueType.INTEGER, SOME_TOKEN, "someKey"));
+
+    generation.put(ValueType.INTEGER, SOME_TOKEN, "someKey", 1);
+
+    assertEquals(1, (int) generation.get(ValueType.INTEGER, SOME_TOKEN, "someKey"));
+    assertNull(generation.get(ValueType.INTEGER, ANOTHER_TOKEN, "someKey"));
+    assertNull(generation.get(ValueType.LONG, SOME_TOKEN, "someKey"));
+  }
+
+  @Test
+  public void testInvalidateAllSwapsGeneration() {
+    ConfigValueCache cache = new ConfigValueCache(10, 1, TimeUnit.MINUTES);
+    Generation oldGeneration = cache.current();
+
+    cache.invalidateAll(1);
+
+    // a value parsed against the old version never reaches the new generation
+    oldGeneration.put(ValueType.INTEGER, SOME_TOKEN, "someKey", 1);
+
+    assertEquals(1, cache.current().version());
+    assertNull(cache.current().get(ValueType.INTEGER, SOME_TOKEN, "someKey"));
+  }
+
+  @Test
+  public void testEvictLeastRecentlyAccessed() throws Exception {
+    ConfigValueCache cache = new ConfigValueCache(2, 1, TimeUnit.MINUTES);
+    Generation generation = cache.current();
+
+    generation.put(ValueType.INTEGER, SOME_TOKEN, "someKey", 1);
+    TimeUnit.MILLISECONDS.sleep(5);
+    generation.put(ValueType.INTEGER, SOME_TOKEN, "anotherKey", 2);
+    generation.put(ValueType.LONG, SOME_TOKEN, "someKey", 1L);
+    generation.put(ValueType.ARRAY, ANOTHER_TOKEN, "someKey", new String[0]);
+    generation.put(ValueType.ARRAY, SOME_TOKEN, "someKey", new String[0]);
+    generation.put(ValueType.INTEGER, SOME_TOKEN, "yetAnotherKey", 3);
+
+    assertNull(generation.get(ValueType.INTEGER, SOME_TOKEN, "someKey"));
+    assertEquals(2, (int) generation.get(ValueType.INTEGER, SOME_TOKEN, "anotherKey"));
+    assertEquals(3, (int) generation.get(ValueType.INTEGER, SOME_TOKEN, "yetAnotherKey"));
+    // the size limit is per value type and token, like the caches per array delimiter before
+    assertEquals(1L, (long) generation.get(ValueType.LONG, SOME_TOKEN, "someKey"));
+    assertNotNull(generation.get(ValueType.ARRAY, SOME_TOKEN, "someKey"));
+    assertNotNull(generation.get(ValueType.ARRAY, ANOTHER_TOKEN, "someKey"));
+  }
+
+  @Test
+  public void testDisabledWithZeroMaxSize() {
+    ConfigValueCache cache = new ConfigValueCache(0, 1, TimeUnit.MINUTES);
+    Generation generation = cache.current();
+
+    generation.put(ValueType.INTEGER, SOME_TOKEN, "someKey", 1);
+
+    assertNull(generation.get(ValueType.INTEGER, SOME_TOKEN, "someKey"));
+  }
+
+  @Test
+  public void testExpireAfterAccess() throws Exception {
+    ConfigValueCache cache = new ConfigValueCache(10, 50, TimeUnit.MILLISECONDS);
+    Generation generation = cache.current();
+
+    generation.put(ValueType.INTEGER, SOME_TOKEN, "someKey", 1);
+    assertEquals(1, (int) generation.get(ValueType.INTEGER, SOME_TOKEN, "someKey"));
+
+    TimeUnit.MILLISECONDS.sleep(100);
+
+    assertNull(generation.get(ValueType.INTEGER, SOME_TOKEN, "someKey"));
+  }
+
+  @Test
+  public void testTokensPerTypeAreBounded() {
+    ConfigValueCache cache = new ConfigValueCache(1000, 1, TimeUnit.MINUTES);
+    Generation generation = cache.current();
+
+    for (int i = 0; i < 100; i++) {
+      generation.put(ValueType.FORMATTED_DATE, new Object(), "someKey", i);
+    }
+    Object lastToken = new Object();
+    generation.put(ValueType.FORMATTED_DATE, lastToken, "someKey", 100);
+
+    assertNull(generation.get(ValueType.FORMATTED_DATE, lastToken, "someKey"));
+  }
+
+  @Test
+  public void testStats() {
+    ConfigValueCache cache = new ConfigValueCache(10, 1, TimeUnit.MINUTES);
+    Generation generation = cache.current();
+
+    generation.get(ValueType.BOOLEAN, SOME_TOKEN, "someKey");
+    generation.put(ValueType.BOOLEAN, SOME_TOKEN, "someKey", true);
+    generation.get(ValueType.BOOLEAN, SOME_TOKEN, "someKey");
+    generation.get(ValueType.BOOLEAN, SOME_TOKEN, "someKey");
+    cache.invalidateAll(1);
+    cache.current().get(ValueType.BOOLEAN, SOME_TOKEN, "someKey");
+
+    Map<String, ValueCacheStats> stats = cache.stats();
+
+    assertEquals(1, stats.size());
+    assertTrue(stats.containsKey("Boolean"));
+    assertEquals(2, stats.get("Boolean").getHitCount());
+    assertEquals(2, stats.get("Boolean").getMissCount());
+    assertEquals(0.5, stats.get("Boolean").getHitRate(), 0.0001);
+  }
+}
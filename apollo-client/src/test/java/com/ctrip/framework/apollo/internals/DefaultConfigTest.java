@@ -20,13 +20,19 @@ import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.monitor.api.ApolloClientNamespaceMonitorApi.ValueCacheStats;
 import com.ctrip.framework.apollo.util.OrderedProperties;
 import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
 import com.google.common.collect.Maps;
@@ -39,6 +45,8 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Function;
@@ -51,6 +59,7 @@ import org.junit.Test;
 
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.ConfigValueConstraints;
 import com.ctrip.framework.apollo.build.MockInjector;
 import com.ctrip.framework.apollo.core.utils.ClassLoaderUtil;
 import com.ctrip.framework.apollo.enums.PropertyChangeType;
@@ -95,6 +104,7 @@ public class DefaultConfigTest {
     someAppId = "someAppId";
     someNamespace = "someName";
     configRepository = mock(ConfigRepository.class);
+    when(configRepository.getConfigSnapshot()).thenCallRealMethod();
   }
 
   @After
@@ -599,6 +609,116 @@ public class DefaultConfigTest {
     assertEquals(someDefaultValue, defaultConfig.getEnumProperty("stringProperty", SomeEnum.class, someDefaultValue));
   }
 
+  @Test
+  public void testGetEnumPropertyMultipleTimesWithCache() throws Exception {
+    String someKey = "someKey";
+
+    //set up config repo
+    someProperties = mock(Properties.class);
+    when(someProperties.getProperty(someKey)).thenReturn("someValue");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someAppId, someNamespace, configRepository);
+
+    assertEquals(SomeEnum.someValue,
+        defaultConfig.getEnumProperty(someKey, SomeEnum.class, SomeEnum.defaultValue));
+    assertEquals(SomeEnum.someValue,
+        defaultConfig.getEnumProperty(someKey, SomeEnum.class, SomeEnum.defaultValue));
+
+    verify(someProperties, times(1)).getProperty(someKey);
+
+    Map<String, ValueCacheStats> stats = defaultConfig.getValueCacheStats();
+    assertEquals(1, stats.get("Enum").getHitCount());
+    assertEquals(1, stats.get("Enum").getMissCount());
+  }
+
+  @Test
+  public void testGetDatePropertyWithFormatMultipleTimesWithCacheAndValueChanges() throws Exception {
+    String someKey = "someKey";
+    String someFormat = "yyyy-MM-dd";
+    Date someDefaultValue = new Date();
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, "2016-09-28");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someAppId, someNamespace, configRepository);
+
+    assertEquals(assembleDate(2016, 9, 28, 0, 0, 0, 0),
+        defaultConfig.getDateProperty(someKey, someFormat, someDefaultValue));
+    assertEquals(assembleDate(2016, 9, 28, 0, 0, 0, 0),
+        defaultConfig.getDateProperty(someKey, someFormat, someDefaultValue));
+
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty(someKey, "2017-10-29");
+    defaultConfig.onRepositoryChange(someNamespace, anotherProperties);
+
+    assertEquals(assembleDate(2017, 10, 29, 0, 0, 0, 0),
+        defaultConfig.getDateProperty(someKey, someFormat, someDefaultValue));
+
+    ValueCacheStats stats = defaultConfig.getValueCacheStats().get("FormattedDate");
+    assertEquals(1, stats.getHitCount());
+    assertEquals(2, stats.getMissCount());
+  }
+
+  @Test
+  public void testGetDatePropertyWithFormatAndLocaleMultipleTimesWithCache() throws Exception {
+    String someKey = "someKey";
+    String someFormat = "yyyy-MM-dd";
+    Date someDefaultValue = new Date();
+
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, "2016-09-28");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someAppId, someNamespace, configRepository);
+
+    Date date = defaultConfig.getDateProperty(someKey, someFormat, Locale.US, someDefaultValue);
+    assertEquals(assembleDate(2016, 9, 28, 0, 0, 0, 0), date);
+    assertSame(date, defaultConfig.getDateProperty(someKey, someFormat, Locale.US,
+        someDefaultValue));
+    // another locale is another token
+    assertEquals(date, defaultConfig.getDateProperty(someKey, someFormat, Locale.CHINA,
+        someDefaultValue));
+
+    ValueCacheStats stats = defaultConfig.getValueCacheStats().get("FormattedDate");
+    assertEquals(1, stats.getHitCount());
+    assertEquals(2, stats.getMissCount());
+  }
+
+  @Test
+  public void testGetPropertyWithFunctionMultipleTimesWithoutCache() throws Exception {
+    String someKey = "someKey";
+
+    //set up config repo
+    someProperties = mock(Properties.class);
+    when(someProperties.getProperty(someKey)).thenReturn("a,b,c");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someAppId, someNamespace, configRepository);
+
+    Function<String, List<String>> someFunction = new Function<String, List<String>>() {
+      @Override
+      public List<String> apply(String input) {
+        return Lists.newArrayList(Splitter.on(",").split(input));
+      }
+    };
+
+    List<String> someResult = defaultConfig.getProperty(someKey, someFunction, null);
+    List<String> anotherResult = defaultConfig.getProperty(someKey, someFunction, null);
+
+    assertEquals(Lists.newArrayList("a", "b", "c"), someResult);
+    assertEquals(Lists.newArrayList("a", "b", "c"), anotherResult);
+    assertNotSame(someResult, anotherResult);
+
+    verify(someProperties, times(2)).getProperty(someKey);
+  }
+
   @Test
   public void testGetDurationProperty() throws Exception {
     long someDefaultValue = 1000;
@@ -707,6 +827,124 @@ public class DefaultConfigTest {
     assertEquals(anotherSourceType, defaultConfig.getSourceType());
   }
 
+  @Test
+  public void testOnRepositoryChangeWithSnapshot() throws Exception {
+    Map<String, String> configurations = Maps.newLinkedHashMap();
+    for (int i = 0; i < 10; i++) {
+      configurations.put("someKey" + i, "someValue" + i);
+    }
+    ConfigSnapshot someSnapshot = ConfigSnapshot.of(configurations);
+    doReturn(someSnapshot).when(configRepository).getConfigSnapshot();
+    when(configRepository.getSourceType()).thenReturn(ConfigSourceType.REMOTE);
+
+    DefaultConfig defaultConfig = new DefaultConfig(someAppId, someNamespace, configRepository);
+
+    final SettableFuture<ConfigChangeEvent> configChangeFuture = SettableFuture.create();
+    defaultConfig.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        configChangeFuture.set(changeEvent);
+      }
+    });
+
+    Map<String, String> changes = Maps.newHashMap();
+    changes.put("someKey1", "anotherValue");
+    changes.put("someKey2", null);
+    ConfigSnapshot anotherSnapshot = someSnapshot.apply(changes);
+
+    // the same snapshot is ignored
+    defaultConfig.onRepositoryChange(someAppId, someNamespace, someSnapshot);
+    defaultConfig.onRepositoryChange(someAppId, someNamespace, anotherSnapshot);
+
+    ConfigChangeEvent changeEvent = configChangeFuture.get(500, TimeUnit.MILLISECONDS);
+
+    assertEquals(2, changeEvent.changedKeys().size());
+    assertEquals(PropertyChangeType.MODIFIED, changeEvent.getChange("someKey1").getChangeType());
+    assertEquals("anotherValue", changeEvent.getChange("someKey1").getNewValue());
+    assertEquals(PropertyChangeType.DELETED, changeEvent.getChange("someKey2").getChangeType());
+    assertEquals("anotherValue", defaultConfig.getProperty("someKey1", null));
+    assertNull(defaultConfig.getProperty("someKey2", null));
+    assertEquals(9, defaultConfig.getPropertyNames().size());
+  }
+
+  @Test
+  public void testRejectChangesViolatingConstraints() throws Exception {
+    Map<String, String> configurations = Maps.newLinkedHashMap();
+    configurations.put("port", "8080");
+    configurations.put("timeout.read", "100");
+    configurations.put("name", "someName");
+    ConfigSnapshot someSnapshot = ConfigSnapshot.of(configurations);
+    doReturn(someSnapshot).when(configRepository).getConfigSnapshot();
+    when(configRepository.getSourceType()).thenReturn(ConfigSourceType.REMOTE);
+
+    DefaultConfig defaultConfig = new DefaultConfig(someAppId, someNamespace, configRepository);
+    defaultConfig.addConstraint("port", ConfigValueConstraints.inRange(1, 65535));
+    defaultConfig.addPrefixConstraint("timeout.", ConfigValueConstraints.isInt());
+
+    final List<ConfigChangeEvent> changeEvents = new CopyOnWriteArrayList<>();
+    defaultConfig.addChangeListener(changeEvents::add);
+
+    Map<String, String> changes = Maps.newHashMap();
+    changes.put("port", "abc");
+    changes.put("timeout.read", "1s");
+    changes.put("timeout.write", "2s");
+    changes.put("name", "anotherName");
+    ConfigSnapshot invalidSnapshot = someSnapshot.apply(changes);
+    defaultConfig.onRepositoryChange(someAppId, someNamespace, invalidSnapshot);
+
+    // the rejected keys keep the last good values and are not notified
+    assertEquals(8080, defaultConfig.getIntProperty("port", 0).intValue());
+    assertEquals(100, defaultConfig.getIntProperty("timeout.read", 0).intValue());
+    assertNull(defaultConfig.getProperty("timeout.write", null));
+    assertEquals("anotherName", defaultConfig.getProperty("name", null));
+
+    await().atMost(500, TimeUnit.MILLISECONDS).until(() -> changeEvents.size() == 1);
+    assertEquals(Collections.singleton("name"), changeEvents.get(0).changedKeys());
+
+    // the repository still holds the rejected values on the next sync
+    defaultConfig.onRepositoryChange(someAppId, someNamespace, invalidSnapshot);
+
+    assertEquals(8080, defaultConfig.getIntProperty("port", 0).intValue());
+    assertNull(defaultConfig.getProperty("timeout.write", null));
+    TimeUnit.MILLISECONDS.sleep(100);
+    assertEquals(1, changeEvents.size());
+
+    // a valid release is applied on top of the last good values
+    defaultConfig.onRepositoryChange(someAppId, someNamespace,
+        invalidSnapshot.apply(ImmutableMap.of("port", "9090")));
+
+    assertEquals(9090, defaultConfig.getIntProperty("port", 0).intValue());
+    await().atMost(500, TimeUnit.MILLISECONDS).until(() -> changeEvents.size() == 2);
+    ConfigChange portChange = changeEvents.get(1).getChange("port");
+    assertEquals("8080", portChange.getOldValue());
+    assertEquals("9090", portChange.getNewValue());
+    assertEquals(Collections.singleton("port"), changeEvents.get(1).changedKeys());
+  }
+
+  @Test
+  public void testKeepCurrentValuesViolatingConstraintsAdded() throws Exception {
+    Map<String, String> configurations = Maps.newLinkedHashMap();
+    configurations.put("port", "abc");
+    configurations.put("timeout.read", "1s");
+    ConfigSnapshot someSnapshot = ConfigSnapshot.of(configurations);
+    doReturn(someSnapshot).when(configRepository).getConfigSnapshot();
+    when(configRepository.getSourceType()).thenReturn(ConfigSourceType.REMOTE);
+
+    DefaultConfig defaultConfig = new DefaultConfig(someAppId, someNamespace, configRepository);
+    defaultConfig.addConstraint("port", ConfigValueConstraints.inRange(1, 65535));
+    defaultConfig.addPrefixConstraint("timeout.", ConfigValueConstraints.isInt());
+
+    // the loaded values are only checked, not rejected
+    assertEquals("abc", defaultConfig.getProperty("port", null));
+    assertEquals("1s", defaultConfig.getProperty("timeout.read", null));
+
+    defaultConfig.onRepositoryChange(someAppId, someNamespace,
+        someSnapshot.apply(ImmutableMap.of("port", "8080", "timeout.read", "2s")));
+
+    assertEquals(8080, defaultConfig.getIntProperty("port", 0).intValue());
+    assertEquals("1s", defaultConfig.getProperty("timeout.read", null));
+  }
+
   @Test
   public void testFireConfigChangeWithInterestedKeys() throws Exception {
     String someKeyChanged = "someKeyChanged";
@@ -845,6 +1083,43 @@ public class DefaultConfigTest {
     assertEquals(someProperties.stringPropertyNames(), propertyNames);
   }
 
+  @Test
+  public void testGetPropertyNamesRebuiltOnlyOnRepositoryChange() {
+    someProperties = new Properties();
+    someProperties.setProperty("someKey", "someValue");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig = new DefaultConfig(someAppId, someNamespace, configRepository);
+
+    Set<String> propertyNames = defaultConfig.getPropertyNames();
+    assertSame(propertyNames, defaultConfig.getPropertyNames());
+    try {
+      propertyNames.add("anotherKey");
+      fail("the shared property names should be unmodifiable");
+    } catch (UnsupportedOperationException ex) {
+      // expected
+    }
+
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty("someKey", "someValue");
+    anotherProperties.setProperty("anotherKey", "anotherValue");
+    defaultConfig.onRepositoryChange(someNamespace, anotherProperties);
+
+    Set<String> anotherPropertyNames = defaultConfig.getPropertyNames();
+    assertNotSame(propertyNames, anotherPropertyNames);
+    assertEquals(anotherProperties.stringPropertyNames(), anotherPropertyNames);
+    assertSame(anotherPropertyNames, defaultConfig.getPropertyNames());
+
+    // a change of the values only keeps the names
+    Properties changedValueProperties = new Properties();
+    changedValueProperties.setProperty("someKey", "someChangedValue");
+    changedValueProperties.setProperty("anotherKey", "anotherValue");
+    defaultConfig.onRepositoryChange(someNamespace, changedValueProperties);
+
+    assertEquals("someChangedValue", defaultConfig.getProperty("someKey", null));
+    assertSame(anotherPropertyNames, defaultConfig.getPropertyNames());
+  }
+
   @Test
   public void testGetPropertyNamesWithOrderedProperties() {
     String someKeyPrefix = "someKey";
@@ -22,25 +22,34 @@ import com.ctrip.framework.apollo.kubernetes.KubernetesManager;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.ctrip.framework.apollo.util.escape.EscapeUtil;
 import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
 import io.kubernetes.client.openapi.models.V1ConfigMap;
 import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodList;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.OffsetDateTime;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 public class K8sConfigMapConfigRepositoryTest {
     private static String someAppId = "someApp";
     private static String someCluster = "someCluster";
+    private static long someWriteDebounceInMillis;
     private String someNamespace = "default";
     private static final String someConfigmapName = "apollo-configcache-someApp";
 
@@ -58,12 +67,15 @@ public class K8sConfigMapConfigRepositoryTest {
 
 
     @Before
-    public void setUp() {
+    public void setUp() throws Exception {
+        someWriteDebounceInMillis = 0;
         // mock configUtil
         MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil());
         // mock kubernetesManager
         kubernetesManager = mock(KubernetesManager.class);
         MockInjector.setInstance(KubernetesManager.class, kubernetesManager);
+        when(kubernetesManager.isWritePod(anyString())).thenReturn(true);
+        when(kubernetesManager.updateConfigMap(anyString(), anyString(), anyMap())).thenReturn(true);
 
         // mock upstream
         someProperties = new Properties();
@@ -175,6 +187,120 @@ public class K8sConfigMapConfigRepositoryTest {
         verify(kubernetesManager, times(1)).updateConfigMap(anyString(), anyString(), anyMap());
     }
 
+    @Test
+    public void testSkipPersistingUnchangedConfig() throws ApiException {
+        Properties properties = new Properties();
+        properties.setProperty("k1", "v1");
+        properties.setProperty("k2", "v2");
+        Properties sameProperties = new Properties();
+        sameProperties.setProperty("k2", "v2");
+        sameProperties.setProperty("k1", "v1");
+        Properties changedProperties = new Properties();
+        changedProperties.setProperty("k1", "v1");
+
+        k8sConfigMapConfigRepository.persistConfigMap(properties);
+        k8sConfigMapConfigRepository.persistConfigMap(sameProperties);
+        verify(kubernetesManager, times(1)).updateConfigMap(anyString(), anyString(), anyMap());
+
+        k8sConfigMapConfigRepository.persistConfigMap(changedProperties);
+        verify(kubernetesManager, times(2)).updateConfigMap(anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    public void testSkipWritingContentAlreadyInConfigMap() throws ApiException {
+        Properties properties = new Properties();
+        properties.setProperty(defaultKey, defaultValue);
+        properties.setProperty("anotherKey", "anotherValue");
+        // written by another pod in another order
+        when(kubernetesManager.getValueFromConfigMap(anyString(), anyString(), anyString()))
+                .thenReturn("{\"anotherKey\":\"anotherValue\",\"" + defaultKey + "\":\"" + defaultValue + "\"}");
+
+        k8sConfigMapConfigRepository.persistConfigMap(properties);
+        k8sConfigMapConfigRepository.persistConfigMap(properties);
+
+        verify(kubernetesManager, never()).updateConfigMap(anyString(), anyString(), anyMap());
+        verify(kubernetesManager, times(1)).getValueFromConfigMap(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testSkipPersistingWhenNotWritePod() throws ApiException {
+        Properties properties = new Properties();
+        properties.setProperty(defaultKey, defaultValue);
+        when(kubernetesManager.isWritePod(anyString())).thenReturn(false).thenReturn(true);
+
+        k8sConfigMapConfigRepository.persistConfigMap(properties);
+
+        verify(kubernetesManager, never()).getValueFromConfigMap(anyString(), anyString(), anyString());
+        verify(kubernetesManager, never()).updateConfigMap(anyString(), anyString(), anyMap());
+
+        // elected later, e.g. the previous write pod is gone, the content is not written yet
+        k8sConfigMapConfigRepository.persistConfigMap(properties);
+
+        verify(kubernetesManager, times(1)).updateConfigMap(anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    public void testPersistAgainAfterFailure() throws ApiException {
+        Properties properties = new Properties();
+        properties.setProperty(defaultKey, defaultValue);
+        when(kubernetesManager.updateConfigMap(anyString(), anyString(), anyMap()))
+                .thenThrow(new ApiException("some error")).thenReturn(true);
+
+        k8sConfigMapConfigRepository.persistConfigMap(properties);
+        k8sConfigMapConfigRepository.persistConfigMap(properties);
+        k8sConfigMapConfigRepository.persistConfigMap(properties);
+
+        verify(kubernetesManager, times(2)).updateConfigMap(anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    public void testCoalesceConfigMapWrites() throws Exception {
+        someWriteDebounceInMillis = 200;
+        String someLocalPodName = "somePod";
+        CoreV1Api coreV1Api = mock(CoreV1Api.class);
+        V1ObjectMeta podMetadata = new V1ObjectMeta().name(someLocalPodName)
+                .creationTimestamp(OffsetDateTime.now())
+                .labels(Collections.singletonMap("app", someAppId));
+        when(coreV1Api.readNamespacedPod(someLocalPodName, someNamespace, null))
+                .thenReturn(new V1Pod().metadata(podMetadata));
+        when(coreV1Api.listNamespacedPod(eq(someNamespace), isNull(), isNull(), isNull(), anyString(),
+                eq("app=" + someAppId), anyInt(), isNull(), isNull(), isNull(), isNull()))
+                .thenReturn(new V1PodList().addItemsItem(new V1Pod().metadata(podMetadata)));
+        when(coreV1Api.readNamespacedConfigMap(someConfigmapName, someNamespace, null))
+                .thenAnswer(invocation -> new V1ConfigMap()
+                        .metadata(new V1ObjectMeta().name(someConfigmapName).namespace(someNamespace))
+                        .data(new HashMap<>()));
+        MockInjector.setInstance(KubernetesManager.class,
+                new KubernetesManager(coreV1Api, someLocalPodName));
+        K8sConfigMapConfigRepository repository =
+                new K8sConfigMapConfigRepository(someAppId, someNamespace, upstreamRepo);
+
+        for (int i = 0; i < 10; i++) {
+            Properties newProperties = new Properties();
+            newProperties.setProperty(defaultKey, "value" + i);
+            repository.onRepositoryChange(someAppId, someNamespace, newProperties);
+        }
+
+        ArgumentCaptor<V1ConfigMap> configMapCaptor = ArgumentCaptor.forClass(V1ConfigMap.class);
+        verify(coreV1Api, timeout(5000).times(1)).replaceNamespacedConfigMap(eq(someConfigmapName),
+                eq(someNamespace), configMapCaptor.capture(), isNull(), isNull(), isNull(), isNull());
+        String persisted = configMapCaptor.getValue().getData()
+                .get(EscapeUtil.createConfigMapKey(someCluster, someNamespace));
+        assertTrue(persisted.contains("value9"));
+
+        // the same content is not written again
+        Properties sameProperties = new Properties();
+        sameProperties.setProperty(defaultKey, "value9");
+        repository.persistConfigMap(sameProperties);
+        TimeUnit.MILLISECONDS.sleep(someWriteDebounceInMillis * 2);
+
+        verify(coreV1Api, times(1)).replaceNamespacedConfigMap(anyString(), anyString(),
+                any(V1ConfigMap.class), isNull(), isNull(), isNull(), isNull());
+        // the write token is reused
+        verify(coreV1Api, times(1)).listNamespacedPod(anyString(), isNull(), isNull(), isNull(),
+                anyString(), anyString(), anyInt(), isNull(), isNull(), isNull(), isNull());
+    }
+
     @Test
     public void testLoadFromK8sConfigMapSuccess() {
         when(kubernetesManager.getValueFromConfigMap(anyString(), anyString(), anyString())).thenReturn(defaultJsonValue);
@@ -194,6 +320,11 @@ public class K8sConfigMapConfigRepositoryTest {
         public String getCluster() {
             return someCluster;
         }
+
+        @Override
+        public long getK8sConfigMapWriteDebounceInMillis() {
+            return someWriteDebounceInMillis;
+        }
     }
 
 }
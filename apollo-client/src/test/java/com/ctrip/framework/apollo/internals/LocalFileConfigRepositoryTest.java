@@ -16,7 +16,12 @@
  */
 package com.ctrip.framework.apollo.internals;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -24,10 +29,15 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
 import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
 import java.util.Properties;
 
 import org.junit.After;
@@ -71,6 +81,7 @@ public class LocalFileConfigRepositoryTest {
     someSourceType = ConfigSourceType.REMOTE;
     upstreamRepo = mock(ConfigRepository.class);
     when(upstreamRepo.getConfig()).thenReturn(someProperties);
+    when(upstreamRepo.getConfigSnapshot()).thenCallRealMethod();
     when(upstreamRepo.getSourceType()).thenReturn(someSourceType);
 
     MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil());
@@ -203,14 +214,162 @@ public class LocalFileConfigRepositoryTest {
 
     localFileConfigRepository.onRepositoryChange(someAppId, someNamespace, anotherProperties);
 
-    final ArgumentCaptor<Properties> captor = ArgumentCaptor.forClass(Properties.class);
+    final ArgumentCaptor<ConfigSnapshot> captor = ArgumentCaptor.forClass(ConfigSnapshot.class);
 
     verify(someListener, times(1)).onRepositoryChange(eq(someAppId), eq(someNamespace), captor.capture());
 
-    assertEquals(anotherProperties, captor.getValue());
+    assertEquals(anotherProperties, captor.getValue().toProperties());
+    assertSame(captor.getValue(), localFileConfigRepository.getConfigSnapshot());
     assertEquals(anotherSourceType, localFileConfigRepository.getSourceType());
   }
 
+  @Test
+  public void testPersistLocalCacheFileWithChecksumHeader() throws Exception {
+    LocalFileConfigRepository localRepo =
+        new LocalFileConfigRepository(someAppId, someNamespace, upstreamRepo);
+    localRepo.setLocalCacheDir(someBaseDir, true);
+
+    byte[] data = java.nio.file.Files.readAllBytes(
+        new File(someBaseDir, assembleLocalCacheFileName()).toPath());
+    assertTrue(new String(data, Charsets.ISO_8859_1).startsWith("#Apollo-Local-Cache: version=1"));
+
+    // the header is a comment, so the file is still a valid properties file
+    Properties properties = new Properties();
+    properties.load(new ByteArrayInputStream(data));
+    assertEquals(someProperties, properties);
+    assertFalse(new File(someBaseDir, assembleLocalCacheFileName() + ".bak").exists());
+  }
+
+  @Test
+  public void testLoadConfigWithTruncatedLocalFileFallsBackToLastGoodGeneration()
+      throws Exception {
+    LocalFileConfigRepository localRepo =
+        new LocalFileConfigRepository(someAppId, someNamespace, upstreamRepo);
+    localRepo.setLocalCacheDir(someBaseDir, true);
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty("anotherKey", "anotherValue");
+    localRepo.onRepositoryChange(someAppId, someNamespace, anotherProperties);
+
+    File file = new File(someBaseDir, assembleLocalCacheFileName());
+    byte[] data = java.nio.file.Files.readAllBytes(file.toPath());
+
+    // simulate a crash at every offset of an in place write
+    for (int offset = 0; offset < data.length; offset++) {
+      java.nio.file.Files.write(file.toPath(), Arrays.copyOf(data, offset));
+
+      LocalFileConfigRepository anotherLocalRepo =
+          new LocalFileConfigRepository(someAppId, someNamespace);
+      anotherLocalRepo.setLocalCacheDir(someBaseDir, true);
+
+      assertEquals("offset " + offset, someProperties, anotherLocalRepo.getConfig());
+    }
+
+    java.nio.file.Files.write(file.toPath(), data);
+    LocalFileConfigRepository anotherLocalRepo =
+        new LocalFileConfigRepository(someAppId, someNamespace);
+    anotherLocalRepo.setLocalCacheDir(someBaseDir, true);
+    assertEquals(anotherProperties, anotherLocalRepo.getConfig());
+  }
+
+  @Test
+  public void testLoadConfigWithCorruptedLocalFileAndNoBackup() throws Exception {
+    File file = new File(someBaseDir, assembleLocalCacheFileName());
+    byte[] data = LocalFileConfigRepository.encodeLocalCacheFile(
+        (defaultKey + "=" + defaultValue).getBytes(Charsets.ISO_8859_1));
+    // flip one bit of the content
+    data[data.length - 1] ^= 1;
+    java.nio.file.Files.write(file.toPath(), data);
+
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someAppId, someNamespace);
+    localRepo.setLocalCacheDir(someBaseDir, false);
+    try {
+      localRepo.getConfig();
+      fail("Expected ApolloConfigException");
+    } catch (ApolloConfigException ex) {
+      assertEquals(ConfigSourceType.NONE, localRepo.getSourceType());
+    }
+  }
+
+  @Test
+  public void testPersistLocalCacheFileKeepsBackupWhenCurrentFileIsCorrupted() throws Exception {
+    LocalFileConfigRepository localRepo =
+        new LocalFileConfigRepository(someAppId, someNamespace, upstreamRepo);
+    localRepo.setLocalCacheDir(someBaseDir, true);
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty("anotherKey", "anotherValue");
+    localRepo.onRepositoryChange(someAppId, someNamespace, anotherProperties);
+
+    File file = new File(someBaseDir, assembleLocalCacheFileName());
+    File backupFile = new File(someBaseDir, assembleLocalCacheFileName() + ".bak");
+    byte[] backupData = java.nio.file.Files.readAllBytes(backupFile.toPath());
+    byte[] data = java.nio.file.Files.readAllBytes(file.toPath());
+    // flip one bit of the content
+    data[data.length - 1] ^= 1;
+    java.nio.file.Files.write(file.toPath(), data);
+
+    Properties yetAnotherProperties = new Properties();
+    yetAnotherProperties.setProperty("yetAnotherKey", "yetAnotherValue");
+    localRepo.onRepositoryChange(someAppId, someNamespace, yetAnotherProperties);
+
+    assertArrayEquals(backupData, java.nio.file.Files.readAllBytes(backupFile.toPath()));
+    LocalFileConfigRepository anotherLocalRepo =
+        new LocalFileConfigRepository(someAppId, someNamespace);
+    anotherLocalRepo.setLocalCacheDir(someBaseDir, true);
+    assertEquals(yetAnotherProperties, anotherLocalRepo.getConfig());
+  }
+
+  @Test
+  public void testPersistLocalCacheFileKilledAtArbitraryOffsets() throws Exception {
+    LocalFileConfigRepository localRepo =
+        new LocalFileConfigRepository(someAppId, someNamespace, upstreamRepo);
+    localRepo.setLocalCacheDir(someBaseDir, true);
+
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty("anotherKey", "anotherValue");
+    byte[] anotherContent = LocalFileConfigRepository.encodeLocalCacheFile(
+        "anotherKey=anotherValue".getBytes(Charsets.ISO_8859_1));
+
+    for (int offset = 0; offset < anotherContent.length; offset += 7) {
+      LocalFileConfigRepository crashingRepo =
+          new CrashingLocalFileConfigRepository(someAppId, someNamespace, upstreamRepo, offset);
+      crashingRepo.setLocalCacheDir(someBaseDir, true);
+
+      crashingRepo.onRepositoryChange(someAppId, someNamespace, anotherProperties);
+
+      LocalFileConfigRepository anotherLocalRepo =
+          new LocalFileConfigRepository(someAppId, someNamespace);
+      anotherLocalRepo.setLocalCacheDir(someBaseDir, true);
+      assertEquals("offset " + offset, someProperties, anotherLocalRepo.getConfig());
+      assertEquals(0, someBaseDir.listFiles((dir, name) -> name.endsWith(".tmp")).length);
+    }
+  }
+
+  /**
+   * Writes the first bytes of the new generation only, then fails like the process is killed.
+   */
+  private static class CrashingLocalFileConfigRepository extends LocalFileConfigRepository {
+    private final int m_crashOffset;
+    private boolean m_initialized;
+
+    CrashingLocalFileConfigRepository(String appId, String namespace, ConfigRepository upstream,
+        int crashOffset) {
+      super(appId, namespace, upstream);
+      m_crashOffset = crashOffset;
+    }
+
+    @Override
+    void writeLocalCacheContent(FileChannel channel, byte[] content) throws IOException {
+      if (!m_initialized) {
+        // the first write persists the current generation again
+        m_initialized = true;
+        super.writeLocalCacheContent(channel, content);
+        return;
+      }
+      channel.write(ByteBuffer.wrap(content, 0, Math.min(m_crashOffset, content.length)));
+      throw new IOException("Simulated crash at offset " + m_crashOffset);
+    }
+  }
+
   public static class MockConfigUtil extends ConfigUtil {
     @Override
     public String getAppId() {
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorConstant.APOLLO_CLIENT_NAMESPACE_USAGE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Maps;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NamespaceUsageRecorderTest {
+
+  private Map<String, Integer> reported;
+  private NamespaceUsageRecorder recorder;
+
+  @Before
+  public void setUp() {
+    reported = Maps.newConcurrentMap();
+    recorder = new NamespaceUsageRecorder((name, count) -> reported.merge(name, count, Integer::sum));
+  }
+
+  @Test
+  public void testFlushInBatch() {
+    String someNamespace = "someNamespace";
+    String anotherNamespace = "anotherNamespace";
+
+    for (int i = 0; i < 3; i++) {
+      recorder.record(someNamespace);
+    }
+    recorder.record(anotherNamespace);
+    recorder.flush();
+
+    assertEquals(2, reported.size());
+    assertEquals(3, (int) reported.get(APOLLO_CLIENT_NAMESPACE_USAGE + ":" + someNamespace));
+    assertEquals(1, (int) reported.get(APOLLO_CLIENT_NAMESPACE_USAGE + ":" + anotherNamespace));
+  }
+
+  @Test
+  public void testFlushOnlyUsagesSinceLastFlush() {
+    String someNamespace = "someNamespace";
+
+    recorder.record(someNamespace);
+    recorder.flush();
+    reported.clear();
+
+    recorder.flush();
+    assertTrue(reported.isEmpty());
+
+    recorder.record(someNamespace);
+    recorder.record(someNamespace);
+    recorder.flush();
+    assertEquals(2, (int) reported.get(APOLLO_CLIENT_NAMESPACE_USAGE + ":" + someNamespace));
+  }
+
+  @Test
+  public void testRecordConcurrently() throws Exception {
+    String someNamespace = "someNamespace";
+    int threads = 8;
+    int usagesPerThread = 10000;
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    CountDownLatch done = new CountDownLatch(threads);
+
+    for (int i = 0; i < threads; i++) {
+      executorService.submit(() -> {
+        for (int j = 0; j < usagesPerThread; j++) {
+          recorder.record(someNamespace);
+          if (j % 1000 == 0) {
+            recorder.flush();
+          }
+        }
+        done.countDown();
+      });
+    }
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    recorder.flush();
+    executorService.shutdown();
+
+    assertEquals(threads * usagesPerThread,
+        (int) reported.get(APOLLO_CLIENT_NAMESPACE_USAGE + ":" + someNamespace));
+  }
+}
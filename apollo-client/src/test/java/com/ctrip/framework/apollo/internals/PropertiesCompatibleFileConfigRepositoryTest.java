@@ -115,7 +115,8 @@ public class PropertiesCompatibleFileConfigRepositoryTest {
 
   @Test
   public void testOnChange() throws Exception {
-    Properties anotherProperties = mock(Properties.class);
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty("someKey", "someValue");
     ConfigFileChangeEvent someChangeEvent = mock(ConfigFileChangeEvent.class);
 
     RepositoryChangeListener someListener = mock(RepositoryChangeListener.class);
@@ -132,6 +133,7 @@ public class PropertiesCompatibleFileConfigRepositoryTest {
     configFileRepository.onChange(someChangeEvent);
 
     assertSame(anotherProperties, configFileRepository.getConfig());
-    verify(someListener, times(1)).onRepositoryChange(someAppId, someNamespaceName, anotherProperties);
+    verify(someListener, times(1))
+        .onRepositoryChange(someAppId, someNamespaceName, ConfigSnapshot.copyOf(anotherProperties));
   }
 }
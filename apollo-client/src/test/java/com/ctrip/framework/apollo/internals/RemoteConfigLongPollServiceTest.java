@@ -21,6 +21,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -71,6 +72,8 @@ public class RemoteConfigLongPollServiceTest {
   private HttpClient httpClient;
   @Mock
   private ConfigServiceLocator configServiceLocator;
+  @Mock
+  private ConfigTransactionManager transactionManager;
   private Type responseType;
 
   private static String someServerUrl;
@@ -92,6 +95,7 @@ public class RemoteConfigLongPollServiceTest {
     MockInjector.setInstance(ConfigServiceLocator.class, configServiceLocator);
 
     MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil());
+    MockInjector.setInstance(ConfigTransactionManager.class, transactionManager);
 
     remoteConfigLongPollService = new RemoteConfigLongPollService();
 
@@ -410,6 +414,10 @@ public class RemoteConfigLongPollServiceTest {
     ApolloNotificationMessages anotherResult = anotherCaptor.getValue();
     assertEquals(1, anotherResult.getDetails().size());
     assertEquals(anotherNotificationId, anotherResult.get(anotherKey).longValue());
+
+    // the namespaces notified by the same response are committed together
+    verify(transactionManager, atLeastOnce())
+        .begin(someAppId, Lists.newArrayList(someNamespace, anotherNamespace));
   }
 
   @Test
@@ -19,6 +19,7 @@ package com.ctrip.framework.apollo.internals;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
@@ -29,6 +30,8 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
 
 import com.ctrip.framework.apollo.build.MockInjector;
 import com.ctrip.framework.apollo.core.dto.ApolloConfig;
@@ -41,12 +44,15 @@ import com.ctrip.framework.apollo.core.signature.Signature;
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.ctrip.framework.apollo.spi.ConfigServiceLoadBalancerClient;
+import com.ctrip.framework.apollo.spi.HealthAwareConfigServiceLoadBalancerClient;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.ctrip.framework.apollo.util.OrderedProperties;
 import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
 import com.ctrip.framework.apollo.util.http.HttpRequest;
 import com.ctrip.framework.apollo.util.http.HttpResponse;
 import com.ctrip.framework.apollo.util.http.HttpClient;
+import com.ctrip.framework.apollo.util.http.DefaultHttpClient;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -70,6 +76,8 @@ import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.stubbing.Answer;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.MediaType;
 
 /**
  * Created by Jason on 4/9/16.
@@ -392,7 +400,7 @@ public class RemoteConfigRepositoryTest {
     RepositoryChangeListener someListener = mock(RepositoryChangeListener.class);
     RemoteConfigRepository remoteConfigRepository = new RemoteConfigRepository(someAppId, someNamespace);
     remoteConfigRepository.addChangeListener(someListener);
-    final ArgumentCaptor<Properties> captor = ArgumentCaptor.forClass(Properties.class);
+    final ArgumentCaptor<ConfigSnapshot> captor = ArgumentCaptor.forClass(ConfigSnapshot.class);
 
     Map<String, String> newConfigurations = ImmutableMap.of("someKey", "anotherValue");
     ApolloConfig newApolloConfig = assembleApolloConfig(newConfigurations);
@@ -403,7 +411,9 @@ public class RemoteConfigRepositoryTest {
 
     verify(someListener, times(1)).onRepositoryChange(eq(someAppId), eq(someNamespace), captor.capture());
 
-    assertEquals(newConfigurations, captor.getValue());
+    assertEquals(ConfigSnapshot.of(newConfigurations), captor.getValue());
+    assertSame(captor.getValue(), remoteConfigRepository.getConfigSnapshot());
+    assertEquals(newConfigurations, remoteConfigRepository.getConfig());
   }
 
   @Test
@@ -424,11 +434,11 @@ public class RemoteConfigRepositoryTest {
         return null;
       }
 
-    }).when(someListener).onRepositoryChange(any(String.class), any(String.class), any(Properties.class));
+    }).when(someListener).onRepositoryChange(any(String.class), any(String.class), any(ConfigSnapshot.class));
 
     RemoteConfigRepository remoteConfigRepository = new RemoteConfigRepository(someAppId, someNamespace);
     remoteConfigRepository.addChangeListener(someListener);
-    final ArgumentCaptor<Properties> captor = ArgumentCaptor.forClass(Properties.class);
+    final ArgumentCaptor<ConfigSnapshot> captor = ArgumentCaptor.forClass(ConfigSnapshot.class);
 
     Map<String, String> newConfigurations = ImmutableMap.of("someKey", "anotherValue");
     ApolloConfig newApolloConfig = assembleApolloConfig(newConfigurations);
@@ -451,7 +461,7 @@ public class RemoteConfigRepositoryTest {
     remoteConfigLongPollService.stopLongPollingRefresh();
 
     verify(someListener, times(1)).onRepositoryChange(eq(someAppId), eq(someNamespace), captor.capture());
-    assertEquals(newConfigurations, captor.getValue());
+    assertEquals(ConfigSnapshot.of(newConfigurations), captor.getValue());
 
     final ArgumentCaptor<HttpRequest> httpRequestArgumentCaptor = ArgumentCaptor
         .forClass(HttpRequest.class);
@@ -462,6 +472,61 @@ public class RemoteConfigRepositoryTest {
     assertTrue(request.getUrl().contains("messages=%7B%22details%22%3A%7B%22someKey%22%3A1%7D%7D"));
   }
 
+  @Test
+  public void testLoadConfigShiftsAwayFromSlowConfigService() throws Exception {
+    Map<String, String> configurations = ImmutableMap.of("someKey", "someValue");
+    String someConfigJson = new Gson().toJson(assembleApolloConfig(configurations));
+    List<ClientAndServer> fastServers = Lists.newArrayList(
+        ClientAndServer.startClientAndServer(), ClientAndServer.startClientAndServer());
+    ClientAndServer slowServer = ClientAndServer.startClientAndServer();
+    List<ServiceDTO> configServices = new ArrayList<>();
+    try {
+      for (ClientAndServer server : fastServers) {
+        server.when(request()).respond(response().withStatusCode(200)
+            .withContentType(MediaType.JSON_UTF_8).withBody(someConfigJson));
+        configServices.add(assembleServiceDTO(server));
+      }
+      slowServer.when(request()).respond(response().withStatusCode(200)
+          .withContentType(MediaType.JSON_UTF_8).withBody(someConfigJson)
+          .withDelay(TimeUnit.MILLISECONDS, 200));
+      configServices.add(assembleServiceDTO(slowServer));
+
+      when(configServiceLocator.getConfigServices()).thenReturn(configServices);
+      MockInjector.setInstance(HttpClient.class, new DefaultHttpClient());
+      MockInjector.setInstance(ConfigServiceLoadBalancerClient.class,
+          new HealthAwareConfigServiceLoadBalancerClient());
+
+      RemoteConfigRepository remoteConfigRepository = new RemoteConfigRepository(someAppId,
+          someNamespace);
+      int loadTimes = 100;
+      for (int i = 0; i < loadTimes; i++) {
+        remoteConfigRepository.sync();
+      }
+
+      assertEquals(configurations, remoteConfigRepository.getConfig());
+      int slowServerLoadTimes = slowServer.retrieveRecordedRequests(request()).length;
+      int fastServerLoadTimes = 0;
+      for (ClientAndServer server : fastServers) {
+        fastServerLoadTimes += server.retrieveRecordedRequests(request()).length;
+      }
+      assertEquals(loadTimes, slowServerLoadTimes + fastServerLoadTimes);
+      // a uniform balancer sends a third of the traffic to the slow config service
+      assertTrue("slow config service loaded " + slowServerLoadTimes + " times",
+          slowServerLoadTimes < loadTimes / 5);
+    } finally {
+      slowServer.stop();
+      for (ClientAndServer server : fastServers) {
+        server.stop();
+      }
+    }
+  }
+
+  private ServiceDTO assembleServiceDTO(ClientAndServer server) {
+    ServiceDTO serviceDTO = new ServiceDTO();
+    serviceDTO.setHomepageUrl("http://localhost:" + server.getPort() + "/");
+    return serviceDTO;
+  }
+
   @Test
   public void testAssembleQueryConfigUrl() throws Exception {
     Gson gson = new Gson();
@@ -38,6 +38,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
@@ -55,7 +56,7 @@ public class KubernetesManagerTest {
     @Before
     public void setUp() {
         coreV1Api = mock(CoreV1Api.class);
-        kubernetesManager = new KubernetesManager(coreV1Api, "localPodName", 3);
+        kubernetesManager = new KubernetesManager(coreV1Api, "localPodName");
 
         MockInjector.setInstance(KubernetesManager.class, kubernetesManager);
         MockInjector.setInstance(CoreV1Api.class, coreV1Api);
@@ -174,8 +175,8 @@ public class KubernetesManagerTest {
 
         when(coreV1Api.readNamespacedPod("localPodName", namespace, null)).thenReturn(pod);
         when(coreV1Api.listNamespacedPod(namespace, null, null,
-                null, null, "app=app",
-                null, null, null
+                null, "status.phase=Running", "app=app",
+                100, null, null
                 , null, null)).thenReturn(v1PodList);
         when(coreV1Api.readNamespacedConfigMap(name, namespace, null)).thenReturn(configMap);
         when(coreV1Api.replaceNamespacedConfigMap(name, namespace, configMap, null, null, null, null)).thenReturn(configMap);
@@ -193,6 +194,53 @@ public class KubernetesManagerTest {
                 , null, null);
     }
 
+    @Test
+    public void testWriteTokenIsReusedBetweenUpdates() throws Exception {
+        String namespace = "default";
+        String name = "testConfigMap";
+        V1ObjectMeta olderPod = new V1ObjectMeta().name("olderPod")
+                .creationTimestamp(OffsetDateTime.now().minusMinutes(1))
+                .labels(Collections.singletonMap("app", "app"));
+        V1ObjectMeta localPod = new V1ObjectMeta().name("localPodName")
+                .creationTimestamp(OffsetDateTime.now())
+                .labels(Collections.singletonMap("app", "app"));
+        V1PodList v1PodList = new V1PodList().addItemsItem(new V1Pod().metadata(localPod))
+                .addItemsItem(new V1Pod().metadata(olderPod));
+
+        when(coreV1Api.readNamespacedPod("localPodName", namespace, null)).thenReturn(new V1Pod().metadata(localPod));
+        when(coreV1Api.listNamespacedPod(namespace, null, null,
+                null, "status.phase=Running", "app=app",
+                100, null, null
+                , null, null)).thenReturn(v1PodList);
+
+        // only the oldest pod is elected to write
+        assertFalse(kubernetesManager.isWritePod(namespace));
+        assertFalse(kubernetesManager.updateConfigMap(namespace, name, Collections.singletonMap("key", "value1")));
+        assertFalse(kubernetesManager.updateConfigMap(namespace, name, Collections.singletonMap("key", "value2")));
+
+        verify(coreV1Api, times(1)).listNamespacedPod(namespace, null, null,
+                null, "status.phase=Running", "app=app",
+                100, null, null
+                , null, null);
+        verify(coreV1Api, Mockito.never()).readNamespacedConfigMap(name, namespace, null);
+    }
+
+    @Test
+    public void testKeepWritingWhenWritePodElectionFails() throws Exception {
+        String namespace = "default";
+        String name = "testConfigMap";
+        // e.g. not allowed to get or list the pods
+        when(coreV1Api.readNamespacedPod("localPodName", namespace, null))
+                .thenThrow(new ApiException("forbidden"));
+        when(coreV1Api.readNamespacedConfigMap(name, namespace, null))
+                .thenReturn(new V1ConfigMap().metadata(new V1ObjectMeta().name(name)).data(new HashMap<>()));
+
+        assertTrue(kubernetesManager.updateConfigMap(namespace, name, Collections.singletonMap("key", "value")));
+
+        verify(coreV1Api, times(1)).replaceNamespacedConfigMap(eq(name), eq(namespace),
+                any(V1ConfigMap.class), isNull(), isNull(), isNull(), isNull());
+    }
+
     /**
      * 测试ConfigMap存在时，checkConfigMapExist方法返回true
      */
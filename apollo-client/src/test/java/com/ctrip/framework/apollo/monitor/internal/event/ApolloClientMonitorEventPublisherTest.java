@@ -16,12 +16,21 @@
  */
 package com.ctrip.framework.apollo.monitor.internal.event;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.monitor.internal.enums.MonitorEventBackpressurePolicy;
 import com.ctrip.framework.apollo.monitor.internal.listener.ApolloClientMonitorEventListener;
 import com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorContext;
 import com.ctrip.framework.apollo.util.ConfigUtil;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -30,6 +39,8 @@ import java.util.Collections;
 
 public class ApolloClientMonitorEventPublisherTest {
 
+  private static final long TIMEOUT_MILLIS = 5000;
+
   private ApolloClientMonitorContext mockCollectorManager;
   private ConfigUtil mockConfigUtil;
   private ApolloClientMonitorEventListener mockListener;
@@ -50,6 +61,7 @@ public class ApolloClientMonitorEventPublisherTest {
 
   @After
   public void tearDown() throws Exception {
+    ApolloClientMonitorEventPublisher.reset();
     MockInjector.reset();
   }
 
@@ -62,7 +74,7 @@ public class ApolloClientMonitorEventPublisherTest {
 
     ApolloClientMonitorEventPublisher.publish(mockEvent);
 
-    verify(mockListener).collect(mockEvent);
+    verify(mockListener, timeout(TIMEOUT_MILLIS)).collect(mockEvent);
   }
 
   @Test
@@ -73,6 +85,7 @@ public class ApolloClientMonitorEventPublisherTest {
 
     ApolloClientMonitorEventPublisher.publish(mockEvent);
 
+    verify(mockListener, timeout(TIMEOUT_MILLIS)).isSupported(mockEvent);
     verify(mockListener, never()).collect(mockEvent);
   }
 
@@ -84,4 +97,115 @@ public class ApolloClientMonitorEventPublisherTest {
 
     verify(mockCollectorManager, never()).getApolloClientMonitorEventListeners();
   }
+
+  @Test
+  public void testPublishDispatchesToAllSupportingListenersAsynchronously() throws Exception {
+    ApolloClientMonitorEventListener anotherListener = mock(ApolloClientMonitorEventListener.class);
+    ApolloClientMonitorEventListener failingListener = mock(ApolloClientMonitorEventListener.class);
+    when(mockConfigUtil.isClientMonitorEnabled()).thenReturn(true);
+    when(mockCollectorManager.getApolloClientMonitorEventListeners()).thenReturn(
+        Arrays.asList(failingListener, mockListener, anotherListener));
+    when(failingListener.isSupported(mockEvent)).thenReturn(true);
+    doThrow(new RuntimeException("some failure")).when(failingListener).collect(mockEvent);
+    when(mockListener.isSupported(mockEvent)).thenReturn(true);
+    when(anotherListener.isSupported(mockEvent)).thenReturn(true);
+    final AtomicReference<Thread> collectingThread = new AtomicReference<>();
+    doAnswer(invocation -> {
+      collectingThread.set(Thread.currentThread());
+      return null;
+    }).when(mockListener).collect(mockEvent);
+
+    ApolloClientMonitorEventPublisher.publish(mockEvent);
+
+    verify(anotherListener, timeout(TIMEOUT_MILLIS)).collect(mockEvent);
+    verify(mockListener).collect(mockEvent);
+    assertNotSame(Thread.currentThread(), collectingThread.get());
+    assertTrue(collectingThread.get().getName().startsWith("Apollo-ApolloClientMonitorEventPublisher"));
+  }
+
+  @Test
+  public void testPublishDiscardNewestWhenBufferIsFull() throws Exception {
+    CountDownLatch consumerBlocked = blockConsumer(MonitorEventBackpressurePolicy.DISCARD_NEWEST);
+    ApolloClientMonitorEvent someEvent = mock(ApolloClientMonitorEvent.class);
+    ApolloClientMonitorEvent anotherEvent = mock(ApolloClientMonitorEvent.class);
+    ApolloClientMonitorEvent yetAnotherEvent = mock(ApolloClientMonitorEvent.class);
+    when(mockListener.isSupported(any())).thenReturn(true);
+
+    ApolloClientMonitorEventPublisher.publish(someEvent);
+    ApolloClientMonitorEventPublisher.publish(anotherEvent);
+    ApolloClientMonitorEventPublisher.publish(yetAnotherEvent);
+
+    assertEquals(1, ApolloClientMonitorEventPublisher.getDroppedEventCount());
+    consumerBlocked.countDown();
+    verify(mockListener, timeout(TIMEOUT_MILLIS)).collect(anotherEvent);
+    verify(mockListener).collect(someEvent);
+    verify(mockListener, never()).collect(yetAnotherEvent);
+  }
+
+  @Test
+  public void testPublishDiscardOldestWhenBufferIsFull() throws Exception {
+    CountDownLatch consumerBlocked = blockConsumer(MonitorEventBackpressurePolicy.DISCARD_OLDEST);
+    ApolloClientMonitorEvent someEvent = mock(ApolloClientMonitorEvent.class);
+    ApolloClientMonitorEvent anotherEvent = mock(ApolloClientMonitorEvent.class);
+    ApolloClientMonitorEvent yetAnotherEvent = mock(ApolloClientMonitorEvent.class);
+    when(mockListener.isSupported(any())).thenReturn(true);
+
+    ApolloClientMonitorEventPublisher.publish(someEvent);
+    ApolloClientMonitorEventPublisher.publish(anotherEvent);
+    ApolloClientMonitorEventPublisher.publish(yetAnotherEvent);
+
+    assertEquals(1, ApolloClientMonitorEventPublisher.getDroppedEventCount());
+    consumerBlocked.countDown();
+    verify(mockListener, timeout(TIMEOUT_MILLIS)).collect(yetAnotherEvent);
+    verify(mockListener).collect(anotherEvent);
+    verify(mockListener, never()).collect(someEvent);
+  }
+
+  @Test
+  public void testPublishCallerRunsWhenBufferIsFull() throws Exception {
+    CountDownLatch consumerBlocked = blockConsumer(MonitorEventBackpressurePolicy.CALLER_RUNS);
+    ApolloClientMonitorEvent someEvent = mock(ApolloClientMonitorEvent.class);
+    ApolloClientMonitorEvent anotherEvent = mock(ApolloClientMonitorEvent.class);
+    ApolloClientMonitorEvent yetAnotherEvent = mock(ApolloClientMonitorEvent.class);
+    when(mockListener.isSupported(any())).thenReturn(true);
+    final AtomicReference<Thread> collectingThread = new AtomicReference<>();
+    doAnswer(invocation -> {
+      collectingThread.set(Thread.currentThread());
+      return null;
+    }).when(mockListener).collect(yetAnotherEvent);
+
+    ApolloClientMonitorEventPublisher.publish(someEvent);
+    ApolloClientMonitorEventPublisher.publish(anotherEvent);
+    ApolloClientMonitorEventPublisher.publish(yetAnotherEvent);
+
+    assertSame(Thread.currentThread(), collectingThread.get());
+    assertEquals(0, ApolloClientMonitorEventPublisher.getDroppedEventCount());
+    consumerBlocked.countDown();
+    verify(mockListener, timeout(TIMEOUT_MILLIS)).collect(anotherEvent);
+  }
+
+  /**
+   * Makes the buffer hold 2 events and blocks the consumer until the returned latch counts down.
+   */
+  private CountDownLatch blockConsumer(MonitorEventBackpressurePolicy policy) throws Exception {
+    when(mockConfigUtil.isClientMonitorEnabled()).thenReturn(true);
+    when(mockConfigUtil.getMonitorEventBufferSize()).thenReturn(2);
+    when(mockConfigUtil.getMonitorEventBackpressurePolicy()).thenReturn(policy);
+    ApolloClientMonitorEventListener blockingListener = mock(ApolloClientMonitorEventListener.class);
+    ApolloClientMonitorEvent blockingEvent = mock(ApolloClientMonitorEvent.class);
+    when(mockCollectorManager.getApolloClientMonitorEventListeners()).thenReturn(
+        Arrays.asList(blockingListener, mockListener));
+    when(blockingListener.isSupported(blockingEvent)).thenReturn(true);
+    final CountDownLatch consumerBlocking = new CountDownLatch(1);
+    final CountDownLatch consumerBlocked = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      consumerBlocking.countDown();
+      consumerBlocked.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      return null;
+    }).when(blockingListener).collect(blockingEvent);
+
+    ApolloClientMonitorEventPublisher.publish(blockingEvent);
+    assertTrue(consumerBlocking.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    return consumerBlocked;
+  }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.monitor.internal.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ApolloClientMonitorEventRingBufferTest {
+
+  @Test
+  public void testCapacityIsRoundedUpToPowerOfTwo() {
+    assertEquals(2, new ApolloClientMonitorEventRingBuffer(1).capacity());
+    assertEquals(8, new ApolloClientMonitorEventRingBuffer(8).capacity());
+    assertEquals(16, new ApolloClientMonitorEventRingBuffer(9).capacity());
+  }
+
+  @Test
+  public void testOfferAndPollInOrder() {
+    ApolloClientMonitorEventRingBuffer buffer = new ApolloClientMonitorEventRingBuffer(2);
+    ApolloClientMonitorEvent someEvent = event("some");
+    ApolloClientMonitorEvent anotherEvent = event("another");
+
+    assertNull(buffer.poll());
+    // wraps around the ring several times
+    for (int i = 0; i < 5; i++) {
+      assertTrue(buffer.offer(someEvent));
+      assertTrue(buffer.offer(anotherEvent));
+      assertFalse(buffer.offer(event("yetAnother")));
+      assertEquals(2, buffer.size());
+
+      assertSame(someEvent, buffer.poll());
+      assertSame(anotherEvent, buffer.poll());
+      assertNull(buffer.poll());
+      assertEquals(0, buffer.size());
+    }
+  }
+
+  @Test
+  public void testConcurrentProducersAndConsumer() throws Exception {
+    final int producers = 8;
+    final int eventsPerProducer = 20000;
+    final ApolloClientMonitorEventRingBuffer buffer = new ApolloClientMonitorEventRingBuffer(64);
+    final CountDownLatch startSignal = new CountDownLatch(1);
+    ExecutorService executorService = Executors.newFixedThreadPool(producers);
+    try {
+      for (int p = 0; p < producers; p++) {
+        final int producer = p;
+        executorService.submit(() -> {
+          startSignal.await();
+          for (int i = 0; i < eventsPerProducer; i++) {
+            ApolloClientMonitorEvent event = event(producer + "-" + i);
+            while (!buffer.offer(event)) {
+              Thread.yield();
+            }
+          }
+          return null;
+        });
+      }
+      startSignal.countDown();
+
+      Set<String> received = new HashSet<>();
+      long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+      while (received.size() < producers * eventsPerProducer
+          && System.currentTimeMillis() < deadline) {
+        ApolloClientMonitorEvent event = buffer.poll();
+        if (event == null) {
+          Thread.yield();
+          continue;
+        }
+        assertTrue("duplicated " + event.getName(), received.add(event.getName()));
+      }
+
+      assertEquals(producers * eventsPerProducer, received.size());
+      assertNull(buffer.poll());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static ApolloClientMonitorEvent event(String name) {
+    return new ApolloClientMonitorEvent(name, "someTag", null);
+  }
+}
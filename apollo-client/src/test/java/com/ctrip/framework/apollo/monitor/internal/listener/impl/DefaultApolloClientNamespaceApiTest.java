@@ -17,7 +17,9 @@
 package com.ctrip.framework.apollo.monitor.internal.listener.impl;
 
 import com.ctrip.framework.apollo.Config;
+import com.ctrip.framework.apollo.internals.AbstractConfig;
 import com.ctrip.framework.apollo.internals.ConfigManager;
+import com.ctrip.framework.apollo.monitor.api.ApolloClientNamespaceMonitorApi.ValueCacheStats;
 import com.ctrip.framework.apollo.monitor.internal.event.ApolloClientMonitorEvent;
 import com.ctrip.framework.apollo.monitor.internal.event.ApolloClientMonitorEventFactory;
 import org.junit.Before;
@@ -84,6 +86,33 @@ public class DefaultApolloClientNamespaceApiTest {
     assertEquals(1, namespaceApi.getNamespaceMetrics().get("testNamespace").getUsageCount());
   }
 
+  @Test
+  public void testCollectNamespaceUsageInBatch() {
+    ApolloClientMonitorEvent event = ApolloClientMonitorEventFactory
+        .getInstance().createEvent(APOLLO_CLIENT_NAMESPACE_USAGE)
+        .putAttachment(NAMESPACE, "testNamespace")
+        .putAttachment(COUNT, 5);
+
+    namespaceApi.collect0(event);
+    namespaceApi.collect0(event);
+
+    assertEquals(10, namespaceApi.getNamespaceMetrics().get("testNamespace").getUsageCount());
+  }
+
+  @Test
+  public void testCollectConfigRejected() {
+    ApolloClientMonitorEvent event = ApolloClientMonitorEventFactory
+        .getInstance().createEvent(APOLLO_CLIENT_CONFIG_REJECTED)
+        .putAttachment(NAMESPACE, "testNamespace");
+
+    namespaceApi.collect0(event);
+    namespaceApi.collect0(event);
+
+    assertEquals(2, namespaceApi.getNamespaceMetrics().get("testNamespace").getRejectedCount());
+    assertEquals(2,
+        namespaceApi.getNamespaceMetricsString().get("testNamespace").getRejectedCount());
+  }
+
   @Test
   public void testGetNamespacePropertySize() {
     when(config.getPropertyNames()).thenReturn(Collections.singleton("property1"));
@@ -93,6 +122,22 @@ public class DefaultApolloClientNamespaceApiTest {
     assertEquals(Integer.valueOf(1), propertySize);
   }
 
+  @Test
+  public void testGetNamespaceValueCacheStats() {
+    assertTrue(namespaceApi.getNamespaceValueCacheStats("testNamespace").isEmpty());
+
+    AbstractConfig abstractConfig = mock(AbstractConfig.class);
+    when(abstractConfig.getValueCacheStats()).thenReturn(
+        Collections.singletonMap("Integer", new ValueCacheStats(3, 1)));
+    when(configManager.getConfig("anotherNamespace")).thenReturn(abstractConfig);
+
+    ValueCacheStats stats = namespaceApi.getNamespaceValueCacheStats("anotherNamespace")
+        .get("Integer");
+    assertEquals(3, stats.getHitCount());
+    assertEquals(1, stats.getMissCount());
+    assertEquals(0.75, stats.getHitRate(), 0.0001);
+  }
+
   @Test
   public void testExportMetrics() {
     // Set up some initial state
@@ -16,13 +16,22 @@
  */
 package com.ctrip.framework.apollo.monitor.internal.listener.impl;
 
+import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorConstant.APOLLO_CLIENT_CONFIG_CHANGE_LISTENER_SLOW;
+import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorConstant.LISTENER;
 import static org.junit.Assert.*;
 
 import com.ctrip.framework.apollo.monitor.api.ApolloClientThreadPoolMonitorApi.ApolloThreadPoolInfo;
+import com.ctrip.framework.apollo.monitor.internal.event.ApolloClientMonitorEvent;
+import com.ctrip.framework.apollo.monitor.internal.event.ApolloClientMonitorEventFactory;
 import lombok.SneakyThrows;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
 
@@ -71,6 +80,27 @@ public class DefaultApolloClientThreadPoolApiTest {
     assertEquals(4, threadPoolApi.getThreadPoolInfo().size());
   }
 
+  @Test
+  public void testCollectSlowConfigChangeListeners() {
+    String someListener = "someListener";
+    String anotherListener = "anotherListener";
+
+    threadPoolApi.collect0(slowListenerEvent(someListener));
+    threadPoolApi.collect0(slowListenerEvent(someListener));
+    threadPoolApi.collect0(slowListenerEvent(anotherListener));
+
+    Map<String, Integer> slowListeners = threadPoolApi.getSlowConfigChangeListeners();
+    assertEquals(2, slowListeners.size());
+    assertEquals(2, (int) slowListeners.get(someListener));
+    assertEquals(1, (int) slowListeners.get(anotherListener));
+  }
+
+  private static ApolloClientMonitorEvent slowListenerEvent(String listener) {
+    return ApolloClientMonitorEventFactory.getInstance()
+        .createEvent(APOLLO_CLIENT_CONFIG_CHANGE_LISTENER_SLOW)
+        .putAttachment(LISTENER, listener);
+  }
+
   @Test
   public void testMetricsSampleUpdated() {
     assertTrue(threadPoolApi.isMetricsSampleUpdated());
@@ -88,5 +118,50 @@ public class DefaultApolloClientThreadPoolApiTest {
     assertNotNull(info);
   }
 
+  @Test
+  public void testReportOtherExecutors() {
+    ThreadPoolExecutor someExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+    ExecutorService someExecutorWithoutPool = Executors.newSingleThreadExecutor();
+    Map<String, ExecutorService> otherExecutors = new LinkedHashMap<>();
+    otherExecutors.put("Config", abstractConfigExecutor);
+    otherExecutors.put("Some", someExecutor);
+    otherExecutors.put("SomeWithoutPool", someExecutorWithoutPool);
+
+    threadPoolApi = new DefaultApolloClientThreadPoolApi(remoteConfigExecutor,
+        abstractConfigExecutor, abstractConfigFileExecutor, metricsExporterExecutor,
+        otherExecutors);
+    threadPoolApi.export0();
+
+    Map<String, ApolloThreadPoolInfo> threadPoolInfo = threadPoolApi.getThreadPoolInfo();
+    assertEquals(6, threadPoolInfo.size());
+    assertFalse(threadPoolInfo.containsKey("Config"));
+    assertEquals(3, threadPoolInfo.get("Some").getCorePoolSize());
+    assertEquals(0, threadPoolInfo.get("SomeWithoutPool").getCorePoolSize());
+
+    someExecutor.shutdown();
+    someExecutorWithoutPool.shutdown();
+  }
+
+  @Test
+  public void testReportExecutorsCreatedLater() {
+    Map<String, ExecutorService> otherExecutors = new ConcurrentHashMap<>();
+    threadPoolApi = new DefaultApolloClientThreadPoolApi(remoteConfigExecutor,
+        abstractConfigExecutor, abstractConfigFileExecutor, metricsExporterExecutor,
+        Collections.unmodifiableMap(otherExecutors));
+    assertEquals(4, threadPoolApi.getThreadPoolInfo().size());
+
+    ThreadPoolExecutor someExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+    otherExecutors.put("Some", someExecutor);
+    threadPoolApi.export0();
+    assertEquals(3, threadPoolApi.getThreadPoolInfo().get("Some").getCorePoolSize());
 
+    // created again with the same name
+    ThreadPoolExecutor anotherExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(5);
+    otherExecutors.put("Some", anotherExecutor);
+    assertEquals(5, threadPoolApi.getThreadPoolInfo().get("Some").getCorePoolSize());
+    assertEquals(5, threadPoolApi.getThreadPoolInfo().size());
+
+    someExecutor.shutdown();
+    anotherExecutor.shutdown();
+  }
 }
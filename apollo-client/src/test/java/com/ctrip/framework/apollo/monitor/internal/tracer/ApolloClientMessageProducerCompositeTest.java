@@ -101,6 +101,16 @@ public class ApolloClientMessageProducerCompositeTest {
     verify(producer2).logMetricsForCount(name);
   }
 
+  @Test
+  public void testLogMetricsForCountInBatch() {
+    String name = "METRIC_NAME";
+
+    composite.logMetricsForCount(name, 3);
+
+    verify(producer1).logMetricsForCount(name, 3);
+    verify(producer2).logMetricsForCount(name, 3);
+  }
+
   @Test
   public void testNewTransaction() {
     String type = "TRANSACTION_TYPE";
@@ -17,12 +17,17 @@
 package com.ctrip.framework.apollo.monitor.stress;
 
 import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorConstant.*;
+import static org.junit.Assert.assertTrue;
 
 import com.ctrip.framework.apollo.ConfigService;
+import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.monitor.internal.event.ApolloClientMonitorEventFactory;
 import com.ctrip.framework.apollo.monitor.internal.event.ApolloClientMonitorEventPublisher;
+import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.github.noconnor.junitperf.JUnitPerfRule;
 import com.github.noconnor.junitperf.JUnitPerfTest;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.AfterClass;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
@@ -38,6 +43,25 @@ public class ApolloClientMonitorStressTest {
   @Rule
   public JUnitPerfRule perfTestRule = new JUnitPerfRule();
 
+  private static final AtomicLong PUBLISHED_EVENTS = new AtomicLong();
+
+  /**
+   * every published event is either dispatched, dropped or still pending, none gets lost
+   */
+  @AfterClass
+  public static void assertNoEventLost() {
+    if (!ApolloInjector.getInstance(ConfigUtil.class).isClientMonitorEnabled()) {
+      // the events are not published at all
+      return;
+    }
+    // the pending events only move to dispatched, so read them first
+    long pending = ApolloClientMonitorEventPublisher.getPendingEventCount();
+    long dispatched = ApolloClientMonitorEventPublisher.getDispatchedEventCount();
+    long dropped = ApolloClientMonitorEventPublisher.getDroppedEventCount();
+    assertTrue(dispatched > 0);
+    assertTrue(pending + dispatched + dropped >= PUBLISHED_EVENTS.get());
+  }
+
   @Test
   @JUnitPerfTest(threads = 25, durationMs = 10000, warmUpMs = 1000, maxExecutionsPerSecond = 1000)
   public void testConfigMonitor() {
@@ -52,5 +76,19 @@ public class ApolloClientMonitorStressTest {
         ApolloClientMonitorEventFactory.getInstance()
             .createEvent(APOLLO_CLIENT_NAMESPACE_USAGE)
             .putAttachment(NAMESPACE, "application"));
+    PUBLISHED_EVENTS.incrementAndGet();
+  }
+
+  /**
+   * publishers are never throttled, the events beyond the buffer are dropped instead of blocking
+   */
+  @Test
+  @JUnitPerfTest(threads = 50, durationMs = 10000, warmUpMs = 1000)
+  public void testPublishEventWithoutThrottling() {
+    ApolloClientMonitorEventPublisher.publish(
+        ApolloClientMonitorEventFactory.getInstance()
+            .createEvent(APOLLO_CLIENT_NAMESPACE_USAGE)
+            .putAttachment(NAMESPACE, "application"));
+    PUBLISHED_EVENTS.incrementAndGet();
   }
 }
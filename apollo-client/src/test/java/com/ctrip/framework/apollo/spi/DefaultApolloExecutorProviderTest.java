@@ -0,0 +1,92 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.spi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ctrip.framework.apollo.internals.ApolloExecutors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DefaultApolloExecutorProviderTest {
+
+  private DefaultApolloExecutorProvider provider;
+
+  @BeforeEach
+  public void setUp() {
+    provider = new DefaultApolloExecutorProvider();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    provider.getExecutors().values().forEach(ExecutorService::shutdownNow);
+  }
+
+  @Test
+  public void testLoadedAsPrimaryProvider() {
+    assertTrue(ApolloExecutors.getProvider() instanceof DefaultApolloExecutorProvider);
+  }
+
+  @Test
+  public void testNewCachedExecutor() throws Exception {
+    ExecutorService executor = provider.newCachedExecutor("SomeCached");
+
+    assertTrue(executor instanceof ThreadPoolExecutor);
+    assertSame(executor, provider.getExecutors().get("SomeCached"));
+
+    Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+    assertTrue(thread.getName().startsWith("Apollo-SomeCached-"));
+    assertTrue(thread.isDaemon());
+  }
+
+  @Test
+  public void testNewScheduledExecutor() throws Exception {
+    ScheduledExecutorService executor = provider.newScheduledExecutor("SomeScheduled", 1);
+
+    assertEquals(1, ((ThreadPoolExecutor) executor).getCorePoolSize());
+    assertSame(executor, provider.getExecutors().get("SomeScheduled"));
+
+    Thread thread = executor.schedule(Thread::currentThread, 1, TimeUnit.MILLISECONDS)
+        .get(5, TimeUnit.SECONDS);
+    assertTrue(thread.getName().startsWith("Apollo-SomeScheduled-"));
+  }
+
+  @Test
+  public void testNewCachedExecutorWithVirtualThreadsEnabled() throws Exception {
+    provider = new DefaultApolloExecutorProvider() {
+      @Override
+      protected boolean isVirtualThreadsEnabled() {
+        return true;
+      }
+    };
+
+    ExecutorService executor = provider.newCachedExecutor("SomeVirtual");
+    Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+    assertTrue(thread.getName().startsWith("Apollo-SomeVirtual-"));
+    // falls back to platform threads on the runtimes without virtual threads
+    assertEquals(!DefaultApolloExecutorProvider.VirtualThreads.isSupported(),
+        executor instanceof ThreadPoolExecutor);
+  }
+}
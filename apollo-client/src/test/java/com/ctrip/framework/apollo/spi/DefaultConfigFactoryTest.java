@@ -39,6 +39,7 @@ import com.ctrip.framework.apollo.ConfigFile;
 import com.ctrip.framework.apollo.build.MockInjector;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.core.enums.Env;
+import com.ctrip.framework.apollo.internals.ConfigSnapshot;
 import com.ctrip.framework.apollo.internals.DefaultConfig;
 import com.ctrip.framework.apollo.internals.JsonConfigFile;
 import com.ctrip.framework.apollo.internals.LocalFileConfigRepository;
@@ -78,7 +79,7 @@ public class DefaultConfigFactoryTest {
     someProperties.setProperty(someKey, someValue);
 
     LocalFileConfigRepository someLocalConfigRepo = mock(LocalFileConfigRepository.class);
-    when(someLocalConfigRepo.getConfig()).thenReturn(someProperties);
+    when(someLocalConfigRepo.getConfigSnapshot()).thenReturn(ConfigSnapshot.copyOf(someProperties));
 
     doReturn(someLocalConfigRepo).when(defaultConfigFactory).createConfigRepository(someAppId, someNamespace);
 
@@ -110,7 +111,7 @@ public class DefaultConfigFactoryTest {
     someProperties.setProperty(someKey, someValue);
 
     PropertiesCompatibleFileConfigRepository someRepository = mock(PropertiesCompatibleFileConfigRepository.class);
-    when(someRepository.getConfig()).thenReturn(someProperties);
+    when(someRepository.getConfigSnapshot()).thenReturn(ConfigSnapshot.copyOf(someProperties));
 
     doReturn(someRepository).when(defaultConfigFactory)
         .createPropertiesCompatibleFileConfigRepository(someAppId, someNamespace, somePropertiesCompatibleFormat);
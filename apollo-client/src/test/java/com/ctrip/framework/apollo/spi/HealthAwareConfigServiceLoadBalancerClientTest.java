@@ -0,0 +1,198 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.spi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class HealthAwareConfigServiceLoadBalancerClientTest {
+
+  private AtomicLong nanos;
+  private HealthAwareConfigServiceLoadBalancerClient loadBalancerClient;
+  private ServiceDTO someService;
+  private ServiceDTO anotherService;
+  private List<ServiceDTO> configServices;
+
+  @BeforeEach
+  public void setUp() {
+    nanos = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    loadBalancerClient = new HealthAwareConfigServiceLoadBalancerClient(new Ticker() {
+      @Override
+      public long read() {
+        return nanos.get();
+      }
+    });
+    someService = assembleServiceDTO("http://someServer/");
+    anotherService = assembleServiceDTO("http://anotherServer/");
+    configServices = Lists.newArrayList(someService, anotherService);
+  }
+
+  @Test
+  public void testPreferLowLatencyService() {
+    for (int i = 0; i < 10; i++) {
+      loadBalancerClient.onSuccess(someService, 5);
+      loadBalancerClient.onSuccess(anotherService, 500);
+    }
+
+    int chosenTimes = 0;
+    int prioritizedTimes = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (loadBalancerClient.chooseOneFrom(configServices) == someService) {
+        chosenTimes++;
+      }
+      if (loadBalancerClient.prioritize(configServices).get(0) == someService) {
+        prioritizedTimes++;
+      }
+    }
+
+    // the slow service is expected to get about 1% of the traffic
+    assertTrue(chosenTimes > 950, "chosen " + chosenTimes + " times");
+    assertTrue(prioritizedTimes > 950, "prioritized " + prioritizedTimes + " times");
+  }
+
+  @Test
+  public void testServiceWithoutLatencyIsTreatedAsFastest() {
+    loadBalancerClient.onSuccess(someService, 5);
+
+    int chosenTimes = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (loadBalancerClient.chooseOneFrom(configServices) == anotherService) {
+        chosenTimes++;
+      }
+    }
+
+    assertTrue(chosenTimes > 350 && chosenTimes < 650, "chosen " + chosenTimes + " times");
+  }
+
+  @Test
+  public void testLongPollingSuccessDoesNotAffectLatency() {
+    loadBalancerClient.onSuccess(someService, 10);
+    loadBalancerClient.onSuccess(someService, -1);
+
+    assertEquals(10, loadBalancerClient.getServiceHealth(someService).getLatency(), 0.001);
+  }
+
+  @Test
+  public void testOpenCircuitAfterConsecutiveFailures() {
+    failTimes(someService, HealthAwareConfigServiceLoadBalancerClient.FAILURE_THRESHOLD);
+
+    for (int i = 0; i < 100; i++) {
+      assertSame(anotherService, loadBalancerClient.chooseOneFrom(configServices));
+      assertEquals(Lists.newArrayList(anotherService, someService),
+          loadBalancerClient.prioritize(configServices));
+    }
+  }
+
+  @Test
+  public void testHalfOpenCircuitLetsSingleProbeThrough() {
+    failTimes(someService, HealthAwareConfigServiceLoadBalancerClient.FAILURE_THRESHOLD);
+
+    advance(HealthAwareConfigServiceLoadBalancerClient.MIN_OPEN_MILLIS);
+
+    assertSame(someService, loadBalancerClient.chooseOneFrom(configServices));
+    for (int i = 0; i < 100; i++) {
+      assertSame(anotherService, loadBalancerClient.chooseOneFrom(configServices));
+    }
+
+    loadBalancerClient.onSuccess(someService, 5);
+
+    assertTrue(loadBalancerClient.getServiceHealth(someService).isAvailable());
+  }
+
+  @Test
+  public void testFailedProbeDoublesOpenTime() {
+    failTimes(someService, HealthAwareConfigServiceLoadBalancerClient.FAILURE_THRESHOLD);
+    advance(HealthAwareConfigServiceLoadBalancerClient.MIN_OPEN_MILLIS);
+    assertSame(someService, loadBalancerClient.chooseOneFrom(configServices));
+    failTimes(someService, 1);
+
+    advance(HealthAwareConfigServiceLoadBalancerClient.MIN_OPEN_MILLIS);
+    assertSame(anotherService, loadBalancerClient.chooseOneFrom(configServices));
+
+    advance(HealthAwareConfigServiceLoadBalancerClient.MIN_OPEN_MILLIS);
+    assertSame(someService, loadBalancerClient.chooseOneFrom(configServices));
+  }
+
+  @Test
+  public void testChooseEarliestToCloseWhenAllCircuitsOpen() {
+    failTimes(someService, HealthAwareConfigServiceLoadBalancerClient.FAILURE_THRESHOLD);
+    advance(1);
+    failTimes(anotherService, HealthAwareConfigServiceLoadBalancerClient.FAILURE_THRESHOLD);
+
+    assertSame(someService, loadBalancerClient.chooseOneFrom(configServices));
+    assertEquals(Lists.newArrayList(someService, anotherService),
+        loadBalancerClient.prioritize(configServices));
+  }
+
+  @Test
+  public void testClientErrorIsNotCountedAsFailure() {
+    for (int i = 0; i < 10; i++) {
+      loadBalancerClient.onFailure(someService, new ApolloConfigStatusCodeException(404, "not found"));
+    }
+
+    assertTrue(loadBalancerClient.getServiceHealth(someService).isAvailable());
+    assertEquals(0, loadBalancerClient.getServiceHealth(someService).getErrorRate(), 0.001);
+  }
+
+  @Test
+  public void testErrorRateRecovers() {
+    failTimes(someService, 2);
+    double errorRate = loadBalancerClient.getServiceHealth(someService).getErrorRate();
+
+    loadBalancerClient.onSuccess(someService, 5);
+
+    assertTrue(loadBalancerClient.getServiceHealth(someService).getErrorRate() < errorRate);
+  }
+
+  @Test
+  public void testDropHealthOfRemovedServices() {
+    loadBalancerClient.onSuccess(someService, 500);
+    List<ServiceDTO> newConfigServices = Lists.newArrayList(anotherService);
+
+    loadBalancerClient.chooseOneFrom(newConfigServices);
+
+    assertTrue(loadBalancerClient.getServiceHealth(someService).getLatency() < 0);
+  }
+
+  private void failTimes(ServiceDTO service, int times) {
+    for (int i = 0; i < times; i++) {
+      loadBalancerClient.onFailure(service, new ApolloConfigException("some failure"));
+    }
+  }
+
+  private void advance(long millis) {
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+
+  private static ServiceDTO assembleServiceDTO(String homepageUrl) {
+    ServiceDTO serviceDTO = new ServiceDTO();
+    serviceDTO.setHomepageUrl(homepageUrl);
+    return serviceDTO;
+  }
+}
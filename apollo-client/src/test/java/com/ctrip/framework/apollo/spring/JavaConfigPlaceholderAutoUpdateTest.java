@@ -31,6 +31,7 @@ import com.ctrip.framework.apollo.spring.XmlConfigPlaceholderTest.TestXmlBean;
 import com.ctrip.framework.apollo.spring.annotation.ApolloJsonValue;
 import com.ctrip.framework.apollo.spring.annotation.EnableApolloConfig;
 import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.collect.Lists;
 import com.google.common.primitives.Ints;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -993,6 +994,56 @@ public class JavaConfigPlaceholderAutoUpdateTest extends AbstractSpringIntegrati
     assertEquals(1, newJsonBean.getB());
   }
 
+  @Test
+  public void testAutoUpdateWithTenThousandFields() throws Exception {
+    int beanCount = 2500;
+    int initialTimeout = 1000;
+    int initialBatch = 2000;
+    int newTimeout = 1001;
+    int newBatch = 2001;
+
+    Properties properties = assembleProperties(TIMEOUT_PROPERTY, String.valueOf(initialTimeout),
+        BATCH_PROPERTY, String.valueOf(initialBatch));
+
+    SimpleConfig config = prepareConfig(someAppId, ConfigConsts.NAMESPACE_APPLICATION, properties);
+
+    // each bean has 4 auto updated fields
+    AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+    context.register(AppConfig15.class);
+    for (int i = 0; i < beanCount; i++) {
+      context.registerBean("testManyFieldsBean" + i, TestManyFieldsBean.class);
+    }
+    context.refresh();
+
+    List<TestManyFieldsBean> beans = Lists.newArrayList(
+        context.getBeansOfType(TestManyFieldsBean.class).values());
+    assertEquals(beanCount, beans.size());
+    for (TestManyFieldsBean bean : beans) {
+      assertEquals(initialTimeout, bean.getTimeout());
+      assertEquals(initialBatch, bean.getBatch());
+    }
+
+    Properties newProperties = assembleProperties(TIMEOUT_PROPERTY, String.valueOf(newTimeout),
+        BATCH_PROPERTY, String.valueOf(newBatch));
+
+    config.onRepositoryChange(ConfigConsts.NAMESPACE_APPLICATION, newProperties);
+
+    TestManyFieldsBean lastBean = beans.get(beans.size() - 1);
+    long deadline = System.currentTimeMillis() + 10000;
+    while ((lastBean.getBoxedBatch() != newBatch || !String.valueOf(newTimeout)
+        .equals(lastBean.getTimeoutText())) && System.currentTimeMillis() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+    TimeUnit.MILLISECONDS.sleep(100);
+
+    for (TestManyFieldsBean bean : beans) {
+      assertEquals(newTimeout, bean.getTimeout());
+      assertEquals(String.valueOf(newTimeout), bean.getTimeoutText());
+      assertEquals(newBatch, bean.getBatch());
+      assertEquals(newBatch, (int) bean.getBoxedBatch());
+    }
+  }
+
   @Configuration
   @EnableApolloConfig
   static class AppConfig1 {
@@ -1157,6 +1208,39 @@ public class JavaConfigPlaceholderAutoUpdateTest extends AbstractSpringIntegrati
     }
   }
 
+  @Configuration
+  @EnableApolloConfig
+  static class AppConfig15 {
+  }
+
+  static class TestManyFieldsBean {
+
+    @Value("${timeout:100}")
+    private int timeout;
+    @Value("${timeout:100}")
+    private String timeoutText;
+    @Value("${batch:200}")
+    private long batch;
+    @Value("${batch:200}")
+    private Integer boxedBatch;
+
+    public int getTimeout() {
+      return timeout;
+    }
+
+    public String getTimeoutText() {
+      return timeoutText;
+    }
+
+    public long getBatch() {
+      return batch;
+    }
+
+    public Integer getBoxedBatch() {
+      return boxedBatch;
+    }
+  }
+
   static class TestJavaConfigBean {
 
     @Value("${timeout:100}")
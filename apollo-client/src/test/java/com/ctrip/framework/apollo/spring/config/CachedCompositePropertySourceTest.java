@@ -89,6 +89,31 @@ public class CachedCompositePropertySourceTest {
     assertSame(returnedPropertyNames, compositeSource.getPropertyNames());
   }
 
+  @Test
+  public void testMergePropertyNamesOnlyWhenSourceNamesChanged() {
+    ConfigPropertySource anotherSource = mock(ConfigPropertySource.class);
+    compositeSource.addPropertySource(anotherSource);
+    String[] propertyNames = Arrays.array("propertyName");
+    String[] anotherPropertyNames = Arrays.array("anotherPropertyName");
+    String[] changedPropertyNames = Arrays.array("anotherPropertyName", "changedPropertyName");
+
+    when(configPropertySource.getPropertyNames()).thenReturn(propertyNames);
+    when(anotherSource.getPropertyNames()).thenReturn(anotherPropertyNames,
+        anotherPropertyNames.clone(), changedPropertyNames);
+
+    String[] returnedPropertyNames = compositeSource.getPropertyNames();
+    assertArrayEquals(Arrays.array("propertyName", "anotherPropertyName"), returnedPropertyNames);
+
+    // a change without any source returning different names, each call returns a new array
+    listeners.get(0).onChange(new ConfigChangeEvent(null, null, null));
+    assertSame(returnedPropertyNames, compositeSource.getPropertyNames());
+    verify(anotherSource, times(2)).getPropertyNames();
+
+    listeners.get(0).onChange(new ConfigChangeEvent(null, null, null));
+    assertArrayEquals(Arrays.array("propertyName", "anotherPropertyName", "changedPropertyName"),
+        compositeSource.getPropertyNames());
+  }
+
   @Test
   public void testAddPropertySource() {
     verify(configPropertySource, times(1))
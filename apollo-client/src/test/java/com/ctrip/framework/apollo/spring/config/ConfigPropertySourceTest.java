@@ -18,6 +18,7 @@ package com.ctrip.framework.apollo.spring.config;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
@@ -69,6 +70,36 @@ public class ConfigPropertySourceTest {
     assertEquals(somePropertyNames, Sets.newHashSet(result));
   }
 
+  @Test
+  public void testReusePropertyNamesArray() throws Exception {
+    Set<String> somePropertyNames = Sets.newHashSet("somePropertyName");
+    Set<String> sameContentPropertyNames = Sets.newHashSet("somePropertyName");
+    Set<String> anotherPropertyNames = Sets.newHashSet("somePropertyName", "anotherPropertyName");
+
+    when(someConfig.getPropertyNames()).thenReturn(somePropertyNames, sameContentPropertyNames,
+        anotherPropertyNames);
+
+    String[] result = configPropertySource.getPropertyNames();
+    assertArrayEquals(new String[]{"somePropertyName"}, result);
+    assertSame(result, configPropertySource.getPropertyNames());
+
+    String[] anotherResult = configPropertySource.getPropertyNames();
+    assertEquals(anotherPropertyNames, Sets.newHashSet(anotherResult));
+  }
+
+  @Test
+  public void testGetPropertyNamesOfModifiedSet() throws Exception {
+    // a custom config might modify the returned set in place
+    Set<String> livePropertyNames = Sets.newHashSet("somePropertyName");
+    when(someConfig.getPropertyNames()).thenReturn(livePropertyNames);
+
+    assertArrayEquals(new String[]{"somePropertyName"}, configPropertySource.getPropertyNames());
+
+    livePropertyNames.add("anotherPropertyName");
+
+    assertEquals(livePropertyNames, Sets.newHashSet(configPropertySource.getPropertyNames()));
+  }
+
   @Test
   public void testGetEmptyPropertyNames() throws Exception {
     when(someConfig.getPropertyNames()).thenReturn(Sets.<String>newHashSet());
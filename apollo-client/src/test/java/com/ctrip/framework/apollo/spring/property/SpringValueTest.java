@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.spring.property;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+import java.lang.reflect.Field;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.BeanFactory;
+
+public class SpringValueTest {
+
+  private static final String someKey = "someKey";
+  private static final String somePlaceholder = "${someKey}";
+
+  private TestBean bean;
+  private SpringValue fieldValue;
+  private SpringValue methodValue;
+
+  @Before
+  public void setUp() throws Exception {
+    bean = new TestBean();
+    fieldValue = new SpringValue(someKey, somePlaceholder, bean, "testBean",
+        TestBean.class.getDeclaredField("timeout"), false);
+    methodValue = new SpringValue(someKey, somePlaceholder, bean, "testBean",
+        TestBean.class.getMethod("setBatch", int.class), false);
+  }
+
+  @Test
+  public void testCompileInjectorOnRegistration() throws Exception {
+    assertNull(injectorOf(fieldValue));
+    assertNull(injectorOf(methodValue));
+
+    SpringValueRegistry registry = new SpringValueRegistry();
+    BeanFactory beanFactory = mock(BeanFactory.class);
+    registry.register(beanFactory, someKey, fieldValue);
+    registry.register(beanFactory, someKey, methodValue);
+
+    assertNotNull(injectorOf(fieldValue));
+    assertNotNull(injectorOf(methodValue));
+  }
+
+  @Test
+  public void testUpdate() throws Exception {
+    fieldValue.update(10);
+    methodValue.update(20);
+
+    assertEquals(10, bean.timeout);
+    assertEquals(20, bean.batch);
+
+    fieldValue.compileInjector();
+    methodValue.compileInjector();
+    fieldValue.update(30);
+    methodValue.update(40);
+
+    assertEquals(30, bean.timeout);
+    assertEquals(40, bean.batch);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUpdateFieldWithWrongType() throws Exception {
+    fieldValue.compileInjector();
+
+    fieldValue.update("someValue");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUpdateFieldWithNull() throws Exception {
+    fieldValue.compileInjector();
+
+    fieldValue.update(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUpdateMethodWithWrongType() throws Exception {
+    methodValue.compileInjector();
+
+    methodValue.update("someValue");
+  }
+
+  private static Object injectorOf(SpringValue springValue) throws Exception {
+    Field injector = SpringValue.class.getDeclaredField("injector");
+    injector.setAccessible(true);
+    return injector.get(springValue);
+  }
+
+  public static class TestBean {
+
+    private int timeout;
+    private int batch;
+
+    public void setBatch(int batch) {
+      this.batch = batch;
+    }
+  }
+}
@@ -19,6 +19,8 @@ package com.ctrip.framework.apollo.util;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 
 import com.ctrip.framework.apollo.core.ApolloClientSystemConsts;
+import com.ctrip.framework.apollo.enums.LongPollingEngine;
+import com.ctrip.framework.apollo.monitor.internal.enums.MonitorEventBackpressurePolicy;
 import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
 import java.io.File;
 import org.junit.After;
@@ -43,6 +45,16 @@ public class ConfigUtilTest {
     System.clearProperty("apollo.longPollQPS");
     System.clearProperty("apollo.configCacheSize");
     System.clearProperty("apollo.longPollingInitialDelayInMills");
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_LONG_POLLING_ENGINE);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EVENT_BUFFER_SIZE);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EVENT_BACKPRESSURE_POLICY);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CONFIG_PREFETCH_PARALLELISM);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CACHE_KUBERNETES_WRITE_DEBOUNCE);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CLIENT_VIRTUAL_THREADS_ENABLED);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CONFIG_SERVICE_HEALTH_AWARE_LOAD_BALANCING_ENABLED);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CONFIG_LISTENER_PARALLELISM);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CONFIG_LISTENER_TIMEOUT);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_COALESCING_WINDOW);
     System.clearProperty("apollo.autoUpdateInjectedSpringProperties");
     System.clearProperty(ApolloClientSystemConsts.APOLLO_CACHE_DIR);
     System.clearProperty(PropertiesFactory.APOLLO_PROPERTY_ORDER_ENABLE);
@@ -202,6 +214,31 @@ public class ConfigUtilTest {
     assertTrue(configUtil.getLongPollingInitialDelayInMills() > 0);
   }
 
+  @Test
+  public void testLongPollingEngine() throws Exception {
+    ConfigUtil configUtil = new ConfigUtil();
+
+    assertEquals(LongPollingEngine.BLOCKING, configUtil.getLongPollingEngine());
+  }
+
+  @Test
+  public void testCustomizeLongPollingEngine() throws Exception {
+    System.setProperty(ApolloClientSystemConsts.APOLLO_LONG_POLLING_ENGINE, "Multiplexed");
+
+    ConfigUtil configUtil = new ConfigUtil();
+
+    assertEquals(LongPollingEngine.MULTIPLEXED, configUtil.getLongPollingEngine());
+  }
+
+  @Test
+  public void testCustomizeInvalidLongPollingEngine() throws Exception {
+    System.setProperty(ApolloClientSystemConsts.APOLLO_LONG_POLLING_ENGINE, "someInvalidEngine");
+
+    ConfigUtil configUtil = new ConfigUtil();
+
+    assertEquals(LongPollingEngine.BLOCKING, configUtil.getLongPollingEngine());
+  }
+
   @Test
   public void testCustomizeAutoUpdateInjectedSpringProperties() throws Exception {
     boolean someAutoUpdateInjectedSpringProperties = false;
@@ -381,4 +418,118 @@ public class ConfigUtilTest {
     configUtil = new ConfigUtil();
     assertTrue(configUtil.isPropertyNamesCacheEnabled());
   }
+
+  @Test
+  public void testCustomizeMonitorEventBuffer() throws Exception {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertEquals(8192, configUtil.getMonitorEventBufferSize());
+    assertEquals(MonitorEventBackpressurePolicy.DISCARD_NEWEST,
+        configUtil.getMonitorEventBackpressurePolicy());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EVENT_BUFFER_SIZE, "1024");
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EVENT_BACKPRESSURE_POLICY,
+        "caller_runs");
+    configUtil = new ConfigUtil();
+    assertEquals(1024, configUtil.getMonitorEventBufferSize());
+    assertEquals(MonitorEventBackpressurePolicy.CALLER_RUNS,
+        configUtil.getMonitorEventBackpressurePolicy());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EVENT_BUFFER_SIZE, "-1");
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EVENT_BACKPRESSURE_POLICY,
+        "someInvalidPolicy");
+    configUtil = new ConfigUtil();
+    assertEquals(8192, configUtil.getMonitorEventBufferSize());
+    assertEquals(MonitorEventBackpressurePolicy.DISCARD_NEWEST,
+        configUtil.getMonitorEventBackpressurePolicy());
+  }
+
+  @Test
+  public void testCustomizeConfigPrefetchParallelism() throws Exception {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertEquals(8, configUtil.getConfigPrefetchParallelism());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CONFIG_PREFETCH_PARALLELISM, "1");
+    configUtil = new ConfigUtil();
+    assertEquals(1, configUtil.getConfigPrefetchParallelism());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CONFIG_PREFETCH_PARALLELISM, "0");
+    configUtil = new ConfigUtil();
+    assertEquals(8, configUtil.getConfigPrefetchParallelism());
+  }
+
+  @Test
+  public void testCustomizeK8sConfigMapWriteDebounce() throws Exception {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertEquals(1000, configUtil.getK8sConfigMapWriteDebounceInMillis());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CACHE_KUBERNETES_WRITE_DEBOUNCE, "0");
+    configUtil = new ConfigUtil();
+    assertEquals(0, configUtil.getK8sConfigMapWriteDebounceInMillis());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CACHE_KUBERNETES_WRITE_DEBOUNCE, "-1");
+    configUtil = new ConfigUtil();
+    assertEquals(1000, configUtil.getK8sConfigMapWriteDebounceInMillis());
+  }
+
+  @Test
+  public void testCustomizeConfigListenerParallelism() throws Exception {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertEquals(8, configUtil.getConfigListenerParallelism());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CONFIG_LISTENER_PARALLELISM, "2");
+    configUtil = new ConfigUtil();
+    assertEquals(2, configUtil.getConfigListenerParallelism());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CONFIG_LISTENER_PARALLELISM, "0");
+    configUtil = new ConfigUtil();
+    assertEquals(8, configUtil.getConfigListenerParallelism());
+  }
+
+  @Test
+  public void testCustomizeConfigListenerTimeout() throws Exception {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertEquals(60000, configUtil.getConfigListenerTimeoutInMillis());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CONFIG_LISTENER_TIMEOUT, "500");
+    configUtil = new ConfigUtil();
+    assertEquals(500, configUtil.getConfigListenerTimeoutInMillis());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CONFIG_LISTENER_TIMEOUT, "-1");
+    configUtil = new ConfigUtil();
+    assertEquals(60000, configUtil.getConfigListenerTimeoutInMillis());
+  }
+
+  @Test
+  public void testCustomizeConfigChangeCoalescingWindow() throws Exception {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertEquals(0, configUtil.getConfigChangeCoalescingWindowInMillis());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_COALESCING_WINDOW, "2000");
+    configUtil = new ConfigUtil();
+    assertEquals(2000, configUtil.getConfigChangeCoalescingWindowInMillis());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_COALESCING_WINDOW, "-1");
+    configUtil = new ConfigUtil();
+    assertEquals(0, configUtil.getConfigChangeCoalescingWindowInMillis());
+  }
+
+  @Test
+  public void testCustomizeVirtualThreadsEnabled() throws Exception {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertFalse(configUtil.isVirtualThreadsEnabled());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CLIENT_VIRTUAL_THREADS_ENABLED, "true");
+    configUtil = new ConfigUtil();
+    assertTrue(configUtil.isVirtualThreadsEnabled());
+  }
+
+  @Test
+  public void testCustomizeHealthAwareLoadBalancingEnabled() throws Exception {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertFalse(configUtil.isHealthAwareLoadBalancingEnabled());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CONFIG_SERVICE_HEALTH_AWARE_LOAD_BALANCING_ENABLED, "true");
+    configUtil = new ConfigUtil();
+    assertTrue(configUtil.isHealthAwareLoadBalancingEnabled());
+  }
 }
@@ -18,9 +18,24 @@ package com.ctrip.framework.apollo.util;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -115,4 +130,136 @@ public class OrderedPropertiesTest {
 
   }
 
+  @Test
+  public void testOrderAfterRemoveAndPut() {
+    orderedProperties.setProperty("key3", "value3");
+    orderedProperties.remove("key1");
+    orderedProperties.setProperty("key1", "newValue1");
+    orderedProperties.setProperty("key2", "newValue2");
+
+    assertArrayEquals(new Object[]{"key2", "key3", "key1"}, orderedProperties.keySet().toArray());
+    assertArrayEquals(new Object[]{"key2", "key3", "key1"},
+        orderedProperties.stringPropertyNames().toArray());
+    assertArrayEquals(new Object[]{"newValue2", "value3", "newValue1"},
+        orderedProperties.values().toArray());
+    assertEquals("{key2=newValue2, key3=value3, key1=newValue1}", orderedProperties.toString());
+  }
+
+  @Test
+  public void testEntrySet() {
+    Iterator<Entry<Object, Object>> iterator = orderedProperties.entrySet().iterator();
+    Entry<Object, Object> entry = iterator.next();
+    assertEquals("key1", entry.getKey());
+    assertEquals("value1", entry.getValue());
+
+    entry.setValue("newValue1");
+    assertEquals("newValue1", orderedProperties.getProperty("key1"));
+
+    entry = iterator.next();
+    assertEquals("key2", entry.getKey());
+    iterator.remove();
+    assertFalse(iterator.hasNext());
+    assertFalse(orderedProperties.containsKey("key2"));
+    assertEquals(1, orderedProperties.entrySet().size());
+  }
+
+  @Test
+  public void testStringPropertyNamesReusedUntilKeysChange() {
+    Set<String> propertyNames = orderedProperties.stringPropertyNames();
+    orderedProperties.setProperty("key1", "newValue1");
+    assertSame(propertyNames, orderedProperties.stringPropertyNames());
+
+    orderedProperties.setProperty("key3", "value3");
+    assertNotSame(propertyNames, orderedProperties.stringPropertyNames());
+    assertEquals(3, orderedProperties.stringPropertyNames().size());
+  }
+
+  @Test
+  public void testGetPropertyWithDefaults() {
+    Properties someDefaults = new Properties();
+    someDefaults.setProperty("key3", "value3");
+    OrderedProperties properties = new OrderedProperties() {
+      {
+        this.defaults = someDefaults;
+      }
+    };
+    properties.setProperty("key1", "value1");
+
+    assertEquals("value1", properties.getProperty("key1"));
+    assertEquals("value3", properties.getProperty("key3"));
+    assertEquals("someDefault", properties.getProperty("key4", "someDefault"));
+  }
+
+  @Test
+  public void testLoadAndStore() throws Exception {
+    OrderedProperties properties = new OrderedProperties();
+    properties.load(new StringReader("c=3\nb=2\na=1\n"));
+    assertArrayEquals(new Object[]{"c", "b", "a"}, properties.keySet().toArray());
+
+    StringWriter writer = new StringWriter();
+    properties.store(writer, null);
+    Properties loaded = new Properties();
+    loaded.load(new StringReader(writer.toString()));
+    assertEquals(properties, loaded);
+  }
+
+  @Test
+  public void testSerialization() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(orderedProperties);
+    }
+    OrderedProperties deserialized;
+    try (ObjectInputStream in = new ObjectInputStream(
+        new ByteArrayInputStream(bytes.toByteArray()))) {
+      deserialized = (OrderedProperties) in.readObject();
+    }
+
+    assertEquals(orderedProperties, deserialized);
+    deserialized.setProperty("key0", "value0");
+    assertArrayEquals(new Object[]{"key1", "key2", "key0"}, deserialized.keySet().toArray());
+  }
+
+  @Test
+  public void testCloneIsIndependent() {
+    OrderedProperties clone = (OrderedProperties) orderedProperties.clone();
+    clone.setProperty("key3", "value3");
+
+    assertEquals(2, orderedProperties.size());
+    assertEquals(3, clone.size());
+  }
+
+  @Test
+  public void testConcurrentReadAndWrite() throws Exception {
+    int writes = 10000;
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      Future<?> writer = executorService.submit(() -> {
+        for (int i = 0; i < writes; i++) {
+          orderedProperties.setProperty("someKey" + i, "someValue" + i);
+          orderedProperties.remove("someKey" + (i - 1));
+        }
+      });
+      List<Future<?>> readers = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        readers.add(executorService.submit(() -> {
+          while (!writer.isDone()) {
+            for (Entry<Object, Object> entry : orderedProperties.entrySet()) {
+              assertNotNull(entry.getValue());
+            }
+            assertEquals("value1", orderedProperties.getProperty("key1"));
+          }
+        }));
+      }
+      writer.get(10, TimeUnit.SECONDS);
+      for (Future<?> reader : readers) {
+        reader.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    assertArrayEquals(new Object[]{"key1", "key2", "someKey" + (writes - 1)},
+        orderedProperties.keySet().toArray());
+  }
 }
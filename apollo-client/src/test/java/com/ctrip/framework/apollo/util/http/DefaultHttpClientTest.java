@@ -0,0 +1,201 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.util.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.BinaryBody;
+import org.mockserver.model.MediaType;
+
+public class DefaultHttpClientTest {
+
+  private static final Gson GSON = new Gson();
+
+  private ClientAndServer server;
+  private DefaultHttpClient httpClient;
+
+  @Before
+  public void setUp() throws Exception {
+    server = ClientAndServer.startClientAndServer();
+    httpClient = new DefaultHttpClient();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.stop();
+  }
+
+  @Test
+  public void testDoGetPlain() throws Exception {
+    ApolloConfig someConfig = someConfig(10);
+    server.when(request("/configs/someAppId"))
+        .respond(response().withStatusCode(200).withContentType(MediaType.JSON_UTF_8)
+            .withBody(GSON.toJson(someConfig)));
+
+    HttpResponse<ApolloConfig> response = httpClient.doGet(
+        new HttpRequest(url("/configs/someAppId")), ApolloConfig.class);
+
+    assertEquals(200, response.getStatusCode());
+    assertEquals(someConfig.getConfigurations(), response.getBody().getConfigurations());
+    server.verify(request("/configs/someAppId")
+        .withHeader(DefaultHttpTransport.ACCEPT_ENCODING, DefaultHttpTransport.SUPPORTED_ENCODINGS));
+  }
+
+  @Test
+  public void testDoGetGzip() throws Exception {
+    List<ApolloConfigNotification> notifications = Lists.newArrayList(
+        new ApolloConfigNotification("application", 1),
+        new ApolloConfigNotification("someNamespace", 2));
+    server.when(request("/notifications/v2"))
+        .respond(response().withStatusCode(200).withContentType(MediaType.JSON_UTF_8)
+            .withHeader("Content-Encoding", "gzip")
+            .withBody(BinaryBody.binary(gzip(GSON.toJson(notifications)))));
+
+    Type responseType = new TypeToken<List<ApolloConfigNotification>>() {
+    }.getType();
+    HttpResponse<List<ApolloConfigNotification>> response = httpClient.doGet(
+        new HttpRequest(url("/notifications/v2")), responseType);
+
+    assertEquals(2, response.getBody().size());
+    assertEquals("someNamespace", response.getBody().get(1).getNamespaceName());
+    assertEquals(2, response.getBody().get(1).getNotificationId());
+  }
+
+  @Test
+  public void testDoGetDeflate() throws Exception {
+    ApolloConfig someConfig = someConfig(10);
+    server.when(request("/configs/someAppId"))
+        .respond(response().withStatusCode(200).withContentType(MediaType.JSON_UTF_8)
+            .withHeader("Content-Encoding", "deflate")
+            .withBody(BinaryBody.binary(deflate(GSON.toJson(someConfig)))));
+
+    HttpResponse<ApolloConfig> response = httpClient.doGet(
+        new HttpRequest(url("/configs/someAppId")), ApolloConfig.class);
+
+    assertEquals(someConfig.getConfigurations(), response.getBody().getConfigurations());
+  }
+
+  @Test
+  public void testDoGetLargeGzipNamespace() throws Exception {
+    // about 12MB after serialization
+    ApolloConfig someConfig = someConfig(100000);
+    String json = GSON.toJson(someConfig);
+    assertTrue(json.length() > 10 * 1024 * 1024);
+    server.when(request("/configs/someAppId"))
+        .respond(response().withStatusCode(200).withContentType(MediaType.JSON_UTF_8)
+            .withHeader("Content-Encoding", "gzip")
+            .withBody(BinaryBody.binary(gzip(json))));
+
+    HttpResponse<ApolloConfig> response = httpClient.doGet(
+        new HttpRequest(url("/configs/someAppId")), ApolloConfig.class);
+
+    assertEquals(100000, response.getBody().getConfigurations().size());
+    assertEquals(someConfig.getConfigurations().get("key99999"),
+        response.getBody().getConfigurations().get("key99999"));
+  }
+
+  @Test
+  public void testDoGetNotModified() throws Exception {
+    server.when(request("/notifications/v2")).respond(response().withStatusCode(304));
+
+    HttpResponse<ApolloConfig> response = httpClient.doGet(
+        new HttpRequest(url("/notifications/v2")), ApolloConfig.class);
+
+    assertEquals(304, response.getStatusCode());
+    assertNull(response.getBody());
+  }
+
+  @Test
+  public void testDoGetNotFound() throws Exception {
+    server.when(request("/configs/someAppId"))
+        .respond(response().withStatusCode(404).withBody("not found"));
+
+    try {
+      httpClient.doGet(new HttpRequest(url("/configs/someAppId")), ApolloConfig.class);
+      fail("Expected ApolloConfigStatusCodeException");
+    } catch (ApolloConfigStatusCodeException ex) {
+      assertEquals(404, ex.getStatusCode());
+    }
+  }
+
+  @Test(expected = ApolloConfigException.class)
+  public void testDoGetCorruptedGzip() throws Exception {
+    server.when(request("/configs/someAppId"))
+        .respond(response().withStatusCode(200).withHeader("Content-Encoding", "gzip")
+            .withBody("not gzip"));
+
+    httpClient.doGet(new HttpRequest(url("/configs/someAppId")), ApolloConfig.class);
+  }
+
+  private String url(String path) {
+    return "http://localhost:" + server.getPort() + path;
+  }
+
+  private ApolloConfig someConfig(int size) {
+    Map<String, String> configurations = Maps.newHashMapWithExpectedSize(size);
+    String someValuePrefix = Strings.repeat("v", 100);
+    for (int i = 0; i < size; i++) {
+      configurations.put("key" + i, someValuePrefix + i);
+    }
+    ApolloConfig apolloConfig = new ApolloConfig("someAppId", "default", "application",
+        "someReleaseKey");
+    apolloConfig.setConfigurations(configurations);
+    return apolloConfig;
+  }
+
+  private byte[] gzip(String content) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+
+  private byte[] deflate(String content) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = new DeflaterOutputStream(bytes)) {
+      out.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.util.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.SettableFuture;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NonBlockingHttpClientTest {
+
+  private ServerSocket serverSocket;
+  private NonBlockingHttpClient httpClient;
+  private final List<String> receivedRequests = new CopyOnWriteArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    serverSocket = new ServerSocket(0);
+    httpClient = new NonBlockingHttpClient("NonBlockingHttpClientTest");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    httpClient.close();
+    serverSocket.close();
+  }
+
+  @Test
+  public void testGetWithContentLength() throws Exception {
+    String body = "[{\"namespaceName\":\"application\",\"notificationId\":1}]";
+    serve("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: "
+        + body.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n" + body);
+
+    HttpRequest request = new HttpRequest(url("/notifications/v2?appId=someAppId"));
+    request.setHeaders(ImmutableMap.of("Authorization", "someSignature"));
+    HttpResponse<String> response = execute(request);
+
+    assertEquals(200, response.getStatusCode());
+    assertEquals(body, response.getBody());
+    String requestHead = receivedRequests.get(0);
+    assertTrue(requestHead.startsWith("GET /notifications/v2?appId=someAppId HTTP/1.1\r\n"));
+    assertTrue(requestHead.contains("Authorization: someSignature\r\n"));
+    assertTrue(requestHead.contains("Host: localhost:" + serverSocket.getLocalPort() + "\r\n"));
+  }
+
+  @Test
+  public void testGetWithChunkedBody() throws Exception {
+    serve("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+        + "5\r\nhello\r\n8;ext=1\r\n, 世界\r\n0\r\n\r\n");
+
+    HttpResponse<String> response = execute(new HttpRequest(url("/some")));
+
+    assertEquals(200, response.getStatusCode());
+    assertEquals("hello, 世界", response.getBody());
+  }
+
+  @Test
+  public void testGetUntilEndOfStream() throws Exception {
+    serve("HTTP/1.0 200 OK\r\n\r\nsome body");
+
+    HttpResponse<String> response = execute(new HttpRequest(url("/some")));
+
+    assertEquals("some body", response.getBody());
+  }
+
+  @Test
+  public void testGetNotModified() throws Exception {
+    serve("HTTP/1.1 304 Not Modified\r\n\r\n");
+
+    HttpResponse<String> response = execute(new HttpRequest(url("/some")));
+
+    assertEquals(304, response.getStatusCode());
+    assertNull(response.getBody());
+  }
+
+  @Test
+  public void testGetWithErrorStatusCode() throws Exception {
+    serve("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n");
+
+    Throwable failure = executeAndExpectFailure(new HttpRequest(url("/some")));
+
+    assertTrue(failure instanceof ApolloConfigStatusCodeException);
+    assertEquals(404, ((ApolloConfigStatusCodeException) failure).getStatusCode());
+  }
+
+  @Test
+  public void testGetWithReadTimeout() throws Exception {
+    serve(null);
+
+    HttpRequest request = new HttpRequest(url("/some"));
+    request.setReadTimeout(200);
+    Throwable failure = executeAndExpectFailure(request);
+
+    assertTrue(failure instanceof ApolloConfigException);
+    assertTrue(failure.getCause() instanceof SocketTimeoutException);
+  }
+
+  @Test
+  public void testGetUnsupportedUrl() throws Exception {
+    assertFalse(NonBlockingHttpClient.isSupported("https://localhost/some"));
+
+    Throwable failure = executeAndExpectFailure(new HttpRequest("https://localhost/some"));
+
+    assertTrue(failure instanceof ApolloConfigException);
+  }
+
+  @Test
+  public void testManyConcurrentRequests() throws Exception {
+    int requests = 50;
+    final CountDownLatch allReceived = new CountDownLatch(requests);
+    final List<Socket> sockets = new CopyOnWriteArrayList<>();
+    Thread acceptor = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          while (sockets.size() < 50) {
+            Socket socket = serverSocket.accept();
+            readRequestHead(socket);
+            sockets.add(socket);
+            allReceived.countDown();
+          }
+        } catch (Exception ex) {
+          //ignore
+        }
+      }
+    });
+    acceptor.start();
+
+    final CountDownLatch allResponded = new CountDownLatch(requests);
+    for (int i = 0; i < requests; i++) {
+      httpClient.execute(new HttpRequest(url("/some")), new NonBlockingHttpClient.ResponseCallback() {
+        @Override
+        public void onResponse(HttpResponse<String> response) {
+          allResponded.countDown();
+        }
+
+        @Override
+        public void onFailure(Throwable ex) {
+        }
+      });
+    }
+
+    // all the requests are held by the server at the same time
+    assertTrue(allReceived.await(5, TimeUnit.SECONDS));
+    for (Socket socket : sockets) {
+      write(socket, "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\n[]");
+    }
+    assertTrue(allResponded.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testGetWithUnknownHost() throws Exception {
+    Throwable failure = executeAndExpectFailure(new HttpRequest("http://some-host.invalid/some"));
+
+    assertTrue(failure instanceof ApolloConfigException);
+    assertTrue(failure.getCause() instanceof UnknownHostException);
+  }
+
+  @Test
+  public void testGetWithIpAddress() throws Exception {
+    serve("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\n[]");
+
+    HttpResponse<String> response = execute(new HttpRequest(
+        "http://127.0.0.1:" + serverSocket.getLocalPort() + "/some"));
+
+    assertEquals("[]", response.getBody());
+  }
+
+  @Test
+  public void testDecodeChunked() throws Exception {
+    byte[] data = "3\r\nabc\r\n4\r\ndefg\r\n0\r\nsome-trailer: 1\r\n\r\n"
+        .getBytes(StandardCharsets.US_ASCII);
+
+    NonBlockingHttpClient.ChunkedDecoder decoder = new NonBlockingHttpClient.ChunkedDecoder(0);
+    // received in pieces
+    assertNull(decoder.decode(data, 4));
+    assertNull(decoder.decode(data, 10));
+    assertNull(decoder.decode(data, data.length - 2));
+    assertArrayEquals("abcdefg".getBytes(StandardCharsets.US_ASCII),
+        decoder.decode(data, data.length));
+
+    assertArrayEquals("abcdefg".getBytes(StandardCharsets.US_ASCII),
+        new NonBlockingHttpClient.ChunkedDecoder(0).decode(data, data.length));
+  }
+
+  private String url(String path) {
+    return "http://localhost:" + serverSocket.getLocalPort() + path;
+  }
+
+  private HttpResponse<String> execute(HttpRequest request) throws Exception {
+    final SettableFuture<HttpResponse<String>> future = SettableFuture.create();
+    httpClient.execute(request, new NonBlockingHttpClient.ResponseCallback() {
+      @Override
+      public void onResponse(HttpResponse<String> response) {
+        future.set(response);
+      }
+
+      @Override
+      public void onFailure(Throwable ex) {
+        future.setException(ex);
+      }
+    });
+    return future.get(5, TimeUnit.SECONDS);
+  }
+
+  private Throwable executeAndExpectFailure(HttpRequest request) throws Exception {
+    try {
+      execute(request);
+    } catch (ExecutionException ex) {
+      return ex.getCause();
+    }
+    throw new AssertionError("Failure expected");
+  }
+
+  /**
+   * Serve one connection with the raw response, or hold the connection if the response is null.
+   */
+  private void serve(final String rawResponse) {
+    Thread server = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try (Socket socket = serverSocket.accept()) {
+          receivedRequests.add(readRequestHead(socket));
+          if (rawResponse == null) {
+            TimeUnit.SECONDS.sleep(5);
+            return;
+          }
+          write(socket, rawResponse);
+        } catch (Exception ex) {
+          //ignore
+        }
+      }
+    });
+    server.setDaemon(true);
+    server.start();
+  }
+
+  private String readRequestHead(Socket socket) throws Exception {
+    BufferedReader reader = new BufferedReader(
+        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    StringBuilder head = new StringBuilder();
+    String line;
+    while ((line = reader.readLine()) != null && !line.isEmpty()) {
+      head.append(line).append("\r\n");
+    }
+    return head.toString();
+  }
+
+  private void write(Socket socket, String rawResponse) throws Exception {
+    OutputStream out = socket.getOutputStream();
+    out.write(rawResponse.getBytes(StandardCharsets.UTF_8));
+    out.flush();
+    socket.close();
+  }
+}
@@ -17,6 +17,7 @@
 package com.ctrip.framework.apollo.util.yaml;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -28,7 +29,13 @@ import com.google.common.base.Charsets;
 import com.google.common.io.Files;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -79,6 +86,70 @@ public class YamlParserTest {
     testInvalid("case9.yaml");
   }
 
+  @Test
+  public void testSplitTopLevelSections() throws Exception {
+    assertEquals(Arrays.asList("# comment\nk1: v1\n", "k2:\n  k3: v3\n\n", "k4:\n- a\n- b"),
+        YamlParser.splitTopLevelSections("# comment\nk1: v1\nk2:\n  k3: v3\n\nk4:\n- a\n- b"));
+
+    assertNull(YamlParser.splitTopLevelSections(""));
+    assertNull(YamlParser.splitTopLevelSections("# comment only"));
+    assertNull(YamlParser.splitTopLevelSections("- a\n- b"));
+    assertNull(YamlParser.splitTopLevelSections("k1: v1\n---\nk2: v2"));
+    assertNull(YamlParser.splitTopLevelSections("k1: &anchor v1\nk2: *anchor"));
+    assertNull(YamlParser.splitTopLevelSections("{k1: v1, k2: v2}"));
+    assertNull(YamlParser.splitTopLevelSections("? k1\n: v1"));
+  }
+
+  @Test
+  public void testOnlyChangedSectionsAreParsedAgain() throws Exception {
+    String yamlContent = "k1: v1\nk2:\n  k3: v3\n  k4: [a, b]\nk5: 5\n";
+    String changedYamlContent = "k1: v1\nk2:\n  k3: v3\n  k4: [a, b]\nk5: 6\n";
+
+    check(yamlContent);
+    assertEquals(0, parser.sectionCacheStats().hitCount());
+    assertEquals(3, parser.sectionCacheStats().missCount());
+
+    check(changedYamlContent);
+    assertEquals(2, parser.sectionCacheStats().hitCount());
+    assertEquals(4, parser.sectionCacheStats().missCount());
+  }
+
+  @Test(expected = DuplicateKeyException.class)
+  public void testDuplicateKeysInDifferentSections() throws Exception {
+    parser.yamlToProperties("k1: v1\nk2: v2\nk1: v3\n");
+  }
+
+  @Test
+  public void testNonSplittableContent() throws Exception {
+    check("k1: &anchor\n  k2: v2\nk3: *anchor\n");
+    check("k1: v1\n---\nk1: v2\n");
+    check("- a\n- b\n");
+    check("some text\n");
+  }
+
+  @Test
+  public void testConcurrentParsing() throws Exception {
+    String yamlContent = loadYaml("case1.yaml");
+    Properties expected = parser.yamlToProperties(yamlContent);
+
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Properties>> futures = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        // each content has a new section, which is parsed by a pooled yaml instance
+        String someContent = yamlContent + "\nsomeKey" + i + ": someValue" + i + "\n";
+        futures.add(executorService.submit(() -> parser.yamlToProperties(someContent)));
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        Properties actual = futures.get(i).get();
+        assertEquals("someValue" + i, actual.remove("someKey" + i));
+        assertTrue(checkPropertiesEquals(expected, actual));
+      }
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
   @Test
   public void testOrderProperties() throws IOException {
     String yamlContent = loadYaml("orderedcase.yaml");
@@ -177,6 +177,11 @@ public class ApolloClientSystemConsts {
    */
   public static final String APOLLO_KUBERNETES_CACHE_ENABLE_ENVIRONMENT_VARIABLES = "APOLLO_KUBERNETES_CACHE_ENABLE";
 
+  /**
+   * the delay in milliseconds for coalescing the writes of kubernetes configmap cache, 0 means writing immediately
+   */
+  public static final String APOLLO_CACHE_KUBERNETES_WRITE_DEBOUNCE = "apollo.cache.kubernetes.write-debounce";
+
   /**
    * enable apollo overrideSystemProperties
    */
@@ -205,4 +210,65 @@ public class ApolloClientSystemConsts {
    * apollo client monitor collect period
    */
   public static final String APOLLO_CLIENT_MONITOR_EXTERNAL_EXPORT_PERIOD = "apollo.client.monitor.external.export-period";
+
+  /**
+   * apollo client monitor event buffer size
+   */
+  public static final String APOLLO_CLIENT_MONITOR_EVENT_BUFFER_SIZE = "apollo.client.monitor.event-buffer-size";
+
+  /**
+   * apollo client monitor event backpressure policy {discard_newest, discard_oldest, caller_runs}
+   */
+  public static final String APOLLO_CLIENT_MONITOR_EVENT_BACKPRESSURE_POLICY = "apollo.client.monitor.event-backpressure-policy";
+
+  /**
+   * apollo long polling engine {blocking, multiplexed}
+   */
+  public static final String APOLLO_LONG_POLLING_ENGINE = "apollo.long-polling.engine";
+
+  /**
+   * apollo long polling engine environment variables
+   */
+  public static final String APOLLO_LONG_POLLING_ENGINE_ENVIRONMENT_VARIABLES = "APOLLO_LONG_POLLING_ENGINE";
+
+  /**
+   * the max number of namespaces fetched concurrently when the spring property sources are initialized
+   */
+  public static final String APOLLO_CONFIG_PREFETCH_PARALLELISM = "apollo.config.prefetch-parallelism";
+
+  /**
+   * whether to run the apollo client tasks on virtual threads when the runtime supports them
+   */
+  public static final String APOLLO_CLIENT_VIRTUAL_THREADS_ENABLED = "apollo.client.virtual-threads.enabled";
+
+  /**
+   * whether to run the apollo client tasks on virtual threads environment variables
+   */
+  public static final String APOLLO_CLIENT_VIRTUAL_THREADS_ENABLED_ENVIRONMENT_VARIABLES = "APOLLO_CLIENT_VIRTUAL_THREADS_ENABLED";
+
+  /**
+   * whether to balance the config service requests by their latency and failures
+   */
+  public static final String APOLLO_CONFIG_SERVICE_HEALTH_AWARE_LOAD_BALANCING_ENABLED = "apollo.config-service.health-aware-load-balancing.enabled";
+
+  /**
+   * whether to balance the config service requests by their latency and failures environment variables
+   */
+  public static final String APOLLO_CONFIG_SERVICE_HEALTH_AWARE_LOAD_BALANCING_ENABLED_ENVIRONMENT_VARIABLES = "APOLLO_CONFIG_SERVICE_HEALTH_AWARE_LOAD_BALANCING_ENABLED";
+
+  /**
+   * the max number of config change listeners notified concurrently
+   */
+  public static final String APOLLO_CONFIG_LISTENER_PARALLELISM = "apollo.config.listener.parallelism";
+
+  /**
+   * the time in milliseconds after which a running config change listener is considered stuck
+   */
+  public static final String APOLLO_CONFIG_LISTENER_TIMEOUT = "apollo.config.listener.timeout";
+
+  /**
+   * the window in milliseconds within which the changes of a namespace are merged into one change
+   * event, 0 means disabled
+   */
+  public static final String APOLLO_CONFIG_CHANGE_COALESCING_WINDOW = "apollo.config.change-coalescing-window";
 }
@@ -20,6 +20,8 @@ import com.google.common.io.BaseEncoding;
 import java.io.UnsupportedEncodingException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 
@@ -30,18 +32,40 @@ public class HmacSha1Utils {
 
   private static final String ALGORITHM_NAME = "HmacSHA1";
   private static final String ENCODING = "UTF-8";
+  // an app usually signs with only one secret, just start over if a thread sees too many of them
+  private static final int MAX_CACHED_MAC_PER_THREAD = 16;
+
+  // the initialized macs of the current thread, keyed by secret, Mac is not thread safe
+  private static final ThreadLocal<Map<String, Mac>> MACS = ThreadLocal.withInitial(HashMap::new);
 
   public static String signString(String stringToSign, String accessKeySecret) {
     try {
-      Mac mac = Mac.getInstance(ALGORITHM_NAME);
-      mac.init(new SecretKeySpec(
-          accessKeySecret.getBytes(ENCODING),
-          ALGORITHM_NAME
-      ));
+      Mac mac = getMac(accessKeySecret);
       byte[] signData = mac.doFinal(stringToSign.getBytes(ENCODING));
       return BaseEncoding.base64().encode(signData);
     } catch (NoSuchAlgorithmException | UnsupportedEncodingException | InvalidKeyException e) {
       throw new IllegalArgumentException(e.toString());
     }
   }
+
+  private static Mac getMac(String accessKeySecret)
+      throws NoSuchAlgorithmException, UnsupportedEncodingException, InvalidKeyException {
+    Map<String, Mac> macs = MACS.get();
+    Mac mac = macs.get(accessKeySecret);
+    if (mac != null) {
+      // doFinal resets the mac, reset again in case the last signing failed halfway
+      mac.reset();
+      return mac;
+    }
+    mac = Mac.getInstance(ALGORITHM_NAME);
+    mac.init(new SecretKeySpec(
+        accessKeySecret.getBytes(ENCODING),
+        ALGORITHM_NAME
+    ));
+    if (macs.size() >= MAX_CACHED_MAC_PER_THREAD) {
+      macs.clear();
+    }
+    macs.put(accessKeySecret, mac);
+    return mac;
+  }
 }
@@ -30,8 +30,9 @@ public class Signature {
   /**
    * Authorization=Apollo {appId}:{sign}
    */
-  private static final String AUTHORIZATION_FORMAT = "Apollo %s:%s";
+  private static final String AUTHORIZATION_PREFIX = "Apollo ";
   private static final String DELIMITER = "\n";
+  private static final String SCHEME_DELIMITER = "://";
 
   public static final String HTTP_HEADER_TIMESTAMP = "Timestamp";
 
@@ -48,12 +49,51 @@ public class Signature {
     String signature = signature(timestamp, pathWithQuery, secret);
 
     Map<String, String> headers = Maps.newHashMap();
-    headers.put(HttpHeaders.AUTHORIZATION, String.format(AUTHORIZATION_FORMAT, appId, signature));
+    headers.put(HttpHeaders.AUTHORIZATION, AUTHORIZATION_PREFIX + appId + ":" + signature);
     headers.put(HTTP_HEADER_TIMESTAMP, timestamp);
     return headers;
   }
 
-  private static String url2PathWithQuery(String urlString) {
+  static String url2PathWithQuery(String urlString) {
+    int schemeEnd = urlString.indexOf(SCHEME_DELIMITER);
+    if (schemeEnd <= 0 || !isHttpScheme(urlString, schemeEnd)) {
+      return parsePathWithQuery(urlString);
+    }
+    // the same as URL#getPath() + "?" + URL#getQuery() without parsing the whole url
+    int authorityStart = schemeEnd + SCHEME_DELIMITER.length();
+    int pathStart = indexOfPathStart(urlString, authorityStart);
+    if (pathStart < 0) {
+      return "";
+    }
+    int fragmentStart = urlString.indexOf('#', pathStart);
+    int pathWithQueryEnd = fragmentStart < 0 ? urlString.length() : fragmentStart;
+    int queryStart = urlString.indexOf('?', pathStart);
+    if (queryStart == pathWithQueryEnd - 1) {
+      // empty query
+      pathWithQueryEnd = queryStart;
+    }
+    return urlString.substring(pathStart, pathWithQueryEnd);
+  }
+
+  private static boolean isHttpScheme(String urlString, int schemeEnd) {
+    return (schemeEnd == 4 && urlString.regionMatches(true, 0, "http", 0, 4))
+        || (schemeEnd == 5 && urlString.regionMatches(true, 0, "https", 0, 5));
+  }
+
+  private static int indexOfPathStart(String urlString, int authorityStart) {
+    for (int i = authorityStart; i < urlString.length(); i++) {
+      char c = urlString.charAt(i);
+      if (c == '/' || c == '?') {
+        return i;
+      }
+      if (c == '#') {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  private static String parsePathWithQuery(String urlString) {
     try {
       URL url = new URL(urlString);
       String path = url.getPath();
@@ -97,6 +97,14 @@ public abstract class Tracer {
     }
   }
 
+  public static void logMetricsForCount(String name, int count) {
+    try {
+      getProducer().logMetricsForCount(name, count);
+    } catch (Throwable ex) {
+      logger.warn("Failed to log metrics for count: {}, count: {}", name, count, ex);
+    }
+  }
+
   public static Transaction newTransaction(String type, String name) {
     try {
       return getProducer().newTransaction(type, name);
@@ -50,6 +50,11 @@ public class CatMessageProducer implements MessageProducer {
      Cat.logMetricForCount(name);
   }
 
+  @Override
+  public void logMetricsForCount(String name, int count) {
+    Cat.logMetricForCount(name, count);
+  }
+
   @Override
   public Transaction newTransaction(String type, String name) {
     return new CatTransaction(Cat.newTransaction(type, name));
@@ -64,6 +64,19 @@ public interface MessageProducer extends Ordered {
       //do nothing
   }
 
+  /**
+   * log metrics for count in batch
+   *
+   * @param name        metrics name
+   * @param count       the count to add
+   * @since 2.6.0
+   */
+  default void logMetricsForCount(String name, int count) {
+    for (int i = 0; i < count; i++) {
+      logMetricsForCount(name);
+    }
+  }
+
   /**
    * Create a new transaction with given type and name.
    *
@@ -18,6 +18,15 @@ package com.ctrip.framework.apollo.core.signature;
 
 import static org.junit.Assert.assertEquals;
 
+import com.google.common.io.BaseEncoding;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import org.junit.Test;
 
 /**
@@ -35,4 +44,49 @@ public class HmacSha1UtilsTest {
     String expectedSignature = "EoKyziXvKqzHgwx+ijDJwgVTDgE=";
     assertEquals(expectedSignature, actualSignature);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testSignStringWithDifferentSecrets() throws Exception {
+    // more secrets than the macs cached per thread
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 20; i++) {
+        String stringToSign = "1576478257344\n/configs/someAppId/default/application?round=" + round;
+        String accessKeySecret = "someSecret" + i;
+
+        assertEquals(signByNewMac(stringToSign, accessKeySecret),
+            HmacSha1Utils.signString(stringToSign, accessKeySecret));
+      }
+    }
+  }
+
+  @Test
+  public void testSignStringConcurrently() throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        final int threadIndex = i;
+        futures.add(executorService.submit(() -> {
+          for (int j = 0; j < 1000; j++) {
+            String stringToSign = threadIndex + "\n/notifications/v2?id=" + j;
+            String accessKeySecret = "someSecret" + (j % 2);
+            assertEquals(signByNewMac(stringToSign, accessKeySecret),
+                HmacSha1Utils.signString(stringToSign, accessKeySecret));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private String signByNewMac(String stringToSign, String accessKeySecret) throws Exception {
+    Mac mac = Mac.getInstance("HmacSHA1");
+    mac.init(new SecretKeySpec(accessKeySecret.getBytes(StandardCharsets.UTF_8), "HmacSHA1"));
+    return BaseEncoding.base64().encode(mac.doFinal(stringToSign.getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -105,6 +105,27 @@ public class TracerTest {
     verify(someProducer, times(1)).logEvent(someType, someName);
   }
 
+  @Test
+  public void testLogMetricsForCountInBatch() throws Exception {
+    String someName = "someName";
+    int someCount = 3;
+
+    Tracer.logMetricsForCount(someName, someCount);
+
+    verify(someProducer, times(1)).logMetricsForCount(someName, someCount);
+  }
+
+  @Test
+  public void testLogMetricsForCountInBatchWithException() throws Exception {
+    String someName = "someName";
+    int someCount = 3;
+    doThrow(RuntimeException.class).when(someProducer).logMetricsForCount(someName, someCount);
+
+    Tracer.logMetricsForCount(someName, someCount);
+
+    verify(someProducer, times(1)).logMetricsForCount(someName, someCount);
+  }
+
   @Test
   public void testLogEventWithStatusAndNameValuePairs() throws Exception {
     String someType = "someType";
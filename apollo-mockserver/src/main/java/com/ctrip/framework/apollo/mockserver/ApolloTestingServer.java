@@ -48,7 +48,9 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ApolloTestingServer implements AutoCloseable {
 
@@ -57,6 +59,10 @@ public class ApolloTestingServer implements AutoCloseable {
     }.getType();
 
     private static final String DEFAULT_APP_ID = "someAppId";
+    private static final long DEFAULT_LONG_POLL_HOLD_TIMEOUT_IN_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    // the notification id of a namespace before any change is published
+    private static final long INITIAL_NOTIFICATION_ID = 1;
+    private static final String PROPERTIES_SUFFIX = ".properties";
     private static Method CONFIG_SERVICE_LOCATOR_CLEAR;
     private static Method CONFIG_SERVICE_RESET;
     private static Method REMOTE_CONFIG_LONG_POLL_STOP;
@@ -73,6 +79,15 @@ public class ApolloTestingServer implements AutoCloseable {
     private final Map<String, Map<String, Set<String>>> deletedKeysOfAppAndNamespace =
         Maps.newConcurrentMap();
 
+    // guarded by notificationLock, appId -> namespace -> notification id
+    private final Map<String, Map<String, Long>> notificationIdsOfAppAndNamespace = Maps.newHashMap();
+    private final Object notificationLock = new Object();
+    private final FaultInjection configFaults = new FaultInjection();
+    private final FaultInjection longPollFaults = new FaultInjection();
+    private volatile long longPollHoldTimeoutInMillis = DEFAULT_LONG_POLL_HOLD_TIMEOUT_IN_MILLIS;
+    private volatile long responseDelayInMillis;
+    private volatile boolean releaseLongPolls;
+
     private MockWebServer server;
 
     private boolean started;
@@ -104,23 +119,20 @@ public class ApolloTestingServer implements AutoCloseable {
 
     public void start() throws IOException {
         clearForStart();
+        synchronized (notificationLock) {
+            notificationIdsOfAppAndNamespace.clear();
+            releaseLongPolls = false;
+        }
         server = new MockWebServer();
         final Dispatcher dispatcher = new Dispatcher() {
             @Override
             public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
-                if (request.getPath().startsWith("/notifications/v2")) {
-                    String notifications = request.getRequestUrl().queryParameter("notifications");
-                    return new MockResponse().setResponseCode(200).setBody(mockLongPollBody(notifications));
-                }
-                if (request.getPath().startsWith("/configs")) {
-                    List<String> pathSegments = request.getRequestUrl().pathSegments();
-                    // appId and cluster might be used in the future
-                    String appId = pathSegments.get(1);
-                    String cluster = pathSegments.get(2);
-                    String namespace = pathSegments.get(3);
-                    return new MockResponse().setResponseCode(200).setBody(loadConfigFor(appId, namespace));
-                }
-                return new MockResponse().setResponseCode(404);
+                return withResponseDelay(doDispatch(request));
+            }
+
+            @Override
+            public void shutdown() {
+                releaseParkedLongPolls();
             }
         };
 
@@ -131,8 +143,42 @@ public class ApolloTestingServer implements AutoCloseable {
         started = true;
     }
 
+    private MockResponse doDispatch(RecordedRequest request) throws InterruptedException {
+        if (request.getPath().startsWith("/notifications/v2")) {
+            MockResponse fault = longPollFaults.poll();
+            if (fault != null) {
+                return fault;
+            }
+            String appId = request.getRequestUrl().queryParameter("appId");
+            String notifications = request.getRequestUrl().queryParameter("notifications");
+            return holdLongPoll(appId == null ? DEFAULT_APP_ID : appId, notifications);
+        }
+        if (request.getPath().startsWith("/configs")) {
+            MockResponse fault = configFaults.poll();
+            if (fault != null) {
+                return fault;
+            }
+            List<String> pathSegments = request.getRequestUrl().pathSegments();
+            // appId and cluster might be used in the future
+            String appId = pathSegments.get(1);
+            String cluster = pathSegments.get(2);
+            String namespace = pathSegments.get(3);
+            return new MockResponse().setResponseCode(200).setBody(loadConfigFor(appId, namespace));
+        }
+        return new MockResponse().setResponseCode(404);
+    }
+
+    private MockResponse withResponseDelay(MockResponse response) {
+        long delay = responseDelayInMillis;
+        if (delay > 0) {
+            response.setHeadersDelay(delay, TimeUnit.MILLISECONDS);
+        }
+        return response;
+    }
+
     public void close() {
         try {
+            releaseParkedLongPolls();
             clearForClose();
             server.close();
         } catch (Exception e) {
@@ -212,14 +258,66 @@ public class ApolloTestingServer implements AutoCloseable {
         return null;
     }
 
-    private String mockLongPollBody(String notificationsStr) {
-        List<ApolloConfigNotification> oldNotifications = GSON.fromJson(notificationsStr, notificationType);
-        List<ApolloConfigNotification> newNotifications = new ArrayList<>();
-        for (ApolloConfigNotification notification : oldNotifications) {
-            newNotifications
-                    .add(new ApolloConfigNotification(notification.getNamespaceName(), notification.getNotificationId() + 1));
+    /**
+     * Park the long polling request like the config service does, until any of the namespaces is
+     * changed or the hold timeout elapses
+     */
+    private MockResponse holdLongPoll(String appId, String notificationsStr) throws InterruptedException {
+        List<ApolloConfigNotification> clientNotifications = GSON.fromJson(notificationsStr, notificationType);
+        long deadline = System.currentTimeMillis() + longPollHoldTimeoutInMillis;
+        synchronized (notificationLock) {
+            while (true) {
+                List<ApolloConfigNotification> changed = findChangedNotifications(appId, clientNotifications);
+                if (!changed.isEmpty()) {
+                    return new MockResponse().setResponseCode(200).setBody(GSON.toJson(changed));
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || releaseLongPolls) {
+                    return new MockResponse().setResponseCode(304);
+                }
+                notificationLock.wait(remaining);
+            }
+        }
+    }
+
+    private List<ApolloConfigNotification> findChangedNotifications(String appId,
+        List<ApolloConfigNotification> clientNotifications) {
+        List<ApolloConfigNotification> changed = new ArrayList<>();
+        Map<String, Long> notificationIds = notificationIdsOfAppAndNamespace.get(appId);
+        for (ApolloConfigNotification notification : clientNotifications) {
+            String namespace = normalizeNamespace(notification.getNamespaceName());
+            Long notificationId = notificationIds == null ? null : notificationIds.get(namespace);
+            long latestId = notificationId == null ? INITIAL_NOTIFICATION_ID : notificationId;
+            if (latestId > notification.getNotificationId()) {
+                changed.add(new ApolloConfigNotification(notification.getNamespaceName(), latestId));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Notify the parked long polling requests of the namespace
+     */
+    private void publishChange(String appId, String namespace) {
+        synchronized (notificationLock) {
+            notificationIdsOfAppAndNamespace.computeIfAbsent(appId, key -> Maps.newHashMap())
+                .merge(normalizeNamespace(namespace), INITIAL_NOTIFICATION_ID + 1, (oldId, ignored) -> oldId + 1);
+            notificationLock.notifyAll();
+        }
+    }
+
+    private void releaseParkedLongPolls() {
+        synchronized (notificationLock) {
+            releaseLongPolls = true;
+            notificationLock.notifyAll();
+        }
+    }
+
+    private static String normalizeNamespace(String namespace) {
+        if (namespace.endsWith(PROPERTIES_SUFFIX)) {
+            return namespace.substring(0, namespace.length() - PROPERTIES_SUFFIX.length());
         }
-        return GSON.toJson(newNotifications);
+        return namespace;
     }
 
     /**
@@ -257,11 +355,12 @@ public class ApolloTestingServer implements AutoCloseable {
             addedOrModifiedPropertiesOfAppAndNamespace.computeIfAbsent(appId, key -> Maps.newConcurrentMap());
         if (addedOrModifiedPropertiesOfNamespace.containsKey(namespace)) {
             addedOrModifiedPropertiesOfNamespace.get(namespace).put(someKey, someValue);
-            return;
+        } else {
+            Map<String, String> properties = Maps.newConcurrentMap();
+            properties.put(someKey, someValue);
+            addedOrModifiedPropertiesOfNamespace.put(namespace, properties);
         }
-        Map<String, String> properties = Maps.newConcurrentMap();
-        properties.put(someKey, someValue);
-        addedOrModifiedPropertiesOfNamespace.put(namespace, properties);
+        publishChange(appId, namespace);
     }
 
     /**
@@ -279,19 +378,57 @@ public class ApolloTestingServer implements AutoCloseable {
             deletedKeysOfAppAndNamespace.computeIfAbsent(appId, key -> Maps.newConcurrentMap());
         if (deletedKeysOfNamespace.containsKey(namespace)) {
             deletedKeysOfNamespace.get(namespace).add(someKey);
-            return;
+        } else {
+            Set<String> keys = Sets.newConcurrentHashSet();
+            keys.add(someKey);
+            deletedKeysOfNamespace.put(namespace, keys);
         }
-        Set<String> keys = Sets.newConcurrentHashSet();
-        keys.add(someKey);
-        deletedKeysOfNamespace.put(namespace, keys);
+        publishChange(appId, namespace);
     }
 
     /**
      * reset overridden properties
      */
     public void resetOverriddenProperties() {
+        Set<Map.Entry<String, String>> changedNamespaces = Sets.newHashSet();
+        addedOrModifiedPropertiesOfAppAndNamespace.forEach((appId, namespaces) -> namespaces.keySet()
+            .forEach(namespace -> changedNamespaces.add(Maps.immutableEntry(appId, namespace))));
+        deletedKeysOfAppAndNamespace.forEach((appId, namespaces) -> namespaces.keySet()
+            .forEach(namespace -> changedNamespaces.add(Maps.immutableEntry(appId, namespace))));
         addedOrModifiedPropertiesOfAppAndNamespace.clear();
         deletedKeysOfAppAndNamespace.clear();
+        for (Map.Entry<String, String> changedNamespace : changedNamespaces) {
+            publishChange(changedNamespace.getKey(), changedNamespace.getValue());
+        }
+    }
+
+    /**
+     * Set how long the long polling requests are held when there is no change, after which they are
+     * answered with 304, 60 seconds by default like the config service
+     */
+    public void setLongPollHoldTimeout(long timeout, TimeUnit unit) {
+        longPollHoldTimeoutInMillis = unit.toMillis(timeout);
+    }
+
+    /**
+     * Delay all the responses to simulate the network latency
+     */
+    public void setResponseDelay(long delay, TimeUnit unit) {
+        responseDelayInMillis = unit.toMillis(delay);
+    }
+
+    /**
+     * Answer the next config requests with the response code instead of the configs
+     */
+    public void failNextConfigRequests(int count, int responseCode) {
+        configFaults.set(count, responseCode);
+    }
+
+    /**
+     * Answer the next long polling requests with the response code immediately
+     */
+    public void failNextLongPollRequests(int count, int responseCode) {
+        longPollFaults.set(count, responseCode);
     }
 
     private void resetApolloClientState(boolean stopLongPolling) {
@@ -331,4 +468,21 @@ public class ApolloTestingServer implements AutoCloseable {
         field.setAccessible(true);
         return field.get(longPollService);
     }
+
+    private static class FaultInjection {
+        private final AtomicInteger remaining = new AtomicInteger();
+        private volatile int responseCode;
+
+        void set(int count, int responseCode) {
+            this.responseCode = responseCode;
+            remaining.set(count);
+        }
+
+        MockResponse poll() {
+            if (remaining.get() <= 0 || remaining.getAndDecrement() <= 0) {
+                return null;
+            }
+            return new MockResponse().setResponseCode(responseCode);
+        }
+    }
 }
@@ -16,6 +16,7 @@
  */
 package com.ctrip.framework.apollo.mockserver;
 
+import java.util.concurrent.TimeUnit;
 import org.junit.rules.ExternalResource;
 
 /**
@@ -70,4 +71,32 @@ public class EmbeddedApollo extends ExternalResource {
   public void resetOverriddenProperties() {
     apollo.resetOverriddenProperties();
   }
+
+  /**
+   * Set how long the long polling requests are held when there is no change
+   */
+  public void setLongPollHoldTimeout(long timeout, TimeUnit unit) {
+    apollo.setLongPollHoldTimeout(timeout, unit);
+  }
+
+  /**
+   * Delay all the responses to simulate the network latency
+   */
+  public void setResponseDelay(long delay, TimeUnit unit) {
+    apollo.setResponseDelay(delay, unit);
+  }
+
+  /**
+   * Answer the next config requests with the response code instead of the configs
+   */
+  public void failNextConfigRequests(int count, int responseCode) {
+    apollo.failNextConfigRequests(count, responseCode);
+  }
+
+  /**
+   * Answer the next long polling requests with the response code immediately
+   */
+  public void failNextLongPollRequests(int count, int responseCode) {
+    apollo.failNextLongPollRequests(count, responseCode);
+  }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.mockserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.ctrip.framework.apollo.core.ApolloClientSystemConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
+import com.google.common.io.CharStreams;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ApolloMockServerLongPollingTest {
+
+  private static final Gson GSON = new Gson();
+  private static final String someAppId = "someAppId";
+  private static final String someNamespace = "anotherNamespace";
+
+  private ApolloTestingServer server;
+
+  @Before
+  public void setUp() throws Exception {
+    server = new ApolloTestingServer();
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    server.close();
+  }
+
+  @Test
+  public void testAnswerImmediatelyIfClientIsOutdated() throws Exception {
+    HttpResult result = longPoll(someNamespace, -1);
+
+    assertEquals(200, result.code);
+    assertEquals(1, parseNotifications(result.body).get(0).getNotificationId());
+  }
+
+  @Test
+  public void testHoldUntilTimeout() throws Exception {
+    long holdTimeout = 500;
+    server.setLongPollHoldTimeout(holdTimeout, TimeUnit.MILLISECONDS);
+
+    long start = System.currentTimeMillis();
+    HttpResult result = longPoll(someNamespace, 1);
+
+    assertEquals(304, result.code);
+    assertTrue(System.currentTimeMillis() - start >= holdTimeout);
+  }
+
+  @Test
+  public void testHoldUntilChanged() throws Exception {
+    CompletableFuture<HttpResult> parked = CompletableFuture.supplyAsync(() -> longPoll(someNamespace, 1));
+
+    TimeUnit.MILLISECONDS.sleep(200);
+    assertFalse(parked.isDone());
+
+    server.addOrModifyProperty(someAppId, someNamespace, "someKey", "someValue");
+    HttpResult result = parked.get(5, TimeUnit.SECONDS);
+    assertEquals(200, result.code);
+    ApolloConfigNotification notification = parseNotifications(result.body).get(0);
+    assertEquals(someNamespace, notification.getNamespaceName());
+    assertEquals(2, notification.getNotificationId());
+
+    server.deleteProperty(someAppId, someNamespace, "someKey");
+    result = longPoll(someNamespace, 2);
+    assertEquals(3, parseNotifications(result.body).get(0).getNotificationId());
+  }
+
+  @Test
+  public void testChangesOfOtherNamespacesDoNotWakeUp() throws Exception {
+    server.setLongPollHoldTimeout(500, TimeUnit.MILLISECONDS);
+    CompletableFuture<HttpResult> parked = CompletableFuture.supplyAsync(() -> longPoll(someNamespace, 1));
+
+    TimeUnit.MILLISECONDS.sleep(100);
+    server.addOrModifyProperty(someAppId, "application", "someKey", "someValue");
+
+    assertEquals(304, parked.get(5, TimeUnit.SECONDS).code);
+  }
+
+  @Test
+  public void testFaultInjection() throws Exception {
+    server.failNextConfigRequests(2, 500);
+    server.failNextLongPollRequests(1, 503);
+
+    assertEquals(500, loadConfig(someNamespace).code);
+    assertEquals(500, loadConfig(someNamespace).code);
+    assertEquals(200, loadConfig(someNamespace).code);
+    assertEquals(503, longPoll(someNamespace, -1).code);
+    assertEquals(200, longPoll(someNamespace, -1).code);
+  }
+
+  @Test
+  public void testResponseDelay() throws Exception {
+    long delay = 300;
+    server.setResponseDelay(delay, TimeUnit.MILLISECONDS);
+
+    long start = System.currentTimeMillis();
+    HttpResult result = loadConfig(someNamespace);
+
+    assertEquals(200, result.code);
+    assertTrue(System.currentTimeMillis() - start >= delay);
+  }
+
+  private HttpResult longPoll(String namespace, long notificationId) {
+    String notifications = GSON.toJson(
+        Collections.singletonList(new ApolloConfigNotification(namespace, notificationId)));
+    try {
+      return get(String.format("/notifications/v2?cluster=default&appId=%s&notifications=%s", someAppId,
+          URLEncoder.encode(notifications, StandardCharsets.UTF_8.name())));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private HttpResult loadConfig(String namespace) throws IOException {
+    return get(String.format("/configs/%s/default/%s", someAppId, namespace));
+  }
+
+  private HttpResult get(String path) throws IOException {
+    String configServiceUrl = System.getProperty(ApolloClientSystemConsts.APOLLO_CONFIG_SERVICE);
+    HttpURLConnection connection = (HttpURLConnection) new URL(configServiceUrl + path).openConnection();
+    connection.setReadTimeout(10000);
+    try {
+      int code = connection.getResponseCode();
+      String body = "";
+      if (code == 200) {
+        try (InputStreamReader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+          body = CharStreams.toString(reader);
+        }
+      }
+      return new HttpResult(code, body);
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  private List<ApolloConfigNotification> parseNotifications(String body) {
+    return GSON.fromJson(body, new TypeToken<List<ApolloConfigNotification>>() {
+    }.getType());
+  }
+
+  private static class HttpResult {
+    private final int code;
+    private final String body;
+
+    private HttpResult(int code, String body) {
+      this.code = code;
+      this.body = body;
+    }
+  }
+}
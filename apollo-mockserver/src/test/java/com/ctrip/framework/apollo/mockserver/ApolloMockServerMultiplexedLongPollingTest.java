@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.mockserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.ctrip.framework.apollo.Config;
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.ConfigService;
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.enums.LongPollingEngine;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+/**
+ * Runs in a dedicated surefire execution with apollo.long-polling.engine=multiplexed, see pom.xml
+ */
+public class ApolloMockServerMultiplexedLongPollingTest {
+
+  private static final int APP_COUNT = 100;
+  private static final String BLOCKING_LONG_POLL_THREAD_PREFIX = "Apollo-RemoteConfigLongPollService-";
+
+  @ClassRule
+  public static EmbeddedApollo embeddedApollo = new EmbeddedApollo();
+
+  @Test
+  public void testLongPollManyAppIds() throws Exception {
+    assertEquals(LongPollingEngine.MULTIPLEXED,
+        ApolloInjector.getInstance(ConfigUtil.class).getLongPollingEngine());
+
+    List<Config> configs = new ArrayList<>(APP_COUNT);
+    final CountDownLatch changes = new CountDownLatch(APP_COUNT);
+    for (int i = 0; i < APP_COUNT; i++) {
+      Config config = ConfigService.getConfig(appId(i), "application");
+      final String expectedValue = value(i);
+      config.addChangeListener(new ConfigChangeListener() {
+        @Override
+        public void onChange(ConfigChangeEvent changeEvent) {
+          if (changeEvent.isChanged("key1")
+              && expectedValue.equals(changeEvent.getChange("key1").getNewValue())) {
+            changes.countDown();
+          }
+        }
+      });
+      assertEquals("value1", config.getProperty("key1", null));
+      configs.add(config);
+    }
+
+    for (int i = 0; i < APP_COUNT; i++) {
+      embeddedApollo.addOrModifyProperty(appId(i), "application", "key1", value(i));
+    }
+
+    assertTrue(changes.await(30, TimeUnit.SECONDS));
+    for (int i = 0; i < APP_COUNT; i++) {
+      assertEquals(value(i), configs.get(i).getProperty("key1", null));
+    }
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      assertTrue(thread.getName(), !thread.getName().startsWith(BLOCKING_LONG_POLL_THREAD_PREFIX));
+    }
+  }
+
+  private String appId(int index) {
+    return "someAppId" + index;
+  }
+
+  private String value(int index) {
+    return "someValue" + index;
+  }
+}
@@ -16,6 +16,7 @@
  */
 package com.ctrip.framework.apollo.openapi.client;
 
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.openapi.client.constant.ApolloOpenApiConstants;
 import com.ctrip.framework.apollo.openapi.client.extend.ApolloStandardHttpRequestRetryHandler;
 import com.ctrip.framework.apollo.openapi.client.extend.IdempotentHttpMethod;
@@ -37,7 +38,23 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicHeader;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 
 /**
  * This class contains collections of methods to access Apollo Open Api.
@@ -45,7 +62,7 @@ import java.util.List;
  * For more information, please refer <a href="https://www.apolloconfig.com/#/zh/usage/apollo-open-api-platform">Apollo Wiki</a>.
  *
  */
-public class ApolloOpenApiClient {
+public class ApolloOpenApiClient implements Closeable {
   private final String portalUrl;
   private final String token;
   private final AppOpenApiService appService;
@@ -55,16 +72,26 @@ public class ApolloOpenApiClient {
   private final NamespaceOpenApiService namespaceService;
   private final ClusterOpenApiService clusterService;
   private final InstanceOpenApiService instanceService;
+  private final Executor asyncExecutor;
+  private final ExecutorService ownedAsyncExecutor;
+  private final CloseableHttpClient httpClient;
+  private final int maxConcurrentRequests;
   private static final Gson GSON = new GsonBuilder().setDateFormat(ApolloOpenApiConstants.JSON_DATE_FORMAT).create();
 
   private ApolloOpenApiClient(String portalUrl, String token, RequestConfig requestConfig,
-      int retryCount, IdempotentHttpMethod[] idempotentHttpMethods) {
+      int retryCount, IdempotentHttpMethod[] idempotentHttpMethods, int maxConcurrentRequests,
+      Executor asyncExecutor) {
     this.portalUrl = portalUrl;
     this.token = token;
+    this.maxConcurrentRequests = maxConcurrentRequests;
+    this.ownedAsyncExecutor = asyncExecutor != null ? null : createAsyncExecutor(maxConcurrentRequests);
+    this.asyncExecutor = asyncExecutor != null ? asyncExecutor : ownedAsyncExecutor;
     CloseableHttpClient client = HttpClients.custom().setDefaultRequestConfig(requestConfig)
+        .setMaxConnTotal(maxConcurrentRequests).setMaxConnPerRoute(maxConcurrentRequests)
         .setRetryHandler(retryCount > 0 ?
             new ApolloStandardHttpRequestRetryHandler(retryCount, idempotentHttpMethods) : null)
         .setDefaultHeaders(Lists.newArrayList(new BasicHeader("Authorization", token))).build();
+    this.httpClient = client;
 
     String baseUrl = this.portalUrl + ApolloOpenApiConstants.OPEN_API_V1_PREFIX;
     appService = new AppOpenApiService(client, baseUrl, GSON);
@@ -259,6 +286,355 @@ public class ApolloOpenApiClient {
     return instanceService.getInstanceCountByNamespace(appId, env, clusterName, namespaceName);
   }
 
+  // The asynchronous variants below run the blocking calls on the async executor of this client,
+  // the returned futures complete exceptionally with the same exceptions the blocking calls throw.
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<Void> createAppAsync(OpenCreateAppDTO req) {
+    return runAsync(() -> createApp(req));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<List<OpenEnvClusterDTO>> getEnvClusterInfoAsync(String appId) {
+    return supplyAsync(() -> getEnvClusterInfo(appId));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<List<OpenAppDTO>> getAllAppsAsync() {
+    return supplyAsync(this::getAllApps);
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<List<OpenOrganizationDto>> getOrganizationsAsync() {
+    return supplyAsync(this::getOrganizations);
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<List<OpenAppDTO>> getAuthorizedAppsAsync() {
+    return supplyAsync(this::getAuthorizedApps);
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<List<OpenAppDTO>> getAppsByIdsAsync(List<String> appIds) {
+    return supplyAsync(() -> getAppsByIds(appIds));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<List<OpenNamespaceDTO>> getNamespacesAsync(String appId, String env,
+      String clusterName, boolean fillItemDetail) {
+    return supplyAsync(() -> getNamespaces(appId, env, clusterName, fillItemDetail));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<OpenClusterDTO> getClusterAsync(String appId, String env, String clusterName) {
+    return supplyAsync(() -> getCluster(appId, env, clusterName));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<OpenClusterDTO> createClusterAsync(String env, OpenClusterDTO openClusterDTO) {
+    return supplyAsync(() -> createCluster(env, openClusterDTO));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<OpenNamespaceDTO> getNamespaceAsync(String appId, String env, String clusterName,
+      String namespaceName, boolean fillItemDetail) {
+    return supplyAsync(() -> getNamespace(appId, env, clusterName, namespaceName, fillItemDetail));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<OpenAppNamespaceDTO> createAppNamespaceAsync(OpenAppNamespaceDTO appNamespaceDTO) {
+    return supplyAsync(() -> createAppNamespace(appNamespaceDTO));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<OpenNamespaceLockDTO> getNamespaceLockAsync(String appId, String env,
+      String clusterName, String namespaceName) {
+    return supplyAsync(() -> getNamespaceLock(appId, env, clusterName, namespaceName));
+  }
+
+  /**
+   * @return the future of the item, which completes with null if the item does not exist
+   * @since 2.6.0
+   */
+  public CompletableFuture<OpenItemDTO> getItemAsync(String appId, String env, String clusterName,
+      String namespaceName, String key) {
+    return supplyAsync(() -> getItem(appId, env, clusterName, namespaceName, key));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<OpenPageDTO<OpenItemDTO>> findItemsByNamespaceAsync(String appId, String env,
+      String clusterName, String namespaceName, int page, int size) {
+    return supplyAsync(() -> findItemsByNamespace(appId, env, clusterName, namespaceName, page, size));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<OpenItemDTO> createItemAsync(String appId, String env, String clusterName,
+      String namespaceName, OpenItemDTO itemDTO) {
+    return supplyAsync(() -> createItem(appId, env, clusterName, namespaceName, itemDTO));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<Void> updateItemAsync(String appId, String env, String clusterName,
+      String namespaceName, OpenItemDTO itemDTO) {
+    return runAsync(() -> updateItem(appId, env, clusterName, namespaceName, itemDTO));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<Void> createOrUpdateItemAsync(String appId, String env, String clusterName,
+      String namespaceName, OpenItemDTO itemDTO) {
+    return runAsync(() -> createOrUpdateItem(appId, env, clusterName, namespaceName, itemDTO));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<Void> removeItemAsync(String appId, String env, String clusterName,
+      String namespaceName, String key, String operator) {
+    return runAsync(() -> removeItem(appId, env, clusterName, namespaceName, key, operator));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<OpenReleaseDTO> publishNamespaceAsync(String appId, String env, String clusterName,
+      String namespaceName, NamespaceReleaseDTO releaseDTO) {
+    return supplyAsync(() -> publishNamespace(appId, env, clusterName, namespaceName, releaseDTO));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<OpenReleaseDTO> getLatestActiveReleaseAsync(String appId, String env,
+      String clusterName, String namespaceName) {
+    return supplyAsync(() -> getLatestActiveRelease(appId, env, clusterName, namespaceName));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<Void> rollbackReleaseAsync(String env, long releaseId, String operator) {
+    return runAsync(() -> rollbackRelease(env, releaseId, operator));
+  }
+
+  /**
+   * @since 2.6.0
+   */
+  public CompletableFuture<Integer> getInstanceCountByNamespaceAsync(String appId, String env,
+      String clusterName, String namespaceName) {
+    return supplyAsync(() -> getInstanceCountByNamespace(appId, env, clusterName, namespaceName));
+  }
+
+  /**
+   * Create or update the items concurrently and wait for all of them, at most max concurrent requests
+   * of this client are in flight at the same time. A failed item does not stop the others.
+   * <p>
+   * Do not call it from the async executor, use
+   * {@link #batchCreateOrUpdateItemsAsync(String, String, String, String, List)} instead.
+   *
+   * @return the keys succeeded and the failures
+   * @since 2.6.0
+   */
+  public ItemBatchResult batchCreateOrUpdateItems(String appId, String env, String clusterName,
+      String namespaceName, List<OpenItemDTO> items) {
+    return batchCreateOrUpdateItemsAsync(appId, env, clusterName, namespaceName, items).join();
+  }
+
+  /**
+   * Create or update the items concurrently without blocking, at most max concurrent requests of
+   * this client are in flight at the same time. A failed item does not stop the others.
+   *
+   * @return the future of the keys succeeded and the failures, which never completes exceptionally
+   * @since 2.6.0
+   */
+  public CompletableFuture<ItemBatchResult> batchCreateOrUpdateItemsAsync(String appId, String env,
+      String clusterName, String namespaceName, List<OpenItemDTO> items) {
+    Preconditions.checkArgument(items != null, "Items should not be null");
+    List<String> keys = new ArrayList<>(items.size());
+    for (OpenItemDTO item : items) {
+      keys.add(item.getKey());
+    }
+    return new BatchExecution(keys,
+        index -> createOrUpdateItem(appId, env, clusterName, namespaceName, items.get(index))).start();
+  }
+
+  /**
+   * Remove the items concurrently and wait for all of them, at most max concurrent requests of this
+   * client are in flight at the same time. A failed item does not stop the others.
+   * <p>
+   * Do not call it from the async executor, use
+   * {@link #batchRemoveItemsAsync(String, String, String, String, List, String)} instead.
+   *
+   * @param operator the user who removes the items
+   * @return the keys succeeded and the failures
+   * @since 2.6.0
+   */
+  public ItemBatchResult batchRemoveItems(String appId, String env, String clusterName, String namespaceName,
+      List<String> keys, String operator) {
+    return batchRemoveItemsAsync(appId, env, clusterName, namespaceName, keys, operator).join();
+  }
+
+  /**
+   * Remove the items concurrently without blocking, at most max concurrent requests of this client
+   * are in flight at the same time. A failed item does not stop the others.
+   *
+   * @param operator the user who removes the items
+   * @return the future of the keys succeeded and the failures, which never completes exceptionally
+   * @since 2.6.0
+   */
+  public CompletableFuture<ItemBatchResult> batchRemoveItemsAsync(String appId, String env,
+      String clusterName, String namespaceName, List<String> keys, String operator) {
+    Preconditions.checkArgument(keys != null, "Keys should not be null");
+    return new BatchExecution(keys,
+        index -> removeItem(appId, env, clusterName, namespaceName, keys.get(index), operator)).start();
+  }
+
+  /**
+   * Close the http client and the default async executor, the executor passed to the builder is
+   * owned by the caller and left running.
+   *
+   * @since 2.6.0
+   */
+  @Override
+  public void close() {
+    if (ownedAsyncExecutor != null) {
+      ownedAsyncExecutor.shutdown();
+    }
+    try {
+      httpClient.close();
+    } catch (IOException ex) {
+      // ignore
+    }
+  }
+
+  private CompletableFuture<Void> runAsync(Runnable call) {
+    return CompletableFuture.runAsync(call, asyncExecutor);
+  }
+
+  private <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+    return CompletableFuture.supplyAsync(call, asyncExecutor);
+  }
+
+  /**
+   * The queue is bounded, the caller runs the operation itself when it's full
+   */
+  private static ThreadPoolExecutor createAsyncExecutor(int maxConcurrentRequests) {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrentRequests, maxConcurrentRequests,
+        60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(ApolloOpenApiConstants.DEFAULT_ASYNC_QUEUE_CAPACITY),
+        ApolloThreadFactory.create("OpenApiAsync", true), new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Runs the operations of a batch on the async executor without blocking any thread, a new one is
+   * submitted whenever one completes so at most max concurrent requests are in flight.
+   */
+  private class BatchExecution {
+    private final List<String> keys;
+    private final IntConsumer operation;
+    private final Throwable[] failures;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final AtomicInteger remaining;
+    // submits are serialized in a loop, so an executor running the operations in place doesn't recurse
+    private final AtomicInteger pendingSubmits = new AtomicInteger();
+    private final CompletableFuture<ItemBatchResult> result = new CompletableFuture<>();
+
+    private BatchExecution(List<String> keys, IntConsumer operation) {
+      this.keys = keys;
+      this.operation = operation;
+      this.failures = new Throwable[keys.size()];
+      this.remaining = new AtomicInteger(keys.size());
+    }
+
+    private CompletableFuture<ItemBatchResult> start() {
+      if (keys.isEmpty()) {
+        complete();
+        return result;
+      }
+      for (int i = 0; i < Math.min(maxConcurrentRequests, keys.size()); i++) {
+        requestSubmit();
+      }
+      return result;
+    }
+
+    private void requestSubmit() {
+      if (pendingSubmits.getAndIncrement() != 0) {
+        return;
+      }
+      do {
+        submitNext();
+      } while (pendingSubmits.decrementAndGet() != 0);
+    }
+
+    private void submitNext() {
+      int index = nextIndex.getAndIncrement();
+      if (index >= keys.size()) {
+        return;
+      }
+      CompletableFuture<Void> future;
+      try {
+        future = CompletableFuture.runAsync(() -> operation.accept(index), asyncExecutor);
+      } catch (RejectedExecutionException ex) {
+        future = new CompletableFuture<>();
+        future.completeExceptionally(ex);
+      }
+      future.whenComplete((ignored, ex) -> {
+        if (ex != null) {
+          failures[index] = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        }
+        if (remaining.decrementAndGet() == 0) {
+          complete();
+        } else {
+          requestSubmit();
+        }
+      });
+    }
+
+    private void complete() {
+      List<String> succeededKeys = new ArrayList<>();
+      Map<String, Throwable> failedKeys = new LinkedHashMap<>();
+      for (int i = 0; i < keys.size(); i++) {
+        if (failures[i] == null) {
+          succeededKeys.add(keys.get(i));
+        } else {
+          failedKeys.put(keys.get(i), failures[i]);
+        }
+      }
+      result.complete(new ItemBatchResult(succeededKeys, failedKeys));
+    }
+  }
 
   public String getPortalUrl() {
     return portalUrl;
@@ -280,6 +656,8 @@ public class ApolloOpenApiClient {
     private int readTimeout = -1;
     private int retryCount = -1;
     private IdempotentHttpMethod[] idempotentHttpMethods;
+    private int maxConcurrentRequests = -1;
+    private Executor asyncExecutor;
 
     /**
      * @param portalUrl The apollo portal url, e.g http://localhost:8070
@@ -329,6 +707,28 @@ public class ApolloOpenApiClient {
       return this;
     }
 
+    /**
+     * @param maxConcurrentRequests the max number of requests in flight at the same time, which bounds
+     *                              the http connection pool, the default async executor and the batch
+     *                              operations
+     * @since 2.6.0
+     */
+    public ApolloOpenApiClientBuilder withMaxConcurrentRequests(int maxConcurrentRequests) {
+      this.maxConcurrentRequests = maxConcurrentRequests;
+      return this;
+    }
+
+    /**
+     * @param asyncExecutor the executor to run the asynchronous and batch operations, owned by the
+     *                      caller. By default a pool of max concurrent requests daemon threads with a
+     *                      bounded queue, which is shut down by {@link ApolloOpenApiClient#close()}
+     * @since 2.6.0
+     */
+    public ApolloOpenApiClientBuilder withAsyncExecutor(Executor asyncExecutor) {
+      this.asyncExecutor = asyncExecutor;
+      return this;
+    }
+
     public ApolloOpenApiClient build() {
       Preconditions.checkArgument(!Strings.isNullOrEmpty(portalUrl), "Portal url should not be null or empty!");
       Preconditions.checkArgument(portalUrl.startsWith("http://") || portalUrl.startsWith("https://"), "Portal url should start with http:// or https://" );
@@ -342,10 +742,15 @@ public class ApolloOpenApiClient {
         readTimeout = ApolloOpenApiConstants.DEFAULT_READ_TIMEOUT;
       }
 
+      if (maxConcurrentRequests <= 0) {
+        maxConcurrentRequests = ApolloOpenApiConstants.DEFAULT_MAX_CONCURRENT_REQUESTS;
+      }
+
       RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(connectTimeout)
           .setSocketTimeout(readTimeout).build();
 
-      return new ApolloOpenApiClient(portalUrl, token, requestConfig, retryCount, idempotentHttpMethods);
+      return new ApolloOpenApiClient(portalUrl, token, requestConfig, retryCount, idempotentHttpMethods,
+          maxConcurrentRequests, asyncExecutor);
     }
   }
 }
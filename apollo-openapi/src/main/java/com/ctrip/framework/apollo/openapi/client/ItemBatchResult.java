@@ -0,0 +1,64 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.openapi.client;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a batch item operation, the items are processed independently so some of them may
+ * fail while the others succeed.
+ *
+ * @since 2.6.0
+ */
+public class ItemBatchResult {
+
+  private final List<String> succeededKeys;
+  private final Map<String, Throwable> failures;
+
+  ItemBatchResult(List<String> succeededKeys, Map<String, Throwable> failures) {
+    this.succeededKeys = Collections.unmodifiableList(succeededKeys);
+    this.failures = Collections.unmodifiableMap(failures);
+  }
+
+  /**
+   * @return the keys of the items processed successfully, in the order they were submitted
+   */
+  public List<String> getSucceededKeys() {
+    return succeededKeys;
+  }
+
+  /**
+   * @return the keys of the failed items and the reasons, in the order they were submitted
+   */
+  public Map<String, Throwable> getFailures() {
+    return failures;
+  }
+
+  public boolean isAllSucceeded() {
+    return failures.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "ItemBatchResult{" +
+        "succeededKeys=" + succeededKeys +
+        ", failedKeys=" + failures.keySet() +
+        '}';
+  }
+}
@@ -19,6 +19,8 @@ package com.ctrip.framework.apollo.openapi.client.constant;
 public interface ApolloOpenApiConstants {
   int DEFAULT_CONNECT_TIMEOUT = 1000; //1 second
   int DEFAULT_READ_TIMEOUT = 5000; //5 seconds
+  int DEFAULT_MAX_CONCURRENT_REQUESTS = 16;
+  int DEFAULT_ASYNC_QUEUE_CAPACITY = 1024;
   String OPEN_API_V1_PREFIX = "/openapi/v1";
   String JSON_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
 
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.openapi.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.ctrip.framework.apollo.openapi.dto.OpenItemDTO;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies the asynchronous and batch operations against a slow mock portal.
+ */
+public class ApolloOpenApiClientAsyncIntegrationTest {
+
+  private static final String ITEMS_PATH =
+      "/openapi/v1/envs/DEV/apps/SampleApp/clusters/default/namespaces/application/items/";
+  private static final int MAX_CONCURRENT_REQUESTS = 4;
+  private static final long RESPONSE_DELAY_IN_MS = 100;
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private SlowPortalHandler handler;
+  private ApolloOpenApiClient client;
+
+  @Before
+  public void setUp() throws Exception {
+    handler = new SlowPortalHandler();
+    serverExecutor = Executors.newFixedThreadPool(MAX_CONCURRENT_REQUESTS * 4);
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/openapi/v1/", handler);
+    server.setExecutor(serverExecutor);
+    server.start();
+
+    client = ApolloOpenApiClient.newBuilder()
+        .withPortalUrl(String.format("http://127.0.0.1:%d", server.getAddress().getPort()))
+        .withToken("async-token")
+        .withMaxConcurrentRequests(MAX_CONCURRENT_REQUESTS)
+        .build();
+  }
+
+  @After
+  public void tearDown() {
+    client.close();
+    if (server != null) {
+      server.stop(0);
+    }
+    serverExecutor.shutdownNow();
+  }
+
+  @Test
+  public void shouldGetItemsConcurrently() throws Exception {
+    int itemCount = MAX_CONCURRENT_REQUESTS * 8;
+    List<CompletableFuture<OpenItemDTO>> futures = new ArrayList<>();
+
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < itemCount; i++) {
+      futures.add(client.getItemAsync("SampleApp", "DEV", null, null, "key" + i));
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+    long elapsed = System.currentTimeMillis() - start;
+
+    for (int i = 0; i < itemCount; i++) {
+      assertEquals("key" + i, futures.get(i).get().getKey());
+    }
+    assertEquals(MAX_CONCURRENT_REQUESTS, handler.maxInFlight.get());
+    // much faster than getting them one by one
+    assertTrue(elapsed < itemCount * RESPONSE_DELAY_IN_MS / 2);
+  }
+
+  @Test
+  public void shouldCompleteWithNullIfItemNotExists() throws Exception {
+    assertNull(client.getItemAsync("SampleApp", "DEV", null, null, "missing").get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldCompleteExceptionallyOnServerError() throws Exception {
+    try {
+      client.getItemAsync("SampleApp", "DEV", null, null, "bad").get(5, TimeUnit.SECONDS);
+      fail("Expected ExecutionException to be thrown");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof RuntimeException);
+      assertTrue(ex.getCause().getMessage().contains("Get item: bad"));
+    }
+  }
+
+  @Test
+  public void shouldReportPartialFailuresOfBatchCreateOrUpdate() {
+    List<OpenItemDTO> items = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      OpenItemDTO item = new OpenItemDTO();
+      item.setKey(i % 5 == 0 ? "bad" + i : "key" + i);
+      item.setValue("value" + i);
+      item.setDataChangeCreatedBy("apollo");
+      items.add(item);
+    }
+
+    ItemBatchResult result = client.batchCreateOrUpdateItems("SampleApp", "DEV", null, null, items);
+
+    assertFalse(result.isAllSucceeded());
+    assertEquals(16, result.getSucceededKeys().size());
+    assertEquals("key1", result.getSucceededKeys().get(0));
+    assertEquals(Arrays.asList("bad0", "bad5", "bad10", "bad15"), new ArrayList<>(result.getFailures().keySet()));
+    assertTrue(result.getFailures().get("bad5").getMessage().contains("CreateOrUpdate item: bad5"));
+    assertEquals(20, handler.requestCount.get());
+    assertEquals(MAX_CONCURRENT_REQUESTS, handler.maxInFlight.get());
+  }
+
+  @Test
+  public void shouldBatchRemoveItems() {
+    ItemBatchResult result = client.batchRemoveItems("SampleApp", "DEV", null, null,
+        Arrays.asList("key1", "key2", "key3"), "apollo");
+
+    assertTrue(result.isAllSucceeded());
+    assertEquals(Arrays.asList("key1", "key2", "key3"), result.getSucceededKeys());
+    assertEquals(3, handler.requestCount.get());
+  }
+
+  @Test
+  public void shouldBatchFromAsyncCallbacksWithoutBlocking() throws Exception {
+    List<OpenItemDTO> items = new ArrayList<>();
+    for (int i = 0; i < MAX_CONCURRENT_REQUESTS; i++) {
+      OpenItemDTO item = new OpenItemDTO();
+      item.setKey("key" + i);
+      item.setValue("value" + i);
+      item.setDataChangeCreatedBy("apollo");
+      items.add(item);
+    }
+
+    // every thread of the async executor starts a batch, which would deadlock if the batch blocked
+    List<CompletableFuture<ItemBatchResult>> futures = new ArrayList<>();
+    for (int i = 0; i < MAX_CONCURRENT_REQUESTS; i++) {
+      futures.add(client.getItemAsync("SampleApp", "DEV", null, null, "key" + i)
+          .thenCompose(item -> client.batchCreateOrUpdateItemsAsync("SampleApp", "DEV", null, null, items)));
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+    for (CompletableFuture<ItemBatchResult> future : futures) {
+      assertTrue(future.get().isAllSucceeded());
+    }
+    assertEquals(MAX_CONCURRENT_REQUESTS * (MAX_CONCURRENT_REQUESTS + 1), handler.requestCount.get());
+  }
+
+  @Test
+  public void shouldBatchEmptyItems() throws Exception {
+    ItemBatchResult result = client.batchRemoveItemsAsync("SampleApp", "DEV", null, null,
+        new ArrayList<>(), "apollo").get(5, TimeUnit.SECONDS);
+
+    assertTrue(result.isAllSucceeded());
+    assertTrue(result.getSucceededKeys().isEmpty());
+    assertEquals(0, handler.requestCount.get());
+  }
+
+  private static class SlowPortalHandler implements HttpHandler {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      drain(exchange.getRequestBody());
+      requestCount.incrementAndGet();
+      int current = inFlight.incrementAndGet();
+      maxInFlight.accumulateAndGet(current, Math::max);
+      try {
+        TimeUnit.MILLISECONDS.sleep(RESPONSE_DELAY_IN_MS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        inFlight.decrementAndGet();
+      }
+
+      String path = exchange.getRequestURI().getPath();
+      String key = path.startsWith(ITEMS_PATH) ? path.substring(ITEMS_PATH.length()) : "";
+      if (key.startsWith("bad")) {
+        write(exchange, 500, "internal error");
+      } else if (key.equals("missing")) {
+        write(exchange, 404, "not found");
+      } else if ("GET".equals(exchange.getRequestMethod())) {
+        write(exchange, 200, "{\"key\":\"" + key + "\",\"value\":\"value\"}");
+      } else {
+        write(exchange, 200, "");
+      }
+    }
+
+    private void drain(InputStream inputStream) throws IOException {
+      byte[] buffer = new byte[1024];
+      while (inputStream.read(buffer) != -1) {
+        // discard the request body so the connection can be reused
+      }
+    }
+
+    private void write(HttpExchange exchange, int statusCode, String body) throws IOException {
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json;charset=UTF-8");
+      exchange.sendResponseHeaders(statusCode, bytes.length);
+      try (OutputStream outputStream = exchange.getResponseBody()) {
+        outputStream.write(bytes);
+      }
+    }
+  }
+}